@@ -0,0 +1,90 @@
+package com.hermesworld.ais.galapagos;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Checks the JMH results for allocation regressions. Unlike throughput, the normalized allocation rate (bytes allocated
+ * per benchmark operation, reported by the JMH <code>gc</code> profiler) does not depend on the machine running the
+ * benchmarks, so it can be compared against fixed thresholds. <br>
+ * Thresholds are read from a properties file, where each key consists of the simple class name of the benchmark, the
+ * benchmark method, and the values of all benchmark parameters, separated by dots, e.g.
+ * <code>SchemaCompatibilityValidatorBenchmark.validate.wideObject</code>. Benchmarks without a threshold are ignored.
+ * <br>
+ * Usage: <code>BenchmarkAllocationThresholds &lt;jmh-result.json&gt; &lt;thresholds.properties&gt;</code>
+ */
+public final class BenchmarkAllocationThresholds {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    private BenchmarkAllocationThresholds() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("Usage: BenchmarkAllocationThresholds <jmh-result.json> <thresholds.properties>");
+            System.exit(2);
+        }
+
+        JsonNode results = new ObjectMapper().readTree(new File(args[0]));
+        Properties thresholds = new Properties();
+        try (InputStream in = new FileInputStream(args[1])) {
+            thresholds.load(in);
+        }
+
+        List<String> violations = new ArrayList<>();
+        for (JsonNode result : results) {
+            String key = thresholdKey(result);
+            String threshold = thresholds.getProperty(key);
+            Double allocated = allocationPerOperation(result);
+            if (threshold == null || allocated == null) {
+                continue;
+            }
+
+            double maxBytes = Double.parseDouble(threshold);
+            System.out.printf("%s: %.0f B/op (threshold %.0f B/op)%n", key, allocated, maxBytes);
+            if (allocated > maxBytes) {
+                violations.add(key + " allocates " + Math.round(allocated) + " B/op, threshold is "
+                        + Math.round(maxBytes) + " B/op");
+            }
+        }
+
+        if (!violations.isEmpty()) {
+            violations.forEach(v -> System.err.println("Allocation regression: " + v));
+            System.exit(1);
+        }
+    }
+
+    private static String thresholdKey(JsonNode result) {
+        String benchmark = result.path("benchmark").asText();
+        int classStart = benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1);
+        StringBuilder key = new StringBuilder(benchmark.substring(classStart + 1));
+        Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+        while (params.hasNext()) {
+            key.append('.').append(params.next().getValue().asText());
+        }
+        return key.toString();
+    }
+
+    private static Double allocationPerOperation(JsonNode result) {
+        Iterator<Map.Entry<String, JsonNode>> metrics = result.path("secondaryMetrics").fields();
+        while (metrics.hasNext()) {
+            Map.Entry<String, JsonNode> metric = metrics.next();
+            // older JMH versions prefix secondary metrics with a middle dot
+            if (metric.getKey().replace("·", "").equals(ALLOCATION_METRIC)) {
+                return metric.getValue().path("score").asDouble();
+            }
+        }
+        return null;
+    }
+
+}
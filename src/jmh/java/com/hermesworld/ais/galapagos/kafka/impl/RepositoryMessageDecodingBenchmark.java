@@ -0,0 +1,99 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hermesworld.ais.galapagos.kafka.KafkaSender;
+import com.hermesworld.ais.galapagos.topics.SchemaMetadata;
+import com.hermesworld.ais.galapagos.util.FutureUtil;
+import com.hermesworld.ais.galapagos.util.JsonUtil;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the decoding of metadata repository records as done before the streaming parser was introduced (parse into
+ * an <code>org.json</code> tree, serialize the <code>obj</code> field back to a String, bind it via Jackson) with the
+ * current single-pass decoding of {@link TopicBasedRepositoryImpl}. The latter also includes storing the object in the
+ * repository, so it slightly overstates the decoding costs. <br>
+ * Payloads are schema metadata records, as these are by far the largest records on the Galapagos metadata topics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryMessageDecodingBenchmark {
+
+    private static final String TOPIC_NAME = "galapagos.schemas";
+
+    private static final String KEY = "schema-1";
+
+    /**
+     * Number of properties in the JSON schema of the benchmark record.
+     */
+    @Param({ "5", "200" })
+    public int schemaProperties;
+
+    private final ObjectMapper objectMapper = JsonUtil.newObjectMapper();
+
+    private String message;
+
+    private byte[] messageBytes;
+
+    private TopicBasedRepositoryImpl<SchemaMetadata> repository;
+
+    @Setup
+    public void setup() throws Exception {
+        SchemaMetadata metadata = new SchemaMetadata();
+        metadata.setId(KEY);
+        metadata.setTopicName("de.hlg.events.sales.my-topic");
+        metadata.setSchemaVersion(3);
+        metadata.setCreatedAt(ZonedDateTime.now());
+        metadata.setCreatedBy("user1");
+        metadata.setChangeDescription("Added some fields");
+        metadata.setJsonSchema(buildSchema(schemaProperties));
+
+        message = objectMapper.writeValueAsString(Map.of("obj", metadata));
+        messageBytes = message.getBytes(StandardCharsets.UTF_8);
+
+        KafkaSender sender = (topic, key, value) -> FutureUtil.noop();
+        repository = new TopicBasedRepositoryImpl<>(TOPIC_NAME, "schemas", SchemaMetadata.class, sender);
+    }
+
+    @Benchmark
+    public void legacyDecoding(Blackhole blackhole) throws Exception {
+        JSONObject obj = new JSONObject(message);
+        if (!obj.optBoolean("deleted")) {
+            blackhole.consume(objectMapper.readValue(obj.getJSONObject("obj").toString(), SchemaMetadata.class));
+        }
+    }
+
+    @Benchmark
+    public void streamingDecoding(Blackhole blackhole) {
+        repository.messageReceived(TOPIC_NAME, KEY, messageBytes);
+        blackhole.consume(repository.getObject(KEY));
+    }
+
+    private static String buildSchema(int propertyCount) {
+        JSONObject properties = new JSONObject();
+        for (int i = 0; i < propertyCount; i++) {
+            JSONObject property = new JSONObject();
+            property.put("type", i % 3 == 0 ? "integer" : "string");
+            property.put("description", "Property " + i + " " + UUID.randomUUID());
+            properties.put("field" + i, property);
+        }
+
+        JSONObject schema = new JSONObject();
+        schema.put("$schema", "http://json-schema.org/draft-07/schema#");
+        schema.put("type", "object");
+        schema.put("properties", properties);
+        return schema.toString();
+    }
+
+}
@@ -0,0 +1,173 @@
+package com.hermesworld.ais.galapagos.schemas;
+
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.loader.SchemaLoader;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link SchemaCompatibilityValidator} for a corpus of realistic, compatible schema pairs,
+ * so the validator has to walk the full schema tree. Run it together with the <code>gc</code> profiler (which the
+ * <code>benchmarks</code> Maven profile does by default) to also get the allocation rate per validation. <br>
+ * The corpus consists of:
+ * <ul>
+ * <li><code>wideObject</code>: An object with 500 properties of different types.</li>
+ * <li><code>deepNesting</code>: Objects nested 30 levels deep.</li>
+ * <li><code>largeEnum</code>: A property with 2,000 enum values, of which the new schema removes some.</li>
+ * <li><code>combined</code>: A <code>oneOf</code> of 20 object schemas, distinguished by a constant.</li>
+ * <li><code>patternProperties</code>: 100 properties which are replaced by a pattern property in the new schema.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaCompatibilityValidatorBenchmark {
+
+    @Param({ "wideObject", "deepNesting", "largeEnum", "combined", "patternProperties" })
+    public String corpus;
+
+    private Schema oldSchema;
+
+    private Schema newSchema;
+
+    @Setup
+    public void setup() throws Exception {
+        switch (corpus) {
+        case "wideObject":
+            oldSchema = compile(wideObject(500, false));
+            newSchema = compile(wideObject(500, true));
+            break;
+        case "deepNesting":
+            oldSchema = compile(nestedObject(30, false));
+            newSchema = compile(nestedObject(30, true));
+            break;
+        case "largeEnum":
+            oldSchema = compile(enumObject(2000, 0));
+            newSchema = compile(enumObject(2000, 100));
+            break;
+        case "combined":
+            oldSchema = compile(combinedObject(20));
+            newSchema = compile(combinedObject(20));
+            break;
+        case "patternProperties":
+            oldSchema = compile(patternObject(100, false));
+            newSchema = compile(patternObject(100, true));
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown corpus: " + corpus);
+        }
+
+        // the corpus must consist of compatible schemas only, so the full tree is validated
+        validate();
+    }
+
+    @Benchmark
+    public SchemaCompatibilityValidator validate() throws IncompatibleSchemaException {
+        SchemaCompatibilityValidator validator = new SchemaCompatibilityValidator(oldSchema, newSchema,
+                new ConsumerCompatibilityErrorHandler(false));
+        validator.validate();
+        return validator;
+    }
+
+    private static JSONObject wideObject(int propertyCount, boolean addProperties) {
+        JSONObject properties = new JSONObject();
+        JSONArray required = new JSONArray();
+        for (int i = 0; i < propertyCount; i++) {
+            properties.put("field" + i, primitive(i));
+            if (i % 5 == 0) {
+                required.put("field" + i);
+            }
+        }
+        if (addProperties) {
+            for (int i = 0; i < 10; i++) {
+                properties.put("newField" + i, primitive(i));
+            }
+        }
+        return object(properties).put("required", required);
+    }
+
+    private static JSONObject nestedObject(int depth, boolean addProperties) {
+        JSONObject current = object(new JSONObject().put("leaf", primitive(0)));
+        for (int i = depth - 1; i >= 0; i--) {
+            JSONObject properties = new JSONObject();
+            properties.put("id" + i, primitive(i));
+            properties.put("name" + i, primitive(i + 1));
+            properties.put("tags" + i, new JSONObject().put("type", "array").put("items", primitive(i + 2)));
+            if (addProperties) {
+                properties.put("added" + i, primitive(i));
+            }
+            properties.put("child", current);
+            current = object(properties).put("required", new JSONArray().put("id" + i));
+        }
+        return current;
+    }
+
+    private static JSONObject enumObject(int valueCount, int removedValues) {
+        JSONArray values = new JSONArray();
+        for (int i = removedValues; i < valueCount; i++) {
+            values.put("VALUE_" + i);
+        }
+        JSONObject properties = new JSONObject();
+        properties.put("status", new JSONObject().put("type", "string").put("enum", values));
+        properties.put("id", primitive(0));
+        return object(properties);
+    }
+
+    private static JSONObject combinedObject(int variantCount) {
+        JSONArray variants = new JSONArray();
+        for (int i = 0; i < variantCount; i++) {
+            JSONObject properties = new JSONObject();
+            properties.put("kind", new JSONObject().put("const", "kind" + i));
+            for (int j = 0; j < 10; j++) {
+                properties.put("attr" + j, primitive(i + j));
+            }
+            variants.put(object(properties).put("required", new JSONArray().put("kind")));
+        }
+        return object(new JSONObject().put("payload", new JSONObject().put("oneOf", variants)));
+    }
+
+    private static JSONObject patternObject(int propertyCount, boolean usePattern) {
+        JSONObject result;
+        if (usePattern) {
+            result = object(new JSONObject()).put("patternProperties",
+                    new JSONObject().put("^attr_[0-9]+$", new JSONObject().put("type", "string")));
+        }
+        else {
+            JSONObject properties = new JSONObject();
+            for (int i = 0; i < propertyCount; i++) {
+                properties.put("attr_" + i, new JSONObject().put("type", "string"));
+            }
+            result = object(properties);
+        }
+        return result.put("additionalProperties", false);
+    }
+
+    private static JSONObject primitive(int index) {
+        switch (index % 4) {
+        case 0:
+            return new JSONObject().put("type", "string").put("maxLength", 200);
+        case 1:
+            return new JSONObject().put("type", "integer").put("minimum", 0);
+        case 2:
+            return new JSONObject().put("type", "number");
+        default:
+            return new JSONObject().put("type", "string").put("format", "date-time");
+        }
+    }
+
+    private static JSONObject object(JSONObject properties) {
+        return new JSONObject().put("type", "object").put("properties", properties);
+    }
+
+    private static Schema compile(JSONObject schema) {
+        schema.put("$schema", "http://json-schema.org/draft-07/schema#");
+        return SchemaLoader.builder().draftV7Support().schemaJson(schema).build().load().build();
+    }
+
+}
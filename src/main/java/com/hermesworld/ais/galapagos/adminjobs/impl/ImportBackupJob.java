@@ -15,7 +15,9 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
@@ -122,31 +124,30 @@ public class ImportBackupJob extends AbstractAdminJob {
 
             JSONObject contents = data.getJSONObject(topic);
 
+            List<HasKey> values = new ArrayList<>();
             Iterator<String> keys = contents.keys();
             while (keys.hasNext()) {
                 String key = keys.next();
 
                 JSONObject content = contents.getJSONObject(key);
 
-                HasKey o = (HasKey) objectMapper.readValue(content.toString(), repoClass);
-                repo.save(o).get();
+                values.add((HasKey) objectMapper.readValue(content.toString(), repoClass));
             }
+            repo.saveAll(values).get();
         }
     }
 
     @SuppressWarnings({ "unchecked", "rawtypes" })
     private void emptyRepos(KafkaCluster cluster) {
         for (TopicBasedRepository topicBasedRepository : cluster.getRepositories()) {
-            for (Object object : topicBasedRepository.getObjects()) {
-                try {
-                    topicBasedRepository.delete((HasKey) object).get();
-                }
-                catch (InterruptedException e) {
-                    return;
-                }
-                catch (ExecutionException e) {
-                    throw new RuntimeException(e);
-                }
+            try {
+                topicBasedRepository.deleteAll(List.copyOf(topicBasedRepository.getObjects())).get();
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+            catch (ExecutionException e) {
+                throw new RuntimeException(e);
             }
         }
     }
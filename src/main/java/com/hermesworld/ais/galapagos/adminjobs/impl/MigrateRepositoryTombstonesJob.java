@@ -0,0 +1,46 @@
+package com.hermesworld.ais.galapagos.adminjobs.impl;
+
+import com.hermesworld.ais.galapagos.kafka.KafkaCluster;
+import com.hermesworld.ais.galapagos.kafka.KafkaClusters;
+import com.hermesworld.ais.galapagos.kafka.util.TopicBasedRepository;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admin job to migrate the Galapagos metadata topics of a Kafka Cluster to real Kafka tombstones. Previous Galapagos
+ * versions marked deleted objects with a <code>{"deleted":true}</code> record, which is never removed by log
+ * compaction. This job writes a tombstone for each key whose latest record still is such a marker, so compaction can
+ * remove these keys from the topics. <br>
+ * The job requires one parameter:
+ * <ul>
+ * <li><code>--kafka.environment=<i>&lt;id></i> - The ID of the Kafka Environment to migrate the metadata topics of, as
+ * configured for Galapagos.</li>
+ * </ul>
+ */
+@Component
+public class MigrateRepositoryTombstonesJob extends SingleClusterAdminJob {
+
+    public MigrateRepositoryTombstonesJob(KafkaClusters kafkaClusters) {
+        super(kafkaClusters);
+    }
+
+    @Override
+    public String getJobName() {
+        return "migrate-repository-tombstones";
+    }
+
+    @Override
+    protected void runOnCluster(KafkaCluster cluster, ApplicationArguments allArguments) throws Exception {
+        printBanner("Writing tombstones for deleted metadata on environment " + cluster.getId());
+
+        int total = 0;
+        for (TopicBasedRepository<?> repository : cluster.getRepositories()) {
+            int count = repository.writeTombstonesForLegacyDeletions().get();
+            System.out.println("Wrote " + count + " tombstone(s) for topic " + repository.getTopicName());
+            total += count;
+        }
+
+        printBanner("Wrote " + total + " tombstone(s) in total");
+    }
+
+}
@@ -12,6 +12,7 @@ import org.apache.kafka.common.config.ConfigResource;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Helper class used by admin jobs providing a "dry run". This class wraps an existing Kafka AdminClient and throws an
@@ -70,4 +71,29 @@ public abstract class NoUpdatesAdminClient implements KafkaClusterAdminClient {
     public KafkaFuture<Void> incrementalAlterConfigs(ConfigResource resource, Map<String, String> configValues) {
         throw new UnsupportedOperationException();
     }
+
+    @Override
+    public CompletableFuture<Map<String, TopicDescription>> describeTopics(Collection<String> topicNames) {
+        return delegate.describeTopics(topicNames);
+    }
+
+    @Override
+    public CompletableFuture<Map<ConfigResource, Config>> describeConfigs(Collection<ConfigResource> resources) {
+        return delegate.describeConfigs(resources);
+    }
+
+    @Override
+    public KafkaFuture<Void> createTopics(Collection<NewTopic> topics) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public KafkaFuture<Void> deleteTopics(Collection<String> topicNames) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public KafkaFuture<Void> incrementalAlterConfigs(Map<ConfigResource, Map<String, String>> configValues) {
+        throw new UnsupportedOperationException();
+    }
 }
@@ -33,9 +33,7 @@ public class RewriteGalapagosTopicsJob extends SingleClusterAdminJob {
     private <T extends HasKey> void rewriteRepo(TopicBasedRepository<T> repository)
             throws ExecutionException, InterruptedException {
         List<T> values = new ArrayList<>(repository.getObjects());
-        for (T value : values) {
-            repository.save(value).get();
-        }
+        repository.saveAll(values).get();
     }
 
     @Override
@@ -18,7 +18,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import java.util.*;
-import java.util.concurrent.ExecutionException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -95,28 +94,34 @@ public class UpdateApplicationAclsJob extends SingleClusterAdminJob {
             });
         }
 
+        List<KafkaUser> users = new ArrayList<>();
         for (String id : applications.keySet()) {
             Optional<ApplicationMetadata> opMeta = metadataSource.apply(id);
             if (opMeta.isPresent()) {
+                KafkaUser user = toKafkaUser(cluster, opMeta.get());
+                if (user == null) {
+                    continue;
+                }
                 if (!dryRun) {
                     System.out.println("Updating ACLs for application " + applications.get(id).getName());
                 }
                 else {
                     System.out.println("Following ACLs are required for " + applications.get(id).getName());
                     try {
-                        System.out.println(new ToolingUser(opMeta.get(), cluster.getId(),
-                                kafkaClusters.getAuthenticationModule(cluster.getId()).orElseThrow(), aclSupport)
-                                .getRequiredAclBindings());
+                        System.out.println(user.getRequiredAclBindings());
                     }
                     catch (Exception e) {
                         e.printStackTrace();
                         continue;
                     }
                 }
-                updateApplicationAcl(cluster, opMeta.get());
+                users.add(user);
             }
         }
 
+        // all ACLs are read once, and changes for all applications are applied in a few batched calls
+        cluster.reconcileUserAcls(users).get();
+
         if (dryRun) {
             System.out.println("Would CREATE the following ACLs:");
             dryRunCreatedAcls.forEach(System.out::println);
@@ -127,17 +132,15 @@ public class UpdateApplicationAclsJob extends SingleClusterAdminJob {
 
     }
 
-    private void updateApplicationAcl(KafkaCluster cluster, ApplicationMetadata metadata)
-            throws ExecutionException, InterruptedException {
+    private KafkaUser toKafkaUser(KafkaCluster cluster, ApplicationMetadata metadata) {
         KafkaUser user = new ToolingUser(metadata, cluster.getId(),
                 kafkaClusters.getAuthenticationModule(cluster.getId()).orElseThrow(), aclSupport);
         try {
-            if (StringUtils.hasLength(user.getKafkaUserName())) {
-                cluster.updateUserAcls(user).get();
-            }
+            return StringUtils.hasLength(user.getKafkaUserName()) ? user : null;
         }
         catch (JSONException e) {
             log.error("Could not update ACLs for application {}", metadata.getApplicationId(), e);
+            return null;
         }
     }
 }
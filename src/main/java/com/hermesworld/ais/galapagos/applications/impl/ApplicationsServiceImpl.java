@@ -12,6 +12,7 @@ import com.hermesworld.ais.galapagos.kafka.util.TopicBasedRepository;
 import com.hermesworld.ais.galapagos.naming.ApplicationPrefixes;
 import com.hermesworld.ais.galapagos.naming.NamingService;
 import com.hermesworld.ais.galapagos.security.CurrentUserService;
+import com.hermesworld.ais.galapagos.util.FutureUtil;
 import com.hermesworld.ais.galapagos.util.TimeService;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONObject;
@@ -52,6 +53,8 @@ public class ApplicationsServiceImpl implements ApplicationsService, InitPerClus
 
     private static final String REQUESTS_TOPIC_NAME = "application-owner-requests";
 
+    private static final String REQUESTS_USER_NAME_INDEX = "userName";
+
     private static final Comparator<ApplicationOwnerRequest> requestComparator = (r1, r2) -> r2.getLastStatusChangeAt()
             .compareTo(r1.getLastStatusChangeAt());
 
@@ -107,9 +110,8 @@ public class ApplicationsServiceImpl implements ApplicationsService, InitPerClus
             return unknownApplication(applicationId);
         }
 
-        Optional<ApplicationOwnerRequest> existing = getRequestsRepository().getObjects().stream()
-                .filter(req -> userName.equals(req.getUserName()) && applicationId.equals(req.getApplicationId()))
-                .findAny();
+        Optional<ApplicationOwnerRequest> existing = getRequestsOfUser(userName).stream()
+                .filter(req -> applicationId.equals(req.getApplicationId())).findAny();
         if (existing.isPresent() && (existing.get().getState() == RequestState.SUBMITTED
                 || existing.get().getState() == RequestState.APPROVED)) {
             return CompletableFuture.completedFuture(existing.get());
@@ -146,8 +148,7 @@ public class ApplicationsServiceImpl implements ApplicationsService, InitPerClus
             return Collections.emptyList();
         }
 
-        return getRequestsRepository().getObjects().stream().filter(req -> userName.equals(req.getUserName()))
-                .sorted(requestComparator).collect(Collectors.toList());
+        return getRequestsOfUser(userName).stream().sorted(requestComparator).collect(Collectors.toList());
     }
 
     @Override
@@ -163,8 +164,7 @@ public class ApplicationsServiceImpl implements ApplicationsService, InitPerClus
             return noUser();
         }
 
-        Optional<ApplicationOwnerRequest> opRequest = getRequestsRepository().getObjects().stream()
-                .filter(req -> requestId.equals(req.getId())).findFirst();
+        Optional<ApplicationOwnerRequest> opRequest = getRequestsRepository().getObject(requestId);
 
         if (opRequest.isEmpty()) {
             return unknownRequest(requestId);
@@ -189,8 +189,7 @@ public class ApplicationsServiceImpl implements ApplicationsService, InitPerClus
             return noUser();
         }
 
-        Optional<ApplicationOwnerRequest> opRequest = getRequestsRepository().getObjects().stream()
-                .filter(req -> requestId.equals(req.getId())).findFirst();
+        Optional<ApplicationOwnerRequest> opRequest = getRequestsRepository().getObject(requestId);
 
         if (opRequest.isEmpty()) {
             return unknownRequest(requestId);
@@ -243,6 +242,9 @@ public class ApplicationsServiceImpl implements ApplicationsService, InitPerClus
         if (kafkaCluster == null) {
             return unknownEnvironment(environmentId);
         }
+        if (kafkaCluster.isLoadingRepositories()) {
+            return FutureUtil.environmentLoading(environmentId);
+        }
 
         KnownApplication knownApplication = getKnownApplication(applicationId).orElse(null);
         if (knownApplication == null) {
@@ -291,6 +293,9 @@ public class ApplicationsServiceImpl implements ApplicationsService, InitPerClus
         if (cluster == null) {
             return unknownEnvironment(environmentId);
         }
+        if (cluster.isLoadingRepositories()) {
+            return FutureUtil.environmentLoading(environmentId);
+        }
         KnownApplication app = getKnownApplication(applicationId).orElse(null);
         if (app == null) {
             return unknownApplication(applicationId);
@@ -370,6 +375,11 @@ public class ApplicationsServiceImpl implements ApplicationsService, InitPerClus
         return requestsRepository;
     }
 
+    private Collection<ApplicationOwnerRequest> getRequestsOfUser(String userName) {
+        return getRequestsRepository().getIndex(REQUESTS_USER_NAME_INDEX, ApplicationOwnerRequest::getUserName)
+                .getObjects(userName);
+    }
+
     private List<? extends KnownApplication> getUserApplicationsApprovedOrSubmitted() {
         return getUserApplications(Set.of(RequestState.APPROVED, RequestState.SUBMITTED));
     }
@@ -381,8 +391,7 @@ public class ApplicationsServiceImpl implements ApplicationsService, InitPerClus
         Map<String, KnownApplication> apps = internalGetKnownApplications().stream()
                 .collect(Collectors.toMap(KnownApplication::getId, Function.identity()));
 
-        return getRequestsRepository().getObjects().stream()
-                .filter(req -> requestStates.contains(req.getState()) && userName.equals(req.getUserName()))
+        return getRequestsOfUser(userName).stream().filter(req -> requestStates.contains(req.getState()))
                 .map(req -> apps.get(req.getApplicationId())).filter(Objects::nonNull).collect(Collectors.toList());
     }
 
@@ -7,6 +7,7 @@ import com.hermesworld.ais.galapagos.kafka.KafkaCluster;
 import com.hermesworld.ais.galapagos.kafka.KafkaClusters;
 import com.hermesworld.ais.galapagos.kafka.KafkaUser;
 import com.hermesworld.ais.galapagos.kafka.util.AclSupport;
+import com.hermesworld.ais.galapagos.kafka.util.AclUpdateScheduler;
 import com.hermesworld.ais.galapagos.subscriptions.SubscriptionMetadata;
 import com.hermesworld.ais.galapagos.subscriptions.service.SubscriptionService;
 import com.hermesworld.ais.galapagos.topics.TopicType;
@@ -26,6 +27,7 @@ import org.springframework.stereotype.Component;
 import org.thymeleaf.util.StringUtils;
 
 import java.util.Collection;
+import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
@@ -43,12 +45,15 @@ public class UpdateApplicationAclsListener
 
     private final AclSupport aclSupport;
 
+    private final AclUpdateScheduler aclUpdateScheduler;
+
     public UpdateApplicationAclsListener(KafkaClusters kafkaClusters, SubscriptionService subscriptionService,
-            ApplicationsService applicationsService, AclSupport aclSupport) {
+            ApplicationsService applicationsService, AclSupport aclSupport, AclUpdateScheduler aclUpdateScheduler) {
         this.kafkaClusters = kafkaClusters;
         this.subscriptionService = subscriptionService;
         this.applicationsService = applicationsService;
         this.aclSupport = aclSupport;
+        this.aclUpdateScheduler = aclUpdateScheduler;
     }
 
     @Override
@@ -137,16 +142,11 @@ public class UpdateApplicationAclsListener
                 .getSubscriptionsForTopic(cluster.getId(), event.getMetadata().getName(), true).stream()
                 .map(SubscriptionMetadata::getClientApplicationId).collect(Collectors.toSet());
 
-        CompletableFuture<Void> result = FutureUtil.noop();
-        for (String appId : applicationIds) {
-            ApplicationMetadata appMeta = applicationsService.getApplicationMetadata(cluster.getId(), appId)
-                    .orElse(null);
-            if (appMeta != null) {
-                result = result.thenCompose(o -> updateApplicationAcls(cluster, appMeta));
-            }
-        }
-
-        return result;
+        // updates are coalesced by the scheduler, so schedule them all at once
+        return CompletableFuture.allOf(applicationIds.stream()
+                .map(appId -> applicationsService.getApplicationMetadata(cluster.getId(), appId).orElse(null))
+                .filter(Objects::nonNull).map(appMeta -> updateApplicationAcls(cluster, appMeta))
+                .toArray(CompletableFuture[]::new));
     }
 
     @Override
@@ -219,7 +219,7 @@ public class UpdateApplicationAclsListener
         if (shallSkipUpdateAcls(cluster)) {
             return FutureUtil.noop();
         }
-        return cluster.updateUserAcls(new ApplicationUser(metadata, cluster.getId()));
+        return aclUpdateScheduler.scheduleUpdate(cluster, new ApplicationUser(metadata, cluster.getId()));
     }
 
     private class ApplicationUser implements KafkaUser {
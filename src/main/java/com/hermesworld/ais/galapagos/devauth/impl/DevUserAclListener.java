@@ -10,6 +10,7 @@ import com.hermesworld.ais.galapagos.kafka.KafkaClusters;
 import com.hermesworld.ais.galapagos.kafka.KafkaUser;
 import com.hermesworld.ais.galapagos.kafka.auth.KafkaAuthenticationModule;
 import com.hermesworld.ais.galapagos.kafka.util.AclSupport;
+import com.hermesworld.ais.galapagos.kafka.util.AclUpdateScheduler;
 import com.hermesworld.ais.galapagos.subscriptions.service.SubscriptionService;
 import com.hermesworld.ais.galapagos.util.FutureUtil;
 import com.hermesworld.ais.galapagos.util.TimeService;
@@ -42,13 +43,17 @@ public class DevUserAclListener implements TopicEventsListener, SubscriptionEven
 
     private final KafkaClusters kafkaClusters;
 
+    private final AclUpdateScheduler aclUpdateScheduler;
+
     public DevUserAclListener(ApplicationsService applicationsService, SubscriptionService subscriptionService,
-            TimeService timeService, AclSupport aclSupport, KafkaClusters kafkaClusters) {
+            TimeService timeService, AclSupport aclSupport, KafkaClusters kafkaClusters,
+            AclUpdateScheduler aclUpdateScheduler) {
         this.applicationsService = applicationsService;
         this.subscriptionService = subscriptionService;
         this.timeService = timeService;
         this.aclSupport = aclSupport;
         this.kafkaClusters = kafkaClusters;
+        this.aclUpdateScheduler = aclUpdateScheduler;
     }
 
     @Override
@@ -115,17 +120,12 @@ public class DevUserAclListener implements TopicEventsListener, SubscriptionEven
                 .getSubscriptionsForTopic(cluster.getId(), event.getMetadata().getName(), true).stream()
                 .map(s -> s.getClientApplicationId()).collect(Collectors.toSet());
 
-        CompletableFuture<Void> result = FutureUtil.noop();
-        for (String appId : applicationIds) {
-            ApplicationMetadata appMeta = applicationsService.getApplicationMetadata(cluster.getId(), appId)
-                    .orElse(null);
-            if (appMeta != null) {
-                result = result.thenCompose(
-                        o -> updateAcls(cluster, getValidDevAuthenticationsForApplication(cluster, appId)));
-            }
-        }
+        Set<DevAuthenticationMetadata> allAuthentications = applicationIds.stream()
+                .filter(appId -> applicationsService.getApplicationMetadata(cluster.getId(), appId).isPresent())
+                .flatMap(appId -> getValidDevAuthenticationsForApplication(cluster, appId).stream())
+                .collect(Collectors.toSet());
 
-        return result;
+        return updateAcls(cluster, allAuthentications);
     }
 
     @Override
@@ -208,12 +208,12 @@ public class DevUserAclListener implements TopicEventsListener, SubscriptionEven
             log.debug("Updating ACLs for {} on cluster {}", metadatas.stream().map(m -> m.getUserName()).toList(),
                     cluster.getId());
         }
-        CompletableFuture<Void> result = CompletableFuture.completedFuture(null);
-        for (DevAuthenticationMetadata metadata : metadatas) {
-            result = result.thenCompose(
-                    o -> cluster.updateUserAcls(new DevAuthenticationKafkaUser(metadata, cluster.getId())));
-        }
-        return result;
+        // updates are coalesced by the scheduler, so schedule them all at once
+        return CompletableFuture
+                .allOf(metadatas.stream()
+                        .map(metadata -> aclUpdateScheduler.scheduleUpdate(cluster,
+                                new DevAuthenticationKafkaUser(metadata, cluster.getId())))
+                        .toArray(CompletableFuture[]::new));
     }
 
     @CheckReturnValue
@@ -242,8 +242,9 @@ public class DevUserAclListener implements TopicEventsListener, SubscriptionEven
     }
 
     private Set<DevAuthenticationMetadata> getValidDevAuthenticationForUser(KafkaCluster cluster, String userName) {
-        return DeveloperAuthenticationServiceImpl.getRepository(cluster).getObjects().stream()
-                .filter(dev -> isValid(dev, cluster) && userName.equals(dev.getUserName())).collect(Collectors.toSet());
+        // developer authentications are keyed by user name
+        return DeveloperAuthenticationServiceImpl.getRepository(cluster).getObject(userName).stream()
+                .filter(dev -> isValid(dev, cluster)).collect(Collectors.toSet());
     }
 
     private boolean isValid(DevAuthenticationMetadata metadata, KafkaCluster cluster) {
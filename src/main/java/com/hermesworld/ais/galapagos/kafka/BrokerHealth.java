@@ -0,0 +1,39 @@
+package com.hermesworld.ais.galapagos.kafka;
+
+import lombok.Getter;
+
+import java.time.Instant;
+
+/**
+ * Result of the latest health probe of a single Kafka broker. Latency percentiles are calculated from the most recent
+ * successful probes of the broker, and are <code>null</code> if there were no successful probes yet.
+ */
+@Getter
+public final class BrokerHealth {
+
+    private final int nodeId;
+
+    private final String server;
+
+    private final boolean online;
+
+    private final Instant probedAt;
+
+    private final Double latencyP50Millis;
+
+    private final Double latencyP95Millis;
+
+    private final Double latencyP99Millis;
+
+    public BrokerHealth(int nodeId, String server, boolean online, Instant probedAt, Double latencyP50Millis,
+            Double latencyP95Millis, Double latencyP99Millis) {
+        this.nodeId = nodeId;
+        this.server = server;
+        this.online = online;
+        this.probedAt = probedAt;
+        this.latencyP50Millis = latencyP50Millis;
+        this.latencyP95Millis = latencyP95Millis;
+        this.latencyP99Millis = latencyP99Millis;
+    }
+
+}
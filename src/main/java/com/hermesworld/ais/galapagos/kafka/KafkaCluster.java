@@ -31,28 +31,120 @@ public interface KafkaCluster {
 
     CompletableFuture<Void> removeUserAcls(KafkaUser user);
 
+    /**
+     * Updates the ACLs of all given users in one pass, like calling {@link #updateUserAcls(KafkaUser)} for each user.
+     * All ACLs of the cluster are read once, and the ACLs to delete and to create for all users are applied in a few
+     * batched admin requests. ACLs of principals not belonging to any of the given users are not changed.
+     *
+     * @param users Users to update the ACLs of. Users without a Kafka user name are ignored.
+     * @return A future which completes when all ACLs have been updated.
+     */
+    CompletableFuture<Void> reconcileUserAcls(Collection<? extends KafkaUser> users);
+
     CompletableFuture<Void> visitAcls(Function<AclBinding, Boolean> callback);
 
     <T extends HasKey> TopicBasedRepository<T> getRepository(String topicName, Class<T> valueClass);
 
     Collection<TopicBasedRepository<?>> getRepositories();
 
+    /**
+     * Checks if any metadata repository of this cluster has not yet loaded its initial data. While this is the case,
+     * services must not write to the repositories of this cluster, as they would base their changes on incomplete
+     * metadata.
+     *
+     * @return <code>true</code> if at least one repository of this cluster is still loading, <code>false</code>
+     *         otherwise.
+     */
+    default boolean isLoadingRepositories() {
+        return getRepositories().stream().anyMatch(repository -> !repository.isFullyLoaded());
+    }
+
     CompletableFuture<Void> createTopic(String topicName, TopicCreateParams topicCreateParams);
 
     CompletableFuture<Void> deleteTopic(String topicName);
 
+    /**
+     * Creates all given topics using a single admin request.
+     *
+     * @param topics Parameters for the topics to create, by topic name.
+     * @return A future which completes when all topics have been created, or fails if any topic could not be created.
+     */
+    CompletableFuture<Void> createTopics(Map<String, TopicCreateParams> topics);
+
+    /**
+     * Deletes all given topics, and all ACLs for these topics, using a single admin request for the topics and a single
+     * one for the ACLs.
+     *
+     * @param topicNames Names of the topics to delete.
+     * @return A future which completes when all topics and their ACLs have been deleted.
+     */
+    CompletableFuture<Void> deleteTopics(Collection<String> topicNames);
+
     CompletableFuture<Set<TopicConfigEntry>> getTopicConfig(String topicName);
 
+    /**
+     * Retrieves the configurations of all given topics using a single admin request.
+     *
+     * @param topicNames Names of the topics to retrieve the configuration of.
+     * @return A future providing the configuration entries, by topic name.
+     */
+    CompletableFuture<Map<String, Set<TopicConfigEntry>>> getTopicConfigs(Collection<String> topicNames);
+
+    /**
+     * Reloads the cached configurations of the given topics from the cluster, using one admin request per batch of
+     * topics. Reads of topic configurations are served from this cache as long as the cached values are recent enough.
+     *
+     * @param topicNames Names of the topics to reload the configurations of.
+     * @return A future which completes when all configurations have been reloaded. Failures to load single batches are
+     *         logged, but do not fail the future.
+     */
+    CompletableFuture<Void> refreshTopicConfigs(Collection<String> topicNames);
+
     CompletableFuture<Map<String, String>> getDefaultTopicConfig();
 
     CompletableFuture<Void> setTopicConfig(String topicName, Map<String, String> configValues);
 
+    /**
+     * Alters the configurations of all given topics using a single admin request. A <code>null</code> config value
+     * resets the config entry to its default.
+     *
+     * @param configValues Config values to set, by topic name.
+     * @return A future which completes when all configurations have been altered.
+     */
+    CompletableFuture<Void> setTopicConfigs(Map<String, Map<String, String>> configValues);
+
     CompletableFuture<Integer> getActiveBrokerCount();
 
     CompletableFuture<TopicCreateParams> buildTopicCreateParams(String topicName);
 
+    /**
+     * Builds the parameters to re-create all given topics, using one admin request to describe the topics and one to
+     * describe their configurations.
+     *
+     * @param topicNames Names of the topics to build the parameters for.
+     * @return A future providing the create parameters, by topic name. Topics which do not exist on this cluster are
+     *         not contained in the map.
+     */
+    CompletableFuture<Map<String, TopicCreateParams>> buildTopicCreateParams(Collection<String> topicNames);
+
     CompletableFuture<List<ConsumerRecord<String, String>>> peekTopicData(String topicName, int limit);
 
+    /**
+     * Reads the records of the given topic in the range given by the browse parameters, and passes each record matching
+     * the filter of the parameters to the given callback as soon as it has been polled. Reading stops when the end
+     * offsets of the topic (as of the start of this operation) have been reached, when the maximum number of records
+     * has been passed to the callback, when the callback returns <code>false</code>, or when the returned future is
+     * cancelled.
+     *
+     * @param topicName Name of the topic to read from.
+     * @param params    Range, filter, and limits for the records to read.
+     * @param callback  Callback to receive the records, returning <code>false</code> if no more records shall be read.
+     *                  It is called on an internal Thread.
+     * @return A future which completes when reading has stopped.
+     */
+    CompletableFuture<Void> browseTopicData(String topicName, TopicBrowseParams params,
+            Function<ConsumerRecord<String, String>, Boolean> callback);
+
     CompletableFuture<String> getKafkaServerVersion();
 
 }
@@ -11,6 +11,7 @@ import org.apache.kafka.common.config.ConfigResource;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Galapagos Interface for abstracting the not-so-helpful Kafka Admin interface. This allows for wrapping and e.g.
@@ -37,4 +38,47 @@ public interface KafkaClusterAdminClient {
 
     KafkaFuture<TopicDescription> describeTopic(String topicName);
 
+    /**
+     * Describes the given topics with a single request.
+     *
+     * @param topicNames Names of the topics to describe.
+     * @return A future providing the descriptions of the topics, by topic name. Topics which do not exist are not
+     *         contained in the map.
+     */
+    CompletableFuture<Map<String, TopicDescription>> describeTopics(Collection<String> topicNames);
+
+    /**
+     * Describes the configurations of the given resources with a single request.
+     *
+     * @param resources Resources to describe the configurations of.
+     * @return A future providing the configurations, by resource. Resources which do not exist are not contained in the
+     *         map.
+     */
+    CompletableFuture<Map<ConfigResource, Config>> describeConfigs(Collection<ConfigResource> resources);
+
+    /**
+     * Creates the given topics with a single request.
+     *
+     * @param topics Topics to create.
+     * @return A future which completes when all topics have been created, or fails if any topic could not be created.
+     */
+    KafkaFuture<Void> createTopics(Collection<NewTopic> topics);
+
+    /**
+     * Deletes the given topics with a single request.
+     *
+     * @param topicNames Names of the topics to delete.
+     * @return A future which completes when all topics have been deleted, or fails if any topic could not be deleted.
+     */
+    KafkaFuture<Void> deleteTopics(Collection<String> topicNames);
+
+    /**
+     * Alters the configurations of the given resources with a single request. A <code>null</code> config value deletes
+     * the config entry (resets it to its default).
+     *
+     * @param configValues Config values to set, by resource.
+     * @return A future which completes when all configurations have been altered.
+     */
+    KafkaFuture<Void> incrementalAlterConfigs(Map<ConfigResource, Map<String, String>> configValues);
+
 }
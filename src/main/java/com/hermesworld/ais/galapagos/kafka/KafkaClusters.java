@@ -34,6 +34,16 @@ public interface KafkaClusters {
 
     Optional<KafkaAuthenticationModule> getAuthenticationModule(String environmentId);
 
+    /**
+     * Returns the health of the brokers of the given Kafka environment, as determined by the latest background probe.
+     * This method never blocks on the Kafka cluster.
+     *
+     * @param environmentId ID of the Kafka environment.
+     * @return The health of all brokers of the environment, ordered by node ID. An empty list if the environment is
+     *         unknown or has not been probed successfully yet.
+     */
+    List<BrokerHealth> getBrokerHealth(String environmentId);
+
     /**
      * Returns a repository for saving and retrieving objects in a Kafka Topic. Repositories returned by this method can
      * be used to store information for use across all clusters (best example is the repository for Application Owner
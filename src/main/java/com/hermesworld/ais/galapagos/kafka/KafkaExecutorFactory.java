@@ -1,12 +1,14 @@
 package com.hermesworld.ais.galapagos.kafka;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 
 /**
  * Interface of a factory for Executors which will be used for decoupling Kafka calls from the Kafka Thread. This is
  * required for proper concatenation of <code>CompletableFuture</code>s, as otherwise, a second Kafka invocation after a
  * first one could cause a deadlock within the Kafka Thread. <br>
- * One Executor is created (and immediately shut down) for each Kafka Action which must be decoupled. <br>
+ * By default, one Executor is created (and immediately shut down) for each Kafka Action which must be decoupled.
+ * Implementations can override {@link #getDecouplingExecutor()} to use a shared pool instead. <br>
  * Implementations of this interface can e.g. provide special executors which deal with Thread-local static accessor
  * classes like Spring Security's <code>SecurityContextHolder</code>.
  *
@@ -24,4 +26,26 @@ public interface KafkaExecutorFactory {
      */
     ExecutorService newExecutor();
 
+    /**
+     * Returns the executor to run the completion of a single decoupled Kafka Task on. This method is called on the
+     * Thread which initiated the Kafka Action, so implementations can capture Thread-local state (like the Security
+     * Context) here and propagate it to the executing Thread. The returned executor is used for exactly one task and is
+     * not shut down by the caller. <br>
+     * The default implementation uses a new executor from {@link #newExecutor()}, which is shut down as soon as the
+     * task has been submitted.
+     *
+     * @return An executor for exactly one task, never <code>null</code>.
+     */
+    default Executor getDecouplingExecutor() {
+        ExecutorService executor = newExecutor();
+        return task -> {
+            try {
+                executor.submit(task);
+            }
+            finally {
+                executor.shutdown();
+            }
+        };
+    }
+
 }
@@ -1,5 +1,6 @@
 package com.hermesworld.ais.galapagos.kafka;
 
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -15,4 +16,20 @@ public interface KafkaSender {
 
     CompletableFuture<Void> send(String topic, String key, String message);
 
+    /**
+     * Sends multiple messages to the given topic. Messages are sent in the iteration order of the given map, and the
+     * returned Future completes once all messages have been acknowledged. Implementations should pipeline the messages
+     * instead of waiting for each single acknowledgement; the default implementation just calls
+     * {@link #send(String, String, String)} for each message.
+     *
+     * @param topic    Topic to send the messages to.
+     * @param messages Messages to send, by message key. A <code>null</code> message results in a tombstone record.
+     * @return A Future which completes when all messages have been sent successfully, or which completes exceptionally
+     *         if any of the messages could not be sent.
+     */
+    default CompletableFuture<Void> sendAll(String topic, Map<String, String> messages) {
+        return CompletableFuture.allOf(messages.entrySet().stream().map(e -> send(topic, e.getKey(), e.getValue()))
+                .toArray(CompletableFuture[]::new));
+    }
+
 }
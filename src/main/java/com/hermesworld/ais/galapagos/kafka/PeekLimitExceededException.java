@@ -0,0 +1,14 @@
+package com.hermesworld.ais.galapagos.kafka;
+
+/**
+ * Thrown when topic data cannot be read because the maximum number of concurrent read operations has been reached.
+ */
+public class PeekLimitExceededException extends Exception {
+
+    private static final long serialVersionUID = 2361093486511240175L;
+
+    public PeekLimitExceededException(String message) {
+        super(message);
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.hermesworld.ais.galapagos.kafka;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Parameters for reading a range of records from a topic via
+ * {@link KafkaCluster#browseTopicData(String, TopicBrowseParams, java.util.function.Function)}.
+ */
+@Getter
+@Setter
+public final class TopicBrowseParams {
+
+    /**
+     * Offsets to start reading at, per partition. If not empty, only these partitions are read.
+     */
+    private Map<Integer, Long> startOffsets = new HashMap<>();
+
+    /**
+     * Timestamp (epoch millis) to start reading at in all partitions, if no start offsets are given. If neither start
+     * offsets nor timestamp are given, all partitions are read from the beginning.
+     */
+    private Long startTimestamp;
+
+    /**
+     * Maximum number of (matching) records to pass to the callback.
+     */
+    private int maxRecords = 1000;
+
+    /**
+     * Filter for the records to pass to the callback. Not matching records are skipped.
+     */
+    private Predicate<ConsumerRecord<String, String>> filter = record -> true;
+
+    /**
+     * Name of the user reading the records, used to limit the throughput per user.
+     */
+    private String userName;
+
+    public Map<Integer, Long> getStartOffsets() {
+        return Collections.unmodifiableMap(startOffsets);
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.hermesworld.ais.galapagos.kafka.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+
+/**
+ * Settings for the background health probing of the brokers of all Kafka environments, configured via
+ * <code>galapagos.kafka.brokerProbe.*</code>.
+ */
+@Getter
+@Setter
+public class BrokerProbeConfig {
+
+    /**
+     * Delay between two probes of an environment. Zero disables probing.
+     */
+    private Duration interval = Duration.ofSeconds(30);
+
+    /**
+     * Maximum time to wait for a single probe request. Brokers not answering within this time are reported offline.
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+
+    /**
+     * Number of most recent probe latencies per broker to calculate latency percentiles from.
+     */
+    private int latencySamples = 100;
+
+}
@@ -0,0 +1,43 @@
+package com.hermesworld.ais.galapagos.kafka.config;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+
+/**
+ * Settings for caching rarely changing Kafka cluster metadata (broker list, broker configuration, topic
+ * configurations), configured via <code>galapagos.kafka.metadataCache.*</code>.
+ */
+@Getter
+@Setter
+public class ClusterMetadataCacheConfig {
+
+    /**
+     * Maximum age of cached cluster metadata. Older metadata is not returned, but reloaded from the cluster.
+     */
+    private Duration ttl = Duration.ofMinutes(5);
+
+    /**
+     * Age of cached cluster metadata after which it is reloaded in the background on next access, while the cached
+     * value is still returned. Must be less than {@link #ttl} to have any effect.
+     */
+    private Duration refreshAfter = Duration.ofMinutes(4);
+
+    /**
+     * Maximum age of cached topic configurations. Older configurations are reloaded from the cluster on access.
+     */
+    private Duration topicConfigMaxStaleness = Duration.ofMinutes(5);
+
+    /**
+     * Interval in which the configurations of all topics known to Galapagos are reloaded in the background. Should be
+     * less than {@link #topicConfigMaxStaleness}, so reads are served from memory.
+     */
+    private Duration topicConfigRefreshInterval = Duration.ofMinutes(2);
+
+    /**
+     * Maximum number of topics whose configurations are reloaded with a single admin request.
+     */
+    private int topicConfigBatchSize = 200;
+
+}
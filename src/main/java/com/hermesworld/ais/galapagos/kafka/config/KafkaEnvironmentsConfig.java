@@ -7,6 +7,7 @@ import com.hermesworld.ais.galapagos.kafka.KafkaExecutorFactory;
 import com.hermesworld.ais.galapagos.kafka.auth.KafkaAuthenticationModule;
 import com.hermesworld.ais.galapagos.kafka.config.impl.KafkaEnvironmentConfigImpl;
 import com.hermesworld.ais.galapagos.kafka.impl.ConnectedKafkaClusters;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Getter;
 import lombok.Setter;
 import org.bouncycastle.operator.OperatorException;
@@ -15,9 +16,12 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ObjectUtils;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.security.GeneralSecurityException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -50,12 +54,45 @@ public class KafkaEnvironmentsConfig {
     @Setter
     private List<DefaultAclConfig> defaultAcls;
 
+    /**
+     * Local directory to store snapshots of the Galapagos metadata repositories in, to speed up restarts. If not set,
+     * no snapshots are written, and all metadata topics are consumed from the beginning on every startup.
+     */
+    @Getter
+    @Setter
+    private String repositorySnapshotDirectory;
+
+    @Getter
+    @Setter
+    private Duration repositorySnapshotInterval = Duration.ofMinutes(5);
+
+    /**
+     * If <code>true</code>, bulk writes to the Galapagos metadata topics (e.g. from admin jobs) are wrapped in Kafka
+     * transactions, so they become visible atomically. This requires the Galapagos Kafka user to be allowed to use
+     * transactional IDs starting with <code>galapagos.</code>.
+     */
+    @Getter
+    @Setter
+    private boolean transactionalMetadataWrites;
+
+    @Getter
+    @Setter
+    private TopicPeekConfig peek = new TopicPeekConfig();
+
+    @Getter
+    @Setter
+    private ClusterMetadataCacheConfig metadataCache = new ClusterMetadataCacheConfig();
+
+    @Getter
+    @Setter
+    private BrokerProbeConfig brokerProbe = new BrokerProbeConfig();
+
     public List<KafkaEnvironmentConfig> getEnvironments() {
         return new ArrayList<>(environments);
     }
 
     @Bean(destroyMethod = "dispose")
-    public KafkaClusters kafkaClusters(KafkaExecutorFactory executorFactory,
+    public KafkaClusters kafkaClusters(KafkaExecutorFactory executorFactory, MeterRegistry meterRegistry,
             @Value("${galapagos.topics.standardReplicationFactor}") int replicationFactor)
             throws IOException, PKCSException, OperatorException, GeneralSecurityException {
         validateConfig();
@@ -67,9 +104,13 @@ public class KafkaEnvironmentsConfig {
             module.init().join();
         }
 
+        Path snapshotDirectory = ObjectUtils.isEmpty(repositorySnapshotDirectory) ? null
+                : Path.of(repositorySnapshotDirectory);
+
         return new ConnectedKafkaClusters(new ArrayList<>(environments), authModules, productionEnvironment,
-                metadataTopicsPrefix, executorFactory, replicationFactor, logAdminOperations,
-                adminClientRequestTimeout);
+                metadataTopicsPrefix, executorFactory, replicationFactor, logAdminOperations, adminClientRequestTimeout,
+                snapshotDirectory, repositorySnapshotInterval, transactionalMetadataWrites, peek, metadataCache,
+                brokerProbe, meterRegistry);
     }
 
     private void validateConfig() {
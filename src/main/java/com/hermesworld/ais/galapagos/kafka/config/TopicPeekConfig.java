@@ -0,0 +1,64 @@
+package com.hermesworld.ais.galapagos.kafka.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Limits for reading records of topics (e.g. "peek" function of the UI), configured via
+ * <code>galapagos.kafka.peek.*</code>.
+ */
+@Getter
+@Setter
+public class TopicPeekConfig {
+
+    /**
+     * Maximum number of peek operations running at the same time, over all Kafka environments. Further requests are
+     * rejected until a running operation completes.
+     */
+    private int maxConcurrentPeeks = 4;
+
+    /**
+     * Maximum number of idle consumers kept per Kafka environment for reuse by subsequent peek operations.
+     */
+    private int consumerPoolSize = 2;
+
+    /**
+     * Maximum total size of the record keys and values returned by a single peek operation.
+     */
+    private DataSize maxBytes = DataSize.ofMegabytes(1);
+
+    /**
+     * Maximum time a single peek operation may read from Kafka.
+     */
+    private Duration timeout = Duration.ofSeconds(10);
+
+    /**
+     * Maximum time a single browse operation (streaming a range of topic records to the client) may read from Kafka.
+     */
+    private Duration browseTimeout = Duration.ofMinutes(5);
+
+    /**
+     * Maximum number of records returned by a single browse operation.
+     */
+    private int maxBrowseRecords = 10000;
+
+    /**
+     * Maximum throughput of record data returned by browse operations, per user and second.
+     */
+    private DataSize userBytesPerSecond = DataSize.ofMegabytes(1);
+
+    /**
+     * Maximum number of browse sessions running at the same time, over all Kafka environments and users. Browse
+     * sessions do not count against {@link #maxConcurrentPeeks}.
+     */
+    private int maxConcurrentBrowseSessions = 8;
+
+    /**
+     * Maximum number of browse sessions running at the same time per user.
+     */
+    private int maxBrowseSessionsPerUser = 2;
+
+}
@@ -2,12 +2,13 @@ package com.hermesworld.ais.galapagos.kafka.controller;
 
 import com.hermesworld.ais.galapagos.kafka.KafkaClusters;
 import com.hermesworld.ais.galapagos.kafka.config.KafkaEnvironmentConfig;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -27,8 +28,12 @@ public class EnvironmentsController {
 
     @GetMapping(value = "/api/environments/{environmentId}", produces = MediaType.APPLICATION_JSON_VALUE)
     public List<KafkaEnvironmentLivenessDto> getEnvironmentLiveness(@PathVariable String environmentId) {
-        // TODO currently unsupported
-        return Collections.emptyList();
+        if (kafkaEnvironments.getEnvironmentMetadata(environmentId).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        // served from the snapshot of the background broker probes, so this never blocks on the cluster
+        return kafkaEnvironments.getBrokerHealth(environmentId).stream().map(KafkaEnvironmentLivenessDto::new)
+                .collect(Collectors.toList());
     }
 
     @GetMapping(value = "/api/environments/{environmentId}/kafkaversion", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -1,7 +1,10 @@
 package com.hermesworld.ais.galapagos.kafka.controller;
 
+import com.hermesworld.ais.galapagos.kafka.BrokerHealth;
 import lombok.Getter;
 
+import java.time.Instant;
+
 @Getter
 public class KafkaEnvironmentLivenessDto {
 
@@ -9,9 +12,25 @@ public class KafkaEnvironmentLivenessDto {
 
     private boolean online;
 
+    private Instant probedAt;
+
+    private Double latencyP50Millis;
+
+    private Double latencyP95Millis;
+
+    private Double latencyP99Millis;
+
     public KafkaEnvironmentLivenessDto(String server, boolean online) {
         this.server = server;
         this.online = online;
     }
 
+    public KafkaEnvironmentLivenessDto(BrokerHealth health) {
+        this(health.getServer(), health.isOnline());
+        this.probedAt = health.getProbedAt();
+        this.latencyP50Millis = health.getLatencyP50Millis();
+        this.latencyP95Millis = health.getLatencyP95Millis();
+        this.latencyP99Millis = health.getLatencyP99Millis();
+    }
+
 }
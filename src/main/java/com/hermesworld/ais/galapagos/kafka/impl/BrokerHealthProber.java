@@ -0,0 +1,177 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import com.hermesworld.ais.galapagos.kafka.BrokerHealth;
+import com.hermesworld.ais.galapagos.kafka.KafkaClusterAdminClient;
+import com.hermesworld.ais.galapagos.kafka.config.BrokerProbeConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.config.ConfigResource;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically probes the brokers of a single Kafka environment with cheap admin requests: One request to describe the
+ * cluster, and one request per broker which is answered by that broker (describing its configuration). Every request is
+ * limited by the configured timeout. <br>
+ * The result of the latest probe is kept in an immutable snapshot, so readers never block and never wait for a slow
+ * cluster. Probes never overlap; if a probe is still running when the next one is due, the next one is skipped.
+ */
+@Slf4j
+class BrokerHealthProber {
+
+    private final String environmentId;
+
+    private final KafkaClusterAdminClient adminClient;
+
+    private final KafkaFutureDecoupler futureDecoupler;
+
+    private final BrokerProbeConfig config;
+
+    private final AtomicReference<List<BrokerHealth>> snapshot = new AtomicReference<>(List.of());
+
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    private final Map<Integer, LatencySamples> latencies = new ConcurrentHashMap<>();
+
+    BrokerHealthProber(String environmentId, KafkaClusterAdminClient adminClient, KafkaFutureDecoupler futureDecoupler,
+            BrokerProbeConfig config) {
+        this.environmentId = environmentId;
+        this.adminClient = adminClient;
+        this.futureDecoupler = futureDecoupler;
+        this.config = config;
+    }
+
+    /**
+     * Returns the result of the latest probe, ordered by node ID. The list is empty if the environment has not been
+     * probed successfully yet.
+     */
+    List<BrokerHealth> getBrokerHealth() {
+        return snapshot.get();
+    }
+
+    /**
+     * Probes all brokers of the environment and updates the snapshot. Does nothing if a probe is already running.
+     *
+     * @return A future which completes when the snapshot has been updated. It never completes exceptionally.
+     */
+    CompletableFuture<Void> probe() {
+        if (!probing.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Instant probedAt = Instant.now();
+        CompletableFuture<List<BrokerHealth>> result;
+        try {
+            result = withTimeout(adminClient.describeCluster()).thenCompose(nodes -> probeNodes(nodes, probedAt));
+        }
+        catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+
+        return result.exceptionally(t -> {
+            log.warn("Could not describe Kafka cluster of environment " + environmentId
+                    + ", reporting all brokers offline: " + t);
+            return snapshot.get().stream()
+                    .map(broker -> toBrokerHealth(broker.getNodeId(), broker.getServer(), false, probedAt))
+                    .collect(Collectors.toList());
+        }).thenAccept(brokers -> {
+            snapshot.set(List.copyOf(brokers));
+            probing.set(false);
+        });
+    }
+
+    private CompletableFuture<List<BrokerHealth>> probeNodes(Collection<Node> nodes, Instant probedAt) {
+        Set<Integer> nodeIds = nodes.stream().map(Node::id).collect(Collectors.toSet());
+        latencies.keySet().retainAll(nodeIds);
+
+        List<CompletableFuture<BrokerHealth>> futures = nodes.stream().sorted(Comparator.comparingInt(Node::id))
+                .map(node -> probeNode(node, probedAt)).collect(Collectors.toList());
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(o -> futures.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+    }
+
+    private CompletableFuture<BrokerHealth> probeNode(Node node, Instant probedAt) {
+        String server = node.host() + ":" + node.port();
+        long start = System.nanoTime();
+
+        CompletableFuture<?> request;
+        try {
+            request = withTimeout(
+                    adminClient.describeConfigs(new ConfigResource(ConfigResource.Type.BROKER, node.idString())));
+        }
+        catch (RuntimeException e) {
+            request = CompletableFuture.failedFuture(e);
+        }
+
+        return request.handle((config, t) -> {
+            if (t != null) {
+                log.debug("Broker " + server + " of environment " + environmentId + " did not answer probe: " + t);
+                return toBrokerHealth(node.id(), server, false, probedAt);
+            }
+            latencies.computeIfAbsent(node.id(), id -> new LatencySamples(this.config.getLatencySamples()))
+                    .add((System.nanoTime() - start) / 1_000_000.0);
+            return toBrokerHealth(node.id(), server, true, probedAt);
+        });
+    }
+
+    private BrokerHealth toBrokerHealth(int nodeId, String server, boolean online, Instant probedAt) {
+        LatencySamples samples = latencies.get(nodeId);
+        double[] percentiles = samples == null ? null : samples.percentiles(50, 95, 99);
+        return percentiles == null ? new BrokerHealth(nodeId, server, online, probedAt, null, null, null)
+                : new BrokerHealth(nodeId, server, online, probedAt, percentiles[0], percentiles[1], percentiles[2]);
+    }
+
+    private <T> CompletableFuture<T> withTimeout(KafkaFuture<T> future) {
+        return futureDecoupler.toCompletableFuture(future).orTimeout(config.getTimeout().toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ring buffer of the most recent latencies of a broker.
+     */
+    private static final class LatencySamples {
+
+        private final double[] samples;
+
+        private int count;
+
+        private int next;
+
+        private LatencySamples(int size) {
+            this.samples = new double[Math.max(1, size)];
+        }
+
+        private synchronized void add(double latencyMillis) {
+            samples[next] = latencyMillis;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * Calculates the given percentiles with the nearest-rank method, or returns <code>null</code> if there are no
+         * samples yet.
+         */
+        private synchronized double[] percentiles(int... percentiles) {
+            if (count == 0) {
+                return null;
+            }
+            double[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            double[] result = new double[percentiles.length];
+            for (int i = 0; i < percentiles.length; i++) {
+                int rank = (int) Math.ceil(percentiles[i] / 100.0 * count);
+                result[i] = sorted[Math.max(0, rank - 1)];
+            }
+            return result;
+        }
+    }
+
+}
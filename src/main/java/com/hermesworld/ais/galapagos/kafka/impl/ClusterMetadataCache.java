@@ -0,0 +1,148 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import com.hermesworld.ais.galapagos.kafka.config.ClusterMetadataCacheConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Cache for rarely changing metadata of a single Kafka cluster, e.g. the list of brokers or the broker configuration.
+ * Each entry is loaded via an asynchronous loader function on first access, and is reused until its TTL expires.
+ * Entries older than the configured refresh age are reloaded in the background, while the cached value is still
+ * returned. Failed loads are never cached; as an admin error may indicate that the cluster has changed, any failed load
+ * invalidates the whole cache. <br>
+ * Hits and misses are counted in the metric <code>galapagos.kafka.metadata.cache.requests</code>.
+ */
+@Slf4j
+final class ClusterMetadataCache {
+
+    private final String environmentId;
+
+    private final long ttlNanos;
+
+    private final long refreshAfterNanos;
+
+    private final MeterRegistry meterRegistry;
+
+    private final LongSupplier clock;
+
+    private final Map<String, CacheEntry> entries = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    ClusterMetadataCache(String environmentId, ClusterMetadataCacheConfig config, MeterRegistry meterRegistry) {
+        this(environmentId, config, meterRegistry, System::nanoTime);
+    }
+
+    ClusterMetadataCache(String environmentId, ClusterMetadataCacheConfig config, MeterRegistry meterRegistry,
+            LongSupplier clock) {
+        this.environmentId = environmentId;
+        this.ttlNanos = config.getTtl().toNanos();
+        this.refreshAfterNanos = config.getRefreshAfter().toNanos();
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the cached value for the given key, or loads it using the given loader if no valid value is cached.
+     *
+     * @param key    Key of the cached value.
+     * @param loader Function to load the value from the Kafka cluster.
+     * @return A future providing the cached or loaded value. Cancelling it does not affect the cache.
+     */
+    @SuppressWarnings("unchecked")
+    <T> CompletableFuture<T> get(String key, Supplier<CompletableFuture<T>> loader) {
+        long now = clock.getAsLong();
+        CacheEntry entry = entries.get(key);
+        if (entry != null && isValid(entry, now)) {
+            count(key, "hit");
+            if (now - entry.loadedAt >= refreshAfterNanos && entry.value.isDone()
+                    && entry.refreshing.compareAndSet(false, true)) {
+                refresh(key, entry, loader);
+            }
+            return (CompletableFuture<T>) entry.value.copy();
+        }
+
+        count(key, "miss");
+        CacheEntry[] loaded = new CacheEntry[1];
+        CacheEntry current = entries.compute(key, (k, old) -> {
+            // another Thread may have loaded the value in the meantime
+            if (old != null && isValid(old, now)) {
+                return old;
+            }
+            loaded[0] = new CacheEntry(loader.get(), now);
+            return loaded[0];
+        });
+
+        if (loaded[0] != null) {
+            CacheEntry newEntry = loaded[0];
+            newEntry.value.whenComplete((v, t) -> {
+                if (t != null) {
+                    invalidate(key, newEntry, t);
+                }
+            });
+        }
+        return (CompletableFuture<T>) current.value.copy();
+    }
+
+    /**
+     * Removes all cached values, so they are reloaded on next access.
+     */
+    void invalidate() {
+        entries.clear();
+    }
+
+    private <T> void refresh(String key, CacheEntry entry, Supplier<CompletableFuture<T>> loader) {
+        loader.get().whenComplete((value, t) -> {
+            if (t != null) {
+                invalidate(key, entry, t);
+            }
+            else {
+                entries.replace(key, entry,
+                        new CacheEntry(CompletableFuture.completedFuture(value), clock.getAsLong()));
+            }
+        });
+    }
+
+    private void invalidate(String key, CacheEntry entry, Throwable cause) {
+        log.debug("Could not load cluster metadata " + key + " for environment " + environmentId
+                + ", invalidating metadata cache", cause);
+        entries.remove(key, entry);
+        invalidate();
+    }
+
+    private boolean isValid(CacheEntry entry, long now) {
+        return now - entry.loadedAt < ttlNanos && !entry.value.isCompletedExceptionally();
+    }
+
+    private void count(String key, String result) {
+        counters.computeIfAbsent(key + "/" + result,
+                k -> Counter.builder("galapagos.kafka.metadata.cache.requests")
+                        .description("Requests to the Kafka cluster metadata cache").tag("environment", environmentId)
+                        .tag("metadata", key).tag("result", result).register(meterRegistry))
+                .increment();
+    }
+
+    private static final class CacheEntry {
+
+        private final CompletableFuture<?> value;
+
+        private final long loadedAt;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private CacheEntry(CompletableFuture<?> value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+
+    }
+
+}
@@ -6,26 +6,21 @@ import com.hermesworld.ais.galapagos.kafka.util.TopicBasedRepository;
 import com.hermesworld.ais.galapagos.util.FutureUtil;
 import com.hermesworld.ais.galapagos.util.HasKey;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Config;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.admin.TopicDescription;
-import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.kafka.clients.consumer.ConsumerRecords;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.KafkaFuture;
-import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.Node;
 import org.apache.kafka.common.acl.*;
 import org.apache.kafka.common.config.ConfigResource;
 import org.apache.kafka.common.config.ConfigResource.Type;
-import org.apache.kafka.common.errors.InterruptException;
-import org.apache.kafka.common.errors.WakeupException;
 import org.apache.kafka.common.resource.PatternType;
 import org.apache.kafka.common.resource.ResourcePatternFilter;
 import org.apache.kafka.common.resource.ResourceType;
 import org.springframework.util.ObjectUtils;
 
-import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
@@ -35,6 +30,16 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ConnectedKafkaCluster implements KafkaCluster {
 
+    /**
+     * Maximum number of ACL bindings (or filters) passed to a single create or delete call during ACL reconciliation.
+     */
+    private static final int ACL_BATCH_SIZE = 500;
+
+    /**
+     * Maximum number of concurrent create or delete calls during ACL reconciliation.
+     */
+    private static final int MAX_PARALLEL_ACL_REQUESTS = 4;
+
     private final String environmentId;
 
     private KafkaClusterAdminClient adminClient;
@@ -43,20 +48,24 @@ public class ConnectedKafkaCluster implements KafkaCluster {
 
     private final Map<String, TopicBasedRepository<?>> repositories = new ConcurrentHashMap<>();
 
-    private final KafkaConsumerFactory<String, String> kafkaConsumerFactory;
+    private final TopicDataPeeker topicDataPeeker;
 
     private final KafkaFutureDecoupler futureDecoupler;
 
-    private static final long MAX_POLL_TIME = Duration.ofSeconds(10).toMillis();
+    private final ClusterMetadataCache metadataCache;
+
+    private final TopicConfigCache topicConfigCache;
 
     public ConnectedKafkaCluster(String environmentId, KafkaRepositoryContainer repositoryContainer,
-            KafkaClusterAdminClient adminClient, KafkaConsumerFactory<String, String> kafkaConsumerFactory,
-            KafkaFutureDecoupler futureDecoupler) {
+            KafkaClusterAdminClient adminClient, TopicDataPeeker topicDataPeeker, KafkaFutureDecoupler futureDecoupler,
+            ClusterMetadataCache metadataCache, TopicConfigCache topicConfigCache) {
         this.environmentId = environmentId;
         this.adminClient = adminClient;
         this.repositoryContainer = repositoryContainer;
-        this.kafkaConsumerFactory = kafkaConsumerFactory;
+        this.topicDataPeeker = topicDataPeeker;
         this.futureDecoupler = futureDecoupler;
+        this.metadataCache = metadataCache;
+        this.topicConfigCache = topicConfigCache;
     }
 
     /**
@@ -105,6 +114,46 @@ public class ConnectedKafkaCluster implements KafkaCluster {
                 .thenApply(o -> null);
     }
 
+    @Override
+    public CompletableFuture<Void> reconcileUserAcls(Collection<? extends KafkaUser> users) {
+        Map<String, Set<AclBinding>> requiredAcls = new HashMap<>();
+        for (KafkaUser user : users) {
+            String userName = user.getKafkaUserName();
+            if (!ObjectUtils.isEmpty(userName)) {
+                requiredAcls.computeIfAbsent(userName, k -> new HashSet<>()).addAll(user.getRequiredAclBindings());
+            }
+        }
+        if (requiredAcls.isEmpty()) {
+            return FutureUtil.noop();
+        }
+
+        return toCompletableFuture(adminClient.describeAcls(AclBindingFilter.ANY)).thenCompose(acls -> {
+            Map<String, Set<AclBinding>> existingAcls = new HashMap<>();
+            for (AclBinding acl : acls) {
+                String principal = acl.entry().principal();
+                if (requiredAcls.containsKey(principal)) {
+                    existingAcls.computeIfAbsent(principal, k -> new HashSet<>()).add(acl);
+                }
+            }
+
+            List<AclBindingFilter> deleteAcls = new ArrayList<>();
+            List<AclBinding> createAcls = new ArrayList<>();
+            requiredAcls.forEach((principal, required) -> {
+                Set<AclBinding> existing = existingAcls.getOrDefault(principal, Set.of());
+                existing.stream().filter(acl -> !required.contains(acl)).map(AclBinding::toFilter)
+                        .forEach(deleteAcls::add);
+                required.stream().filter(acl -> !existing.contains(acl)).forEach(createAcls::add);
+            });
+
+            log.info("Reconciling ACLs of " + requiredAcls.size() + " principal(s) on environment " + environmentId
+                    + ": deleting " + deleteAcls.size() + ", creating " + createAcls.size() + " ACL(s)");
+
+            return inParallelBatches(deleteAcls, batch -> toCompletableFuture(adminClient.deleteAcls(batch)))
+                    .thenCompose(o -> inParallelBatches(createAcls,
+                            batch -> toCompletableFuture(adminClient.createAcls(batch))));
+        });
+    }
+
     @Override
     public CompletableFuture<Void> visitAcls(Function<AclBinding, Boolean> callback) {
         return toCompletableFuture(adminClient.describeAcls(AclBindingFilter.ANY)).thenAccept(acls -> {
@@ -130,52 +179,96 @@ public class ConnectedKafkaCluster implements KafkaCluster {
 
     @Override
     public CompletableFuture<Void> createTopic(String topicName, TopicCreateParams topicCreateParams) {
-        NewTopic newTopic = new NewTopic(topicName, topicCreateParams.getNumberOfPartitions(),
-                (short) topicCreateParams.getReplicationFactor()).configs(topicCreateParams.getTopicConfigs());
-
-        return toCompletableFuture(this.adminClient.createTopic(newTopic));
+        return invalidateTopicConfigs(Set.of(topicName), invalidateCacheOnError(
+                toCompletableFuture(this.adminClient.createTopic(toNewTopic(topicName, topicCreateParams)))));
     }
 
     @Override
     public CompletableFuture<Void> deleteTopic(String topicName) {
-        AclBindingFilter aclFilter = new AclBindingFilter(
-                new ResourcePatternFilter(ResourceType.TOPIC, topicName, PatternType.LITERAL),
-                new AccessControlEntryFilter(null, null, AclOperation.ANY, AclPermissionType.ANY));
-
         KafkaFuture<Void> deleteTopicFuture = this.adminClient.deleteTopic(topicName);
 
-        return toCompletableFuture(deleteTopicFuture)
-                .thenCompose(o -> toCompletableFuture(adminClient.deleteAcls(Set.of(aclFilter)))).thenApply(o -> null);
+        return invalidateTopicConfigs(Set.of(topicName), toCompletableFuture(deleteTopicFuture))
+                .thenCompose(o -> toCompletableFuture(adminClient.deleteAcls(Set.of(topicAclFilter(topicName)))))
+                .thenApply(o -> null);
+    }
+
+    @Override
+    public CompletableFuture<Void> createTopics(Map<String, TopicCreateParams> topics) {
+        if (topics.isEmpty()) {
+            return FutureUtil.noop();
+        }
+        List<NewTopic> newTopics = topics.entrySet().stream().map(entry -> toNewTopic(entry.getKey(), entry.getValue()))
+                .toList();
+        return invalidateTopicConfigs(topics.keySet(),
+                invalidateCacheOnError(toCompletableFuture(adminClient.createTopics(newTopics))));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteTopics(Collection<String> topicNames) {
+        if (topicNames.isEmpty()) {
+            return FutureUtil.noop();
+        }
+        Set<AclBindingFilter> aclFilters = topicNames.stream().map(this::topicAclFilter).collect(Collectors.toSet());
+
+        return invalidateTopicConfigs(topicNames, toCompletableFuture(adminClient.deleteTopics(topicNames)))
+                .thenCompose(o -> toCompletableFuture(adminClient.deleteAcls(aclFilters))).thenApply(o -> null);
     }
 
     @Override
     public CompletableFuture<Set<TopicConfigEntry>> getTopicConfig(String topicName) {
-        ConfigResource cres = new ConfigResource(ConfigResource.Type.TOPIC, topicName);
+        return getTopicConfigs(Set.of(topicName)).thenApply(configs -> configs.get(topicName));
+    }
 
-        return toCompletableFuture(adminClient.describeConfigs(cres)).thenApply(config -> config.entries().stream()
-                .map(entry -> new TopicConfigEntryImpl(entry)).collect(Collectors.toSet()));
+    @Override
+    public CompletableFuture<Map<String, Set<TopicConfigEntry>>> getTopicConfigs(Collection<String> topicNames) {
+        return topicConfigCache.get(topicNames, this::loadTopicConfigs);
+    }
+
+    @Override
+    public CompletableFuture<Void> refreshTopicConfigs(Collection<String> topicNames) {
+        return topicConfigCache.refresh(topicNames, this::loadTopicConfigs);
+    }
+
+    private CompletableFuture<Map<String, Set<TopicConfigEntry>>> loadTopicConfigs(Collection<String> topicNames) {
+        if (topicNames.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        List<ConfigResource> resources = topicNames.stream()
+                .map(name -> new ConfigResource(ConfigResource.Type.TOPIC, name)).toList();
+
+        return toCompletableFuture(adminClient.describeConfigs(resources)).thenApply(configs -> {
+            Map<String, Set<TopicConfigEntry>> result = new HashMap<>();
+            configs.forEach((resource, config) -> result.put(resource.name(), toConfigEntries(config)));
+            return result;
+        });
     }
 
     @Override
     public CompletableFuture<Map<String, String>> getDefaultTopicConfig() {
-        return toCompletableFuture(adminClient.describeCluster()).thenCompose(nodes -> {
-            if (nodes.isEmpty()) {
-                return CompletableFuture.failedFuture(new KafkaException("No nodes in cluster"));
-            }
-            return toCompletableFuture(adminClient.describeConfigs(
-                    new ConfigResource(ConfigResource.Type.BROKER, String.valueOf(nodes.iterator().next().id()))));
-        }).thenApply(config -> KafkaTopicConfigHelper.getTopicDefaultValues(config));
+        return getBrokerConfig().thenApply(config -> KafkaTopicConfigHelper.getTopicDefaultValues(config));
     }
 
     @Override
     public CompletableFuture<Void> setTopicConfig(String topicName, Map<String, String> configValues) {
-        return toCompletableFuture(adminClient
-                .incrementalAlterConfigs(new ConfigResource(ConfigResource.Type.TOPIC, topicName), configValues));
+        return invalidateTopicConfigs(Set.of(topicName), toCompletableFuture(adminClient
+                .incrementalAlterConfigs(new ConfigResource(ConfigResource.Type.TOPIC, topicName), configValues)));
+    }
+
+    @Override
+    public CompletableFuture<Void> setTopicConfigs(Map<String, Map<String, String>> configValues) {
+        if (configValues.isEmpty()) {
+            return FutureUtil.noop();
+        }
+        Map<ConfigResource, Map<String, String>> resourceConfigs = new HashMap<>();
+        configValues.forEach((topicName, values) -> resourceConfigs
+                .put(new ConfigResource(ConfigResource.Type.TOPIC, topicName), values));
+        return invalidateTopicConfigs(configValues.keySet(),
+                toCompletableFuture(adminClient.incrementalAlterConfigs(resourceConfigs)));
     }
 
     @Override
     public CompletableFuture<Integer> getActiveBrokerCount() {
-        return toCompletableFuture(adminClient.describeCluster()).thenApply(nodes -> nodes.size());
+        return getNodes().thenApply(nodes -> nodes.size());
     }
 
     @Override
@@ -184,88 +277,121 @@ public class ConnectedKafkaCluster implements KafkaCluster {
                 .thenCompose(desc -> buildCreateTopicParams(desc));
     }
 
+    @Override
+    public CompletableFuture<Map<String, TopicCreateParams>> buildTopicCreateParams(Collection<String> topicNames) {
+        if (topicNames.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        return toCompletableFuture(adminClient.describeTopics(topicNames))
+                .thenCompose(descriptions -> getTopicConfigs(descriptions.keySet()).thenApply(configs -> {
+                    Map<String, TopicCreateParams> result = new HashMap<>();
+                    descriptions.forEach((topicName, description) -> result.put(topicName,
+                            toCreateParams(description, configs.getOrDefault(topicName, Set.of()))));
+                    return result;
+                }));
+    }
+
     @Override
     public CompletableFuture<List<ConsumerRecord<String, String>>> peekTopicData(String topicName, int limit) {
-        CompletableFuture<List<ConsumerRecord<String, String>>> result = new CompletableFuture<>();
+        return topicDataPeeker.peek(environmentId, topicName, limit);
+    }
 
-        long startTime = System.currentTimeMillis();
+    @Override
+    public CompletableFuture<Void> browseTopicData(String topicName, TopicBrowseParams params,
+            Function<ConsumerRecord<String, String>, Boolean> callback) {
+        return topicDataPeeker.browse(environmentId, topicName, params, callback);
+    }
 
-        Runnable r = () -> {
-            KafkaConsumer<String, String> consumer = kafkaConsumerFactory.newConsumer();
-            consumer.subscribe(Set.of(topicName), new ConsumerRebalanceListener() {
-                @Override
-                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
-                }
+    @Override
+    public CompletableFuture<String> getKafkaServerVersion() {
+        Function<String, String> toVersionString = s -> !s.contains("-") ? s : s.substring(0, s.indexOf('-'));
+        return getBrokerConfig()
+                .thenApply(config -> config.get("inter.broker.protocol.version") == null ? "UNKNOWN_VERSION"
+                        : config.get("inter.broker.protocol.version").value())
+                .thenApply(toVersionString);
+    }
 
-                // TODO do we really want to do this? This way, Galapagos could be mis-used as a continuous read tool
-                @Override
-                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
-                    Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
-                    for (Map.Entry<TopicPartition, Long> offset : endOffsets.entrySet()) {
-                        consumer.seek(offset.getKey(), Math.max(0, offset.getValue() - limit));
-                    }
-                }
-            });
-            List<ConsumerRecord<String, String>> records = new ArrayList<>();
-            while (!Thread.interrupted() && records.size() < limit
-                    && System.currentTimeMillis() - startTime < MAX_POLL_TIME) {
-                try {
-                    ConsumerRecords<String, String> polled = consumer.poll(Duration.ofSeconds(1));
-                    polled.forEach(rec -> {
-                        if (records.size() < limit) {
-                            records.add(rec);
-                        }
-                    });
-                }
-                catch (InterruptException | WakeupException e) {
-                    break;
-                }
-                catch (KafkaException e) {
-                    result.completeExceptionally(e);
-                    try {
-                        consumer.close();
-                    }
-                    catch (Throwable t) {
-                    }
-                    return;
-                }
-            }
-            try {
-                consumer.close();
-            }
-            catch (Throwable t) {
+    private CompletableFuture<Collection<Node>> getNodes() {
+        return metadataCache.get("nodes", () -> toCompletableFuture(adminClient.describeCluster()));
+    }
+
+    private CompletableFuture<Config> getBrokerConfig() {
+        return metadataCache.get("brokerConfig", () -> getNodes().thenCompose(nodes -> {
+            if (nodes.isEmpty()) {
+                return CompletableFuture.failedFuture(new KafkaException("No nodes in cluster"));
             }
-            result.complete(records);
-        };
+            return toCompletableFuture(
+                    adminClient.describeConfigs(new ConfigResource(Type.BROKER, nodes.iterator().next().idString())));
+        }));
+    }
 
-        new Thread(r).start();
-        return result;
+    /**
+     * Splits the given items into batches of at most {@link #ACL_BATCH_SIZE} items, and passes the batches to the given
+     * operation, with at most {@link #MAX_PARALLEL_ACL_REQUESTS} operations running at the same time.
+     */
+    private static <T> CompletableFuture<Void> inParallelBatches(List<T> items,
+            Function<List<T>, CompletableFuture<?>> operation) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += ACL_BATCH_SIZE) {
+            batches.add(items.subList(i, Math.min(i + ACL_BATCH_SIZE, items.size())));
+        }
+
+        // each lane processes every n-th batch sequentially
+        int lanes = Math.min(MAX_PARALLEL_ACL_REQUESTS, batches.size());
+        CompletableFuture<?>[] laneFutures = new CompletableFuture<?>[lanes];
+        for (int lane = 0; lane < lanes; lane++) {
+            CompletableFuture<?> future = FutureUtil.noop();
+            for (int i = lane; i < batches.size(); i += lanes) {
+                List<T> batch = batches.get(i);
+                future = future.thenCompose(o -> operation.apply(batch));
+            }
+            laneFutures[lane] = future;
+        }
+        return CompletableFuture.allOf(laneFutures);
     }
 
-    @Override
-    public CompletableFuture<String> getKafkaServerVersion() {
-        Function<String, String> toVersionString = s -> !s.contains("-") ? s : s.substring(0, s.indexOf('-'));
-        return toCompletableFuture(adminClient.describeCluster()).thenCompose(coll -> {
-            String nodeName = coll.iterator().next().idString();
+    private <T> CompletableFuture<T> invalidateTopicConfigs(Collection<String> topicNames,
+            CompletableFuture<T> future) {
+        // also invalidate on failure, as the operation may have been partially applied
+        return future.whenComplete((v, t) -> topicConfigCache.invalidate(topicNames));
+    }
 
-            return toCompletableFuture(adminClient.describeConfigs(new ConfigResource(Type.BROKER, nodeName)))
-                    .thenApply(config -> config.get("inter.broker.protocol.version") == null ? "UNKNOWN_VERSION"
-                            : config.get("inter.broker.protocol.version").value())
-                    .thenApply(toVersionString);
+    private <T> CompletableFuture<T> invalidateCacheOnError(CompletableFuture<T> future) {
+        return future.whenComplete((v, t) -> {
+            if (t != null) {
+                // e.g. not enough brokers for the requested replication factor; broker list may be outdated
+                metadataCache.invalidate();
+            }
         });
     }
 
     private CompletableFuture<TopicCreateParams> buildCreateTopicParams(TopicDescription description) {
-        return getTopicConfig(description.name()).thenApply(configs -> {
-            TopicCreateParams params = new TopicCreateParams(description.partitions().size(),
-                    description.partitions().get(0).replicas().size());
-            for (TopicConfigEntry config : configs) {
-                if (!config.isDefault() && !config.isSensitive()) {
-                    params.setTopicConfig(config.getName(), config.getValue());
-                }
+        return getTopicConfig(description.name()).thenApply(configs -> toCreateParams(description, configs));
+    }
+
+    private static TopicCreateParams toCreateParams(TopicDescription description, Set<TopicConfigEntry> configs) {
+        TopicCreateParams params = new TopicCreateParams(description.partitions().size(),
+                description.partitions().get(0).replicas().size());
+        for (TopicConfigEntry config : configs) {
+            if (!config.isDefault() && !config.isSensitive()) {
+                params.setTopicConfig(config.getName(), config.getValue());
             }
-            return params;
-        });
+        }
+        return params;
+    }
+
+    private static NewTopic toNewTopic(String topicName, TopicCreateParams topicCreateParams) {
+        return new NewTopic(topicName, topicCreateParams.getNumberOfPartitions(),
+                (short) topicCreateParams.getReplicationFactor()).configs(topicCreateParams.getTopicConfigs());
+    }
+
+    private static Set<TopicConfigEntry> toConfigEntries(Config config) {
+        return config.entries().stream().map(entry -> new TopicConfigEntryImpl(entry)).collect(Collectors.toSet());
+    }
+
+    private AclBindingFilter topicAclFilter(String topicName) {
+        return new AclBindingFilter(new ResourcePatternFilter(ResourceType.TOPIC, topicName, PatternType.LITERAL),
+                new AccessControlEntryFilter(null, null, AclOperation.ANY, AclPermissionType.ANY));
     }
 
     private CompletableFuture<Collection<AclBinding>> getUserAcls(String username) {
@@ -286,4 +412,8 @@ public class ConnectedKafkaCluster implements KafkaCluster {
         return futureDecoupler.toCompletableFuture(kafkaFuture);
     }
 
+    private <T> CompletableFuture<T> toCompletableFuture(CompletableFuture<T> future) {
+        return futureDecoupler.toCompletableFuture(future);
+    }
+
 }
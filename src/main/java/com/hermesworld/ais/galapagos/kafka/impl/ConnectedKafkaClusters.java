@@ -1,18 +1,29 @@
 package com.hermesworld.ais.galapagos.kafka.impl;
 
+import com.hermesworld.ais.galapagos.kafka.BrokerHealth;
 import com.hermesworld.ais.galapagos.kafka.KafkaCluster;
 import com.hermesworld.ais.galapagos.kafka.KafkaClusterAdminClient;
 import com.hermesworld.ais.galapagos.kafka.KafkaClusters;
 import com.hermesworld.ais.galapagos.kafka.KafkaExecutorFactory;
 import com.hermesworld.ais.galapagos.kafka.auth.KafkaAuthenticationModule;
+import com.hermesworld.ais.galapagos.kafka.config.BrokerProbeConfig;
 import com.hermesworld.ais.galapagos.kafka.config.KafkaEnvironmentConfig;
+import com.hermesworld.ais.galapagos.kafka.config.ClusterMetadataCacheConfig;
+import com.hermesworld.ais.galapagos.kafka.config.TopicPeekConfig;
 import com.hermesworld.ais.galapagos.kafka.util.LoggingAdminClient;
 import com.hermesworld.ais.galapagos.kafka.util.TopicBasedRepository;
 import com.hermesworld.ais.galapagos.util.HasKey;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.util.ObjectUtils;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class ConnectedKafkaClusters implements KafkaClusters {
@@ -29,10 +40,19 @@ public class ConnectedKafkaClusters implements KafkaClusters {
 
     private final KafkaConnectionManager connectionManager;
 
+    private final TopicDataPeeker topicDataPeeker;
+
+    private final Map<String, BrokerHealthProber> brokerProbers = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService probeExecutor;
+
     public ConnectedKafkaClusters(List<KafkaEnvironmentConfig> environmentMetadata,
             Map<String, KafkaAuthenticationModule> authenticationModules, String productionEnvironmentId,
             String galapagosInternalPrefix, KafkaExecutorFactory executorFactory, int topicRepositoryReplicationFactor,
-            boolean logging, Long adminClientRequestTimeout) {
+            boolean logging, Long adminClientRequestTimeout, Path repositorySnapshotDirectory,
+            Duration repositorySnapshotInterval, boolean transactionalMetadataWrites, TopicPeekConfig peekConfig,
+            ClusterMetadataCacheConfig metadataCacheConfig, BrokerProbeConfig brokerProbeConfig,
+            MeterRegistry meterRegistry) {
         this.environmentMetadata = environmentMetadata;
         this.productionEnvironmentId = productionEnvironmentId;
         this.authenticationModules = authenticationModules;
@@ -40,20 +60,54 @@ public class ConnectedKafkaClusters implements KafkaClusters {
         KafkaFutureDecoupler futureDecoupler = new KafkaFutureDecoupler(executorFactory);
 
         this.connectionManager = new KafkaConnectionManager(environmentMetadata, authenticationModules, futureDecoupler,
-                adminClientRequestTimeout);
+                adminClientRequestTimeout, transactionalMetadataWrites);
+        this.topicDataPeeker = new TopicDataPeeker(connectionManager::getConsumerFactory, peekConfig);
 
         for (KafkaEnvironmentConfig envMeta : environmentMetadata) {
+            Path snapshotDirectory = repositorySnapshotDirectory == null ? null
+                    : repositorySnapshotDirectory.resolve(envMeta.getId());
             KafkaRepositoryContainerImpl repoContainer = new KafkaRepositoryContainerImpl(connectionManager,
-                    envMeta.getId(), galapagosInternalPrefix, topicRepositoryReplicationFactor);
+                    envMeta.getId(), galapagosInternalPrefix, topicRepositoryReplicationFactor, snapshotDirectory,
+                    repositorySnapshotInterval, meterRegistry);
             ConnectedKafkaCluster cluster = buildConnectedKafkaCluster(envMeta.getId(), connectionManager,
-                    repoContainer, futureDecoupler, logging);
+                    repoContainer, topicDataPeeker, futureDecoupler,
+                    new ClusterMetadataCache(envMeta.getId(), metadataCacheConfig, meterRegistry),
+                    new TopicConfigCache(envMeta.getId(), metadataCacheConfig, meterRegistry), logging);
             clusters.put(envMeta.getId(), cluster);
             repoContainers.add(repoContainer);
+
+            // probes use their own admin client wrapper, as logging every probe request would flood the logs
+            BrokerHealthProber prober = new BrokerHealthProber(envMeta.getId(),
+                    new DefaultKafkaClusterAdminClient(() -> connectionManager.getAdminClient(envMeta.getId())),
+                    futureDecoupler, brokerProbeConfig);
+            brokerProbers.put(envMeta.getId(), prober);
+            Gauge.builder("galapagos.kafka.brokers.online",
+                    () -> prober.getBrokerHealth().stream().filter(BrokerHealth::isOnline).count())
+                    .tag("environment", envMeta.getId()).register(meterRegistry);
+        }
+
+        if (brokerProbeConfig.getInterval().isZero() || brokerProbeConfig.getInterval().isNegative()) {
+            this.probeExecutor = null;
+        }
+        else {
+            this.probeExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "galapagos-broker-probe");
+                t.setDaemon(true);
+                return t;
+            });
+            long intervalMillis = brokerProbeConfig.getInterval().toMillis();
+            brokerProbers.values().forEach(prober -> probeExecutor.scheduleWithFixedDelay(prober::probe, 0,
+                    intervalMillis, TimeUnit.MILLISECONDS));
         }
     }
 
     @Override
     public void dispose() {
+        if (probeExecutor != null) {
+            probeExecutor.shutdownNow();
+        }
+        brokerProbers.clear();
+        topicDataPeeker.dispose();
         connectionManager.dispose();
         repoContainers.forEach(KafkaRepositoryContainerImpl::dispose);
         clusters.clear();
@@ -89,6 +143,12 @@ public class ConnectedKafkaClusters implements KafkaClusters {
         return Optional.ofNullable(clusters.get(environmentId));
     }
 
+    @Override
+    public List<BrokerHealth> getBrokerHealth(String environmentId) {
+        BrokerHealthProber prober = ObjectUtils.isEmpty(environmentId) ? null : brokerProbers.get(environmentId);
+        return prober == null ? List.of() : prober.getBrokerHealth();
+    }
+
     @Override
     public <T extends HasKey> TopicBasedRepository<T> getGlobalRepository(String topicName, Class<T> valueClass) {
         KafkaCluster cluster = getEnvironment(getProductionEnvironmentId()).orElse(null);
@@ -106,15 +166,17 @@ public class ConnectedKafkaClusters implements KafkaClusters {
 
     private static ConnectedKafkaCluster buildConnectedKafkaCluster(String environmentId,
             KafkaConnectionManager connectionManager, KafkaRepositoryContainer repositoryContainer,
-            KafkaFutureDecoupler futureDecoupler, boolean logging) {
+            TopicDataPeeker topicDataPeeker, KafkaFutureDecoupler futureDecoupler, ClusterMetadataCache metadataCache,
+            TopicConfigCache topicConfigCache, boolean logging) {
+        // the admin client connection is created on first use
         KafkaClusterAdminClient adminClient = new DefaultKafkaClusterAdminClient(
-                connectionManager.getAdminClient(environmentId));
+                () -> connectionManager.getAdminClient(environmentId));
         if (logging) {
             adminClient = new LoggingAdminClient(environmentId, adminClient);
         }
 
-        return new ConnectedKafkaCluster(environmentId, repositoryContainer, adminClient,
-                connectionManager.getConsumerFactory(environmentId), futureDecoupler);
+        return new ConnectedKafkaCluster(environmentId, repositoryContainer, adminClient, topicDataPeeker,
+                futureDecoupler, metadataCache, topicConfigCache);
     }
 
 }
@@ -7,70 +7,154 @@ import org.apache.kafka.common.Node;
 import org.apache.kafka.common.acl.AclBinding;
 import org.apache.kafka.common.acl.AclBindingFilter;
 import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public class DefaultKafkaClusterAdminClient implements KafkaClusterAdminClient {
 
-    private final Admin admin;
+    private final Supplier<? extends Admin> adminSupplier;
 
     public DefaultKafkaClusterAdminClient(Admin admin) {
-        this.admin = admin;
+        this(() -> admin);
+    }
+
+    /**
+     * Creates a new admin client wrapper which obtains the wrapped admin client from the given supplier on each call,
+     * so the underlying connection can be created lazily on first use.
+     */
+    public DefaultKafkaClusterAdminClient(Supplier<? extends Admin> adminSupplier) {
+        this.adminSupplier = adminSupplier;
     }
 
     @Override
     public KafkaFuture<Collection<AclBinding>> deleteAcls(Collection<AclBindingFilter> filters) {
-        return admin.deleteAcls(filters).all();
+        return admin().deleteAcls(filters).all();
     }
 
     @Override
     public KafkaFuture<Void> createAcls(Collection<AclBinding> bindings) {
-        return admin.createAcls(bindings).all();
+        return admin().createAcls(bindings).all();
     }
 
     @Override
     public KafkaFuture<Collection<AclBinding>> describeAcls(AclBindingFilter filter) {
-        return admin.describeAcls(filter).values();
+        return admin().describeAcls(filter).values();
     }
 
     @Override
     public KafkaFuture<Void> createTopic(NewTopic topic) {
-        return admin.createTopics(Set.of(topic)).all();
+        return admin().createTopics(Set.of(topic)).all();
     }
 
     @Override
     public KafkaFuture<Void> deleteTopic(String topicName) {
-        return admin.deleteTopics(Set.of(topicName)).all();
+        return admin().deleteTopics(Set.of(topicName)).all();
     }
 
     @Override
     public KafkaFuture<Config> describeConfigs(ConfigResource resource) {
-        return admin.describeConfigs(Set.of(resource)).values().getOrDefault(resource,
+        return admin().describeConfigs(Set.of(resource)).values().getOrDefault(resource,
                 KafkaFuture.completedFuture(new Config(Set.of())));
     }
 
     @Override
     public KafkaFuture<Collection<Node>> describeCluster() {
-        return admin.describeCluster().nodes();
+        return admin().describeCluster().nodes();
     }
 
     @Override
     public KafkaFuture<TopicDescription> describeTopic(String topicName) {
-        return admin.describeTopics(Set.of(topicName)).topicNameValues().get(topicName);
+        return admin().describeTopics(Set.of(topicName)).topicNameValues().get(topicName);
     }
 
     @Override
     public KafkaFuture<Void> incrementalAlterConfigs(ConfigResource resource, Map<String, String> configValues) {
-        List<AlterConfigOp> alterOps = configValues.entrySet().stream().map(entry -> {
+        return admin().incrementalAlterConfigs(Map.of(resource, toAlterOps(configValues))).all();
+    }
+
+    @Override
+    public CompletableFuture<Map<String, TopicDescription>> describeTopics(Collection<String> topicNames) {
+        // unlike DescribeTopicsResult.allTopicNames(), do not fail for non-existing topics
+        return collectExisting(admin().describeTopics(topicNames).topicNameValues());
+    }
+
+    @Override
+    public CompletableFuture<Map<ConfigResource, Config>> describeConfigs(Collection<ConfigResource> resources) {
+        // e.g. topics deleted or not yet created must not fail the configurations of all other topics
+        return collectExisting(admin().describeConfigs(resources).values());
+    }
+
+    @Override
+    public KafkaFuture<Void> createTopics(Collection<NewTopic> topics) {
+        return admin().createTopics(topics).all();
+    }
+
+    @Override
+    public KafkaFuture<Void> deleteTopics(Collection<String> topicNames) {
+        return admin().deleteTopics(topicNames).all();
+    }
+
+    @Override
+    public KafkaFuture<Void> incrementalAlterConfigs(Map<ConfigResource, Map<String, String>> configValues) {
+        Map<ConfigResource, Collection<AlterConfigOp>> alterOps = new HashMap<>();
+        configValues.forEach((resource, values) -> alterOps.put(resource, toAlterOps(values)));
+        return admin().incrementalAlterConfigs(alterOps).all();
+    }
+
+    private static List<AlterConfigOp> toAlterOps(Map<String, String> configValues) {
+        return configValues.entrySet().stream().map(entry -> {
             if (entry.getValue() == null) {
                 return new AlterConfigOp(new ConfigEntry(entry.getKey(), null), AlterConfigOp.OpType.DELETE);
             }
             return new AlterConfigOp(new ConfigEntry(entry.getKey(), entry.getValue()), AlterConfigOp.OpType.SET);
         }).toList();
+    }
+
+    /**
+     * Combines the given per-resource futures of a bulk request into one future, which provides the results of all
+     * resources which exist. Resources failing with {@link UnknownTopicOrPartitionException} are left out of the result
+     * map; any other failure fails the returned future.
+     */
+    private static <K, V> CompletableFuture<Map<K, V>> collectExisting(Map<K, KafkaFuture<V>> futures) {
+        Map<K, CompletableFuture<V>> results = new LinkedHashMap<>();
+        futures.forEach((key, future) -> {
+            CompletableFuture<V> result = new CompletableFuture<>();
+            future.whenComplete((value, error) -> {
+                if (error == null) {
+                    result.complete(value);
+                }
+                else if (error instanceof UnknownTopicOrPartitionException) {
+                    result.complete(null);
+                }
+                else {
+                    result.completeExceptionally(error);
+                }
+            });
+            results.put(key, result);
+        });
 
-        return admin.incrementalAlterConfigs(Map.of(resource, alterOps)).all();
+        return CompletableFuture.allOf(results.values().toArray(CompletableFuture[]::new)).thenApply(o -> {
+            Map<K, V> values = new HashMap<>();
+            results.forEach((key, result) -> {
+                V value = result.join();
+                if (value != null) {
+                    values.put(key, value);
+                }
+            });
+            return values;
+        });
     }
+
+    private Admin admin() {
+        return adminSupplier.get();
+    }
+
 }
@@ -11,79 +11,126 @@ import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.core.ProducerFactory;
 
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+/**
+ * Manages the Kafka connections (admin clients, producers, consumer factories) of all Kafka environments. Admin clients
+ * and producers are created lazily on first use, so creating connections to a slow or unreachable environment does not
+ * delay startup or the connections to other environments.
+ */
 @Slf4j
 class KafkaConnectionManager {
 
-    private final Map<String, AdminClient> adminClients = new HashMap<>();
+    private final Map<String, KafkaEnvironmentConfig> environments = new LinkedHashMap<>();
 
-    private final Map<String, KafkaSenderImpl> senders = new HashMap<>();
+    private final Map<String, KafkaAuthenticationModule> authenticationModules;
+
+    private final Map<String, AdminClient> adminClients = new ConcurrentHashMap<>();
+
+    private final Map<String, KafkaSenderImpl> senders = new ConcurrentHashMap<>();
 
     private final Map<String, KafkaConsumerFactory<String, String>> consumerFactories = new HashMap<>();
 
+    private final Map<String, KafkaConsumerFactory<String, byte[]>> repositoryConsumerFactories = new HashMap<>();
+
     private final KafkaFutureDecoupler futureDecoupler;
 
     private final Long adminClientRequestTimeout;
 
+    private final boolean transactionalMetadataWrites;
+
+    private volatile boolean disposed;
+
     public KafkaConnectionManager(List<KafkaEnvironmentConfig> environments,
             Map<String, KafkaAuthenticationModule> authenticationModules, KafkaFutureDecoupler futureDecoupler,
-            Long adminClientRequestTimeout) {
+            Long adminClientRequestTimeout, boolean transactionalMetadataWrites) {
+        this.authenticationModules = authenticationModules;
         this.futureDecoupler = futureDecoupler;
         this.adminClientRequestTimeout = adminClientRequestTimeout;
+        this.transactionalMetadataWrites = transactionalMetadataWrites;
 
         for (KafkaEnvironmentConfig env : environments) {
             String id = env.getId();
-            log.debug("Creating Kafka Connections for " + id);
             KafkaAuthenticationModule authModule = authenticationModules.get(id);
-            adminClients.put(id, buildAdminClient(env, authModule));
-            senders.put(id, buildKafkaSender(env, authModule));
-            consumerFactories.put(id, () -> buildConsumer(env, authModule));
+            this.environments.put(id, env);
+            // consumers for peeking topic data only use assign(), so they do not need a consumer group
+            consumerFactories.put(id,
+                    () -> buildConsumer(env, authModule, StringDeserializer.class, "read_uncommitted", false));
+            // metadata may be written in transactions, so repositories must only see committed records
+            repositoryConsumerFactories.put(id,
+                    () -> buildConsumer(env, authModule, ByteArrayDeserializer.class, "read_committed", true));
         }
     }
 
     public void dispose() {
+        disposed = true;
         adminClients.values().forEach(Admin::close);
         adminClients.clear();
 
-        // Senders have no resources to close here
+        senders.values().forEach(KafkaSenderImpl::close);
         senders.clear();
     }
 
     public Set<String> getEnvironmentIds() {
-        return Collections.unmodifiableSet(adminClients.keySet());
-    }
-
-    public CompletableFuture<Map<String, Boolean>> getBrokerOnlineState(String environmentId) {
-        AdminClient client = adminClients.get(environmentId);
-        if (client == null) {
-            return CompletableFuture.completedFuture(Collections.emptyMap());
-        }
-
-        // TODO implement
-        return CompletableFuture.completedFuture(Collections.emptyMap());
+        return Collections.unmodifiableSet(environments.keySet());
     }
 
+    /**
+     * Returns the admin client for the given environment, creating it on first access.
+     *
+     * @param environmentId ID of the Kafka environment.
+     * @return The admin client for the environment, or <code>null</code> if the environment is unknown.
+     * @throws IllegalStateException If this connection manager has already been disposed.
+     */
     public AdminClient getAdminClient(String environmentId) {
-        return adminClients.get(environmentId);
+        KafkaEnvironmentConfig env = getEnvironment(environmentId);
+        return env == null ? null : adminClients.computeIfAbsent(environmentId, id -> {
+            log.debug("Creating Kafka admin client for " + id);
+            return buildAdminClient(env, authenticationModules.get(id));
+        });
     }
 
+    /**
+     * Returns the sender for the given environment, creating it on first access.
+     *
+     * @param environmentId ID of the Kafka environment.
+     * @return The sender for the environment, or <code>null</code> if the environment is unknown.
+     * @throws IllegalStateException If this connection manager has already been disposed.
+     */
     public KafkaSender getKafkaSender(String environmentId) {
-        return senders.get(environmentId);
+        KafkaEnvironmentConfig env = getEnvironment(environmentId);
+        return env == null ? null
+                : senders.computeIfAbsent(environmentId, id -> buildKafkaSender(env, authenticationModules.get(id)));
     }
 
     public KafkaConsumerFactory<String, String> getConsumerFactory(String environmentId) {
         return consumerFactories.get(environmentId);
     }
 
+    /**
+     * Returns the consumer factory for the metadata repositories of the given environment. Record values are passed as
+     * raw bytes, so repositories can parse them in a single pass without creating an intermediate String.
+     */
+    public KafkaConsumerFactory<String, byte[]> getRepositoryConsumerFactory(String environmentId) {
+        return repositoryConsumerFactories.get(environmentId);
+    }
+
+    private KafkaEnvironmentConfig getEnvironment(String environmentId) {
+        if (disposed) {
+            throw new IllegalStateException("Kafka connections have already been closed");
+        }
+        return environments.get(environmentId);
+    }
+
     private AdminClient buildAdminClient(KafkaEnvironmentConfig environment,
             KafkaAuthenticationModule authenticationModule) {
         Properties props = buildKafkaProperties(environment, authenticationModule);
@@ -97,16 +144,24 @@ class KafkaConnectionManager {
         return AdminClient.create(props);
     }
 
-    private KafkaConsumer<String, String> buildConsumer(KafkaEnvironmentConfig environment,
-            KafkaAuthenticationModule authenticationModule) {
+    private <V> KafkaConsumer<String, V> buildConsumer(KafkaEnvironmentConfig environment,
+            KafkaAuthenticationModule authenticationModule, Class<? extends Deserializer<V>> valueDeserializer,
+            String isolationLevel, boolean consumerGroup) {
         Properties props = buildKafkaProperties(environment, authenticationModule);
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, "galapagos." + UUID.randomUUID());
+        if (consumerGroup) {
+            props.put(ConsumerConfig.GROUP_ID_CONFIG, "galapagos." + UUID.randomUUID());
+            props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, "10000");
+        }
+        else {
+            // short-lived reads should not leave long fetch requests behind
+            props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, "500");
+        }
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         // consumer_offset is irrelevant for us, as we use a new consumer group ID in every Galapagos instance
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
-        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, "10000");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, valueDeserializer);
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, isolationLevel);
         return new KafkaConsumer<>(props);
     }
 
@@ -115,12 +170,20 @@ class KafkaConnectionManager {
         Properties props = buildKafkaProperties(environment, authenticationModule);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        props.put(ProducerConfig.ACKS_CONFIG, "1");
-        props.put(ProducerConfig.BATCH_SIZE_CONFIG, "1"); // do not batch
-        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, "1");
-
-        ProducerFactory<String, String> factory = new DefaultKafkaProducerFactory<>(toMap(props));
-        return new KafkaSenderImpl(new KafkaTemplate<>(factory), futureDecoupler);
+        // idempotence keeps the order of records per key even with multiple in-flight requests, so records can be
+        // batched and pipelined
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, "5");
+
+        DefaultKafkaProducerFactory<String, String> factory = new DefaultKafkaProducerFactory<>(toMap(props));
+        if (transactionalMetadataWrites) {
+            factory.setTransactionIdPrefix("galapagos." + environment.getId() + "." + UUID.randomUUID() + ".");
+        }
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(factory);
+        // single writes are not wrapped in transactions
+        template.setAllowNonTransactional(true);
+        return new KafkaSenderImpl(template, futureDecoupler);
     }
 
     private Properties buildKafkaProperties(KafkaEnvironmentConfig environment,
@@ -1,10 +1,10 @@
 package com.hermesworld.ais.galapagos.kafka.impl;
 
-import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.common.KafkaException;
 
 public interface KafkaConsumerFactory<K, V> {
 
-    KafkaConsumer<K, V> newConsumer() throws KafkaException;
+    Consumer<K, V> newConsumer() throws KafkaException;
 
 }
@@ -4,7 +4,7 @@ import com.hermesworld.ais.galapagos.kafka.KafkaExecutorFactory;
 import org.apache.kafka.common.KafkaFuture;
 
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
 
 /**
  * Helper class which decouples the completion of {@link KafkaFuture} or {@link CompletableFuture} instances from the
@@ -23,8 +23,8 @@ public class KafkaFutureDecoupler {
     /**
      * Returns a {@link CompletableFuture} which completes when the given {@link KafkaFuture} completes. If the
      * <code>KafkaFuture</code> is already complete, a completed Future is returned. Otherwise, the returned Future
-     * completes on a Thread provided by a fresh <code>ExecutorService</code> of the <code>KafkaExecutorFactory</code>
-     * provided for this helper class.
+     * completes on a Thread provided by the decoupling executor of the <code>KafkaExecutorFactory</code> provided for
+     * this helper class.
      *
      * @param <T>    Type of the value provided by the Future.
      * @param future Future which may be complete, or which may complete on the Kafka Thread.
@@ -39,8 +39,8 @@ public class KafkaFutureDecoupler {
     /**
      * Returns a {@link CompletableFuture} which completes when the given {@link CompletableFuture} completes. If the
      * <code>ListenableFuture</code> is already complete, a completed Future is returned. Otherwise, the returned Future
-     * completes on a Thread provided by a fresh <code>ExecutorService</code> of the <code>KafkaExecutorFactory</code>
-     * provided for this helper class.
+     * completes on a Thread provided by the decoupling executor of the <code>KafkaExecutorFactory</code> provided for
+     * this helper class.
      *
      * @param <T>               Type of the value provided by the Future.
      * @param completableFuture Future which may be complete, or which may complete on the Kafka Thread.
@@ -58,23 +58,16 @@ public class KafkaFutureDecoupler {
         }
 
         CompletableFuture<T> result = new CompletableFuture<>();
-        ExecutorService executor = executorFactory.newExecutor();
+        Executor executor = executorFactory.getDecouplingExecutor();
 
-        completableFuture.whenComplete((res, throwable) -> {
-            try {
-                executor.submit(() -> {
-                    if (throwable != null) {
-                        result.completeExceptionally(throwable);
-                    }
-                    else {
-                        result.complete(res);
-                    }
-                });
+        completableFuture.whenComplete((res, throwable) -> executor.execute(() -> {
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
             }
-            finally {
-                executor.shutdown();
+            else {
+                result.complete(res);
             }
-        });
+        }));
 
         return result;
     }
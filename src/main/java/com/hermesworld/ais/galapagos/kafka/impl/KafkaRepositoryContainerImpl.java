@@ -3,37 +3,56 @@ package com.hermesworld.ais.galapagos.kafka.impl;
 import com.hermesworld.ais.galapagos.kafka.KafkaSender;
 import com.hermesworld.ais.galapagos.kafka.util.TopicBasedRepository;
 import com.hermesworld.ais.galapagos.util.HasKey;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.CreateTopicsResult;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
-import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.Uuid;
 import org.apache.kafka.common.config.TopicConfig;
 import org.apache.kafka.common.errors.AuthenticationException;
 import org.apache.kafka.common.errors.AuthorizationException;
 import org.apache.kafka.common.errors.InterruptException;
 import org.apache.kafka.common.errors.WakeupException;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
+/**
+ * Repository container consuming all metadata topics of one Kafka environment with a single consumer. <br>
+ * The following metrics are registered, tagged with <code>environment</code>: <code>galapagos.repository.poll</code>
+ * (duration of a <code>poll()</code> call), <code>galapagos.repository.poll.records</code> (records returned per
+ * <code>poll()</code>), and, additionally tagged with <code>topic</code>, <code>galapagos.repository.lag</code> (number
+ * of records on the metadata topic not yet consumed, as of the last <code>poll()</code>). See
+ * {@link TopicBasedRepositoryImpl} for the metrics registered per repository.
+ */
 @Slf4j
 public class KafkaRepositoryContainerImpl implements KafkaRepositoryContainer {
 
-    private final KafkaConsumer<String, String> consumer;
+    private final KafkaConsumerFactory<String, byte[]> consumerFactory;
+
+    /**
+     * The consumer for all metadata topics. Created by the consumer Thread once the first repository has been added, so
+     * the connection to the environment is established in the background.
+     */
+    private volatile Consumer<String, byte[]> consumer;
 
     private final KafkaSender sender;
 
@@ -41,7 +60,7 @@ public class KafkaRepositoryContainerImpl implements KafkaRepositoryContainer {
 
     private final AtomicBoolean refreshSubscriptions = new AtomicBoolean();
 
-    private final AdminClient adminClient;
+    private final KafkaConnectionManager connectionManager;
 
     private final String environmentId;
 
@@ -57,14 +76,93 @@ public class KafkaRepositoryContainerImpl implements KafkaRepositoryContainer {
 
     private final int replicationFactor;
 
+    /**
+     * End offsets of assigned partitions, captured at assignment time, which have not yet been reached by the consumer.
+     * Only accessed from the consumer Thread.
+     */
+    private final Map<TopicPartition, Long> pendingEndOffsets = new HashMap<>();
+
+    /**
+     * Topics whose repositories have been assigned to the consumer, but not yet marked as fully loaded. Only accessed
+     * from the consumer Thread.
+     */
+    private final Set<String> loadingTopics = new HashSet<>();
+
+    /**
+     * Offsets to start consuming from when a partition is (re-)assigned to the consumer, either restored from a
+     * snapshot, or remembered when the partition has been revoked. Partitions without entry are consumed from the
+     * beginning.
+     */
+    private final Map<TopicPartition, Long> startOffsets = new ConcurrentHashMap<>();
+
+    private final Map<String, String> topicIds = new ConcurrentHashMap<>();
+
+    private final RepositorySnapshotStore snapshotStore;
+
+    private final Duration snapshotInterval;
+
+    private final ExecutorService snapshotExecutor;
+
+    /**
+     * Consumer positions of the last snapshot written (or restored) per topic.
+     */
+    private final Map<String, Map<Integer, Long>> lastSnapshotOffsets = new ConcurrentHashMap<>();
+
+    private long lastSnapshotTime = System.currentTimeMillis();
+
+    private final MeterRegistry meterRegistry;
+
+    private final Timer pollTimer;
+
+    private final DistributionSummary pollRecords;
+
+    /**
+     * Consumer lag per topic, as of the last poll. Only updated from the consumer Thread.
+     */
+    private final Map<String, AtomicLong> consumerLag = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new repository container for the given environment.
+     *
+     * @param connectionManager       Connection manager providing the Kafka connections for the environment.
+     * @param environmentId           ID of the Kafka environment.
+     * @param galapagosInternalPrefix Prefix for the Kafka topic names of the repositories.
+     * @param replicationFactor       Replication factor to use when creating repository topics.
+     * @param snapshotDirectory       Directory to store local repository snapshots in, or <code>null</code> to disable
+     *                                snapshots, so all repository topics are always consumed from the beginning.
+     * @param snapshotInterval        Interval to write repository snapshots in. Ignored if snapshots are disabled.
+     * @param meterRegistry           Registry to register the consumer and repository metrics at.
+     */
     public KafkaRepositoryContainerImpl(KafkaConnectionManager connectionManager, String environmentId,
-            String galapagosInternalPrefix, int replicationFactor) {
-        this.consumer = connectionManager.getConsumerFactory(environmentId).newConsumer();
+            String galapagosInternalPrefix, int replicationFactor, Path snapshotDirectory, Duration snapshotInterval,
+            MeterRegistry meterRegistry) {
+        this.consumerFactory = connectionManager.getRepositoryConsumerFactory(environmentId);
         this.sender = connectionManager.getKafkaSender(environmentId);
-        this.adminClient = connectionManager.getAdminClient(environmentId);
+        this.connectionManager = connectionManager;
         this.environmentId = environmentId;
         this.prefix = galapagosInternalPrefix;
         this.replicationFactor = replicationFactor;
+        this.meterRegistry = meterRegistry;
+        this.pollTimer = Timer.builder("galapagos.repository.poll").tag("environment", environmentId)
+                .description("Duration of poll() calls of the metadata topics consumer").register(meterRegistry);
+        this.pollRecords = DistributionSummary.builder("galapagos.repository.poll.records")
+                .tag("environment", environmentId).description("Number of records returned per poll() call")
+                .register(meterRegistry);
+
+        if (snapshotDirectory != null) {
+            this.snapshotStore = new RepositorySnapshotStore(snapshotDirectory);
+            this.snapshotInterval = snapshotInterval;
+            this.snapshotExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "galapagos-snapshots-" + environmentId);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        else {
+            this.snapshotStore = null;
+            this.snapshotInterval = null;
+            this.snapshotExecutor = null;
+        }
 
         this.consumerThread = new Thread(this::consume);
         this.consumerThread.start();
@@ -72,23 +170,36 @@ public class KafkaRepositoryContainerImpl implements KafkaRepositoryContainer {
 
     public void dispose() {
         if (this.consumerThread != null) {
-            if (this.repositories.isEmpty()) {
+            Consumer<String, byte[]> consumer = this.consumer;
+            if (consumer == null) {
+                // consumer thread is still waiting for repositories, or about to create the consumer
                 this.consumerThread.interrupt();
             }
             else {
                 // consumer thread will terminate by the wakeup
-                this.consumer.wakeup();
+                consumer.wakeup();
             }
             this.consumerThread = null;
         }
+        if (this.snapshotExecutor != null) {
+            this.snapshotExecutor.shutdown();
+        }
     }
 
     @Override
     public <T extends HasKey> TopicBasedRepository<T> addRepository(String topicName, Class<T> valueClass) {
         String kafkaTopicName = prefix + topicName;
-        ensureTopicExists(kafkaTopicName);
+        String topicId = ensureTopicExists(kafkaTopicName);
         TopicBasedRepositoryImpl<T> repository = new TopicBasedRepositoryImpl<>(kafkaTopicName, topicName, valueClass,
-                sender);
+                sender, meterRegistry, environmentId);
+        this.topicIds.put(kafkaTopicName, topicId);
+        AtomicLong lag = consumerLag.computeIfAbsent(kafkaTopicName, t -> new AtomicLong());
+        Gauge.builder("galapagos.repository.lag", lag, AtomicLong::get).tag("environment", environmentId)
+                .tag("topic", kafkaTopicName).description("Number of records on the metadata topic not yet consumed")
+                .register(meterRegistry);
+        if (snapshotStore != null) {
+            restoreSnapshot(kafkaTopicName, topicId, repository);
+        }
         this.repositories.put(kafkaTopicName, repository);
         refreshSubscriptions.set(true);
         synchronized (consumeSemaphore) {
@@ -102,40 +213,204 @@ public class KafkaRepositoryContainerImpl implements KafkaRepositoryContainer {
         consumer.subscribe(repositories.keySet(), new ConsumerRebalanceListener() {
             @Override
             public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                // remember where we were, so a re-assignment (e.g. when adding a repository) does not replay all topics
+                for (TopicPartition partition : partitions) {
+                    startOffsets.put(partition, consumer.position(partition));
+                }
             }
 
             @Override
             public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
                 log.debug("Environment " + environmentId + ": Consumer has been assigned to partitions " + partitions);
-                consumer.seekToBeginning(partitions);
+                seekAndCaptureEndOffsets(partitions);
             }
         });
     }
 
-    private void ensureTopicExists(String topic) {
+    private void seekAndCaptureEndOffsets(Collection<TopicPartition> partitions) {
+        Map<TopicPartition, Long> beginningOffsets = consumer.beginningOffsets(partitions);
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+        // if the start offset for any partition of a topic is invalid (e.g. because the topic has been re-created),
+        // the whole topic has to be replayed from the beginning
+        Set<String> replayTopics = partitions.stream().filter(p -> {
+            Long offset = startOffsets.get(p);
+            return offset != null
+                    && (offset < beginningOffsets.getOrDefault(p, 0L) || offset > endOffsets.getOrDefault(p, 0L));
+        }).map(TopicPartition::topic).collect(Collectors.toSet());
+
+        for (String topic : replayTopics) {
+            log.warn("Environment " + environmentId + ": Stored offsets for topic " + topic
+                    + " are out of range, replaying topic from the beginning");
+            repositories.get(topic).clear();
+        }
+
+        for (TopicPartition partition : partitions) {
+            long beginningOffset = beginningOffsets.getOrDefault(partition, 0L);
+            long endOffset = endOffsets.getOrDefault(partition, 0L);
+            Long startOffset = startOffsets.remove(partition);
+            if (startOffset == null || replayTopics.contains(partition.topic())) {
+                startOffset = beginningOffset;
+            }
+            consumer.seek(partition, startOffset);
+
+            if (endOffset > startOffset) {
+                pendingEndOffsets.put(partition, endOffset);
+            }
+            if (!repositories.get(partition.topic()).isFullyLoaded()) {
+                loadingTopics.add(partition.topic());
+            }
+        }
+
+        // empty topics are fully loaded right now, no need to wait for the next poll() to return
+        markLoadedRepositories();
+    }
+
+    private void updatePendingEndOffsets() {
+        if (pendingEndOffsets.isEmpty()) {
+            return;
+        }
+        Set<TopicPartition> assignment = consumer.assignment();
+        pendingEndOffsets.entrySet()
+                .removeIf(e -> assignment.contains(e.getKey()) && consumer.position(e.getKey()) >= e.getValue());
+        markLoadedRepositories();
+    }
+
+    private void updateConsumerLag() {
+        Map<String, Long> lagPerTopic = new HashMap<>();
+        for (TopicPartition partition : consumer.assignment()) {
+            // currentLag() only uses locally known offsets; unknown lag is ignored until the consumer has fetched
+            OptionalLong lag = consumer.currentLag(partition);
+            if (lag.isPresent()) {
+                lagPerTopic.merge(partition.topic(), lag.getAsLong(), Long::sum);
+            }
+        }
+        lagPerTopic.forEach((topic, lag) -> {
+            AtomicLong value = consumerLag.get(topic);
+            if (value != null) {
+                value.set(lag);
+            }
+        });
+    }
+
+    private void markLoadedRepositories() {
+        Set<String> pendingTopics = pendingEndOffsets.keySet().stream().map(TopicPartition::topic)
+                .collect(Collectors.toSet());
+        for (Iterator<String> iter = loadingTopics.iterator(); iter.hasNext();) {
+            String topic = iter.next();
+            if (!pendingTopics.contains(topic)) {
+                log.debug("Environment " + environmentId + ": Repository for topic " + topic + " is fully loaded");
+                repositories.get(topic).markEndOffsetsReached();
+                iter.remove();
+            }
+        }
+    }
+
+    private void restoreSnapshot(String kafkaTopicName, String topicId, TopicBasedRepositoryImpl<?> repository) {
+        RepositorySnapshotStore.RepositorySnapshot snapshot = snapshotStore.load(kafkaTopicName).orElse(null);
+        if (snapshot == null) {
+            return;
+        }
+        if (!topicId.equals(snapshot.getTopicId())) {
+            log.info("Environment " + environmentId + ": Ignoring snapshot for topic " + kafkaTopicName
+                    + " as it has been taken from a different topic instance");
+            return;
+        }
+
+        try {
+            repository.importSnapshotEntries(snapshot.getEntries());
+            repository.importLegacyDeletedKeys(snapshot.getLegacyDeletedKeys());
+        }
+        catch (IOException e) {
+            log.warn("Environment " + environmentId + ": Could not restore snapshot for topic " + kafkaTopicName
+                    + ", replaying topic from the beginning", e);
+            repository.clear();
+            return;
+        }
+
+        snapshot.getOffsets().forEach(
+                (partition, offset) -> startOffsets.put(new TopicPartition(kafkaTopicName, partition), offset));
+        lastSnapshotOffsets.put(kafkaTopicName, snapshot.getOffsets());
+        log.info("Environment " + environmentId + ": Restored " + snapshot.getEntries().size() + " object(s) for topic "
+                + kafkaTopicName + " from local snapshot");
+    }
+
+    private void writeSnapshotsIfDue() {
+        if (snapshotStore == null || System.currentTimeMillis() - lastSnapshotTime < snapshotInterval.toMillis()) {
+            return;
+        }
+        lastSnapshotTime = System.currentTimeMillis();
+
+        Set<TopicPartition> assignment = consumer.assignment();
+        for (Map.Entry<String, TopicBasedRepositoryImpl<?>> entry : repositories.entrySet()) {
+            String topic = entry.getKey();
+            TopicBasedRepositoryImpl<?> repository = entry.getValue();
+            if (!repository.isFullyLoaded()) {
+                continue;
+            }
+            if (repository.hasFailedWrites()) {
+                // in-memory state may contain changes not present on the topic; force full replay on next startup
+                lastSnapshotOffsets.remove(topic);
+                snapshotExecutor.execute(() -> snapshotStore.delete(topic));
+                continue;
+            }
+
+            // positions must be determined BEFORE exporting the repository contents: Replaying records which are
+            // already contained in the snapshot is harmless, but skipping records is not.
+            Map<Integer, Long> offsets = assignment.stream().filter(p -> p.topic().equals(topic))
+                    .collect(Collectors.toMap(TopicPartition::partition, consumer::position));
+            if (offsets.isEmpty() || offsets.equals(lastSnapshotOffsets.get(topic))) {
+                continue;
+            }
+            lastSnapshotOffsets.put(topic, offsets);
+
+            String topicId = topicIds.getOrDefault(topic, "");
+            snapshotExecutor.execute(() -> writeSnapshot(topic, topicId, offsets, repository));
+        }
+    }
+
+    private void writeSnapshot(String topic, String topicId, Map<Integer, Long> offsets,
+            TopicBasedRepositoryImpl<?> repository) {
+        try {
+            snapshotStore.write(topic, new RepositorySnapshotStore.RepositorySnapshot(topicId, offsets,
+                    repository.exportSnapshotEntries(), repository.exportLegacyDeletedKeys()));
+            log.debug("Environment " + environmentId + ": Wrote snapshot for topic " + topic);
+        }
+        catch (IOException e) {
+            log.warn("Environment " + environmentId + ": Could not write snapshot for topic " + topic, e);
+        }
+    }
+
+    private String ensureTopicExists(String topic) {
         try {
             Map<String, TopicDescription> desc;
 
             try {
-                desc = this.adminClient.describeTopics(Set.of(topic)).allTopicNames().get();
+                desc = adminClient().describeTopics(Set.of(topic)).allTopicNames().get();
             }
             catch (Exception e) {
                 desc = Collections.emptyMap();
             }
 
-            if (desc.isEmpty()) {
+            if (!desc.isEmpty()) {
+                return toTopicIdString(desc.get(topic).topicId());
+            }
+            else {
                 log.info("Creating metadata topic " + topic + " on environment " + environmentId);
-                int nodeCount = this.adminClient.describeCluster().nodes().get().size();
+                int nodeCount = adminClient().describeCluster().nodes().get().size();
                 int replicationFactor = Math.min(this.replicationFactor, nodeCount);
 
                 NewTopic newTopic = new NewTopic(topic, 1, (short) replicationFactor);
                 newTopic = newTopic
                         .configs(Map.of(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT));
-                this.adminClient.createTopics(Set.of(newTopic)).all().get();
+                CreateTopicsResult result = adminClient().createTopics(Set.of(newTopic));
+                result.all().get();
+                return toTopicIdString(result.topicId(topic).get());
             }
         }
         catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            return "";
         }
         catch (ExecutionException e) {
             if (e.getCause() instanceof RuntimeException) {
@@ -145,6 +420,10 @@ public class KafkaRepositoryContainerImpl implements KafkaRepositoryContainer {
         }
     }
 
+    private AdminClient adminClient() {
+        return connectionManager.getAdminClient(environmentId);
+    }
+
     private void consume() {
         while (repositories.isEmpty() && !Thread.interrupted()) {
             try {
@@ -157,23 +436,34 @@ public class KafkaRepositoryContainerImpl implements KafkaRepositoryContainer {
             }
         }
 
+        try {
+            consumer = consumerFactory.newConsumer();
+        }
+        catch (KafkaException e) {
+            log.error("Could not create metadata consumer for environment " + environmentId
+                    + ", will exit consumer Thread", e);
+            return;
+        }
+
         while (!Thread.interrupted()) {
             if (refreshSubscriptions.getAndSet(false)) {
                 updateSubscriptions();
             }
 
             try {
-                long start = 0;
                 if (log.isTraceEnabled()) {
                     log.trace("Calling poll() on environment " + environmentId);
-                    start = System.currentTimeMillis();
                 }
-                ConsumerRecords<String, String> records = consumer.poll(POLL_DURATION);
+                long start = System.nanoTime();
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_DURATION);
+                long duration = System.nanoTime() - start;
+                pollTimer.record(duration, TimeUnit.NANOSECONDS);
+                pollRecords.record(records.count());
                 if (log.isTraceEnabled()) {
                     log.trace("poll() returned " + records.count() + " record(s) and took "
-                            + (System.currentTimeMillis() - start) + " ms");
+                            + TimeUnit.NANOSECONDS.toMillis(duration) + " ms");
                 }
-                for (ConsumerRecord<String, String> record : records) {
+                for (ConsumerRecord<String, byte[]> record : records) {
                     TopicBasedRepositoryImpl<?> repository = repositories.get(record.topic());
                     if (repository != null) {
                         repository.messageReceived(record.topic(), record.key(), record.value());
@@ -182,6 +472,9 @@ public class KafkaRepositoryContainerImpl implements KafkaRepositoryContainer {
                         log.warn("No handler found for message on topic " + record.topic());
                     }
                 }
+                updatePendingEndOffsets();
+                updateConsumerLag();
+                writeSnapshotsIfDue();
             }
             catch (WakeupException e) {
                 // signal to close consumer!
@@ -214,4 +507,8 @@ public class KafkaRepositoryContainerImpl implements KafkaRepositoryContainer {
         }
     }
 
+    private static String toTopicIdString(Uuid topicId) {
+        return topicId == null || Uuid.ZERO_UUID.equals(topicId) ? "" : topicId.toString();
+    }
+
 }
@@ -1,13 +1,24 @@
 package com.hermesworld.ais.galapagos.kafka.impl;
 
 import com.hermesworld.ais.galapagos.kafka.KafkaSender;
+import com.hermesworld.ais.galapagos.util.FutureUtil;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.kafka.core.KafkaTemplate;
 
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
- * Wraps a KafkaTemplate to make concatenated Futures Thread-safe.
+ * Wraps a KafkaTemplate to make concatenated Futures Thread-safe. <br>
+ * If the template is transactional, Kafka transactions are executed on a dedicated Thread of this sender, as they are
+ * committed synchronously, and the calling Thread may well be one of the (bounded) decoupling Threads. Single messages
+ * are then handed to the producer on the same Thread, so they keep their order relative to the transactions.
  *
  * @author AlbrechtFlo
  *
@@ -18,15 +29,80 @@ public class KafkaSenderImpl implements KafkaSender {
 
     private final KafkaFutureDecoupler futureDecoupler;
 
+    private final ExecutorService transactionExecutor;
+
     public KafkaSenderImpl(KafkaTemplate<String, String> template, KafkaFutureDecoupler futureDecoupler) {
         this.kafkaTemplate = template;
         this.futureDecoupler = futureDecoupler;
+        this.transactionExecutor = template.isTransactional()
+                ? Executors.newSingleThreadExecutor(new TransactionThreadFactory())
+                : null;
     }
 
     @Override
     public CompletableFuture<Void> send(String topic, String key, String message) {
-        return futureDecoupler.toCompletableFuture(kafkaTemplate.send(new ProducerRecord<>(topic, key, message)))
-                .thenApply(o -> null);
+        ProducerRecord<String, String> record = new ProducerRecord<>(topic, key, message);
+        CompletableFuture<?> future = transactionExecutor == null ? kafkaTemplate.send(record)
+                : onTransactionThread(() -> kafkaTemplate.send(record));
+        return futureDecoupler.toCompletableFuture(future).thenApply(o -> null);
+    }
+
+    /**
+     * Sends all messages without waiting for the single acknowledgements, so the producer can batch them. If the
+     * underlying template is transactional, all messages are sent within one Kafka transaction, so consumers reading
+     * committed data only see either all or none of the messages. The transaction is executed on the transaction Thread
+     * of this sender, so this method never blocks the calling Thread.
+     */
+    @Override
+    public CompletableFuture<Void> sendAll(String topic, Map<String, String> messages) {
+        if (messages.isEmpty()) {
+            return FutureUtil.noop();
+        }
+
+        if (transactionExecutor != null) {
+            return futureDecoupler.toCompletableFuture(onTransactionThread(() -> {
+                kafkaTemplate.executeInTransaction(ops -> {
+                    messages.forEach((key, message) -> ops.send(topic, key, message));
+                    return null;
+                });
+                return FutureUtil.noop();
+            }));
+        }
+
+        CompletableFuture<?>[] futures = messages.entrySet().stream()
+                .map(e -> kafkaTemplate.send(topic, e.getKey(), e.getValue())).toArray(CompletableFuture[]::new);
+        return futureDecoupler.toCompletableFuture(CompletableFuture.allOf(futures));
+    }
+
+    /**
+     * Stops the transaction Thread of this sender, if any, once all pending messages have been handed to the producer.
+     * Further messages are rejected.
+     */
+    void close() {
+        if (transactionExecutor != null) {
+            transactionExecutor.shutdown();
+        }
+    }
+
+    private <T> CompletableFuture<T> onTransactionThread(Supplier<CompletableFuture<T>> task) {
+        try {
+            return CompletableFuture.supplyAsync(task, transactionExecutor).thenCompose(future -> future);
+        }
+        catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static class TransactionThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "galapagos-kafka-transactions-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
     }
 
 }
@@ -0,0 +1,24 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import com.hermesworld.ais.galapagos.util.HasKey;
+
+/**
+ * A secondary index of a {@link TopicBasedRepositoryImpl}, which is updated by the repository whenever objects are
+ * added, replaced, or removed. Updates are serialized by the repository.
+ *
+ * @param <T> Type of the objects stored in the indexed repository.
+ */
+interface MaintainedIndex<T extends HasKey> {
+
+    /**
+     * Adds the given object to the index, or updates its index entries if an object with the same ID has been added
+     * before.
+     */
+    void put(String id, T value);
+
+    /**
+     * Removes the object with the given ID from the index, if present.
+     */
+    void remove(String id);
+
+}
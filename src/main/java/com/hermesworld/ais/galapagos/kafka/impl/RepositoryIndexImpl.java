@@ -0,0 +1,106 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.hermesworld.ais.galapagos.kafka.util.RepositoryIndex;
+import com.hermesworld.ais.galapagos.util.HasKey;
+
+/**
+ * Incrementally maintained secondary index of a {@link TopicBasedRepositoryImpl}. The index only stores the IDs of the
+ * objects per index key, and materializes the objects via the owning repository on lookup. An object may be stored
+ * under multiple index keys. The index remembers the index keys under which each object ID has been stored, so old
+ * index entries can be removed without access to the old object. <br>
+ * Updates are expected to be serialized by the owning repository; lookups are lock-free.
+ *
+ * @param <K> Type of the index key.
+ * @param <T> Type of the objects stored in the indexed repository.
+ */
+final class RepositoryIndexImpl<K, T extends HasKey> implements RepositoryIndex<K, T>, MaintainedIndex<T> {
+
+    private final Function<? super T, ? extends Collection<? extends K>> keysExtractor;
+
+    private final Function<String, T> objectLookup;
+
+    private final Map<K, Set<String>> index = new ConcurrentHashMap<>();
+
+    private final Map<String, Set<K>> indexKeysById = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new, empty index.
+     *
+     * @param keysExtractor Function to determine the index keys of an object. <code>null</code> elements are ignored.
+     * @param objectLookup  Function to materialize the object with the given ID, returning <code>null</code> if no such
+     *                      object exists (anymore).
+     */
+    RepositoryIndexImpl(Function<? super T, ? extends Collection<? extends K>> keysExtractor,
+            Function<String, T> objectLookup) {
+        this.keysExtractor = keysExtractor;
+        this.objectLookup = objectLookup;
+    }
+
+    /**
+     * Creates a new, empty index which stores each object under at most one index key.
+     *
+     * @param keyExtractor Function to determine the index key of an object, or <code>null</code> if the object shall
+     *                     not be indexed.
+     * @param objectLookup Function to materialize the object with the given ID, returning <code>null</code> if no such
+     *                     object exists (anymore).
+     */
+    static <K, T extends HasKey> RepositoryIndexImpl<K, T> singleValued(Function<? super T, ? extends K> keyExtractor,
+            Function<String, T> objectLookup) {
+        return new RepositoryIndexImpl<>(value -> {
+            K key = keyExtractor.apply(value);
+            return key == null ? Set.of() : Set.of(key);
+        }, objectLookup);
+    }
+
+    @Override
+    public Collection<T> getObjects(K indexKey) {
+        if (indexKey == null) {
+            return List.of();
+        }
+        Set<String> ids = index.get(indexKey);
+        if (ids == null) {
+            return List.of();
+        }
+        return ids.stream().map(objectLookup).filter(Objects::nonNull).collect(Collectors.toUnmodifiableList());
+    }
+
+    @Override
+    public void put(String id, T value) {
+        Collection<? extends K> extractedKeys = keysExtractor.apply(value);
+        Set<K> newKeys = extractedKeys == null ? Set.of()
+                : extractedKeys.stream().filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet());
+        Set<K> oldKeys = newKeys.isEmpty() ? indexKeysById.remove(id) : indexKeysById.put(id, newKeys);
+
+        if (oldKeys != null) {
+            oldKeys.stream().filter(key -> !newKeys.contains(key)).forEach(key -> removeFromIndex(key, id));
+        }
+        for (K key : newKeys) {
+            index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        Set<K> oldKeys = indexKeysById.remove(id);
+        if (oldKeys != null) {
+            oldKeys.forEach(key -> removeFromIndex(key, id));
+        }
+    }
+
+    private void removeFromIndex(K indexKey, String id) {
+        index.computeIfPresent(indexKey, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+}
@@ -0,0 +1,220 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Stores checkpoints of topic based repositories in local files, so a restarting Galapagos instance can restore the
+ * repository contents from disk and only has to consume the records written since the checkpoint. <br>
+ * Each repository is stored in its own file, containing the ID of the Kafka topic (to detect re-created topics), the
+ * consumer position for each partition, the JSON representation of all objects, and the keys of objects deleted via
+ * legacy deletion markers. Files are written to a temporary file first and then atomically moved into place, and are
+ * read via a memory-mapped buffer.
+ */
+@Slf4j
+class RepositorySnapshotStore {
+
+    private static final int MAGIC = 0x47534e50; // "GSNP"
+
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * Format version without legacy deleted keys, which can still be read.
+     */
+    private static final int FORMAT_VERSION_1 = 1;
+
+    private static final String FILE_SUFFIX = ".snapshot";
+
+    private final Path directory;
+
+    public RepositorySnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Loads the snapshot for the given Kafka topic, if a valid one exists.
+     *
+     * @param kafkaTopicName Kafka topic name of the repository.
+     * @return The snapshot, or an empty Optional if no snapshot exists or it could not be read.
+     */
+    public Optional<RepositorySnapshot> load(String kafkaTopicName) {
+        Path file = snapshotFile(kafkaTopicName);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int version = buffer.getInt() == MAGIC ? buffer.getInt() : -1;
+            if (version != FORMAT_VERSION && version != FORMAT_VERSION_1) {
+                log.warn("Ignoring repository snapshot " + file + " with unknown format");
+                return Optional.empty();
+            }
+
+            String topicId = readString(buffer);
+            int partitionCount = buffer.getInt();
+            Map<Integer, Long> offsets = new HashMap<>();
+            for (int i = 0; i < partitionCount; i++) {
+                offsets.put(buffer.getInt(), buffer.getLong());
+            }
+
+            int entryCount = buffer.getInt();
+            Map<String, byte[]> entries = new LinkedHashMap<>();
+            for (int i = 0; i < entryCount; i++) {
+                entries.put(readString(buffer), readBytes(buffer));
+            }
+
+            Set<String> legacyDeletedKeys = new HashSet<>();
+            if (version >= FORMAT_VERSION) {
+                int keyCount = buffer.getInt();
+                for (int i = 0; i < keyCount; i++) {
+                    legacyDeletedKeys.add(readString(buffer));
+                }
+            }
+
+            return Optional.of(new RepositorySnapshot(topicId, offsets, entries, legacyDeletedKeys));
+        }
+        catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            log.warn("Could not read repository snapshot " + file + ", ignoring it", e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes a snapshot for the given Kafka topic, replacing any existing snapshot.
+     *
+     * @param kafkaTopicName Kafka topic name of the repository.
+     * @param snapshot       Snapshot to write.
+     * @throws IOException If the snapshot could not be written.
+     */
+    public void write(String kafkaTopicName, RepositorySnapshot snapshot) throws IOException {
+        Files.createDirectories(directory);
+        Path file = snapshotFile(kafkaTopicName);
+        Path tempFile = Files.createTempFile(directory, kafkaTopicName, ".tmp");
+
+        try {
+            try (OutputStream fos = Files.newOutputStream(tempFile);
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 65536))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, snapshot.getTopicId());
+                out.writeInt(snapshot.getOffsets().size());
+                for (Map.Entry<Integer, Long> offset : snapshot.getOffsets().entrySet()) {
+                    out.writeInt(offset.getKey());
+                    out.writeLong(offset.getValue());
+                }
+                out.writeInt(snapshot.getEntries().size());
+                for (Map.Entry<String, byte[]> entry : snapshot.getEntries().entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeBytes(out, entry.getValue());
+                }
+                out.writeInt(snapshot.getLegacyDeletedKeys().size());
+                for (String key : snapshot.getLegacyDeletedKeys()) {
+                    writeString(out, key);
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Deletes the snapshot for the given Kafka topic, if any, so the next startup performs a full replay of the topic.
+     *
+     * @param kafkaTopicName Kafka topic name of the repository.
+     */
+    public void delete(String kafkaTopicName) {
+        try {
+            Files.deleteIfExists(snapshotFile(kafkaTopicName));
+        }
+        catch (IOException e) {
+            log.warn("Could not delete repository snapshot for topic " + kafkaTopicName, e);
+        }
+    }
+
+    private Path snapshotFile(String kafkaTopicName) {
+        return directory.resolve(kafkaTopicName + FILE_SUFFIX);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        out.writeInt(value.length);
+        out.write(value);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        return new String(readBytes(buffer), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Invalid length in snapshot file: " + length);
+        }
+        byte[] result = new byte[length];
+        buffer.get(result);
+        return result;
+    }
+
+    /**
+     * Contents of a repository snapshot.
+     */
+    @Getter
+    static final class RepositorySnapshot {
+
+        /**
+         * ID of the Kafka topic the snapshot has been taken from, or an empty string if unknown.
+         */
+        private final String topicId;
+
+        /**
+         * Consumer position per partition at the time the snapshot has been taken.
+         */
+        private final Map<Integer, Long> offsets;
+
+        /**
+         * JSON representation of the repository objects, by key.
+         */
+        private final Map<String, byte[]> entries;
+
+        /**
+         * Keys of deleted objects whose latest record is a legacy deletion marker instead of a tombstone.
+         */
+        private final Set<String> legacyDeletedKeys;
+
+        RepositorySnapshot(String topicId, Map<Integer, Long> offsets, Map<String, byte[]> entries,
+                Set<String> legacyDeletedKeys) {
+            this.topicId = topicId;
+            this.offsets = offsets;
+            this.entries = entries;
+            this.legacyDeletedKeys = legacyDeletedKeys;
+        }
+
+    }
+
+}
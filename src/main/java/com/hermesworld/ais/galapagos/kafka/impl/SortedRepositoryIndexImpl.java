@@ -0,0 +1,211 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import com.hermesworld.ais.galapagos.kafka.util.SortedRepositoryIndex;
+import com.hermesworld.ais.galapagos.util.HasKey;
+
+/**
+ * Incrementally maintained, sorted secondary index of a {@link TopicBasedRepositoryImpl}. Like
+ * {@link RepositoryIndexImpl}, the index only stores the IDs of the objects, and materializes the objects via the
+ * owning repository on lookup. <br>
+ * The IDs of each index key are held in an immutable sorted set, which is replaced on every update of this index key.
+ * This makes updates more expensive, which is fine for the usual small number of objects per index key (e.g. schema
+ * versions per topic), but gives lookups a consistent, lock-free view: Range lookups operate on views of the set
+ * without copying it, and the last element of each set is held separately for constant-time access. <br>
+ * Updates are expected to be serialized by the owning repository.
+ *
+ * @param <K> Type of the index key.
+ * @param <S> Type of the sort key.
+ * @param <T> Type of the objects stored in the indexed repository.
+ */
+final class SortedRepositoryIndexImpl<K, S extends Comparable<? super S>, T extends HasKey>
+        implements SortedRepositoryIndex<K, S, T>, MaintainedIndex<T> {
+
+    private final Function<? super T, ? extends K> keyExtractor;
+
+    private final Function<? super T, ? extends S> sortKeyExtractor;
+
+    private final Function<String, T> objectLookup;
+
+    private final Map<K, Entries<S>> index = new ConcurrentHashMap<>();
+
+    private final Map<String, IndexPosition<K, S>> positionsById = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new, empty index.
+     *
+     * @param keyExtractor     Function to determine the index key of an object, or <code>null</code> if the object
+     *                         shall not be indexed.
+     * @param sortKeyExtractor Function to determine the sort key of an object, or <code>null</code> if the object shall
+     *                         not be indexed.
+     * @param objectLookup     Function to materialize the object with the given ID, returning <code>null</code> if no
+     *                         such object exists (anymore).
+     */
+    SortedRepositoryIndexImpl(Function<? super T, ? extends K> keyExtractor,
+            Function<? super T, ? extends S> sortKeyExtractor, Function<String, T> objectLookup) {
+        this.keyExtractor = keyExtractor;
+        this.sortKeyExtractor = sortKeyExtractor;
+        this.objectLookup = objectLookup;
+    }
+
+    @Override
+    public Collection<T> getObjects(K indexKey) {
+        Entries<S> entries = indexKey == null ? null : index.get(indexKey);
+        return entries == null ? List.of() : materialize(entries.ids);
+    }
+
+    @Override
+    public Collection<T> getObjects(K indexKey, S fromSortKey, S toSortKey) {
+        Entries<S> entries = indexKey == null ? null : index.get(indexKey);
+        if (entries == null || fromSortKey.compareTo(toSortKey) >= 0) {
+            return List.of();
+        }
+        return materialize(
+                entries.ids.subSet(new SortedId<>(fromSortKey, null), true, new SortedId<>(toSortKey, null), false));
+    }
+
+    @Override
+    public Optional<T> getObject(K indexKey, S sortKey) {
+        Entries<S> entries = indexKey == null ? null : index.get(indexKey);
+        if (entries == null) {
+            return Optional.empty();
+        }
+        SortedId<S> candidate = entries.ids.ceiling(new SortedId<>(sortKey, null));
+        if (candidate == null || candidate.sortKey.compareTo(sortKey) != 0) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(objectLookup.apply(candidate.id));
+    }
+
+    @Override
+    public Optional<T> getLast(K indexKey) {
+        Entries<S> entries = indexKey == null ? null : index.get(indexKey);
+        return entries == null ? Optional.empty() : Optional.ofNullable(objectLookup.apply(entries.last.id));
+    }
+
+    @Override
+    public void put(String id, T value) {
+        K key = keyExtractor.apply(value);
+        S sortKey = key == null ? null : sortKeyExtractor.apply(value);
+        IndexPosition<K, S> newPosition = sortKey == null ? null
+                : new IndexPosition<>(key, new SortedId<>(sortKey, id));
+        IndexPosition<K, S> oldPosition = newPosition == null ? positionsById.remove(id)
+                : positionsById.put(id, newPosition);
+
+        if (oldPosition != null) {
+            index.computeIfPresent(oldPosition.key, (k, entries) -> entries.without(oldPosition.sortedId));
+        }
+        if (newPosition != null) {
+            index.compute(key, (k, entries) -> entries == null ? Entries.of(newPosition.sortedId)
+                    : entries.with(newPosition.sortedId));
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        IndexPosition<K, S> oldPosition = positionsById.remove(id);
+        if (oldPosition != null) {
+            index.computeIfPresent(oldPosition.key, (k, entries) -> entries.without(oldPosition.sortedId));
+        }
+    }
+
+    private List<T> materialize(Collection<SortedId<S>> ids) {
+        return ids.stream().map(sortedId -> objectLookup.apply(sortedId.id)).filter(Objects::nonNull)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    /**
+     * The IDs of one index key, sorted by sort key and ID. Instances are never modified.
+     */
+    private static final class Entries<S extends Comparable<? super S>> {
+
+        private final NavigableSet<SortedId<S>> ids;
+
+        private final SortedId<S> last;
+
+        private Entries(NavigableSet<SortedId<S>> ids) {
+            this.ids = Collections.unmodifiableNavigableSet(ids);
+            this.last = ids.last();
+        }
+
+        static <S extends Comparable<? super S>> Entries<S> of(SortedId<S> id) {
+            NavigableSet<SortedId<S>> ids = new TreeSet<>();
+            ids.add(id);
+            return new Entries<>(ids);
+        }
+
+        Entries<S> with(SortedId<S> id) {
+            NavigableSet<SortedId<S>> newIds = new TreeSet<>(ids);
+            newIds.add(id);
+            return new Entries<>(newIds);
+        }
+
+        /**
+         * Returns a copy of these entries without the given ID, or <code>null</code> if no entries would be left.
+         */
+        Entries<S> without(SortedId<S> id) {
+            NavigableSet<SortedId<S>> newIds = new TreeSet<>(ids);
+            newIds.remove(id);
+            return newIds.isEmpty() ? null : new Entries<>(newIds);
+        }
+    }
+
+    /**
+     * An object ID together with its sort key. A <code>null</code> ID is lower than all other IDs with the same sort
+     * key, which allows to search for the first object with a given sort key.
+     */
+    private static final class SortedId<S extends Comparable<? super S>> implements Comparable<SortedId<S>> {
+
+        private static final Comparator<String> ID_COMPARATOR = Comparator.nullsFirst(Comparator.naturalOrder());
+
+        private final S sortKey;
+
+        private final String id;
+
+        private SortedId(S sortKey, String id) {
+            this.sortKey = sortKey;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(SortedId<S> other) {
+            int result = sortKey.compareTo(other.sortKey);
+            return result != 0 ? result : ID_COMPARATOR.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof SortedId<?> other && sortKey.equals(other.sortKey) && Objects.equals(id, other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sortKey, id);
+        }
+    }
+
+    private static final class IndexPosition<K, S extends Comparable<? super S>> {
+
+        private final K key;
+
+        private final SortedId<S> sortedId;
+
+        private IndexPosition(K key, SortedId<S> sortedId) {
+            this.key = key;
+            this.sortedId = sortedId;
+        }
+    }
+
+}
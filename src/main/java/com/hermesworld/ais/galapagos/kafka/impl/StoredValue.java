@@ -0,0 +1,154 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.hermesworld.ais.galapagos.util.WeakInterner;
+
+/**
+ * The JSON representation of an object stored in a {@link TopicBasedRepositoryImpl}. <br>
+ * If the JSON contains a large string value (e.g. the text of a JSON schema), the raw bytes of the largest such string
+ * are stored in a content-addressed, weakly referenced store which is shared by all repositories of all environments.
+ * Staging copies objects like schemas unchanged to every stage, so this way, each distinct large text is held in memory
+ * only once, while the JSON of every object can still be restored byte by byte. <br>
+ * The store is only accessed when a value is created, i.e. when an object is written or received, and is looked up by
+ * the digest of the string. Reading a value does not access the store, and {@link #openStream()} does not copy any
+ * bytes.
+ */
+final class StoredValue {
+
+    /**
+     * Minimum length of a JSON string value, in bytes, to be placed in the shared store.
+     */
+    static final int MIN_SHARED_LENGTH = 1024;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final WeakInterner<SharedBytes> SHARED = new WeakInterner<>();
+
+    private final byte[] head;
+
+    private final SharedBytes shared;
+
+    private final byte[] tail;
+
+    private StoredValue(byte[] head, SharedBytes shared, byte[] tail) {
+        this.head = head;
+        this.shared = shared;
+        this.tail = tail;
+    }
+
+    /**
+     * Creates the stored form of the given JSON bytes. The given array must not be modified afterwards.
+     *
+     * @param json        JSON representation of the object.
+     * @param jsonFactory Factory to use for scanning the JSON for large string values.
+     * @return The stored form of the JSON, never <code>null</code>.
+     */
+    static StoredValue of(byte[] json, JsonFactory jsonFactory) {
+        if (json.length < MIN_SHARED_LENGTH) {
+            return new StoredValue(json, null, EMPTY);
+        }
+
+        int sharedStart = -1;
+        int sharedEnd = -1;
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.VALUE_STRING) {
+                    // range includes the quotes; the parser points behind the closing quote once the token is finished
+                    int start = (int) parser.currentTokenLocation().getByteOffset();
+                    parser.finishToken();
+                    int end = (int) parser.currentLocation().getByteOffset();
+                    if (end - start > sharedEnd - sharedStart) {
+                        sharedStart = start;
+                        sharedEnd = end;
+                    }
+                }
+            }
+        }
+        catch (IOException e) {
+            // only valid JSON is stored, but storing it unshared is always safe
+            return new StoredValue(json, null, EMPTY);
+        }
+
+        if (sharedEnd - sharedStart < MIN_SHARED_LENGTH) {
+            return new StoredValue(json, null, EMPTY);
+        }
+
+        return new StoredValue(Arrays.copyOfRange(json, 0, sharedStart),
+                share(Arrays.copyOfRange(json, sharedStart, sharedEnd)),
+                Arrays.copyOfRange(json, sharedEnd, json.length));
+    }
+
+    /**
+     * Returns a stream reading the complete JSON representation of the object, without copying it.
+     */
+    InputStream openStream() {
+        if (shared == null) {
+            return new ByteArrayInputStream(head);
+        }
+        return new SequenceInputStream(Collections.enumeration(List.of(new ByteArrayInputStream(head),
+                new ByteArrayInputStream(shared.bytes), new ByteArrayInputStream(tail))));
+    }
+
+    /**
+     * Returns the complete JSON representation of the object. The returned array must not be modified. Unless the value
+     * is small, this copies the JSON into a new array, so prefer {@link #openStream()} for reading the object.
+     */
+    byte[] toBytes() {
+        if (shared == null) {
+            return head;
+        }
+        byte[] result = new byte[length()];
+        System.arraycopy(head, 0, result, 0, head.length);
+        System.arraycopy(shared.bytes, 0, result, head.length, shared.bytes.length);
+        System.arraycopy(tail, 0, result, head.length + shared.bytes.length, tail.length);
+        return result;
+    }
+
+    /**
+     * Returns the length of the complete JSON representation of the object, in bytes.
+     */
+    int length() {
+        return head.length + (shared == null ? 0 : shared.bytes.length) + tail.length;
+    }
+
+    /**
+     * Returns <code>true</code> if this value refers to a string in the shared store.
+     */
+    boolean isShared() {
+        return shared != null;
+    }
+
+    /**
+     * Checks if this value has exactly the same JSON representation as the given one. As shared strings are unique,
+     * they are compared by identity only.
+     */
+    boolean contentEquals(StoredValue other) {
+        return other != null && shared == other.shared && Arrays.equals(head, other.head)
+                && Arrays.equals(tail, other.tail);
+    }
+
+    private static SharedBytes share(byte[] bytes) {
+        return SHARED.intern(bytes, new SharedBytes(bytes));
+    }
+
+    private static final class SharedBytes {
+
+        private final byte[] bytes;
+
+        private SharedBytes(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+}
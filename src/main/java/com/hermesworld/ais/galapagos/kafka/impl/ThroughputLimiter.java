@@ -0,0 +1,43 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simple token bucket limiting a throughput to a number of bytes per second, allowing bursts of up to one second of
+ * throughput. Callers which exceed the limit are told how long to wait.
+ */
+final class ThroughputLimiter {
+
+    private final long bytesPerSecond;
+
+    private long availableBytes;
+
+    private long lastRefillTime = System.nanoTime();
+
+    ThroughputLimiter(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.availableBytes = bytesPerSecond;
+    }
+
+    /**
+     * Reserves the given number of bytes.
+     *
+     * @param bytes Number of bytes to reserve.
+     * @return Time, in nanoseconds, the caller has to wait before the reserved bytes may be used; 0 if they can be used
+     *         immediately.
+     */
+    synchronized long reserve(long bytes) {
+        long now = System.nanoTime();
+        // the bucket is full after one second anyway; also avoids overflows after long idle times
+        long elapsed = Math.min(now - lastRefillTime, TimeUnit.SECONDS.toNanos(1));
+        long refill = elapsed * bytesPerSecond / TimeUnit.SECONDS.toNanos(1);
+        if (refill > 0) {
+            availableBytes = Math.min(bytesPerSecond, availableBytes + refill);
+            lastRefillTime = now;
+        }
+
+        availableBytes -= bytes;
+        return availableBytes >= 0 ? 0 : -availableBytes * TimeUnit.SECONDS.toNanos(1) / bytesPerSecond;
+    }
+
+}
@@ -1,30 +1,72 @@
 package com.hermesworld.ais.galapagos.kafka.impl;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.hermesworld.ais.galapagos.kafka.KafkaSender;
+import com.hermesworld.ais.galapagos.kafka.util.RepositoryChange;
+import com.hermesworld.ais.galapagos.kafka.util.RepositoryIndex;
+import com.hermesworld.ais.galapagos.kafka.util.SortedRepositoryIndex;
 import com.hermesworld.ais.galapagos.kafka.util.TopicBasedRepository;
 import com.hermesworld.ais.galapagos.util.HasKey;
 import com.hermesworld.ais.galapagos.util.JsonUtil;
-import org.json.JSONException;
-import org.json.JSONObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
 
+/**
+ * Implementation of a {@link TopicBasedRepository} backed by a Kafka topic. <br>
+ * Objects are stored in their serialized JSON form, and fresh instances are created on every read. This way, callers
+ * can never modify the repository contents by modifying returned objects, and the repository does not have to keep the
+ * (usually much larger) object graphs in memory. Large string values, like schema texts, are shared between all
+ * repositories holding equal texts, e.g. for the different environments (see {@link StoredValue}). <br>
+ * The following metrics are registered, tagged with <code>environment</code> and <code>topic</code>:
+ * <ul>
+ * <li><code>galapagos.repository.objects</code> - Number of objects stored in the repository.</li>
+ * <li><code>galapagos.repository.heap.size</code> - Approximate heap footprint of the repository contents, in bytes.
+ * Shared string values are counted in full for every repository referring to them.</li>
+ * <li><code>galapagos.repository.deserialization</code> - Time to decode a record received from Kafka.</li>
+ * <li><code>galapagos.repository.deserialization.failures</code> - Number of records which could not be decoded.</li>
+ * <li><code>galapagos.repository.writes</code> - Latency of writes to the Kafka topic, tagged with
+ * <code>operation</code> (<code>save</code>, <code>saveAll</code>, <code>delete</code> or <code>deleteAll</code>).</li>
+ * </ul>
+ *
+ * @param <T> Type of the objects stored in this repository.
+ */
 final class TopicBasedRepositoryImpl<T extends HasKey> implements TopicBasedRepository<T> {
 
-    // TODO currently, if T is a mutable type, callers could modify our internal storage from outside.
-    // The internal map should store the JSON object representation instead and freshly generate new
-    // objects on the fly. This could also imply to use a custom Iterator in getObjects() for performance
-    // optimization.
+    /**
+     * Maximum number of changes buffered per change stream subscriber which does not keep up.
+     */
+    private static final int MAX_BUFFERED_CHANGES = 10000;
+
+    /**
+     * Rough estimate of the heap bytes used per repository entry in addition to its key and value bytes (map node,
+     * String and array headers).
+     */
+    private static final long ENTRY_OVERHEAD_BYTES = 120;
 
     private final String topicName;
 
@@ -32,15 +74,60 @@ final class TopicBasedRepositoryImpl<T extends HasKey> implements TopicBasedRepo
 
     private final Class<T> valueClass;
 
-    private final Map<String, T> data = new ConcurrentHashMap<>();
+    private final Map<String, StoredValue> data = new ConcurrentHashMap<>();
+
+    private final Map<String, MaintainedIndex<T>> indexes = new ConcurrentHashMap<>();
+
+    private final Object updateLock = new Object();
 
     private final ObjectMapper objectMapper = JsonUtil.newObjectMapper();
 
+    private final ObjectReader valueReader;
+
+    /**
+     * Reader for objects which are written or received, which may intern large texts (see
+     * {@link JsonUtil#INTERN_TEXTS}). Objects materialized on read do not intern anything.
+     */
+    private final ObjectReader receivedValueReader;
+
     private final KafkaSender sender;
 
     private final AtomicReference<Runnable> messageReceivedHook = new AtomicReference<>();
 
+    private final CompletableFuture<Void> endOffsetsReached = new CompletableFuture<>();
+
+    private final AtomicBoolean writeFailed = new AtomicBoolean();
+
+    /**
+     * Keys of deleted objects whose latest record on the topic is a legacy deletion marker instead of a tombstone.
+     */
+    private final Set<String> legacyDeletedKeys = ConcurrentHashMap.newKeySet();
+
+    private final List<FluxSink<RepositoryChange<T>>> changeSinks = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong heapSize = new AtomicLong();
+
+    private final Timer deserializationTimer;
+
+    private final Timer saveTimer;
+
+    private final Timer saveAllTimer;
+
+    private final Timer deleteTimer;
+
+    private final Timer deleteAllTimer;
+
+    private final Counter deserializationFailures;
+
+    /**
+     * Creates a new repository which does not register any metrics.
+     */
     public TopicBasedRepositoryImpl(String kafkaTopicName, String topicName, Class<T> valueClass, KafkaSender sender) {
+        this(kafkaTopicName, topicName, valueClass, sender, new CompositeMeterRegistry(), "");
+    }
+
+    public TopicBasedRepositoryImpl(String kafkaTopicName, String topicName, Class<T> valueClass, KafkaSender sender,
+            MeterRegistry meterRegistry, String environmentId) {
         // fail-fast for null values
         if (kafkaTopicName == null) {
             throw new IllegalArgumentException("kafkaTopicName must not be null");
@@ -58,9 +145,38 @@ final class TopicBasedRepositoryImpl<T extends HasKey> implements TopicBasedRepo
         this.topicName = topicName;
         this.valueClass = valueClass;
         this.sender = sender;
+        this.valueReader = objectMapper.readerFor(valueClass);
+        this.receivedValueReader = valueReader.withAttribute(JsonUtil.INTERN_TEXTS, Boolean.TRUE);
+
+        Tags metricTags = Tags.of("environment", environmentId, "topic", kafkaTopicName);
+        Gauge.builder("galapagos.repository.objects", data, Map::size).tags(metricTags)
+                .description("Number of objects stored in the repository").register(meterRegistry);
+        Gauge.builder("galapagos.repository.heap.size", heapSize, AtomicLong::get).tags(metricTags).baseUnit("bytes")
+                .description("Approximate heap footprint of the repository contents").register(meterRegistry);
+        this.deserializationTimer = Timer.builder("galapagos.repository.deserialization").tags(metricTags)
+                .description("Time to decode a record received from Kafka").register(meterRegistry);
+        this.deserializationFailures = Counter.builder("galapagos.repository.deserialization.failures").tags(metricTags)
+                .description("Number of records received from Kafka which could not be decoded")
+                .register(meterRegistry);
+        this.saveTimer = writeTimer("save", metricTags, meterRegistry);
+        this.saveAllTimer = writeTimer("saveAll", metricTags, meterRegistry);
+        this.deleteTimer = writeTimer("delete", metricTags, meterRegistry);
+        this.deleteAllTimer = writeTimer("deleteAll", metricTags, meterRegistry);
     }
 
     public final void messageReceived(String topicName, String messageKey, String message) {
+        messageReceived(topicName, messageKey, message == null ? null : message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Processes a record of the repository topic. A <code>null</code> value (tombstone) deletes the object with the
+     * given key, as does the legacy deletion marker <code>{"deleted":true}</code> written by previous Galapagos
+     * versions. <br>
+     * The record value is parsed in a single streaming pass: The <code>deleted</code> flag is read directly from the
+     * token stream, and the <code>obj</code> field is bound to the value class without building an intermediate JSON
+     * tree or String.
+     */
+    public final void messageReceived(String topicName, String messageKey, byte[] message) {
         if (!this.kafkaTopicName.equals(topicName)) {
             return;
         }
@@ -70,18 +186,57 @@ final class TopicBasedRepositoryImpl<T extends HasKey> implements TopicBasedRepo
             r.run();
         }
 
-        JSONObject obj = new JSONObject(message);
-        if (obj.optBoolean("deleted")) {
-            data.remove(messageKey);
+        if (message == null) {
+            legacyDeletedKeys.remove(messageKey);
+            removeValue(messageKey);
             return;
         }
 
-        try {
-            data.put(messageKey, objectMapper.readValue(obj.getJSONObject("obj").toString(), valueClass));
+        long parseStart = System.nanoTime();
+        try (JsonParser parser = objectMapper.createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Kafka message is not a JSON object");
+            }
+
+            boolean deleted = false;
+            T value = null;
+            byte[] valueBytes = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("deleted".equals(fieldName)) {
+                    deleted = token == JsonToken.VALUE_TRUE
+                            || (token == JsonToken.VALUE_STRING && "true".equalsIgnoreCase(parser.getText()));
+                }
+                else if ("obj".equals(fieldName) && token == JsonToken.START_OBJECT) {
+                    int start = (int) parser.currentTokenLocation().getByteOffset();
+                    value = receivedValueReader.readValue(parser);
+                    // keep the raw JSON of the object; the parser now points to its closing bracket
+                    valueBytes = Arrays.copyOfRange(message, start, (int) parser.currentLocation().getByteOffset());
+                }
+                else {
+                    parser.skipChildren();
+                }
+            }
+
+            if (deleted) {
+                legacyDeletedKeys.add(messageKey);
+                removeValue(messageKey);
+            }
+            else if (value == null) {
+                throw new JsonParseException(parser, "Kafka message does not contain an object");
+            }
+            else {
+                putValue(messageKey, value, valueBytes);
+            }
         }
-        catch (JSONException | IOException e) {
+        catch (IOException e) {
+            deserializationFailures.increment();
             LoggerFactory.getLogger(getClass()).error("Could not parse object from Kafka message", e);
         }
+        finally {
+            deserializationTimer.record(System.nanoTime() - parseStart, TimeUnit.NANOSECONDS);
+        }
     }
 
     @Override
@@ -101,35 +256,161 @@ final class TopicBasedRepositoryImpl<T extends HasKey> implements TopicBasedRepo
 
     @Override
     public final Optional<T> getObject(String id) {
-        return Optional.ofNullable(data.get(id));
+        return Optional.ofNullable(materialize(id));
     }
 
+    /**
+     * Returns a read-only view on all objects of this repository. Each object is created freshly from its JSON
+     * representation when the iterator reaches it, so iterating twice returns different instances.
+     */
     @Override
     public final Collection<T> getObjects() {
-        return Collections.unmodifiableCollection(data.values());
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<T> iterator() {
+                Iterator<StoredValue> values = data.values().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return values.hasNext();
+                    }
+
+                    @Override
+                    public T next() {
+                        return fromStored(values.next());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return data.size();
+            }
+        };
+    }
+
+    @Override
+    public <K> RepositoryIndex<K, T> getIndex(String indexName, Function<? super T, ? extends K> keyExtractor) {
+        return getOrCreateIndex(indexName, () -> RepositoryIndexImpl.singleValued(keyExtractor, this::materialize));
+    }
+
+    @Override
+    public <K> RepositoryIndex<K, T> getMultiValuedIndex(String indexName,
+            Function<? super T, ? extends Collection<? extends K>> keysExtractor) {
+        return getOrCreateIndex(indexName, () -> new RepositoryIndexImpl<>(keysExtractor, this::materialize));
+    }
+
+    @Override
+    public <K, S extends Comparable<? super S>> SortedRepositoryIndex<K, S, T> getSortedIndex(String indexName,
+            Function<? super T, ? extends K> keyExtractor, Function<? super T, ? extends S> sortKeyExtractor) {
+        return getOrCreateIndex(indexName,
+                () -> new SortedRepositoryIndexImpl<>(keyExtractor, sortKeyExtractor, this::materialize));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <I extends MaintainedIndex<T>> I getOrCreateIndex(String indexName, Supplier<I> indexFactory) {
+        MaintainedIndex<T> index = indexes.get(indexName);
+        if (index != null) {
+            return (I) index;
+        }
+
+        synchronized (updateLock) {
+            return (I) indexes.computeIfAbsent(indexName, name -> {
+                I newIndex = indexFactory.get();
+                data.forEach((key, stored) -> newIndex.put(key, fromStored(stored)));
+                return newIndex;
+            });
+        }
+    }
+
+    @Override
+    public Flux<RepositoryChange<T>> getChanges(boolean replayCurrentState) {
+        return Flux.<RepositoryChange<T>>create(sink -> {
+            // register and replay atomically, so no change is lost or emitted twice
+            synchronized (updateLock) {
+                if (replayCurrentState) {
+                    data.forEach((key, stored) -> sink.next(
+                            new RepositoryChange<>(RepositoryChange.ChangeType.CREATED, key, fromStored(stored))));
+                }
+                changeSinks.add(sink);
+            }
+            sink.onDispose(() -> changeSinks.remove(sink));
+        }, FluxSink.OverflowStrategy.IGNORE).onBackpressureBuffer(MAX_BUFFERED_CHANGES, BufferOverflowStrategy.ERROR);
     }
 
     @Override
     public CompletableFuture<Void> save(T value) {
         try {
-            JSONObject message = new JSONObject();
-            message.put("obj", new JSONObject(objectMapper.writeValueAsString(value)));
+            byte[] valueBytes = objectMapper.writeValueAsBytes(value);
             String key = value.key();
-            data.put(key, value);
-            return sender.send(kafkaTopicName, key, message.toString());
+            putValue(key, value, valueBytes);
+            return timed(saveTimer, () -> send(key, toMessage(valueBytes)));
         }
-        catch (JSONException | JsonProcessingException e) {
+        catch (JsonProcessingException e) {
             return CompletableFuture.failedFuture(e);
         }
     }
 
+    @Override
+    public CompletableFuture<Void> saveAll(Collection<? extends T> values) {
+        Map<String, T> newValues = new LinkedHashMap<>();
+        Map<String, byte[]> newValueBytes = new LinkedHashMap<>();
+        try {
+            for (T value : values) {
+                String key = value.key();
+                newValues.put(key, value);
+                newValueBytes.put(key, objectMapper.writeValueAsBytes(value));
+            }
+        }
+        catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        Map<String, String> messages = new LinkedHashMap<>();
+        newValues.forEach((key, value) -> {
+            putValue(key, value, newValueBytes.get(key));
+            messages.put(key, toMessage(newValueBytes.get(key)));
+        });
+        return timed(saveAllTimer, () -> sendAll(messages));
+    }
+
     @Override
     public CompletableFuture<Void> delete(T value) {
-        JSONObject message = new JSONObject();
-        message.put("deleted", true);
         String key = value.key();
-        data.remove(key);
-        return sender.send(kafkaTopicName, key, message.toString());
+        removeValue(key);
+        return timed(deleteTimer, () -> send(key, null));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAll(Collection<? extends T> values) {
+        Map<String, String> messages = new LinkedHashMap<>();
+        for (T value : values) {
+            messages.put(value.key(), null);
+        }
+
+        messages.keySet().forEach(this::removeValue);
+        return timed(deleteAllTimer, () -> sendAll(messages));
+    }
+
+    /**
+     * Writes tombstones for all keys which are still deleted via a legacy deletion marker. Keys which have been
+     * re-created in the meantime are skipped. Each tombstone is handed to the producer while holding the update lock,
+     * so a concurrent local save of the same key is always written <i>after</i> the tombstone and wins.
+     */
+    @Override
+    public CompletableFuture<Integer> writeTombstonesForLegacyDeletions() {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        synchronized (updateLock) {
+            for (String key : Set.copyOf(legacyDeletedKeys)) {
+                if (data.containsKey(key)) {
+                    legacyDeletedKeys.remove(key);
+                    continue;
+                }
+                // keys are removed from legacyDeletedKeys once the tombstones are received from the topic
+                futures.add(send(key, null));
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).thenApply(o -> futures.size());
     }
 
     @Override
@@ -160,4 +441,186 @@ final class TopicBasedRepositoryImpl<T extends HasKey> implements TopicBasedRepo
         executorService.schedule(r, initialWaitTime.toMillis(), TimeUnit.MILLISECONDS);
         return result;
     }
+
+    @Override
+    public CompletableFuture<Void> waitForEndOffsets(Duration timeout, ScheduledExecutorService executorService) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+
+        ScheduledFuture<?> timeoutFuture = executorService.schedule(
+                () -> result.completeExceptionally(new TimeoutException("Repository " + topicName
+                        + " has not reached end offsets within " + timeout.toMillis() + " ms")),
+                timeout.toMillis(), TimeUnit.MILLISECONDS);
+
+        endOffsetsReached.thenRun(() -> {
+            if (timeoutFuture.cancel(false)) {
+                executorService.execute(() -> result.complete(null));
+            }
+        });
+
+        return result;
+    }
+
+    @Override
+    public boolean isFullyLoaded() {
+        return endOffsetsReached.isDone();
+    }
+
+    /**
+     * Called by the repository container once the consumer position has reached the end offsets (captured at assignment
+     * time) of all partitions of this repository's topic.
+     */
+    void markEndOffsetsReached() {
+        endOffsetsReached.complete(null);
+    }
+
+    /**
+     * Returns <code>true</code> if any write to the Kafka topic has failed since this repository has been created. In
+     * this case, the in-memory state of this repository may contain changes which do not exist on the topic, so it must
+     * not be persisted in a snapshot.
+     */
+    boolean hasFailedWrites() {
+        return writeFailed.get();
+    }
+
+    /**
+     * Returns the JSON representation of all objects currently stored in this repository, for storage in a snapshot.
+     */
+    Map<String, byte[]> exportSnapshotEntries() {
+        Map<String, byte[]> result = new LinkedHashMap<>();
+        data.forEach((key, stored) -> result.put(key, stored.toBytes()));
+        return result;
+    }
+
+    /**
+     * Returns the keys of deleted objects whose latest record on the topic is a legacy deletion marker, for storage in
+     * a snapshot.
+     */
+    Set<String> exportLegacyDeletedKeys() {
+        return Set.copyOf(legacyDeletedKeys);
+    }
+
+    /**
+     * Restores the keys of deleted objects whose latest record on the topic is a legacy deletion marker, as read from a
+     * snapshot.
+     */
+    void importLegacyDeletedKeys(Set<String> keys) {
+        legacyDeletedKeys.addAll(keys);
+    }
+
+    /**
+     * Adds all objects from the given snapshot entries to this repository. If any entry cannot be parsed, no object at
+     * all is added.
+     */
+    void importSnapshotEntries(Map<String, byte[]> entries) throws IOException {
+        Map<String, T> values = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            values.put(entry.getKey(), receivedValueReader.readValue(entry.getValue()));
+        }
+        values.forEach((key, value) -> putValue(key, value, entries.get(key)));
+    }
+
+    /**
+     * Removes all objects from this repository, without writing anything to the Kafka topic.
+     */
+    void clear() {
+        synchronized (updateLock) {
+            Set.copyOf(data.keySet()).forEach(this::removeValue);
+            legacyDeletedKeys.clear();
+        }
+    }
+
+    private static String toMessage(byte[] valueBytes) {
+        return "{\"obj\":" + new String(valueBytes, StandardCharsets.UTF_8) + "}";
+    }
+
+    private T materialize(String key) {
+        StoredValue stored = data.get(key);
+        return stored == null ? null : fromStored(stored);
+    }
+
+    private T fromStored(StoredValue stored) {
+        try {
+            return valueReader.readValue(stored.openStream());
+        }
+        catch (IOException e) {
+            // cannot happen, as only successfully parsed or serialized objects are stored
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private T fromReceivedBytes(byte[] bytes) {
+        try {
+            return receivedValueReader.readValue(bytes);
+        }
+        catch (IOException e) {
+            // cannot happen, as only successfully parsed or serialized objects are stored
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CompletableFuture<Void> send(String key, String message) {
+        return trackFailures(sender.send(kafkaTopicName, key, message));
+    }
+
+    private CompletableFuture<Void> sendAll(Map<String, String> messages) {
+        return trackFailures(sender.sendAll(kafkaTopicName, messages));
+    }
+
+    private CompletableFuture<Void> trackFailures(CompletableFuture<Void> future) {
+        return future.whenComplete((o, t) -> {
+            if (t != null) {
+                writeFailed.set(true);
+            }
+        });
+    }
+
+    private static CompletableFuture<Void> timed(Timer timer, Supplier<CompletableFuture<Void>> write) {
+        long start = System.nanoTime();
+        return write.get().whenComplete((o, t) -> timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+    }
+
+    private static Timer writeTimer(String operation, Tags metricTags, MeterRegistry meterRegistry) {
+        return Timer.builder("galapagos.repository.writes").tags(metricTags).tag("operation", operation)
+                .description("Latency of writes to the Kafka topic of the repository").publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static long entrySize(String key, StoredValue stored) {
+        return stored == null ? 0 : ENTRY_OVERHEAD_BYTES + 2L * key.length() + stored.length();
+    }
+
+    private void putValue(String key, T value, byte[] valueBytes) {
+        StoredValue stored = StoredValue.of(valueBytes, objectMapper.getFactory());
+        synchronized (updateLock) {
+            // the object exists again, so its legacy deletion marker must never be replaced by a tombstone
+            legacyDeletedKeys.remove(key);
+            StoredValue oldStored = data.put(key, stored);
+            heapSize.addAndGet(entrySize(key, stored) - entrySize(key, oldStored));
+            indexes.values().forEach(index -> index.put(key, value));
+            // a locally saved object is received again from Kafka; this is no change
+            if (!stored.contentEquals(oldStored)) {
+                emitChange(
+                        oldStored == null ? RepositoryChange.ChangeType.CREATED : RepositoryChange.ChangeType.UPDATED,
+                        key, valueBytes);
+            }
+        }
+    }
+
+    private void removeValue(String key) {
+        synchronized (updateLock) {
+            StoredValue oldStored = data.remove(key);
+            heapSize.addAndGet(-entrySize(key, oldStored));
+            indexes.values().forEach(index -> index.remove(key));
+            if (oldStored != null) {
+                emitChange(RepositoryChange.ChangeType.DELETED, key, null);
+            }
+        }
+    }
+
+    private void emitChange(RepositoryChange.ChangeType changeType, String key, byte[] valueBytes) {
+        for (FluxSink<RepositoryChange<T>> sink : changeSinks) {
+            sink.next(
+                    new RepositoryChange<>(changeType, key, valueBytes == null ? null : fromReceivedBytes(valueBytes)));
+        }
+    }
 }
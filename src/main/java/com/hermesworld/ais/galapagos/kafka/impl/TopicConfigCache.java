@@ -0,0 +1,167 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import com.hermesworld.ais.galapagos.kafka.TopicConfigEntry;
+import com.hermesworld.ais.galapagos.kafka.config.ClusterMetadataCacheConfig;
+import com.hermesworld.ais.galapagos.util.FutureUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory cache for the configurations of the topics of a single Kafka cluster. Cached configurations are returned as
+ * long as they are not older than the configured maximum staleness; older or missing configurations are loaded from the
+ * cluster on access. {@link #refresh(Collection, Function)} reloads the configurations of many topics in batches, so
+ * regular refreshes keep reads served from memory. <br>
+ * Configurations of a topic must be invalidated whenever Galapagos changes the topic. To avoid caching a configuration
+ * which has been read before such a change, loads which overlap with any invalidation do not update the cache. Topics
+ * which are missing from the result of a load do not exist (anymore, or not yet), so their cached configurations are
+ * removed. <br>
+ * Hits and misses are counted in the metric <code>galapagos.kafka.metadata.cache.requests</code>, with tag
+ * <code>metadata=topicConfig</code>.
+ */
+@Slf4j
+final class TopicConfigCache {
+
+    private final long maxStalenessNanos;
+
+    private final int batchSize;
+
+    private final LongSupplier clock;
+
+    private final Map<String, CacheEntry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Counter hitCounter;
+
+    private final Counter missCounter;
+
+    TopicConfigCache(String environmentId, ClusterMetadataCacheConfig config, MeterRegistry meterRegistry) {
+        this(environmentId, config, meterRegistry, System::nanoTime);
+    }
+
+    TopicConfigCache(String environmentId, ClusterMetadataCacheConfig config, MeterRegistry meterRegistry,
+            LongSupplier clock) {
+        this.maxStalenessNanos = config.getTopicConfigMaxStaleness().toNanos();
+        this.batchSize = Math.max(1, config.getTopicConfigBatchSize());
+        this.clock = clock;
+        this.hitCounter = buildCounter(meterRegistry, environmentId, "hit");
+        this.missCounter = buildCounter(meterRegistry, environmentId, "miss");
+    }
+
+    /**
+     * Returns the configurations of the given topics, loading all configurations which are not cached (or too old) with
+     * a single call to the given loader.
+     *
+     * @param topicNames Names of the topics to return the configurations of.
+     * @param loader     Function to load the configurations of the given topics from the cluster.
+     * @return A future providing the configurations, by topic name.
+     */
+    CompletableFuture<Map<String, Set<TopicConfigEntry>>> get(Collection<String> topicNames,
+            Function<Collection<String>, CompletableFuture<Map<String, Set<TopicConfigEntry>>>> loader) {
+        long now = clock.getAsLong();
+        Map<String, Set<TopicConfigEntry>> result = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String topicName : topicNames) {
+            CacheEntry entry = entries.get(topicName);
+            if (entry != null && now - entry.loadedAt < maxStalenessNanos) {
+                result.put(topicName, entry.configs);
+            }
+            else {
+                missing.add(topicName);
+            }
+        }
+        hitCounter.increment(result.size());
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+
+        missCounter.increment(missing.size());
+        return load(missing, loader).thenApply(loaded -> {
+            result.putAll(loaded);
+            return result;
+        });
+    }
+
+    /**
+     * Reloads the configurations of the given topics in batches, one loader call per batch. Batches which fail to load
+     * are logged and skipped. Cached configurations of other topics which have become too old are removed.
+     *
+     * @param topicNames Names of the topics to reload the configurations of.
+     * @param loader     Function to load the configurations of the given topics from the cluster.
+     * @return A future which completes when all batches have been processed.
+     */
+    CompletableFuture<Void> refresh(Collection<String> topicNames,
+            Function<Collection<String>, CompletableFuture<Map<String, Set<TopicConfigEntry>>>> loader) {
+        long now = clock.getAsLong();
+        entries.values().removeIf(entry -> now - entry.loadedAt >= maxStalenessNanos);
+
+        List<String> names = new ArrayList<>(topicNames);
+        CompletableFuture<Void> result = FutureUtil.noop();
+        for (int i = 0; i < names.size(); i += batchSize) {
+            List<String> batch = names.subList(i, Math.min(i + batchSize, names.size()));
+            result = result.thenCompose(o -> load(batch, loader).handle((loaded, t) -> {
+                if (t != null) {
+                    log.warn("Could not refresh configuration of " + batch.size() + " topic(s)", t);
+                }
+                return null;
+            }));
+        }
+        return result;
+    }
+
+    /**
+     * Removes the cached configurations of the given topics, so they are loaded from the cluster on next access.
+     *
+     * @param topicNames Names of the topics to remove the cached configurations of.
+     */
+    void invalidate(Collection<String> topicNames) {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            topicNames.forEach(entries::remove);
+        }
+    }
+
+    private CompletableFuture<Map<String, Set<TopicConfigEntry>>> load(Collection<String> topicNames,
+            Function<Collection<String>, CompletableFuture<Map<String, Set<TopicConfigEntry>>>> loader) {
+        long invalidationsBefore = invalidations.get();
+        long loadedAt = clock.getAsLong();
+        return loader.apply(topicNames).thenApply(loaded -> {
+            synchronized (entries) {
+                // only cache if no topic has been changed during load
+                if (invalidations.get() == invalidationsBefore) {
+                    loaded.forEach((topicName, configs) -> entries.put(topicName, new CacheEntry(configs, loadedAt)));
+                }
+                topicNames.stream().filter(topicName -> !loaded.containsKey(topicName)).forEach(entries::remove);
+            }
+            return loaded;
+        });
+    }
+
+    private static Counter buildCounter(MeterRegistry meterRegistry, String environmentId, String result) {
+        return Counter.builder("galapagos.kafka.metadata.cache.requests")
+                .description("Requests to the Kafka cluster metadata cache").tag("environment", environmentId)
+                .tag("metadata", "topicConfig").tag("result", result).register(meterRegistry);
+    }
+
+    private static final class CacheEntry {
+
+        private final Set<TopicConfigEntry> configs;
+
+        private final long loadedAt;
+
+        private CacheEntry(Set<TopicConfigEntry> configs, long loadedAt) {
+            this.configs = Collections.unmodifiableSet(configs);
+            this.loadedAt = loadedAt;
+        }
+
+    }
+
+}
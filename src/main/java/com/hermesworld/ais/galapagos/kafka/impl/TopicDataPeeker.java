@@ -0,0 +1,433 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import com.hermesworld.ais.galapagos.kafka.PeekLimitExceededException;
+import com.hermesworld.ais.galapagos.kafka.TopicBrowseParams;
+import com.hermesworld.ais.galapagos.kafka.config.TopicPeekConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.InterruptException;
+import org.apache.kafka.common.errors.WakeupException;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the latest records of topics, for the "peek" function of the UI, and streams ranges of records to callbacks,
+ * for browsing topic data. <br>
+ * Consumers are kept in a small pool per Kafka environment and reused. They do not join a consumer group, but are
+ * assigned to all partitions of the topic and seek to the end offsets minus the requested number of records. Records
+ * written after the end offsets have been determined are never returned, so peeking cannot be misused for continuous
+ * reading. <br>
+ * The number of concurrent operations over all environments is limited, as is the time spent reading per operation.
+ * Peek operations and browse sessions use separate Thread pools, so long-running browse sessions cannot block peek
+ * operations. Peek operations are also limited in the total size of the returned records, while browse operations are
+ * limited in the number of concurrent sessions and the throughput per user (see {@link TopicPeekConfig}). An operation
+ * stops reading as soon as its returned future is cancelled.
+ */
+@Slf4j
+final class TopicDataPeeker {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(200);
+
+    private final Function<String, KafkaConsumerFactory<String, String>> consumerFactories;
+
+    private final Map<String, BlockingQueue<Consumer<String, String>>> idleConsumers = new ConcurrentHashMap<>();
+
+    private final ThreadPoolExecutor peekExecutor;
+
+    private final ThreadPoolExecutor browseExecutor;
+
+    private final int consumerPoolSize;
+
+    private final long maxBytes;
+
+    private final Duration timeout;
+
+    private final Duration browseTimeout;
+
+    private final int maxBrowseRecords;
+
+    private final long userBytesPerSecond;
+
+    private final int maxBrowseSessionsPerUser;
+
+    // only contains the users which are currently browsing; updated atomically per user via compute()
+    private final Map<String, UserThroughput> userThroughputs = new ConcurrentHashMap<>();
+
+    private volatile boolean disposed;
+
+    /**
+     * Creates a new peeker.
+     *
+     * @param consumerFactories Function returning the consumer factory for a Kafka environment ID.
+     * @param config            Limits for peek operations.
+     */
+    TopicDataPeeker(Function<String, KafkaConsumerFactory<String, String>> consumerFactories, TopicPeekConfig config) {
+        this.consumerFactories = consumerFactories;
+        this.consumerPoolSize = config.getConsumerPoolSize();
+        this.maxBytes = config.getMaxBytes().toBytes();
+        this.timeout = config.getTimeout();
+        this.browseTimeout = config.getBrowseTimeout();
+        this.maxBrowseRecords = config.getMaxBrowseRecords();
+        this.userBytesPerSecond = config.getUserBytesPerSecond().toBytes();
+        this.maxBrowseSessionsPerUser = config.getMaxBrowseSessionsPerUser();
+        this.peekExecutor = newExecutor(config.getMaxConcurrentPeeks(), "galapagos-peek-");
+        this.browseExecutor = newExecutor(config.getMaxConcurrentBrowseSessions(), "galapagos-browse-");
+    }
+
+    /**
+     * Reads the latest records of the given topic.
+     *
+     * @param environmentId ID of the Kafka environment containing the topic.
+     * @param topicName     Name of the topic to read from.
+     * @param limit         Maximum number of records to return.
+     * @return A future completing with the read records, or failing with a {@link PeekLimitExceededException} if too
+     *         many peek operations are running. Cancelling the future stops reading from Kafka.
+     */
+    CompletableFuture<List<ConsumerRecord<String, String>>> peek(String environmentId, String topicName, int limit) {
+        return submit(peekExecutor, environmentId, (consumer, result) -> {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            return readRecords(consumer, topicName, limit, deadline, result);
+        });
+    }
+
+    /**
+     * Reads the records of the given topic in the range given by the browse parameters, and passes each matching record
+     * to the given callback as soon as it has been polled. Reading stops when the end offsets of the topic, as of the
+     * start of this operation, have been reached, when the maximum number of records has been passed to the callback,
+     * or when the callback returns <code>false</code>.
+     *
+     * @param environmentId ID of the Kafka environment containing the topic.
+     * @param topicName     Name of the topic to read from.
+     * @param params        Range, filter, and limits for the records to read.
+     * @param callback      Callback to receive the records, returning <code>false</code> if no more records shall be
+     *                      read.
+     * @return A future completing when reading has stopped, or failing with a {@link PeekLimitExceededException} if too
+     *         many browse sessions are running, in total or for the user. Cancelling the future stops reading from
+     *         Kafka.
+     */
+    CompletableFuture<Void> browse(String environmentId, String topicName, TopicBrowseParams params,
+            Function<ConsumerRecord<String, String>, Boolean> callback) {
+        String userName = String.valueOf(params.getUserName());
+        ThroughputLimiter throughputLimiter = acquireBrowseSession(userName);
+        if (throughputLimiter == null) {
+            return CompletableFuture.failedFuture(new PeekLimitExceededException(
+                    "Too many open browse sessions for your user. Please close one of them and try again."));
+        }
+        return submit(browseExecutor, environmentId, (consumer, result) -> {
+            browseRecords(consumer, topicName, params, throughputLimiter, callback, result);
+            return null;
+        }, () -> releaseBrowseSession(userName));
+    }
+
+    void dispose() {
+        disposed = true;
+        peekExecutor.shutdownNow();
+        browseExecutor.shutdownNow();
+        idleConsumers.values().forEach(queue -> {
+            Consumer<String, String> consumer;
+            while ((consumer = queue.poll()) != null) {
+                closeQuietly(consumer);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of users which are currently browsing topic data.
+     */
+    int getBrowsingUserCount() {
+        return userThroughputs.size();
+    }
+
+    private <R> CompletableFuture<R> submit(Executor executor, String environmentId, ReadOperation<R> operation) {
+        return submit(executor, environmentId, operation, () -> {
+        });
+    }
+
+    /**
+     * Runs the given operation on the given executor. <code>onFinished</code> is called when the operation has stopped
+     * reading, or immediately if the operation is rejected.
+     */
+    private <R> CompletableFuture<R> submit(Executor executor, String environmentId, ReadOperation<R> operation,
+            Runnable onFinished) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> run(environmentId, operation, result, onFinished));
+        }
+        catch (RejectedExecutionException e) {
+            onFinished.run();
+            return CompletableFuture.failedFuture(new PeekLimitExceededException(
+                    "Too many concurrent requests for reading topic data. Please try again later."));
+        }
+        return result;
+    }
+
+    private <R> void run(String environmentId, ReadOperation<R> operation, CompletableFuture<R> result,
+            Runnable onFinished) {
+        R value = null;
+        boolean completed = false;
+        RuntimeException error = null;
+        try {
+            Consumer<String, String> consumer = borrowConsumer(environmentId);
+            try {
+                value = operation.read(consumer, result);
+                completed = true;
+            }
+            catch (InterruptException | WakeupException e) {
+                // peeker is being disposed
+            }
+            catch (RuntimeException e) {
+                // also includes exceptions of browse callbacks or filters
+                error = e;
+            }
+            returnConsumer(environmentId, consumer, completed);
+        }
+        catch (KafkaException e) {
+            // consumer could not be created
+            error = e;
+        }
+        finally {
+            onFinished.run();
+        }
+
+        // complete only now, so a subsequent operation can already reuse the consumer and the limits are released
+        if (completed) {
+            result.complete(value);
+        }
+        else if (error != null) {
+            result.completeExceptionally(error);
+        }
+        else {
+            result.cancel(false);
+        }
+    }
+
+    private List<ConsumerRecord<String, String>> readRecords(Consumer<String, String> consumer, String topicName,
+            int limit, long deadline, CompletableFuture<?> result) {
+        List<TopicPartition> partitions = partitionsOf(consumer, topicName);
+        consumer.assign(partitions);
+
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions, timeout);
+        Map<TopicPartition, Long> beginningOffsets = consumer.beginningOffsets(partitions, timeout);
+        Map<TopicPartition, Long> pendingEndOffsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            long endOffset = endOffsets.getOrDefault(partition, 0L);
+            long startOffset = Math.max(beginningOffsets.getOrDefault(partition, 0L), endOffset - limit);
+            consumer.seek(partition, startOffset);
+            if (endOffset > startOffset) {
+                pendingEndOffsets.put(partition, endOffset);
+            }
+        }
+
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        long bytes = 0;
+        boolean budgetExhausted = false;
+        while (!pendingEndOffsets.isEmpty() && !budgetExhausted && System.nanoTime() < deadline && !result.isDone()) {
+            for (ConsumerRecord<String, String> record : consumer.poll(POLL_INTERVAL)) {
+                Long endOffset = pendingEndOffsets.get(new TopicPartition(record.topic(), record.partition()));
+                if (endOffset == null || record.offset() >= endOffset) {
+                    continue;
+                }
+                long recordBytes = recordSize(record);
+                if (bytes + recordBytes > maxBytes) {
+                    budgetExhausted = true;
+                    break;
+                }
+                records.add(record);
+                bytes += recordBytes;
+                if (records.size() >= limit) {
+                    budgetExhausted = true;
+                    break;
+                }
+            }
+            pendingEndOffsets.entrySet().removeIf(e -> consumer.position(e.getKey()) >= e.getValue());
+        }
+        return records;
+    }
+
+    private void browseRecords(Consumer<String, String> consumer, String topicName, TopicBrowseParams params,
+            ThroughputLimiter throughputLimiter, Function<ConsumerRecord<String, String>, Boolean> callback,
+            CompletableFuture<?> result) {
+        long deadline = System.nanoTime() + browseTimeout.toNanos();
+        int maxRecords = Math.min(params.getMaxRecords(), maxBrowseRecords);
+
+        List<TopicPartition> partitions = partitionsOf(consumer, topicName);
+        if (!params.getStartOffsets().isEmpty()) {
+            partitions.removeIf(p -> !params.getStartOffsets().containsKey(p.partition()));
+        }
+        consumer.assign(partitions);
+
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions, timeout);
+        Map<TopicPartition, Long> beginningOffsets = consumer.beginningOffsets(partitions, timeout);
+        Map<TopicPartition, OffsetAndTimestamp> timestampOffsets = params.getStartOffsets().isEmpty()
+                && params.getStartTimestamp() != null
+                        ? consumer.offsetsForTimes(
+                                partitions.stream().collect(Collectors.toMap(p -> p, p -> params.getStartTimestamp())),
+                                timeout)
+                        : Map.of();
+
+        Map<TopicPartition, Long> pendingEndOffsets = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            long beginningOffset = beginningOffsets.getOrDefault(partition, 0L);
+            long endOffset = endOffsets.getOrDefault(partition, 0L);
+            long startOffset;
+            if (params.getStartOffsets().containsKey(partition.partition())) {
+                startOffset = params.getStartOffsets().get(partition.partition());
+            }
+            else if (params.getStartTimestamp() != null) {
+                // no offset for the timestamp means there are no newer records
+                OffsetAndTimestamp offset = timestampOffsets.get(partition);
+                startOffset = offset == null ? endOffset : offset.offset();
+            }
+            else {
+                startOffset = beginningOffset;
+            }
+            startOffset = Math.min(Math.max(startOffset, beginningOffset), endOffset);
+            consumer.seek(partition, startOffset);
+            if (endOffset > startOffset) {
+                pendingEndOffsets.put(partition, endOffset);
+            }
+        }
+
+        int recordCount = 0;
+        boolean stopped = false;
+        while (!pendingEndOffsets.isEmpty() && !stopped && System.nanoTime() < deadline && !result.isDone()) {
+            for (ConsumerRecord<String, String> record : consumer.poll(POLL_INTERVAL)) {
+                Long endOffset = pendingEndOffsets.get(new TopicPartition(record.topic(), record.partition()));
+                if (endOffset == null || record.offset() >= endOffset || !params.getFilter().test(record)) {
+                    continue;
+                }
+                throttle(throughputLimiter.reserve(recordSize(record)), result);
+                if (result.isDone() || !callback.apply(record) || ++recordCount >= maxRecords) {
+                    stopped = true;
+                    break;
+                }
+            }
+            pendingEndOffsets.entrySet().removeIf(e -> consumer.position(e.getKey()) >= e.getValue());
+        }
+    }
+
+    /**
+     * Registers a new browse session for the given user and returns the throughput limiter of the user, or
+     * <code>null</code> if the user already has the maximum number of browse sessions open.
+     */
+    private ThroughputLimiter acquireBrowseSession(String userName) {
+        AtomicBoolean acquired = new AtomicBoolean();
+        UserThroughput userThroughput = userThroughputs.compute(userName, (user, throughput) -> {
+            UserThroughput result = throughput == null ? new UserThroughput(new ThroughputLimiter(userBytesPerSecond))
+                    : throughput;
+            if (result.activeBrowses < maxBrowseSessionsPerUser) {
+                result.activeBrowses++;
+                acquired.set(true);
+            }
+            return result.activeBrowses == 0 ? null : result;
+        });
+        return acquired.get() ? userThroughput.limiter : null;
+    }
+
+    private void releaseBrowseSession(String userName) {
+        // the bucket of a limiter is full after one second anyway, so idle limiters can be dropped right away
+        userThroughputs.computeIfPresent(userName,
+                (user, throughput) -> --throughput.activeBrowses == 0 ? null : throughput);
+    }
+
+    private static void throttle(long waitNanos, CompletableFuture<?> result) {
+        long deadline = System.nanoTime() + waitNanos;
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0 && !result.isDone()) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(remaining, POLL_INTERVAL.toNanos()));
+            }
+            catch (InterruptedException e) {
+                throw new InterruptException(e);
+            }
+        }
+    }
+
+    private List<TopicPartition> partitionsOf(Consumer<String, String> consumer, String topicName) {
+        return Optional.ofNullable(consumer.partitionsFor(topicName, timeout)).orElse(List.of()).stream()
+                .map(p -> new TopicPartition(p.topic(), p.partition()))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static long recordSize(ConsumerRecord<String, String> record) {
+        return Math.max(0, record.serializedKeySize()) + Math.max(0, record.serializedValueSize());
+    }
+
+    private Consumer<String, String> borrowConsumer(String environmentId) {
+        Consumer<String, String> consumer = idleConsumersOf(environmentId).poll();
+        if (consumer != null) {
+            return consumer;
+        }
+        KafkaConsumerFactory<String, String> factory = consumerFactories.apply(environmentId);
+        if (factory == null) {
+            throw new KafkaException("No Kafka consumer configured for environment " + environmentId);
+        }
+        return factory.newConsumer();
+    }
+
+    private void returnConsumer(String environmentId, Consumer<String, String> consumer, boolean reusable) {
+        if (reusable && !disposed) {
+            try {
+                consumer.unsubscribe();
+                BlockingQueue<Consumer<String, String>> queue = idleConsumersOf(environmentId);
+                if (queue.size() < consumerPoolSize && queue.offer(consumer)) {
+                    return;
+                }
+            }
+            catch (KafkaException e) {
+                log.debug("Could not reset consumer for environment " + environmentId + ", closing it", e);
+            }
+        }
+        closeQuietly(consumer);
+    }
+
+    private BlockingQueue<Consumer<String, String>> idleConsumersOf(String environmentId) {
+        return idleConsumers.computeIfAbsent(environmentId, id -> new LinkedBlockingQueue<>());
+    }
+
+    private static void closeQuietly(Consumer<String, String> consumer) {
+        try {
+            consumer.close(Duration.ofSeconds(1));
+        }
+        catch (Throwable t) {
+            // ignore; consumer is not used anymore
+        }
+    }
+
+    private static ThreadPoolExecutor newExecutor(int maxThreads, String threadNamePrefix) {
+        // without a queue, a task is rejected if all Threads are busy, which implements the concurrency limit
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            Thread t = new Thread(r, threadNamePrefix + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @FunctionalInterface
+    private interface ReadOperation<R> {
+        R read(Consumer<String, String> consumer, CompletableFuture<?> result);
+    }
+
+    private static final class UserThroughput {
+
+        private final ThroughputLimiter limiter;
+
+        private int activeBrowses;
+
+        private UserThroughput(ThroughputLimiter limiter) {
+            this.limiter = limiter;
+        }
+    }
+
+}
@@ -2,7 +2,9 @@ package com.hermesworld.ais.galapagos.kafka.util;
 
 import com.hermesworld.ais.galapagos.applications.ApplicationMetadata;
 import com.hermesworld.ais.galapagos.kafka.config.KafkaEnvironmentsConfig;
+import com.hermesworld.ais.galapagos.subscriptions.SubscriptionMetadata;
 import com.hermesworld.ais.galapagos.subscriptions.service.SubscriptionService;
+import com.hermesworld.ais.galapagos.topics.TopicMetadata;
 import com.hermesworld.ais.galapagos.topics.TopicType;
 import com.hermesworld.ais.galapagos.topics.service.TopicService;
 import org.apache.kafka.common.acl.AccessControlEntry;
@@ -13,9 +15,12 @@ import org.apache.kafka.common.resource.PatternType;
 import org.apache.kafka.common.resource.ResourcePattern;
 import org.apache.kafka.common.resource.ResourceType;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Singleton Component helping with recurring tasks regarding Kafka ACLs; mainly, calculating required ACLs for given
@@ -36,6 +41,12 @@ public class AclSupport {
 
     private final SubscriptionService subscriptionService;
 
+    /**
+     * Required topic ACLs per environment, application and read-only flag, invalidated via the change streams of the
+     * topic and subscription repositories.
+     */
+    private final Map<String, RequiredAclCache<Map<String, List<AclOperationAndType>>>> caches = new ConcurrentHashMap<>();
+
     public AclSupport(KafkaEnvironmentsConfig kafkaConfig, TopicService topicService,
             SubscriptionService subscriptionService) {
         this.kafkaConfig = kafkaConfig;
@@ -72,24 +83,65 @@ public class AclSupport {
                     .collect(Collectors.toList()));
         }
 
-        // topics OWNED by the application
-        topicService.listTopics(environmentId).stream().filter(
-                topic -> topic.getType() != TopicType.INTERNAL && (applicationId.equals(topic.getOwnerApplicationId())
-                        || (topic.getProducers() != null && topic.getProducers().contains(applicationId))))
-                .map(topic -> topicAcls(kafkaUserName, topic.getName(),
-                        readOnly ? READ_TOPIC_OPERATIONS : WRITE_TOPIC_OPERATIONS))
-                .forEach(result::addAll);
+        getTopicOperations(environmentId, applicationId, readOnly)
+                .forEach((topicName, ops) -> result.addAll(topicAcls(kafkaUserName, topicName, ops)));
+
+        return result;
+    }
+
+    private Map<String, List<AclOperationAndType>> getTopicOperations(String environmentId, String applicationId,
+            boolean readOnly) {
+        RequiredAclCache<Map<String, List<AclOperationAndType>>> cache = getCache(environmentId);
+        if (cache == null) {
+            return computeTopicOperations(environmentId, applicationId, readOnly);
+        }
+        return cache.get(applicationId, readOnly, Map::keySet,
+                () -> computeTopicOperations(environmentId, applicationId, readOnly));
+    }
+
+    private Map<String, List<AclOperationAndType>> computeTopicOperations(String environmentId, String applicationId,
+            boolean readOnly) {
+        Map<String, List<AclOperationAndType>> result = new HashMap<>();
+
+        // topics OWNED by the application, or with producer access for the application
+        topicService.listTopicsWithProducerAccess(environmentId, applicationId).stream()
+                .filter(topic -> topic.getType() != TopicType.INTERNAL).forEach(topic -> result.put(topic.getName(),
+                        readOnly ? READ_TOPIC_OPERATIONS : WRITE_TOPIC_OPERATIONS));
 
         // topics SUBSCRIBED by the application
-        subscriptionService.getSubscriptionsOfApplication(environmentId, applicationId, false).stream()
-                .map(sub -> topicAcls(kafkaUserName, sub.getTopicName(),
-                        topicService.getTopic(environmentId, sub.getTopicName())
+        subscriptionService.getSubscriptionsOfApplication(environmentId, applicationId, false)
+                .forEach(sub -> result.merge(
+                        sub.getTopicName(),
+                        topicService
+                                .getTopic(environmentId, sub.getTopicName())
                                 .map(t -> (t.getType() == TopicType.COMMANDS && !readOnly) ? WRITE_TOPIC_OPERATIONS
                                         : READ_TOPIC_OPERATIONS)
-                                .orElse(Collections.emptyList())))
-                .forEach(result::addAll);
+                                .orElse(Collections.emptyList()),
+                        (ops1, ops2) -> Stream.concat(ops1.stream(), ops2.stream()).collect(Collectors.toList())));
 
-        return result;
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Returns the required ACL cache for the given environment, replacing it if its change streams have failed. Returns
+     * <code>null</code> if the change streams of the environment are not available, e.g. as the environment is unknown.
+     */
+    private RequiredAclCache<Map<String, List<AclOperationAndType>>> getCache(String environmentId) {
+        return caches.compute(environmentId, (id, cache) -> {
+            if (cache != null && !cache.isFailed()) {
+                return cache;
+            }
+            if (cache != null) {
+                cache.dispose();
+            }
+            Flux<RepositoryChange<TopicMetadata>> topicChanges = topicService.getTopicChanges(id, false).orElse(null);
+            Flux<RepositoryChange<SubscriptionMetadata>> subscriptionChanges = subscriptionService
+                    .getSubscriptionChanges(id, true).orElse(null);
+            if (topicChanges == null || subscriptionChanges == null) {
+                return null;
+            }
+            return new RequiredAclCache<>(id, topicChanges, subscriptionChanges);
+        });
     }
 
     /**
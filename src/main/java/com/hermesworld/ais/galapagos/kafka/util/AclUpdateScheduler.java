@@ -0,0 +1,194 @@
+package com.hermesworld.ais.galapagos.kafka.util;
+
+import com.hermesworld.ais.galapagos.kafka.KafkaCluster;
+import com.hermesworld.ais.galapagos.kafka.KafkaExecutorFactory;
+import com.hermesworld.ais.galapagos.kafka.KafkaUser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ObjectUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Singleton Component coalescing ACL updates for Kafka users. Users scheduled for an update are collected per Kafka
+ * environment (and Kafka user name) for a short window (<code>galapagos.kafka.aclUpdateWindow</code>), and then updated
+ * in parallel with filtered ACL requests per user. Only if at least {@link #FULL_RECONCILIATION_MIN_USERS} users are
+ * collected (e.g. by the <code>update-application-acls</code> admin job), they are reconciled with a single call to
+ * {@link KafkaCluster#reconcileUserAcls(java.util.Collection)}, which has to read all ACLs of the cluster. While
+ * updates are running, further users are collected for the next run. If a user is scheduled multiple times within a
+ * window, only the latest {@link KafkaUser} object is used. <br>
+ * This way, bulk operations firing many events for the same applications (e.g. a staging, or the approval of many
+ * subscriptions) cause only few ACL round trips to the Kafka cluster. <br>
+ * As the updates run on a Thread of their own, the returned futures complete on a decoupling executor of the
+ * {@link KafkaExecutorFactory}, obtained on the scheduling Thread, so continuations still see e.g. the Security Context
+ * of the current user.
+ */
+@Component
+@Slf4j
+public class AclUpdateScheduler {
+
+    /**
+     * Minimum number of users collected within one window to reconcile their ACLs with a single request reading all
+     * ACLs of the cluster, instead of updating each user with filtered requests.
+     */
+    static final int FULL_RECONCILIATION_MIN_USERS = 50;
+
+    private final KafkaExecutorFactory executorFactory;
+
+    private final Executor flushExecutor;
+
+    private final Map<String, UpdateQueue> queues = new ConcurrentHashMap<>();
+
+    public AclUpdateScheduler(KafkaExecutorFactory executorFactory,
+            @Value("${galapagos.kafka.aclUpdateWindow:50ms}") Duration window) {
+        this.executorFactory = executorFactory;
+        this.flushExecutor = CompletableFuture.delayedExecutor(window.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedules an update of the ACLs of the given user on the given Kafka cluster.
+     *
+     * @param cluster Kafka cluster to update the ACLs on.
+     * @param user    User to update the ACLs of. Its required ACLs are determined when the update is performed.
+     * @return A future which completes when the ACLs of the user have been updated, or which completes exceptionally if
+     *         the update failed.
+     */
+    public CompletableFuture<Void> scheduleUpdate(KafkaCluster cluster, KafkaUser user) {
+        String userName = user.getKafkaUserName();
+        if (ObjectUtils.isEmpty(userName)) {
+            return cluster.updateUserAcls(user);
+        }
+        return queues.computeIfAbsent(cluster.getId(), UpdateQueue::new).add(cluster, userName, user);
+    }
+
+    private final class UpdateQueue {
+
+        private final String environmentId;
+
+        private KafkaCluster cluster;
+
+        private Map<String, PendingUpdate> pendingUpdates = new LinkedHashMap<>();
+
+        /**
+         * <code>true</code> while a flush is scheduled or running.
+         */
+        private boolean flushing;
+
+        private UpdateQueue(String environmentId) {
+            this.environmentId = environmentId;
+        }
+
+        private CompletableFuture<Void> add(KafkaCluster cluster, String userName, KafkaUser user) {
+            // obtained on the calling Thread, so it can capture Thread-local state like the Security Context
+            Executor callerExecutor = executorFactory.getDecouplingExecutor();
+            CompletableFuture<Void> result = new CompletableFuture<>();
+
+            CompletableFuture<Void> updateFuture;
+            synchronized (this) {
+                this.cluster = cluster;
+                PendingUpdate update = pendingUpdates.computeIfAbsent(userName, k -> new PendingUpdate());
+                update.user = user;
+                updateFuture = update.future;
+                if (!flushing) {
+                    flushing = true;
+                    flushExecutor.execute(this::flush);
+                }
+            }
+
+            updateFuture.whenComplete((o, t) -> callerExecutor.execute(() -> {
+                if (t != null) {
+                    result.completeExceptionally(t);
+                }
+                else {
+                    result.complete(null);
+                }
+            }));
+            return result;
+        }
+
+        private void flush() {
+            Map<String, PendingUpdate> updates;
+            KafkaCluster cluster;
+            synchronized (this) {
+                updates = pendingUpdates;
+                cluster = this.cluster;
+                pendingUpdates = new LinkedHashMap<>();
+            }
+
+            List<KafkaUser> users = new ArrayList<>();
+            updates.values().forEach(update -> users.add(update.user));
+            log.debug("Updating ACLs of " + users.size() + " Kafka user(s) on environment " + environmentId);
+
+            CompletableFuture<Void> result;
+            if (users.size() >= FULL_RECONCILIATION_MIN_USERS) {
+                result = safely(() -> cluster.reconcileUserAcls(users)).whenComplete((o, t) -> {
+                    if (t != null) {
+                        log.error("Could not update ACLs of " + users.size() + " Kafka user(s) on environment "
+                                + environmentId, t);
+                    }
+                });
+                updates.values().forEach(update -> completeWith(update, result));
+            }
+            else {
+                // filtered ACL requests per user are much cheaper than reading all ACLs of the cluster
+                result = CompletableFuture.allOf(updates.values().stream().map(update -> completeWith(update,
+                        safely(() -> cluster.updateUserAcls(update.user)).whenComplete((o, t) -> {
+                            if (t != null) {
+                                log.error("Could not update ACLs of Kafka user " + update.user.getKafkaUserName()
+                                        + " on environment " + environmentId, t);
+                            }
+                        }))).toArray(CompletableFuture[]::new));
+            }
+
+            result.handle((o, t) -> null).thenRun(() -> {
+                synchronized (this) {
+                    if (pendingUpdates.isEmpty()) {
+                        flushing = false;
+                    }
+                    else {
+                        flushExecutor.execute(this::flush);
+                    }
+                }
+            });
+        }
+    }
+
+    private static CompletableFuture<Void> completeWith(PendingUpdate update, CompletableFuture<Void> result) {
+        return result.whenComplete((o, t) -> {
+            if (t != null) {
+                update.future.completeExceptionally(t);
+            }
+            else {
+                update.future.complete(null);
+            }
+        });
+    }
+
+    private static CompletableFuture<Void> safely(Supplier<CompletableFuture<Void>> update) {
+        try {
+            return update.get();
+        }
+        catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static final class PendingUpdate {
+
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private KafkaUser user;
+
+    }
+
+}
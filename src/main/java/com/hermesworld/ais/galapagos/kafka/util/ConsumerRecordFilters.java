@@ -0,0 +1,73 @@
+package com.hermesworld.ais.galapagos.kafka.util;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hermesworld.ais.galapagos.util.JsonUtil;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Predicate;
+
+/**
+ * Factory methods for filters on Kafka records, e.g. for server-side filtering when browsing topic data.
+ */
+public final class ConsumerRecordFilters {
+
+    private static final ObjectMapper objectMapper = JsonUtil.newObjectMapper();
+
+    private ConsumerRecordFilters() {
+    }
+
+    /**
+     * Matches records whose key contains the given text.
+     */
+    public static Predicate<ConsumerRecord<String, String>> keyContains(String text) {
+        return record -> record.key() != null && record.key().contains(text);
+    }
+
+    /**
+     * Matches records having a header with the given name. If a value is given, the (UTF-8 decoded) header value must
+     * also be equal to it.
+     */
+    public static Predicate<ConsumerRecord<String, String>> hasHeader(String name, String value) {
+        return record -> {
+            for (Header header : record.headers().headers(name)) {
+                if (value == null || (header.value() != null
+                        && value.equals(new String(header.value(), StandardCharsets.UTF_8)))) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    /**
+     * Matches records whose value is a JSON document containing a scalar value at the given JSON Pointer (e.g.
+     * <code>/customer/id</code>), whose text representation is equal to the given value. If no value is given, any
+     * value at the JSON Pointer matches. Records with a value which is no valid JSON never match.
+     *
+     * @throws IllegalArgumentException If the given pointer is not a valid JSON Pointer.
+     */
+    public static Predicate<ConsumerRecord<String, String>> jsonPointerEquals(String pointer, String value) {
+        JsonPointer jsonPointer = JsonPointer.compile(pointer);
+        return record -> {
+            if (record.value() == null) {
+                return false;
+            }
+            try {
+                JsonNode node = objectMapper.readTree(record.value()).at(jsonPointer);
+                if (value == null) {
+                    return !node.isMissingNode();
+                }
+                return node.isValueNode() && value.equals(node.asText());
+            }
+            catch (IOException e) {
+                return false;
+            }
+        };
+    }
+
+}
@@ -14,6 +14,7 @@ import org.apache.kafka.common.config.ConfigResource;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 @Slf4j
@@ -77,6 +78,32 @@ public class LoggingAdminClient implements KafkaClusterAdminClient {
         return logOperation("describeTopic", topicName, () -> delegate.describeTopic(topicName));
     }
 
+    @Override
+    public CompletableFuture<Map<String, TopicDescription>> describeTopics(Collection<String> topicNames) {
+        return logCompletableOperation("describeTopics", topicNames, () -> delegate.describeTopics(topicNames));
+    }
+
+    @Override
+    public CompletableFuture<Map<ConfigResource, Config>> describeConfigs(Collection<ConfigResource> resources) {
+        return logCompletableOperation("describeConfigs", resources, () -> delegate.describeConfigs(resources));
+    }
+
+    @Override
+    public KafkaFuture<Void> createTopics(Collection<NewTopic> topics) {
+        return logOperation("createTopics", topics, () -> delegate.createTopics(topics));
+    }
+
+    @Override
+    public KafkaFuture<Void> deleteTopics(Collection<String> topicNames) {
+        return logOperation("deleteTopics", topicNames, () -> delegate.deleteTopics(topicNames));
+    }
+
+    @Override
+    public KafkaFuture<Void> incrementalAlterConfigs(Map<ConfigResource, Map<String, String>> configValues) {
+        return logOperation("incrementalAlterConfigs", configValues,
+                () -> delegate.incrementalAlterConfigs(configValues));
+    }
+
     private <T> KafkaFuture<T> logOperation(String opText, Object logKey, Supplier<KafkaFuture<T>> future) {
         long startTime = System.currentTimeMillis();
         log.info("Kafka AdminClient Call on cluster {}: {} ({})", clusterId, opText, logKey);
@@ -84,6 +111,14 @@ public class LoggingAdminClient implements KafkaClusterAdminClient {
         return future.get().whenComplete((v, t) -> logFutureComplete(opText, logKey, t, startTime));
     }
 
+    private <T> CompletableFuture<T> logCompletableOperation(String opText, Object logKey,
+            Supplier<CompletableFuture<T>> future) {
+        long startTime = System.currentTimeMillis();
+        log.info("Kafka AdminClient Call on cluster {}: {} ({})", clusterId, opText, logKey);
+
+        return future.get().whenComplete((v, t) -> logFutureComplete(opText, logKey, t, startTime));
+    }
+
     private void logFutureComplete(String opText, Object logKey, Throwable error, long startTime) {
         long totalTime = System.currentTimeMillis() - startTime;
         if (error != null) {
@@ -0,0 +1,46 @@
+package com.hermesworld.ais.galapagos.kafka.util;
+
+import com.hermesworld.ais.galapagos.util.HasKey;
+import lombok.Getter;
+
+/**
+ * A single change of the contents of a {@link TopicBasedRepository}, as emitted by
+ * {@link TopicBasedRepository#getChanges(boolean)}.
+ *
+ * @param <T> Type of the objects stored in the repository.
+ */
+@Getter
+public final class RepositoryChange<T extends HasKey> {
+
+    public enum ChangeType {
+        /**
+         * An object with a new key has been added to the repository. Also used when replaying the current state of a
+         * repository.
+         */
+        CREATED,
+        /**
+         * An existing object has been replaced by a different version.
+         */
+        UPDATED,
+        /**
+         * An object has been removed from the repository.
+         */
+        DELETED
+    }
+
+    private final ChangeType changeType;
+
+    private final String key;
+
+    /**
+     * The new version of the object, or <code>null</code> if it has been deleted.
+     */
+    private final T value;
+
+    public RepositoryChange(ChangeType changeType, String key, T value) {
+        this.changeType = changeType;
+        this.key = key;
+        this.value = value;
+    }
+
+}
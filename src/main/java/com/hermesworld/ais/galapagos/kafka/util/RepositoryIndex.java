@@ -0,0 +1,26 @@
+package com.hermesworld.ais.galapagos.kafka.util;
+
+import java.util.Collection;
+
+import com.hermesworld.ais.galapagos.util.HasKey;
+
+/**
+ * A secondary index on a {@link TopicBasedRepository}, mapping an <i>index key</i> (e.g. the topic name of a
+ * subscription) to all objects of the repository which currently have this index key. Indexes are obtained via
+ * {@link TopicBasedRepository#getIndex(String, java.util.function.Function)} and are kept up to date by the repository
+ * whenever objects are added, replaced, or removed.
+ *
+ * @param <K> Type of the index key.
+ * @param <T> Type of the objects stored in the indexed repository.
+ */
+public interface RepositoryIndex<K, T extends HasKey> {
+
+    /**
+     * Returns all objects of the indexed repository which currently have the given index key.
+     *
+     * @param indexKey Index key to look up. If <code>null</code>, an empty collection is returned.
+     * @return A (possibly empty) collection containing all matching objects, never <code>null</code>.
+     */
+    Collection<T> getObjects(K indexKey);
+
+}
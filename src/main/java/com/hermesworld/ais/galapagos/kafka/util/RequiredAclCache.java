@@ -0,0 +1,190 @@
+package com.hermesworld.ais.galapagos.kafka.util;
+
+import com.hermesworld.ais.galapagos.subscriptions.SubscriptionMetadata;
+import com.hermesworld.ais.galapagos.topics.TopicMetadata;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache for the topic related part of the required ACLs of applications on one Kafka environment. Each entry is stored
+ * per application and read-only flag, together with the names of the topics it refers to. <br>
+ * Entries are invalidated based on the change streams of the topic and subscription repositories of the environment, so
+ * changes performed by other Galapagos instances are taken into account as well. If one of the change streams fails,
+ * the cache is marked as failed and must be replaced by the caller.
+ *
+ * @param <V> Type of the cached values. Values must be immutable.
+ */
+@Slf4j
+final class RequiredAclCache<V> {
+
+    private final String environmentId;
+
+    private final Map<EntryKey, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Client application IDs of all known subscriptions, to be able to invalidate the client application when a
+     * subscription is deleted.
+     */
+    private final Map<String, String> subscriptionApplications = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+
+    private long generation;
+
+    private volatile boolean failed;
+
+    private final Disposable topicChanges;
+
+    private final Disposable subscriptionChanges;
+
+    /**
+     * Creates a new cache and subscribes to the given change streams.
+     *
+     * @param environmentId       ID of the environment, for logging purposes.
+     * @param topicChanges        Changes of the topic metadata of the environment.
+     * @param subscriptionChanges Changes of the subscriptions of the environment, starting with the current state.
+     */
+    RequiredAclCache(String environmentId, Flux<RepositoryChange<TopicMetadata>> topicChanges,
+            Flux<RepositoryChange<SubscriptionMetadata>> subscriptionChanges) {
+        this.environmentId = environmentId;
+        this.subscriptionChanges = subscriptionChanges
+                .subscribe(change -> subscriptionChanged(change.getKey(), change.getValue()), this::changeStreamFailed);
+        this.topicChanges = topicChanges.subscribe(change -> topicChanged(change.getKey(), change.getValue()),
+                this::changeStreamFailed);
+    }
+
+    /**
+     * Returns the cached value for the given application and read-only flag, or computes and caches it. A computed
+     * value is not cached if a relevant change occurred while it was computed.
+     *
+     * @param applicationId ID of the application.
+     * @param readOnly      Read-only flag of the requested ACLs.
+     * @param topicNames    Function returning the names of all topics the given value refers to.
+     * @param loader        Supplier computing the value.
+     * @return The cached or freshly computed value.
+     */
+    V get(String applicationId, boolean readOnly, Function<V, Set<String>> topicNames, Supplier<V> loader) {
+        EntryKey key = new EntryKey(applicationId, readOnly);
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            return entry.value;
+        }
+
+        long loadGeneration;
+        synchronized (lock) {
+            loadGeneration = generation;
+        }
+        V value = loader.get();
+        Set<String> referencedTopics = Set.copyOf(topicNames.apply(value));
+        synchronized (lock) {
+            if (generation == loadGeneration && !failed) {
+                entries.put(key, new Entry<>(value, referencedTopics));
+            }
+        }
+        return value;
+    }
+
+    boolean isFailed() {
+        return failed;
+    }
+
+    void dispose() {
+        topicChanges.dispose();
+        subscriptionChanges.dispose();
+        synchronized (lock) {
+            generation++;
+            entries.clear();
+        }
+    }
+
+    private void topicChanged(String topicName, TopicMetadata topic) {
+        synchronized (lock) {
+            generation++;
+            entries.entrySet().removeIf(e -> e.getValue().topicNames.contains(topicName));
+            if (topic != null) {
+                invalidateApplication(topic.getOwnerApplicationId());
+                if (topic.getProducers() != null) {
+                    topic.getProducers().forEach(this::invalidateApplication);
+                }
+            }
+        }
+    }
+
+    private void subscriptionChanged(String subscriptionId, SubscriptionMetadata subscription) {
+        synchronized (lock) {
+            generation++;
+            String oldApplicationId = subscription == null ? subscriptionApplications.remove(subscriptionId)
+                    : subscriptionApplications.put(subscriptionId, subscription.getClientApplicationId());
+            invalidateApplication(oldApplicationId);
+            if (subscription != null) {
+                invalidateApplication(subscription.getClientApplicationId());
+            }
+        }
+    }
+
+    private void changeStreamFailed(Throwable error) {
+        log.error("Change stream for required ACL cache of environment " + environmentId
+                + " failed, dropping cached ACLs", error);
+        synchronized (lock) {
+            failed = true;
+            generation++;
+            entries.clear();
+        }
+    }
+
+    private void invalidateApplication(String applicationId) {
+        if (applicationId != null) {
+            entries.keySet().removeIf(key -> applicationId.equals(key.applicationId));
+        }
+    }
+
+    private static final class EntryKey {
+
+        private final String applicationId;
+
+        private final boolean readOnly;
+
+        private EntryKey(String applicationId, boolean readOnly) {
+            this.applicationId = applicationId;
+            this.readOnly = readOnly;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            EntryKey that = (EntryKey) obj;
+            return readOnly == that.readOnly && applicationId.equals(that.applicationId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(applicationId, readOnly);
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+
+        private final Set<String> topicNames;
+
+        private Entry(V value, Set<String> topicNames) {
+            this.value = value;
+            this.topicNames = topicNames;
+        }
+    }
+
+}
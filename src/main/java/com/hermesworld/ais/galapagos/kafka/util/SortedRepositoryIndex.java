@@ -0,0 +1,61 @@
+package com.hermesworld.ais.galapagos.kafka.util;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import com.hermesworld.ais.galapagos.util.HasKey;
+
+/**
+ * A {@link RepositoryIndex} which additionally orders the objects of each index key by a <i>sort key</i> (e.g. the
+ * schema versions of a topic by their version number). Sorted indexes are obtained via
+ * {@link TopicBasedRepository#getSortedIndex(String, java.util.function.Function, java.util.function.Function)}. <br>
+ * Objects with equal sort keys are ordered by their ID.
+ *
+ * @param <K> Type of the index key.
+ * @param <S> Type of the sort key.
+ * @param <T> Type of the objects stored in the indexed repository.
+ */
+public interface SortedRepositoryIndex<K, S extends Comparable<? super S>, T extends HasKey>
+        extends RepositoryIndex<K, T> {
+
+    /**
+     * Returns all objects of the indexed repository which currently have the given index key, in ascending order of
+     * their sort keys.
+     *
+     * @param indexKey Index key to look up. If <code>null</code>, an empty collection is returned.
+     * @return A (possibly empty) collection containing all matching objects in ascending order, never
+     *         <code>null</code>.
+     */
+    @Override
+    Collection<T> getObjects(K indexKey);
+
+    /**
+     * Returns the objects of the indexed repository which currently have the given index key and a sort key in the
+     * given range, in ascending order of their sort keys.
+     *
+     * @param indexKey    Index key to look up. If <code>null</code>, an empty collection is returned.
+     * @param fromSortKey Lowest sort key to include.
+     * @param toSortKey   Sort key to stop at; objects with this sort key are <b>not</b> included.
+     * @return A (possibly empty) collection containing all matching objects in ascending order, never
+     *         <code>null</code>.
+     */
+    Collection<T> getObjects(K indexKey, S fromSortKey, S toSortKey);
+
+    /**
+     * Returns the object with the given index key and the given sort key.
+     *
+     * @param indexKey Index key to look up.
+     * @param sortKey  Sort key to look up.
+     * @return An Optional containing the found object, or an empty Optional if no such object exists.
+     */
+    Optional<T> getObject(K indexKey, S sortKey);
+
+    /**
+     * Returns the object with the given index key and the highest sort key, e.g. the latest schema version of a topic.
+     *
+     * @param indexKey Index key to look up.
+     * @return An Optional containing the found object, or an empty Optional if no object has the given index key.
+     */
+    Optional<T> getLast(K indexKey);
+
+}
@@ -2,11 +2,17 @@ package com.hermesworld.ais.galapagos.kafka.util;
 
 import java.time.Duration;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import com.hermesworld.ais.galapagos.util.HasKey;
+import reactor.core.publisher.Flux;
 
 /**
  * Interface for Repositories (logical data stores) based on a Kafka Topic. Implementations will use the JSON
@@ -44,6 +50,125 @@ public interface TopicBasedRepository<T extends HasKey> {
      */
     Collection<T> getObjects();
 
+    /**
+     * Returns the secondary index with the given name, registering it with the given key extractor function if no index
+     * with this name exists yet for this repository. Objects for which the extractor returns <code>null</code> are not
+     * contained in the index. <br>
+     * The default implementation does not maintain any index structures, but scans all objects of the repository on
+     * every lookup. Implementations should override this method to keep the index up to date incrementally, so lookups
+     * only cost time proportional to the number of matching objects.
+     *
+     * @param <K>          Type of the index key.
+     * @param indexName    Name of the index, unique within this repository. Subsequent calls with the same name return
+     *                     the same index; the passed extractor is ignored in this case.
+     * @param keyExtractor Function to determine the index key of an object stored in this repository.
+     * @return The index with the given name, never <code>null</code>.
+     */
+    default <K> RepositoryIndex<K, T> getIndex(String indexName, Function<? super T, ? extends K> keyExtractor) {
+        return indexKey -> indexKey == null ? List.of()
+                : getObjects().stream().filter(obj -> indexKey.equals(keyExtractor.apply(obj)))
+                        .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns the secondary index with the given name, like {@link #getIndex(String, Function)}, but allows each object
+     * to be stored under multiple index keys (e.g. a topic under the IDs of all its producer applications). Objects for
+     * which the extractor returns <code>null</code> or an empty collection are not contained in the index. <br>
+     * Index names are shared with {@link #getIndex(String, Function)}, so single-valued and multi-valued indexes of the
+     * same repository must have different names.
+     *
+     * @param <K>           Type of the index keys.
+     * @param indexName     Name of the index, unique within this repository. Subsequent calls with the same name return
+     *                      the same index; the passed extractor is ignored in this case.
+     * @param keysExtractor Function to determine the index keys of an object stored in this repository.
+     * @return The index with the given name, never <code>null</code>.
+     */
+    default <K> RepositoryIndex<K, T> getMultiValuedIndex(String indexName,
+            Function<? super T, ? extends Collection<? extends K>> keysExtractor) {
+        return indexKey -> {
+            if (indexKey == null) {
+                return List.of();
+            }
+            return getObjects().stream().filter(obj -> {
+                Collection<? extends K> keys = keysExtractor.apply(obj);
+                return keys != null && keys.contains(indexKey);
+            }).collect(Collectors.toList());
+        };
+    }
+
+    /**
+     * Returns the sorted secondary index with the given name, like {@link #getIndex(String, Function)}, but ordering
+     * the objects of each index key by the given sort key, e.g. the schema versions of a topic by their version number.
+     * Objects for which the key extractor or the sort key extractor returns <code>null</code> are not contained in the
+     * index. <br>
+     * Index names are shared with {@link #getIndex(String, Function)}, so all indexes of the same repository must have
+     * different names. <br>
+     * The default implementation scans and sorts all objects of the repository on every lookup. Implementations should
+     * override this method to keep the index up to date incrementally.
+     *
+     * @param <K>              Type of the index key.
+     * @param <S>              Type of the sort key.
+     * @param indexName        Name of the index, unique within this repository. Subsequent calls with the same name
+     *                         return the same index; the passed extractors are ignored in this case.
+     * @param keyExtractor     Function to determine the index key of an object stored in this repository.
+     * @param sortKeyExtractor Function to determine the sort key of an object stored in this repository.
+     * @return The index with the given name, never <code>null</code>.
+     */
+    default <K, S extends Comparable<? super S>> SortedRepositoryIndex<K, S, T> getSortedIndex(String indexName,
+            Function<? super T, ? extends K> keyExtractor, Function<? super T, ? extends S> sortKeyExtractor) {
+        Comparator<T> comparator = Comparator.<T, S>comparing(sortKeyExtractor).thenComparing(HasKey::key);
+
+        return new SortedRepositoryIndex<>() {
+            @Override
+            public Collection<T> getObjects(K indexKey) {
+                return getObjects(indexKey, obj -> true);
+            }
+
+            @Override
+            public Collection<T> getObjects(K indexKey, S fromSortKey, S toSortKey) {
+                return getObjects(indexKey, obj -> {
+                    S sortKey = sortKeyExtractor.apply(obj);
+                    return sortKey.compareTo(fromSortKey) >= 0 && sortKey.compareTo(toSortKey) < 0;
+                });
+            }
+
+            @Override
+            public Optional<T> getObject(K indexKey, S sortKey) {
+                return getObjects(indexKey, obj -> sortKey.equals(sortKeyExtractor.apply(obj))).stream().findFirst();
+            }
+
+            @Override
+            public Optional<T> getLast(K indexKey) {
+                return getObjects(indexKey).stream().reduce((first, second) -> second);
+            }
+
+            private List<T> getObjects(K indexKey, Predicate<T> filter) {
+                return indexKey == null ? List.of()
+                        : TopicBasedRepository.this.getObjects().stream()
+                                .filter(obj -> indexKey.equals(keyExtractor.apply(obj))
+                                        && sortKeyExtractor.apply(obj) != null)
+                                .filter(filter).sorted(comparator).collect(Collectors.toList());
+            }
+        };
+    }
+
+    /**
+     * Returns a stream of all changes to the contents of this repository, regardless of whether they have been made
+     * locally or have been received from the Kafka Topic. Each subscriber receives its own instances of the changed
+     * objects. <br>
+     * Changes are emitted on the Thread modifying the repository, so subscribers should use e.g.
+     * {@link Flux#publishOn(reactor.core.scheduler.Scheduler)} for expensive processing. Implementations buffer a
+     * limited number of changes for subscribers not requesting them fast enough; if this limit is exceeded, the stream
+     * terminates with an error, and the subscriber should re-subscribe with <code>replayCurrentState</code> set to
+     * <code>true</code>.
+     *
+     * @param replayCurrentState If <code>true</code>, all objects currently stored in this repository are emitted as
+     *                           {@link RepositoryChange.ChangeType#CREATED} changes first, before any subsequent
+     *                           change.
+     * @return A stream of the changes of this repository, which never completes normally.
+     */
+    Flux<RepositoryChange<T>> getChanges(boolean replayCurrentState);
+
     /**
      * Stores the given object in this repository. If another object with the same ID (as returned by
      * {@link HasKey#key()}) already exists, it is replaced with the new value. The Kafka Topic is updated accordingly.
@@ -55,7 +180,8 @@ public interface TopicBasedRepository<T extends HasKey> {
     CompletableFuture<Void> save(T value);
 
     /**
-     * Deletes the given object from this repository. The Kafka Topic is updated accordingly. <br>
+     * Deletes the given object from this repository. The Kafka Topic is updated accordingly, usually by writing a
+     * tombstone record for the key of the object. <br>
      * Deletion is done based on the <i>key</i> returned by the passed value, so no <code>equals()</code> check is done
      * to lookup the object. Only if no object with such key exists in this repository, this is a no-op.
      *
@@ -65,6 +191,47 @@ public interface TopicBasedRepository<T extends HasKey> {
      */
     CompletableFuture<Void> delete(T value);
 
+    /**
+     * Stores all given objects in this repository, like {@link #save(HasKey)} does for a single object. Implementations
+     * should send all records to Kafka in one batch instead of waiting for each single write, and may make all writes
+     * visible atomically. If multiple of the given objects have the same key, the last one wins. <br>
+     * The default implementation calls {@link #save(HasKey)} for each object.
+     *
+     * @param values Objects to store in this repository.
+     * @return A Completable Future which completes when the repository and the Kafka Topic both have been updated
+     *         successfully, or which completes exceptionally if the Kafka Topic could not be updated.
+     */
+    default CompletableFuture<Void> saveAll(Collection<? extends T> values) {
+        return CompletableFuture.allOf(values.stream().map(this::save).toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Deletes all given objects from this repository, like {@link #delete(HasKey)} does for a single object.
+     * Implementations should send all records to Kafka in one batch instead of waiting for each single write, and may
+     * make all deletions visible atomically. <br>
+     * The default implementation calls {@link #delete(HasKey)} for each object.
+     *
+     * @param values Objects to delete from this repository.
+     * @return A Completable Future which completes when the repository and the Kafka Topic both have been updated
+     *         successfully, or which completes exceptionally if the Kafka Topic could not be updated.
+     */
+    default CompletableFuture<Void> deleteAll(Collection<? extends T> values) {
+        return CompletableFuture.allOf(values.stream().map(this::delete).toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Writes Kafka tombstones (records with <code>null</code> value) for all objects which have been deleted from this
+     * repository by previous Galapagos versions. These versions wrote a deletion marker record instead of a tombstone,
+     * which prevents log compaction from ever removing the deleted keys from the topic. <br>
+     * The default implementation does nothing.
+     *
+     * @return A Completable Future which completes with the number of tombstones written when all tombstones have been
+     *         written to the Kafka Topic, or which completes exceptionally if the Kafka Topic could not be updated.
+     */
+    default CompletableFuture<Integer> writeTombstonesForLegacyDeletions() {
+        return CompletableFuture.completedFuture(0);
+    }
+
     /**
      * Returns the (short) name of the Kafka topic where the data for this repository is stored in. To get the real
      * Kafka topic name, you have to prepend the configured prefix for Galapagos Metadata topics.
@@ -101,4 +268,29 @@ public interface TopicBasedRepository<T extends HasKey> {
     CompletableFuture<Void> waitForInitialization(Duration initialWaitTime, Duration idleTime,
             ScheduledExecutorService executorService);
 
+    /**
+     * Waits for the repository to have consumed all records which existed on the Kafka Topic at the time the repository
+     * was assigned to the Kafka consumer, i.e., until the consumer position has reached the end offsets of all
+     * partitions of the topic captured at that time. Unlike
+     * {@link #waitForInitialization(Duration, Duration, ScheduledExecutorService)}, this does not rely on timing
+     * heuristics, so the returned Future completes as soon as the repository is fully loaded, but not earlier.
+     *
+     * @param timeout         Maximum time to wait. If the repository is not fully loaded within this time, the returned
+     *                        Future completes exceptionally with a {@link java.util.concurrent.TimeoutException}.
+     * @param executorService Executor service to schedule waiting tasks on. Also the completion of the Future will
+     *                        occur on a Thread of this executor (<b>never</b> on the calling Thread of this function).
+     * @return A future which completes once the repository is fully loaded, or when the timeout has elapsed. It will
+     *         <b>always</b> complete on a Thread of the given <code>executorService</code>.
+     */
+    CompletableFuture<Void> waitForEndOffsets(Duration timeout, ScheduledExecutorService executorService);
+
+    /**
+     * Checks if this repository has consumed all records which existed on the Kafka Topic at the time the repository
+     * was assigned to the Kafka consumer. See {@link #waitForEndOffsets(Duration, ScheduledExecutorService)} for
+     * details.
+     *
+     * @return <code>true</code> if this repository is fully loaded, <code>false</code> otherwise.
+     */
+    boolean isFullyLoaded();
+
 }
@@ -13,6 +13,8 @@ public class SchemaCompatibilityValidator {
     // - Regex Pattern compatibility is not checked - every difference is treated as incompatible.
     // Theoretically, there could be stricter patterns which include the previous patterns.
 
+    private static final Field PATTERN_PROPERTIES_FIELD = getPatternPropertiesField();
+
     private final ValidationContextImpl context = new ValidationContextImpl();
 
     private final SchemaCompatibilityErrorHandler errorHandler;
@@ -25,7 +27,7 @@ public class SchemaCompatibilityValidator {
     }
 
     public void validate() throws IncompatibleSchemaException {
-        context.prefixSegments.clear();
+        context.clearPrefix();
         verifySchemasCompatible(context.oldSchema, context.newSchema);
     }
 
@@ -116,13 +118,14 @@ public class SchemaCompatibilityValidator {
 
         // Previously strongly typed (optional) properties must still be available with
         // same format
-        oldPropsLoop: for (String property : oldSchema.getPropertySchemas().keySet()) {
-            Schema oldPropSchema = oldSchema.getPropertySchemas().get(property);
+        oldPropsLoop: for (Map.Entry<String, Schema> oldProp : oldSchema.getPropertySchemas().entrySet()) {
+            String property = oldProp.getKey();
+            Schema oldPropSchema = oldProp.getValue();
 
             // simple case: still exists directly
             Schema newPropSchema = newSchema.getPropertySchemas().get(property);
             if (newPropSchema != null) {
-                pushPrefix(".", property);
+                pushPrefix(".").append(property);
                 verifySchemasCompatible(oldPropSchema, newPropSchema);
                 popPrefix();
                 continue;
@@ -138,7 +141,7 @@ public class SchemaCompatibilityValidator {
                 }
                 newPropSchema = ((ObjectSchema) newDepSchema).getPropertySchemas().get(property);
                 if (newPropSchema != null) {
-                    pushPrefix(".", property);
+                    pushPrefix(".").append(property);
                     verifySchemasCompatible(oldPropSchema, newPropSchema);
                     popPrefix();
                     found = true;
@@ -152,7 +155,7 @@ public class SchemaCompatibilityValidator {
             Map<Regexp, Schema> newPatternSchemas = getPatternProperties(newSchema);
             for (Map.Entry<Regexp, Schema> entry : newPatternSchemas.entrySet()) {
                 if (entry.getKey().patternMatchingFailure(property).isEmpty()) {
-                    pushPrefix(".", property);
+                    pushPrefix(".").append(property);
                     verifySchemasCompatible(oldPropSchema, entry.getValue());
                     popPrefix();
                     // JSON Schema logic: First matching pattern wins...
@@ -184,7 +187,7 @@ public class SchemaCompatibilityValidator {
             }
 
             // directly compare, while we're here
-            pushPrefix("", "(" + pattern + ")");
+            pushPrefix("").append('(').append(pattern).append(')');
             verifySchemasCompatible(pattern.getValue(), newPatternSchemas.get(newKey.get()));
             popPrefix();
         }
@@ -216,26 +219,26 @@ public class SchemaCompatibilityValidator {
                 }
                 else {
                     for (int i = 0; i < newSchema.getItemSchemas().size(); i++) {
-                        pushPrefix("[" + i + "]");
+                        pushPrefix("").append('[').append(i).append(']');
                         verifySchemasCompatible(oldSchema.getAllItemSchema(), newSchema.getItemSchemas().get(i));
                         popPrefix();
                     }
                 }
             }
             else {
-                pushPrefix("[all]");
+                pushPrefix("").append("[all]");
                 verifySchemasCompatible(oldSchema.getAllItemSchema(), newSchema.getAllItemSchema());
                 popPrefix();
             }
         }
         else if (oldSchema.getContainedItemSchema() != null) {
             if (newSchema.getContainedItemSchema() != null) {
-                pushPrefix("[contains]");
+                pushPrefix("").append("[contains]");
                 verifySchemasCompatible(oldSchema.getContainedItemSchema(), newSchema.getContainedItemSchema());
                 popPrefix();
             }
             else if (newSchema.getAllItemSchema() != null) {
-                pushPrefix("[contains/all]");
+                pushPrefix("").append("[contains/all]");
                 verifySchemasCompatible(oldSchema.getContainedItemSchema(), newSchema.getAllItemSchema());
                 popPrefix();
             }
@@ -243,7 +246,7 @@ public class SchemaCompatibilityValidator {
                 // fine if at least ONE item matches!
                 boolean match = false;
                 for (int i = 0; i < newSchema.getItemSchemas().size(); i++) {
-                    pushPrefix("[" + i + "]");
+                    pushPrefix("").append('[').append(i).append(']');
                     try {
                         verifySchemasCompatible(oldSchema.getContainedItemSchema(), newSchema.getItemSchemas().get(i));
                         match = true;
@@ -274,7 +277,7 @@ public class SchemaCompatibilityValidator {
                 }
                 else {
                     for (int i = 0; i < oldSchema.getItemSchemas().size(); i++) {
-                        pushPrefix("[" + i + "]");
+                        pushPrefix("").append('[').append(i).append(']');
                         verifySchemasCompatible(oldSchema.getItemSchemas().get(i), newSchema.getItemSchemas().get(i));
                         popPrefix();
                     }
@@ -293,7 +296,7 @@ public class SchemaCompatibilityValidator {
                 else {
                     // must match ALL previous items
                     for (int i = 0; i < oldSchema.getItemSchemas().size(); i++) {
-                        pushPrefix("[" + i + "]");
+                        pushPrefix("").append('[').append(i).append(']');
                         verifySchemasCompatible(oldSchema.getItemSchemas().get(i), newSchema.getAllItemSchema());
                         popPrefix();
                     }
@@ -318,7 +321,7 @@ public class SchemaCompatibilityValidator {
         for (Schema schema : newSchema.getSubschemas()) {
             boolean match = false;
             for (Schema os : oldSchema.getSubschemas()) {
-                pushPrefix("(" + newSchema.getCriterion() + ")[" + i + "]");
+                pushPrefix("").append('(').append(newSchema.getCriterion()).append(")[").append(i).append(']');
                 try {
                     verifySchemasCompatible(os, schema);
                     match = true;
@@ -403,7 +406,7 @@ public class SchemaCompatibilityValidator {
 
         // intentionally swapped parameters, because negated schema must get more liberal
         // to have the effect of "stricter" for the not-schema.
-        pushPrefix("(not)");
+        pushPrefix("").append("(not)");
         verifySchemasCompatible(newSchema.getMustNotMatch(), oldSchema.getMustNotMatch());
         popPrefix();
     }
@@ -417,7 +420,7 @@ public class SchemaCompatibilityValidator {
                 errorHandler.handleUnresolvedSchemaReference(context);
             }
             else {
-                pushPrefix(oldSchema.getReferenceValue());
+                pushPrefix("").append(oldSchema.getReferenceValue());
                 verifySchemasCompatible(oldSchema.getReferredSchema(), newSchema.getReferredSchema());
                 popPrefix();
             }
@@ -457,9 +460,10 @@ public class SchemaCompatibilityValidator {
             throws IncompatibleSchemaException {
         setCurrentNodes(oldSchema, newSchema);
 
-        // no new values must have been added
-        for (Object o : newSchema.getPossibleValues()) {
-            if (!oldSchema.getPossibleValues().contains(o)) {
+        // no new values must have been added. getPossibleValues() creates a new Set on every call.
+        Set<Object> oldValues = oldSchema.getPossibleValues();
+        for (Object o : newSchema.getPossibleValuesAsList()) {
+            if (!oldValues.contains(o)) {
                 errorHandler.handleEnumValueAdded(context, o.toString());
                 return;
             }
@@ -595,26 +599,39 @@ public class SchemaCompatibilityValidator {
     @SuppressWarnings("unchecked")
     private static Map<Regexp, Schema> getPatternProperties(ObjectSchema schema) {
         try {
-            Field field = ObjectSchema.class.getDeclaredField("patternProperties");
-            field.setAccessible(true);
-            Map<Regexp, Schema> result = (Map<Regexp, Schema>) field.get(schema);
+            Map<Regexp, Schema> result = (Map<Regexp, Schema>) PATTERN_PROPERTIES_FIELD.get(schema);
             return result == null ? Collections.emptyMap() : result;
         }
-        catch (SecurityException | NoSuchFieldException | IllegalAccessException e) {
+        catch (IllegalAccessException e) {
             throw new RuntimeException(e);
         }
     }
 
-    private void pushPrefix(String segment) {
-        pushPrefix("", segment);
+    // the library does not offer public access to the Regexp based pattern properties
+    private static Field getPatternPropertiesField() {
+        try {
+            Field field = ObjectSchema.class.getDeclaredField("patternProperties");
+            field.setAccessible(true);
+            return field;
+        }
+        catch (SecurityException | NoSuchFieldException e) {
+            throw new RuntimeException(e);
+        }
     }
 
-    private void pushPrefix(String separator, String segment) {
-        context.prefixSegments.push(context.prefixSegments.isEmpty() ? segment : separator + segment);
+    /**
+     * Starts a new segment of the current prefix. The returned builder must be used to append the segment, and the
+     * segment must be removed again using {@link #popPrefix()}.
+     *
+     * @param separator Separator to insert before the segment, unless it is the first segment.
+     * @return The builder to append the segment to.
+     */
+    private StringBuilder pushPrefix(String separator) {
+        return context.pushSegment(separator);
     }
 
     private void popPrefix() {
-        context.prefixSegments.pop();
+        context.popSegment();
     }
 
     private void setCurrentNodes(Schema currentOldNode, Schema currentNewNode) {
@@ -628,15 +645,46 @@ public class SchemaCompatibilityValidator {
 
         private Schema newSchema;
 
-        private final Stack<String> prefixSegments = new Stack<>();
+        /**
+         * The current prefix, built incrementally, so it does not have to be joined for every node.
+         */
+        private final StringBuilder prefix = new StringBuilder();
+
+        /**
+         * Length of the prefix before each of the currently pushed segments.
+         */
+        private int[] segmentStarts = new int[16];
+
+        private int depth;
 
         private Schema currentOldNode;
 
         private Schema currentNewNode;
 
+        private StringBuilder pushSegment(String separator) {
+            if (depth == segmentStarts.length) {
+                segmentStarts = Arrays.copyOf(segmentStarts, depth * 2);
+            }
+            segmentStarts[depth] = prefix.length();
+            if (depth > 0) {
+                prefix.append(separator);
+            }
+            depth++;
+            return prefix;
+        }
+
+        private void popSegment() {
+            prefix.setLength(segmentStarts[--depth]);
+        }
+
+        private void clearPrefix() {
+            prefix.setLength(0);
+            depth = 0;
+        }
+
         @Override
         public String getCurrentPrefix() {
-            return prefixSegments.isEmpty() ? null : String.join("", prefixSegments);
+            return depth == 0 ? null : prefix.toString();
         }
 
         @Override
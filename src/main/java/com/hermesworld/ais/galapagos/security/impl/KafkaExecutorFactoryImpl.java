@@ -1,25 +1,79 @@
 package com.hermesworld.ais.galapagos.security.impl;
 
+import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import com.hermesworld.ais.galapagos.kafka.KafkaExecutorFactory;
 
 /**
- * Implementation of the {@link KafkaExecutorFactory} interface which returns a
- * {@link DelegatingSecurityContextExecutorService} based on a simple single-threaded executor. This allows Galapagos
- * services like <code>TopicService</code> to access the Security Context (via <code>CurrentUserService</code>) and
- * determine the current user even in sub-Threds.
+ * Implementation of the {@link KafkaExecutorFactory} interface which propagates the Spring Security Context of the
+ * Thread initiating a Kafka Action to the Thread completing it. This allows Galapagos services like
+ * <code>TopicService</code> to access the Security Context (via <code>CurrentUserService</code>) and determine the
+ * current user even in sub-Threds. <br>
+ * By default, decoupled tasks run on a shared, bounded Thread pool (see
+ * <code>galapagos.kafka.decouplingThreads</code>). Set <code>galapagos.kafka.decouplingMode</code> to
+ * <code>PER_TASK</code> to use a new single-threaded executor per task instead, as previous Galapagos versions did.
+ * <br>
+ * For the shared pool, the metrics <code>executor.*</code> (tagged with <code>name=galapagos.kafka.decoupler</code>)
+ * and the timer <code>galapagos.kafka.decoupler.handoff</code> (time between submitting a task and its start) are
+ * registered.
  *
  * @author AlbrechtFlo
  *
  */
 @Component
-public class KafkaExecutorFactoryImpl implements KafkaExecutorFactory {
+public class KafkaExecutorFactoryImpl implements KafkaExecutorFactory, DisposableBean {
+
+    public enum DecouplingMode {
+        SHARED_POOL, PER_TASK
+    }
+
+    private static final String METRICS_NAME = "galapagos.kafka.decoupler";
+
+    private final DecouplingMode decouplingMode;
+
+    private final ThreadPoolExecutor sharedPool;
+
+    private final Timer handoffTimer;
+
+    public KafkaExecutorFactoryImpl(MeterRegistry meterRegistry,
+            @Value("${galapagos.kafka.decouplingMode:SHARED_POOL}") DecouplingMode decouplingMode,
+            @Value("${galapagos.kafka.decouplingThreads:16}") int decouplingThreads) {
+        this.decouplingMode = decouplingMode;
+
+        if (decouplingMode == DecouplingMode.SHARED_POOL) {
+            // unbounded queue: decoupled tasks must never be rejected or run on the (Kafka) Thread submitting them
+            this.sharedPool = new ThreadPoolExecutor(decouplingThreads, decouplingThreads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), new DecouplerThreadFactory());
+            this.sharedPool.allowCoreThreadTimeOut(true);
+            new ExecutorServiceMetrics(sharedPool, METRICS_NAME, List.of()).bindTo(meterRegistry);
+            this.handoffTimer = Timer.builder(METRICS_NAME + ".handoff")
+                    .description("Time between completion of a Kafka Future and start of the decoupled task")
+                    .register(meterRegistry);
+        }
+        else {
+            this.sharedPool = null;
+            this.handoffTimer = null;
+        }
+    }
 
     @Override
     public ExecutorService newExecutor() {
@@ -27,4 +81,39 @@ public class KafkaExecutorFactoryImpl implements KafkaExecutorFactory {
                 SecurityContextHolder.getContext());
     }
 
+    @Override
+    public Executor getDecouplingExecutor() {
+        if (decouplingMode == DecouplingMode.PER_TASK) {
+            return KafkaExecutorFactory.super.getDecouplingExecutor();
+        }
+
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        return task -> {
+            long submitTime = System.nanoTime();
+            sharedPool.execute(new DelegatingSecurityContextRunnable(() -> {
+                handoffTimer.record(System.nanoTime() - submitTime, TimeUnit.NANOSECONDS);
+                task.run();
+            }, securityContext));
+        };
+    }
+
+    @Override
+    public void destroy() {
+        if (sharedPool != null) {
+            sharedPool.shutdown();
+        }
+    }
+
+    private static class DecouplerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "galapagos-kafka-decoupler-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
 }
@@ -122,8 +122,17 @@ public final class StagingImpl implements Staging, ApplyChangeContext {
 
         Set<String> createdApiTopics = new HashSet<>();
         try {
+            // fetch create params of all new topics at once instead of describing each topic separately
+            Set<String> targetTopicNames = targetTopics.stream().map(TopicMetadata::getName)
+                    .collect(Collectors.toSet());
+            List<String> newTopicNames = sourceTopics.stream().filter(t -> !targetTopicNames.contains(t.getName()))
+                    .filter(t -> isCreatable(t, sourceEnvironmentId, topicService)).map(TopicMetadata::getName)
+                    .toList();
+            Map<String, TopicCreateParams> createParams = newTopicNames.isEmpty() ? Map.of()
+                    : topicService.buildTopicCreateParams(sourceEnvironmentId, newTopicNames).join();
+
             compareSourceTarget(sourceTopics, targetTopics, TopicMetadata::getName, t -> {
-                ApplicableChange change = checkForCreateTopic(t, sourceEnvironmentId, topicService);
+                ApplicableChange change = checkForCreateTopic(t, sourceEnvironmentId, topicService, createParams);
                 if (change.getChangeType() == ChangeType.COMPOUND_CHANGE) {
                     createdApiTopics.add(t.getName());
                 }
@@ -171,8 +180,14 @@ public final class StagingImpl implements Staging, ApplyChangeContext {
         return CompletableFuture.completedFuture(staging);
     }
 
+    private static boolean isCreatable(TopicMetadata topic, String sourceEnvironmentId, TopicService topicService) {
+        return topic.getType() == TopicType.INTERNAL || (!topic.isDeprecated()
+                && !topicService.getTopicSchemaVersions(sourceEnvironmentId, topic.getName()).isEmpty());
+    }
+
     private static ApplicableChange checkForCreateTopic(TopicMetadata topic, String sourceEnvironmentId,
-            TopicService topicService) throws CompletionException {
+            TopicService topicService, Map<String, TopicCreateParams> prefetchedCreateParams)
+            throws CompletionException {
         SchemaMetadata firstSchema = null;
         if (topic.getType() != TopicType.INTERNAL) {
             if (topic.isDeprecated()) {
@@ -185,8 +200,11 @@ public final class StagingImpl implements Staging, ApplyChangeContext {
             firstSchema = schemas.get(0);
         }
 
-        TopicCreateParams createParams = topicService.buildTopicCreateParams(sourceEnvironmentId, topic.getName())
-                .join();
+        TopicCreateParams createParams = prefetchedCreateParams.get(topic.getName());
+        if (createParams == null) {
+            // not found in bulk request; single request reports the cause
+            createParams = topicService.buildTopicCreateParams(sourceEnvironmentId, topic.getName()).join();
+        }
 
         ChangeBase createChange = ChangeBase.createTopic(topic, createParams);
         if (topic.getType() != TopicType.INTERNAL) {
@@ -2,12 +2,14 @@ package com.hermesworld.ais.galapagos.staging.impl;
 
 import com.hermesworld.ais.galapagos.applications.ApplicationsService;
 import com.hermesworld.ais.galapagos.changes.Change;
+import com.hermesworld.ais.galapagos.kafka.KafkaCluster;
 import com.hermesworld.ais.galapagos.kafka.KafkaClusters;
 import com.hermesworld.ais.galapagos.kafka.config.KafkaEnvironmentConfig;
 import com.hermesworld.ais.galapagos.staging.Staging;
 import com.hermesworld.ais.galapagos.staging.StagingService;
 import com.hermesworld.ais.galapagos.subscriptions.service.SubscriptionService;
 import com.hermesworld.ais.galapagos.topics.service.TopicService;
+import com.hermesworld.ais.galapagos.util.FutureUtil;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
@@ -50,6 +52,13 @@ public class StagingServiceImpl implements StagingService {
                     "Cannot perform a staging from environment " + environmentIdFrom + ": No next stage found"));
         }
 
+        // the changes to stage are calculated from the metadata of both environments, so both must be complete
+        for (String environmentId : List.of(environmentIdFrom, targetEnvironmentId)) {
+            if (kafkaClusters.getEnvironment(environmentId).map(KafkaCluster::isLoadingRepositories).orElse(false)) {
+                return FutureUtil.environmentLoading(environmentId);
+            }
+        }
+
         if (applicationsService.getApplicationMetadata(targetEnvironmentId, applicationId).isEmpty()) {
             return CompletableFuture.failedFuture(new IllegalStateException(
                     "Please create a API Key for the application on the target environment first"));
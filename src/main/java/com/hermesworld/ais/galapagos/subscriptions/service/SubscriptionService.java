@@ -1,10 +1,13 @@
 package com.hermesworld.ais.galapagos.subscriptions.service;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
+import com.hermesworld.ais.galapagos.kafka.util.RepositoryChange;
 import com.hermesworld.ais.galapagos.subscriptions.SubscriptionMetadata;
 import com.hermesworld.ais.galapagos.subscriptions.SubscriptionState;
+import reactor.core.publisher.Flux;
 
 public interface SubscriptionService {
 
@@ -35,6 +38,16 @@ public interface SubscriptionService {
     List<SubscriptionMetadata> getSubscriptionsOfApplication(String environmentId, String applicationId,
             boolean includeNonApproved);
 
+    /**
+     * Returns the stream of changes of the subscriptions of the given environment.
+     *
+     * @param environmentId      ID of the environment to return the subscription changes of.
+     * @param replayCurrentState If <code>true</code>, the stream starts with all currently known subscriptions.
+     * @return The stream of subscription changes, or an empty Optional if the environment is unknown.
+     */
+    Optional<Flux<RepositoryChange<SubscriptionMetadata>>> getSubscriptionChanges(String environmentId,
+            boolean replayCurrentState);
+
     CompletableFuture<Void> updateSubscriptionState(String environmentId, String subscriptionId,
             SubscriptionState newState);
 
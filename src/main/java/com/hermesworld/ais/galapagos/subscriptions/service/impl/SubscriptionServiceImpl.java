@@ -7,6 +7,7 @@ import com.hermesworld.ais.galapagos.events.GalapagosEventSink;
 import com.hermesworld.ais.galapagos.kafka.KafkaCluster;
 import com.hermesworld.ais.galapagos.kafka.KafkaClusters;
 import com.hermesworld.ais.galapagos.kafka.util.InitPerCluster;
+import com.hermesworld.ais.galapagos.kafka.util.RepositoryChange;
 import com.hermesworld.ais.galapagos.kafka.util.TopicBasedRepository;
 import com.hermesworld.ais.galapagos.subscriptions.SubscriptionMetadata;
 import com.hermesworld.ais.galapagos.subscriptions.SubscriptionState;
@@ -17,6 +18,7 @@ import com.hermesworld.ais.galapagos.topics.service.TopicService;
 import com.hermesworld.ais.galapagos.util.FutureUtil;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
@@ -37,6 +39,10 @@ public class SubscriptionServiceImpl implements SubscriptionService, InitPerClus
 
     private static final String TOPIC_NAME = "subscriptions";
 
+    private static final String TOPIC_NAME_INDEX = "topicName";
+
+    private static final String CLIENT_APPLICATION_INDEX = "clientApplicationId";
+
     public SubscriptionServiceImpl(KafkaClusters kafkaEnvironments, ApplicationsService applicationsService,
             @Qualifier(value = "nonvalidating") TopicService topicService, GalapagosEventManager eventManager) {
         this.kafkaEnvironments = kafkaEnvironments;
@@ -57,6 +63,9 @@ public class SubscriptionServiceImpl implements SubscriptionService, InitPerClus
         if (kafkaCluster == null) {
             return noSuchEnvironment(environmentId);
         }
+        if (kafkaCluster.isLoadingRepositories()) {
+            return FutureUtil.environmentLoading(environmentId);
+        }
 
         TopicMetadata topic = topicService.getTopic(environmentId, subscriptionMetadata.getTopicName()).orElse(null);
         if (topic == null) {
@@ -162,9 +171,8 @@ public class SubscriptionServiceImpl implements SubscriptionService, InitPerClus
         Predicate<SubscriptionMetadata> inclusionFilter = inclusionFilter(includeNonApproved);
 
         return kafkaEnvironments.getEnvironment(environmentId)
-                .map(cluster -> getRepository(cluster).getObjects().stream()
-                        .filter(s -> topicName.equals(s.getTopicName())).filter(inclusionFilter)
-                        .collect(Collectors.toList()))
+                .map(cluster -> getRepository(cluster).getIndex(TOPIC_NAME_INDEX, SubscriptionMetadata::getTopicName)
+                        .getObjects(topicName).stream().filter(inclusionFilter).collect(Collectors.toList()))
                 .orElse(Collections.emptyList());
     }
 
@@ -173,12 +181,19 @@ public class SubscriptionServiceImpl implements SubscriptionService, InitPerClus
             boolean includeNonApproved) {
         Predicate<SubscriptionMetadata> inclusionFilter = inclusionFilter(includeNonApproved);
         return kafkaEnvironments.getEnvironment(environmentId)
-                .map(cluster -> getRepository(cluster).getObjects().stream()
-                        .filter(s -> applicationId.equals(s.getClientApplicationId())).filter(inclusionFilter)
-                        .collect(Collectors.toList()))
+                .map(cluster -> getRepository(cluster)
+                        .getIndex(CLIENT_APPLICATION_INDEX, SubscriptionMetadata::getClientApplicationId)
+                        .getObjects(applicationId).stream().filter(inclusionFilter).collect(Collectors.toList()))
                 .orElse(Collections.emptyList());
     }
 
+    @Override
+    public Optional<Flux<RepositoryChange<SubscriptionMetadata>>> getSubscriptionChanges(String environmentId,
+            boolean replayCurrentState) {
+        return kafkaEnvironments.getEnvironment(environmentId)
+                .map(cluster -> getRepository(cluster).getChanges(replayCurrentState));
+    }
+
     private TopicBasedRepository<SubscriptionMetadata> getRepository(KafkaCluster kafkaCluster) {
         return kafkaCluster.getRepository(TOPIC_NAME, SubscriptionMetadata.class);
     }
@@ -189,6 +204,9 @@ public class SubscriptionServiceImpl implements SubscriptionService, InitPerClus
         if (kafkaCluster == null) {
             return noSuchEnvironment(environmentId);
         }
+        if (kafkaCluster.isLoadingRepositories()) {
+            return FutureUtil.environmentLoading(environmentId);
+        }
 
         SubscriptionMetadata subscription = getRepository(kafkaCluster).getObject(subscriptionId).orElse(null);
         if (subscription == null) {
@@ -1,6 +1,7 @@
 package com.hermesworld.ais.galapagos.topics;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.hermesworld.ais.galapagos.util.HasKey;
 import lombok.Getter;
@@ -20,6 +21,11 @@ public class SchemaMetadata implements HasKey {
 
     private int schemaVersion;
 
+    /**
+     * Equal schema texts of written or received schema metadata are shared, e.g. between the copies of a schema on all
+     * stages.
+     */
+    @JsonDeserialize(using = SchemaTextInterner.TextDeserializer.class)
     private String jsonSchema;
 
     private ZonedDateTime createdAt;
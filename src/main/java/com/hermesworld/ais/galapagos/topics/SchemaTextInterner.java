@@ -0,0 +1,59 @@
+package com.hermesworld.ais.galapagos.topics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StringDeserializer;
+import com.hermesworld.ais.galapagos.util.JsonUtil;
+import com.hermesworld.ais.galapagos.util.WeakInterner;
+
+/**
+ * Interns JSON schema texts, so every distinct schema text is held in memory only once, regardless of how many
+ * environments, schema repositories or copies of {@link SchemaMetadata} objects refer to it. Schema texts are by far
+ * the largest part of the Galapagos metadata, and staging copies them unchanged to every stage. <br>
+ * Texts are held weakly; a text is dropped as soon as no schema metadata object refers to it anymore. Texts are only
+ * interned when schema metadata is written or received (see {@link JsonUtil#INTERN_TEXTS}), not when it is just read.
+ */
+final class SchemaTextInterner {
+
+    private static final WeakInterner<String> TEXTS = new WeakInterner<>();
+
+    private SchemaTextInterner() {
+    }
+
+    /**
+     * Returns the canonical instance of the given schema text.
+     *
+     * @param text Schema text, may be <code>null</code>.
+     * @return A String equal to the given text, which is the same instance for all equal texts; <code>null</code> if
+     *         the given text is <code>null</code>.
+     */
+    static String intern(String text) {
+        if (text == null) {
+            return null;
+        }
+        return TEXTS.intern(text.getBytes(StandardCharsets.UTF_8), text);
+    }
+
+    /**
+     * Deserializer for schema texts, interning them if requested by the {@link JsonUtil#INTERN_TEXTS} attribute.
+     */
+    static final class TextDeserializer extends StdDeserializer<String> {
+
+        private static final long serialVersionUID = 1L;
+
+        TextDeserializer() {
+            super(String.class);
+        }
+
+        @Override
+        public String deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            String text = StringDeserializer.instance.deserialize(parser, context);
+            return Boolean.TRUE.equals(context.getAttribute(JsonUtil.INTERN_TEXTS)) ? intern(text) : text;
+        }
+    }
+
+}
@@ -2,13 +2,36 @@ package com.hermesworld.ais.galapagos.topics.config;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.springframework.util.unit.DataSize;
 
 @Getter
 @Setter
 public class TopicSchemaConfig {
 
+    /**
+     * Previous schema versions a new schema version must be compatible with.
+     */
+    public enum CompatibilityMode {
+        /**
+         * Only the latest previous version.
+         */
+        LATEST,
+        /**
+         * All previous versions, or the latest <code>transitiveCompatibilityMaxVersions</code> versions.
+         */
+        TRANSITIVE
+    }
+
     private boolean allowAddedPropertiesOnCommandTopics;
 
     private boolean allowRemovedOptionalProperties;
 
+    private DataSize compiledSchemaCacheSize = DataSize.ofMegabytes(64);
+
+    private CompatibilityMode compatibilityMode = CompatibilityMode.LATEST;
+
+    private int transitiveCompatibilityMaxVersions;
+
+    private int compatibilityCheckThreads = 4;
+
 }
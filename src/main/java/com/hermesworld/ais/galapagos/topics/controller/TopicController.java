@@ -6,8 +6,11 @@ import com.hermesworld.ais.galapagos.applications.BusinessCapability;
 import com.hermesworld.ais.galapagos.applications.KnownApplication;
 import com.hermesworld.ais.galapagos.kafka.KafkaCluster;
 import com.hermesworld.ais.galapagos.kafka.KafkaClusters;
+import com.hermesworld.ais.galapagos.kafka.PeekLimitExceededException;
+import com.hermesworld.ais.galapagos.kafka.TopicBrowseParams;
 import com.hermesworld.ais.galapagos.kafka.TopicConfigEntry;
 import com.hermesworld.ais.galapagos.kafka.config.KafkaEnvironmentConfig;
+import com.hermesworld.ais.galapagos.kafka.util.ConsumerRecordFilters;
 import com.hermesworld.ais.galapagos.naming.InvalidTopicNameException;
 import com.hermesworld.ais.galapagos.naming.NamingService;
 import com.hermesworld.ais.galapagos.schemas.IncompatibleSchemaException;
@@ -27,13 +30,21 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -429,17 +440,155 @@ public class TopicController {
     }
 
     @GetMapping("/api/util/peek-data/{environmentId}/{topicName}")
-    public List<ConsumerRecordDto> peekTopicData(@PathVariable String environmentId, @PathVariable String topicName) {
+    public DeferredResult<List<ConsumerRecordDto>> peekTopicData(@PathVariable String environmentId,
+            @PathVariable String topicName) {
+        DeferredResult<List<ConsumerRecordDto>> result = new DeferredResult<>();
+        CompletableFuture<List<ConsumerRecord<String, String>>> records = topicService.peekTopicData(environmentId,
+                topicName, PEEK_LIMIT);
+
+        // stop reading from Kafka when the client aborts the request. Spring MVC sets the result after these callbacks.
+        AtomicBoolean aborted = new AtomicBoolean();
+        Runnable abort = () -> {
+            aborted.set(true);
+            records.cancel(false);
+        };
+        result.onError(t -> abort.run());
+        result.onTimeout(abort);
+
+        records.whenComplete((recs, t) -> {
+            Throwable cause = t instanceof CompletionException ? t.getCause() : t;
+            if (cause instanceof CancellationException) {
+                // if not aborted by the client, reading has been cancelled on server side, e.g. on shutdown
+                if (!aborted.get() && !result.isSetOrExpired()) {
+                    result.setErrorResult(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE));
+                }
+                return;
+            }
+            if (cause != null) {
+                result.setErrorResult(handleExecutionException(new ExecutionException(cause)));
+            }
+            else {
+                result.setResult(recs.stream().map(this::toRecordDto).collect(Collectors.toList()));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Streams records of a topic to the client as server-sent events, as they are read from Kafka. Each record is sent
+     * as a <code>record</code> event; the end of the stream is signalled by an <code>end</code> event, or by an
+     * <code>error</code> event if reading has failed.
+     *
+     * @param partitionOffsets Offsets to start reading at, in the form <code>partition:offset</code>. If given, only
+     *                         these partitions are read.
+     * @param timestamp        Timestamp (epoch millis) to start reading at in all partitions, if no offsets are given.
+     *                         If neither offsets nor timestamp are given, all partitions are read from the beginning.
+     * @param maxRecords       Maximum number of records to send.
+     * @param key              If given, only records whose key contains this text are sent.
+     * @param header           If given, only records having a header with this name, or, if given as
+     *                         <code>name=value</code>, with this name and value, are sent.
+     * @param jsonPointer      If given, only records whose value has <code>jsonValue</code> at this JSON Pointer (e.g.
+     *                         <code>/customer/id</code>) are sent.
+     * @param jsonValue        Value to compare the value at <code>jsonPointer</code> with. If not given, all records
+     *                         having any value at <code>jsonPointer</code> are sent.
+     */
+    @GetMapping(value = "/api/util/browse-data/{environmentId}/{topicName}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter browseTopicData(@PathVariable String environmentId, @PathVariable String topicName,
+            @RequestParam(required = false) List<String> partitionOffsets,
+            @RequestParam(required = false) Long timestamp,
+            @RequestParam(required = false, defaultValue = "1000") int maxRecords,
+            @RequestParam(required = false) String key, @RequestParam(required = false) String header,
+            @RequestParam(required = false) String jsonPointer, @RequestParam(required = false) String jsonValue) {
+        TopicBrowseParams params = new TopicBrowseParams();
         try {
-            return topicService.peekTopicData(environmentId, topicName, PEEK_LIMIT).get().stream()
-                    .map(this::toRecordDto).collect(Collectors.toList());
+            params.setStartOffsets(parsePartitionOffsets(partitionOffsets));
+            params.setFilter(buildRecordFilter(key, header, jsonPointer, jsonValue));
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        params.setStartTimestamp(timestamp);
+        params.setMaxRecords(maxRecords);
+        params.setUserName(userService.getCurrentUserName().orElse(null));
+
+        // reading time is limited by the Kafka layer, so the request itself must not time out
+        SseEmitter emitter = new SseEmitter(0L);
+        CompletableFuture<Void> future = topicService.browseTopicData(environmentId, topicName, params, record -> {
+            try {
+                emitter.send(SseEmitter.event().name("record").data(toRecordDto(record), MediaType.APPLICATION_JSON));
+                return true;
+            }
+            catch (IOException | IllegalStateException e) {
+                // client has gone
+                return false;
+            }
+        });
+
+        if (future.isCompletedExceptionally()) {
+            try {
+                future.join();
+            }
+            catch (CompletionException e) {
+                throw handleExecutionException(new ExecutionException(e.getCause()));
+            }
         }
-        catch (InterruptedException e) {
-            return Collections.emptyList();
+
+        // stop reading from Kafka when the client aborts the request
+        emitter.onError(t -> future.cancel(false));
+        emitter.onTimeout(() -> future.cancel(false));
+        emitter.onCompletion(() -> future.cancel(false));
+
+        future.whenComplete((o, t) -> {
+            if (t instanceof CancellationException) {
+                return;
+            }
+            try {
+                if (t != null) {
+                    log.warn("Could not read data of topic " + topicName + " on environment " + environmentId, t);
+                    emitter.send(SseEmitter.event().name("error").data("Could not read topic data"));
+                }
+                else {
+                    emitter.send(SseEmitter.event().name("end").data(""));
+                }
+                emitter.complete();
+            }
+            catch (IOException | IllegalStateException e) {
+                // client has gone
+            }
+        });
+        return emitter;
+    }
+
+    private static Map<Integer, Long> parsePartitionOffsets(List<String> partitionOffsets) {
+        Map<Integer, Long> result = new HashMap<>();
+        if (partitionOffsets == null) {
+            return result;
         }
-        catch (ExecutionException e) {
-            throw handleExecutionException(e);
+        for (String partitionOffset : partitionOffsets) {
+            String[] parts = partitionOffset.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid partition offset, expected partition:offset");
+            }
+            result.put(Integer.parseInt(parts[0].trim()), Long.parseLong(parts[1].trim()));
+        }
+        return result;
+    }
+
+    private static Predicate<ConsumerRecord<String, String>> buildRecordFilter(String key, String header,
+            String jsonPointer, String jsonValue) {
+        Predicate<ConsumerRecord<String, String>> filter = record -> true;
+        if (StringUtils.hasLength(key)) {
+            filter = filter.and(ConsumerRecordFilters.keyContains(key));
+        }
+        if (StringUtils.hasLength(header)) {
+            int index = header.indexOf('=');
+            filter = filter.and(index < 0 ? ConsumerRecordFilters.hasHeader(header, null)
+                    : ConsumerRecordFilters.hasHeader(header.substring(0, index), header.substring(index + 1)));
         }
+        if (StringUtils.hasLength(jsonPointer)) {
+            filter = filter.and(ConsumerRecordFilters.jsonPointerEquals(jsonPointer, jsonValue));
+        }
+        return filter;
     }
 
     private TopicDto toDto(String environmentId, TopicMetadata topic, boolean canDelete) {
@@ -492,6 +641,9 @@ public class TopicController {
         if (t instanceof NoSuchElementException) {
             return new ResponseStatusException(HttpStatus.NOT_FOUND);
         }
+        if (t instanceof PeekLimitExceededException) {
+            return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, t.getMessage());
+        }
 
         log.error("Unexpected exception during request handling: ", t);
         return new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR);
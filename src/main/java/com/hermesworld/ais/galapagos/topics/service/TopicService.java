@@ -1,17 +1,22 @@
 package com.hermesworld.ais.galapagos.topics.service;
 
+import com.hermesworld.ais.galapagos.kafka.TopicBrowseParams;
 import com.hermesworld.ais.galapagos.kafka.TopicCreateParams;
+import com.hermesworld.ais.galapagos.kafka.util.RepositoryChange;
 import com.hermesworld.ais.galapagos.topics.SchemaCompatCheckMode;
 import com.hermesworld.ais.galapagos.topics.SchemaMetadata;
 import com.hermesworld.ais.galapagos.topics.TopicMetadata;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import reactor.core.publisher.Flux;
 
 import javax.annotation.CheckReturnValue;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 public interface TopicService {
 
@@ -78,9 +83,31 @@ public interface TopicService {
     @CheckReturnValue
     List<TopicMetadata> listTopics(String environmentId);
 
+    /**
+     * Returns all topics of the given environment which the given application may produce to, i.e. which are owned by
+     * the application or list it as an additional producer. The lookup uses an index, so its cost does not depend on
+     * the total number of topics.
+     *
+     * @param environmentId ID of the environment to return the topics of.
+     * @param applicationId ID of the owning or producing application.
+     * @return A (possibly empty) list of matching topics, in no specific order.
+     */
+    @CheckReturnValue
+    List<TopicMetadata> listTopicsWithProducerAccess(String environmentId, String applicationId);
+
     @CheckReturnValue
     Optional<TopicMetadata> getTopic(String environmentId, String topicName);
 
+    /**
+     * Returns the stream of changes of the topic metadata of the given environment.
+     *
+     * @param environmentId      ID of the environment to return the topic changes of.
+     * @param replayCurrentState If <code>true</code>, the stream starts with all currently known topics.
+     * @return The stream of topic changes, or an empty Optional if the environment is unknown.
+     */
+    @CheckReturnValue
+    Optional<Flux<RepositoryChange<TopicMetadata>>> getTopicChanges(String environmentId, boolean replayCurrentState);
+
     @CheckReturnValue
     List<SchemaMetadata> getTopicSchemaVersions(String environmentId, String topicName);
 
@@ -113,10 +140,32 @@ public interface TopicService {
     @CheckReturnValue
     CompletableFuture<TopicCreateParams> buildTopicCreateParams(String environmentId, String topicName);
 
+    /**
+     * Builds the parameters to re-create the given topics, using a constant number of requests to the Kafka cluster
+     * instead of requests per topic.
+     *
+     * @param environmentId Environment ID of the cluster containing the topics.
+     * @param topicNames    Names of the topics to build the parameters for.
+     * @return A future providing the create parameters, by topic name. Topics which do not exist on the Kafka cluster
+     *         are not contained in the map.
+     */
+    @CheckReturnValue
+    CompletableFuture<Map<String, TopicCreateParams>> buildTopicCreateParams(String environmentId,
+            Collection<String> topicNames);
+
     @CheckReturnValue
     CompletableFuture<List<ConsumerRecord<String, String>>> peekTopicData(String environmentId, String topicName,
             int limit);
 
+    /**
+     * Streams a range of records of the given topic to the given callback. See
+     * {@link com.hermesworld.ais.galapagos.kafka.KafkaCluster#browseTopicData(String, TopicBrowseParams, Function)} for
+     * details.
+     */
+    @CheckReturnValue
+    CompletableFuture<Void> browseTopicData(String environmentId, String topicName, TopicBrowseParams params,
+            Function<ConsumerRecord<String, String>, Boolean> callback);
+
     @CheckReturnValue
     CompletableFuture<Void> addTopicProducer(String environmentId, String topicName, String producerId);
 
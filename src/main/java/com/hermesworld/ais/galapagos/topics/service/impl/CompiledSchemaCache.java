@@ -0,0 +1,217 @@
+package com.hermesworld.ais.galapagos.topics.service.impl;
+
+import com.hermesworld.ais.galapagos.topics.SchemaMetadata;
+import com.hermesworld.ais.galapagos.topics.config.GalapagosTopicConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.SchemaException;
+import org.everit.json.schema.loader.SchemaLoader;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Cache for compiled JSON schemas. Compiling a JSON schema (parsing the JSON and building the schema tree, including
+ * all <code>$ref</code> references) is expensive for large schemas, so compiled schemas are kept in memory and looked
+ * up by the ID of their {@link SchemaMetadata} and by the SHA-256 hash of their source. The latter allows to reuse a
+ * compiled schema for the same schema version on all environments. <br>
+ * The cache is bounded by the total length of the cached schema sources
+ * (<code>galapagos.topics.schemas.compiledSchemaCacheSize</code>); least recently used schemas are dropped first.
+ * Schemas are removed from the cache when they are deleted from a schema repository. <br>
+ * Hits and misses are counted in the metric <code>galapagos.schemas.compiled.cache.requests</code>.
+ */
+@Component
+class CompiledSchemaCache {
+
+    private final long maxSize;
+
+    private final Map<String, CacheEntry> entriesByHash = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<String, CacheEntry> entriesById = new HashMap<>();
+
+    private long size;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    public CompiledSchemaCache(GalapagosTopicConfig topicConfig, MeterRegistry meterRegistry) {
+        this.maxSize = topicConfig.getSchemas().getCompiledSchemaCacheSize().toBytes();
+        this.hits = counter(meterRegistry, "hit");
+        this.misses = counter(meterRegistry, "miss");
+        Gauge.builder("galapagos.schemas.compiled.cache.size", this, CompiledSchemaCache::getSize)
+                .description("Total length of the JSON schema sources in the compiled schema cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the compiled form of the JSON schema of the given schema metadata, compiling it if it is not cached yet.
+     *
+     * @param schema Schema metadata containing the JSON schema to compile.
+     * @return The compiled schema.
+     * @throws JSONException   If the schema source is not valid JSON.
+     * @throws SchemaException If the schema source is not a valid JSON schema.
+     */
+    CompiledSchema getSchema(SchemaMetadata schema) throws JSONException, SchemaException {
+        String schemaId = schema.getId();
+        String source = schema.getJsonSchema();
+
+        synchronized (this) {
+            CacheEntry entry = schemaId == null ? null : entriesById.get(schemaId);
+            if (entry != null && entry.source.equals(source)) {
+                // mark as recently used
+                entriesByHash.get(entry.hash);
+                hits.increment();
+                return entry.schema;
+            }
+        }
+
+        String hash = hash(source);
+        synchronized (this) {
+            CacheEntry entry = entriesByHash.get(hash);
+            if (entry != null && entry.source.equals(source)) {
+                link(schemaId, entry);
+                hits.increment();
+                return entry.schema;
+            }
+        }
+
+        misses.increment();
+        JSONObject json = new JSONObject(source);
+        CompiledSchema compiled = new CompiledSchema(
+                SchemaLoader.builder().draftV7Support().schemaJson(json).build().load().build(), json.has("$schema"));
+
+        if (source.length() <= maxSize) {
+            synchronized (this) {
+                CacheEntry entry = entriesByHash.get(hash);
+                if (entry == null) {
+                    entry = new CacheEntry(hash, source, compiled);
+                    entriesByHash.put(hash, entry);
+                    size += source.length();
+                }
+                link(schemaId, entry);
+                evictLeastRecentlyUsed();
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Removes the schema with the given ID from the cache. The compiled schema is still kept if other schemas with the
+     * same source are cached.
+     *
+     * @param schemaId ID of the deleted schema.
+     */
+    synchronized void evict(String schemaId) {
+        CacheEntry entry = entriesById.remove(schemaId);
+        if (entry != null) {
+            entry.schemaIds.remove(schemaId);
+            if (entry.schemaIds.isEmpty()) {
+                remove(entry);
+            }
+        }
+    }
+
+    synchronized long getSize() {
+        return size;
+    }
+
+    private void link(String schemaId, CacheEntry entry) {
+        if (schemaId == null) {
+            return;
+        }
+        CacheEntry previous = entriesById.put(schemaId, entry);
+        if (previous != null && previous != entry) {
+            previous.schemaIds.remove(schemaId);
+        }
+        entry.schemaIds.add(schemaId);
+    }
+
+    private void evictLeastRecentlyUsed() {
+        Iterator<CacheEntry> iter = entriesByHash.values().iterator();
+        while (size > maxSize && iter.hasNext()) {
+            CacheEntry entry = iter.next();
+            iter.remove();
+            removeIds(entry);
+        }
+    }
+
+    private void remove(CacheEntry entry) {
+        entriesByHash.remove(entry.hash);
+        removeIds(entry);
+    }
+
+    private void removeIds(CacheEntry entry) {
+        size -= entry.source.length();
+        entry.schemaIds.forEach(id -> entriesById.remove(id, entry));
+        entry.schemaIds.clear();
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("galapagos.schemas.compiled.cache.requests")
+                .description("Requests to the compiled JSON schema cache").tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String hash(String source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (NoSuchAlgorithmException e) {
+            // every Java platform must support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A compiled JSON schema, together with information about its source which is required for validation.
+     */
+    static final class CompiledSchema {
+
+        private final Schema schema;
+
+        private final boolean declaresMetaSchema;
+
+        private CompiledSchema(Schema schema, boolean declaresMetaSchema) {
+            this.schema = schema;
+            this.declaresMetaSchema = declaresMetaSchema;
+        }
+
+        Schema getSchema() {
+            return schema;
+        }
+
+        /**
+         * Returns <code>true</code> if the schema source declares a <code>$schema</code> value.
+         */
+        boolean declaresMetaSchema() {
+            return declaresMetaSchema;
+        }
+    }
+
+    private static final class CacheEntry {
+
+        private final String hash;
+
+        private final String source;
+
+        private final CompiledSchema schema;
+
+        private final Set<String> schemaIds = new HashSet<>();
+
+        private CacheEntry(String hash, String source, CompiledSchema schema) {
+            this.hash = hash;
+            this.source = source;
+            this.schema = schema;
+        }
+    }
+
+}
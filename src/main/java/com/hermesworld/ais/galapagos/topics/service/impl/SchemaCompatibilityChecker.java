@@ -0,0 +1,173 @@
+package com.hermesworld.ais.galapagos.topics.service.impl;
+
+import com.hermesworld.ais.galapagos.messages.MessagesService;
+import com.hermesworld.ais.galapagos.messages.MessagesServiceFactory;
+import com.hermesworld.ais.galapagos.schemas.ConsumerCompatibilityErrorHandler;
+import com.hermesworld.ais.galapagos.schemas.IncompatibleSchemaException;
+import com.hermesworld.ais.galapagos.schemas.ProducerCompatibilityErrorHandler;
+import com.hermesworld.ais.galapagos.schemas.SchemaCompatibilityValidator;
+import com.hermesworld.ais.galapagos.topics.SchemaMetadata;
+import com.hermesworld.ais.galapagos.topics.TopicMetadata;
+import com.hermesworld.ais.galapagos.topics.TopicType;
+import com.hermesworld.ais.galapagos.topics.config.GalapagosTopicConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.SchemaException;
+import org.json.JSONException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Checks a new schema version of a topic for compatibility with previous schema versions. Which previous versions have
+ * to be checked (see <code>galapagos.topics.schemas.compatibilityMode</code>) is determined by the caller, so it only
+ * has to read these versions. <br>
+ * Transitive checks run in parallel on a bounded Thread pool. As soon as one check finds an incompatibility, checks
+ * which have not started yet are skipped; all incompatibilities found by then are reported in one exception.
+ */
+@Component
+@Slf4j
+class SchemaCompatibilityChecker implements DisposableBean {
+
+    private final GalapagosTopicConfig topicSettings;
+
+    private final CompiledSchemaCache schemaCache;
+
+    private final MessagesService messagesService;
+
+    private final ThreadPoolExecutor executor;
+
+    public SchemaCompatibilityChecker(GalapagosTopicConfig topicSettings, CompiledSchemaCache schemaCache,
+            MessagesServiceFactory messagesServiceFactory) {
+        this.topicSettings = topicSettings;
+        this.schemaCache = schemaCache;
+        this.messagesService = messagesServiceFactory.getMessagesService(SchemaCompatibilityChecker.class);
+
+        int threads = Math.max(1, topicSettings.getSchemas().getCompatibilityCheckThreads());
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "galapagos-schema-compat-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Checks the given new schema for compatibility with the given previous schema versions of the given topic.
+     *
+     * @param environmentId ID of the environment the schema shall be added to.
+     * @param topic         Topic the schema shall be added to.
+     * @param newSchema     The compiled new schema.
+     * @param versions      The previous schema versions of the topic to check, ordered by schema version.
+     * @throws IncompatibleSchemaException If the new schema is incompatible with at least one of the checked previous
+     *                                     versions.
+     */
+    void verifyCompatibility(String environmentId, TopicMetadata topic, Schema newSchema, List<SchemaMetadata> versions)
+            throws IncompatibleSchemaException {
+        if (versions.isEmpty()) {
+            return;
+        }
+        if (versions.size() == 1) {
+            verifyCompatibility(environmentId, topic, newSchema, versions.get(0));
+            return;
+        }
+
+        AtomicBoolean incompatible = new AtomicBoolean();
+        Map<SchemaMetadata, CompletableFuture<IncompatibleSchemaException>> futures = new LinkedHashMap<>();
+
+        // latest versions first, as they are most likely to be affected by a change
+        for (int i = versions.size() - 1; i >= 0; i--) {
+            SchemaMetadata version = versions.get(i);
+            futures.put(version, CompletableFuture.supplyAsync(() -> {
+                if (incompatible.get()) {
+                    return null;
+                }
+                try {
+                    verifyCompatibility(environmentId, topic, newSchema, version);
+                    return null;
+                }
+                catch (IncompatibleSchemaException e) {
+                    incompatible.set(true);
+                    return e;
+                }
+            }, executor));
+        }
+
+        SortedMap<Integer, IncompatibleSchemaException> failures = new TreeMap<>();
+        for (Map.Entry<SchemaMetadata, CompletableFuture<IncompatibleSchemaException>> entry : futures.entrySet()) {
+            IncompatibleSchemaException failure;
+            try {
+                failure = entry.getValue().join();
+            }
+            catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+            if (failure != null) {
+                failures.put(entry.getKey().getSchemaVersion(), failure);
+            }
+        }
+
+        if (failures.isEmpty()) {
+            return;
+        }
+
+        int latestVersion = versions.get(versions.size() - 1).getSchemaVersion();
+        if (failures.size() == 1 && failures.firstKey() == latestVersion) {
+            throw failures.get(latestVersion);
+        }
+
+        String versionList = failures.keySet().stream().map(String::valueOf).collect(Collectors.joining(", "));
+        String details = failures.entrySet().stream().map(e -> e.getKey() + ": " + e.getValue().getMessage())
+                .collect(Collectors.joining("; "));
+        Iterator<IncompatibleSchemaException> iter = failures.values().iterator();
+        IncompatibleSchemaException result = new IncompatibleSchemaException(
+                messagesService.getMessage("SCHEMA_INCOMPATIBLE_WITH_PREVIOUS_VERSIONS", versionList, details),
+                iter.next());
+        iter.forEachRemaining(result::addSuppressed);
+        throw result;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void verifyCompatibility(String environmentId, TopicMetadata topic, Schema newSchema,
+            SchemaMetadata previousVersion) throws IncompatibleSchemaException {
+        Schema previousSchema;
+        try {
+            previousSchema = schemaCache.getSchema(previousVersion).getSchema();
+        }
+        catch (JSONException | SchemaException e) {
+            log.error(messagesService.getMessage("INVALID_SCHEMA_IN_REPOSITORY_FOUND_FOR_TOPIC", topic.getName(),
+                    environmentId, previousVersion.getSchemaVersion()));
+            // no compatibility guarantee possible for an invalid schema
+            return;
+        }
+
+        SchemaCompatibilityValidator validator;
+        if (topic.getType() == TopicType.COMMANDS) {
+            validator = new SchemaCompatibilityValidator(newSchema, previousSchema,
+                    new ProducerCompatibilityErrorHandler(
+                            topicSettings.getSchemas().isAllowAddedPropertiesOnCommandTopics()));
+        }
+        else {
+            validator = new SchemaCompatibilityValidator(previousSchema, newSchema,
+                    new ConsumerCompatibilityErrorHandler(
+                            topicSettings.getSchemas().isAllowRemovedOptionalProperties()));
+        }
+
+        validator.validate();
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.hermesworld.ais.galapagos.topics.service.impl;
+
+import com.hermesworld.ais.galapagos.kafka.KafkaCluster;
+import com.hermesworld.ais.galapagos.kafka.KafkaClusters;
+import com.hermesworld.ais.galapagos.topics.TopicMetadata;
+import com.hermesworld.ais.galapagos.topics.service.TopicService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Scheduling component which regularly reloads the cached configurations of all topics known to Galapagos, for each
+ * Kafka environment, so topic configuration reads (e.g. by the UI) can be served from memory. The interval is
+ * configured via <code>galapagos.kafka.metadataCache.topicConfigRefreshInterval</code>.
+ */
+@Component
+@Slf4j
+public class TopicConfigCacheRefresher {
+
+    private final KafkaClusters kafkaClusters;
+
+    private final TopicService topicService;
+
+    public TopicConfigCacheRefresher(KafkaClusters kafkaClusters,
+            @Qualifier("nonvalidating") TopicService topicService) {
+        this.kafkaClusters = kafkaClusters;
+        this.topicService = topicService;
+    }
+
+    /**
+     * Reloads the configurations of all known topics. Is called by Spring Scheduler.
+     */
+    @Scheduled(initialDelayString = "${galapagos.kafka.metadataCache.topicConfigRefreshInterval:PT2M}", fixedDelayString = "${galapagos.kafka.metadataCache.topicConfigRefreshInterval:PT2M}")
+    public void refreshTopicConfigs() {
+        for (String environmentId : kafkaClusters.getEnvironmentIds()) {
+            KafkaCluster cluster = kafkaClusters.getEnvironment(environmentId).orElse(null);
+            if (cluster == null) {
+                continue;
+            }
+            List<String> topicNames = topicService.listTopics(environmentId).stream().map(TopicMetadata::getName)
+                    .toList();
+            try {
+                cluster.refreshTopicConfigs(topicNames).get();
+            }
+            catch (ExecutionException e) {
+                log.warn("Could not refresh topic configurations for environment " + environmentId, e.getCause());
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+}
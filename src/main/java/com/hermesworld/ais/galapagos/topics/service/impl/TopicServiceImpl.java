@@ -7,8 +7,11 @@ import com.hermesworld.ais.galapagos.events.GalapagosEventManager;
 import com.hermesworld.ais.galapagos.events.GalapagosEventSink;
 import com.hermesworld.ais.galapagos.kafka.KafkaCluster;
 import com.hermesworld.ais.galapagos.kafka.KafkaClusters;
+import com.hermesworld.ais.galapagos.kafka.TopicBrowseParams;
 import com.hermesworld.ais.galapagos.kafka.TopicCreateParams;
 import com.hermesworld.ais.galapagos.kafka.util.InitPerCluster;
+import com.hermesworld.ais.galapagos.kafka.util.RepositoryChange;
+import com.hermesworld.ais.galapagos.kafka.util.SortedRepositoryIndex;
 import com.hermesworld.ais.galapagos.kafka.util.TopicBasedRepository;
 import com.hermesworld.ais.galapagos.messages.MessagesService;
 import com.hermesworld.ais.galapagos.messages.MessagesServiceFactory;
@@ -18,22 +21,23 @@ import com.hermesworld.ais.galapagos.schemas.*;
 import com.hermesworld.ais.galapagos.security.CurrentUserService;
 import com.hermesworld.ais.galapagos.topics.*;
 import com.hermesworld.ais.galapagos.topics.config.GalapagosTopicConfig;
+import com.hermesworld.ais.galapagos.topics.config.TopicSchemaConfig;
 import com.hermesworld.ais.galapagos.topics.service.TopicService;
 import com.hermesworld.ais.galapagos.util.FutureUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.everit.json.schema.Schema;
 import org.everit.json.schema.SchemaException;
-import org.everit.json.schema.loader.SchemaLoader;
 import org.json.JSONException;
-import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -55,18 +59,24 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
 
     private final MessagesService messagesService;
 
-    private static final Comparator<TopicMetadata> topicsComparator = Comparator.comparing(TopicMetadata::getName);
+    private final CompiledSchemaCache schemaCache;
+
+    private final SchemaCompatibilityChecker compatibilityChecker;
 
-    private static final Comparator<SchemaMetadata> schemaVersionsComparator = Comparator
-            .comparingInt(SchemaMetadata::getSchemaVersion);
+    private static final Comparator<TopicMetadata> topicsComparator = Comparator.comparing(TopicMetadata::getName);
 
     static final String METADATA_TOPIC_NAME = "topics";
 
     static final String SCHEMA_TOPIC_NAME = "schemas";
 
+    private static final String SCHEMA_VERSIONS_INDEX = "topicSchemaVersions";
+
+    private static final String PRODUCER_ACCESS_INDEX = "producerAccess";
+
     public TopicServiceImpl(KafkaClusters kafkaClusters, ApplicationsService applicationsService,
             NamingService namingService, CurrentUserService userService, GalapagosTopicConfig topicSettings,
-            GalapagosEventManager eventManager, MessagesServiceFactory messagesServiceFactory) {
+            GalapagosEventManager eventManager, MessagesServiceFactory messagesServiceFactory,
+            CompiledSchemaCache schemaCache, SchemaCompatibilityChecker compatibilityChecker) {
         this.kafkaClusters = kafkaClusters;
         this.applicationsService = applicationsService;
         this.namingService = namingService;
@@ -74,12 +84,18 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
         this.topicSettings = topicSettings;
         this.eventManager = eventManager;
         this.messagesService = messagesServiceFactory.getMessagesService(TopicServiceImpl.class);
+        this.schemaCache = schemaCache;
+        this.compatibilityChecker = compatibilityChecker;
     }
 
     @Override
     public void init(KafkaCluster cluster) {
         getTopicRepository(cluster).getObjects();
         getSchemaRepository(cluster).getObjects();
+        // also catches deletions performed by other Galapagos instances
+        getSchemaRepository(cluster).getChanges(false)
+                .filter(change -> change.getChangeType() == RepositoryChange.ChangeType.DELETED)
+                .subscribe(change -> schemaCache.evict(change.getKey()));
     }
 
     @Override
@@ -96,6 +112,9 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
         if (environment == null) {
             return FutureUtil.noSuchEnvironment(environmentId);
         }
+        if (environment.isLoadingRepositories()) {
+            return FutureUtil.environmentLoading(environmentId);
+        }
 
         ApplicationMetadata metadata = applicationsService
                 .getApplicationMetadata(environmentId, topic.getOwnerApplicationId()).orElse(null);
@@ -282,6 +301,13 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
         return getTopicRepository(kafkaCluster).getObject(topicName);
     }
 
+    @Override
+    public Optional<Flux<RepositoryChange<TopicMetadata>>> getTopicChanges(String environmentId,
+            boolean replayCurrentState) {
+        return kafkaClusters.getEnvironment(environmentId)
+                .map(cluster -> getTopicRepository(cluster).getChanges(replayCurrentState));
+    }
+
     @Override
     public List<TopicMetadata> listTopics(String environmentId) {
         KafkaCluster kafkaCluster = kafkaClusters.getEnvironment(environmentId).orElse(null);
@@ -293,6 +319,15 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<TopicMetadata> listTopicsWithProducerAccess(String environmentId, String applicationId) {
+        return kafkaClusters.getEnvironment(environmentId)
+                .map(cluster -> List.copyOf(getTopicRepository(cluster)
+                        .getMultiValuedIndex(PRODUCER_ACCESS_INDEX, TopicServiceImpl::getProducerAccessApplications)
+                        .getObjects(applicationId)))
+                .orElse(List.of());
+    }
+
     @Override
     public List<SchemaMetadata> getTopicSchemaVersions(String environmentId, String topicName) {
         KafkaCluster kafkaCluster = kafkaClusters.getEnvironment(environmentId).orElse(null);
@@ -300,9 +335,7 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
             return Collections.emptyList();
         }
 
-        return getSchemaRepository(kafkaCluster).getObjects().stream()
-                .filter(meta -> topicName.equals(meta.getTopicName())).sorted(schemaVersionsComparator)
-                .collect(Collectors.toList());
+        return List.copyOf(getSchemaVersions(getSchemaRepository(kafkaCluster)).getObjects(topicName));
     }
 
     @Override
@@ -320,14 +353,8 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
                     .failedFuture(new IllegalStateException(messagesService.getMessage("NO_USER_CURRENTLY_LOGGED_IN")));
         }
 
-        int nextVersionNo = 1;
-
-        List<SchemaMetadata> existingVersions = getTopicSchemaVersions(environmentId, topicName);
-
-        if (!existingVersions.isEmpty()) {
-            SchemaMetadata previousVersion = existingVersions.get(existingVersions.size() - 1);
-            nextVersionNo = previousVersion.getSchemaVersion() + 1;
-        }
+        int nextVersionNo = getLatestTopicSchemaVersion(environmentId, topicName)
+                .map(previousVersion -> previousVersion.getSchemaVersion() + 1).orElse(1);
 
         SchemaMetadata newSchemaVersion = new SchemaMetadata();
         // if it will replace an existing version, the private method will update the ID
@@ -344,23 +371,24 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
 
     @Override
     public CompletableFuture<Void> deleteLatestTopicSchemaVersion(String environmentId, String topicName) {
-
-        List<SchemaMetadata> existingVersions = getTopicSchemaVersions(environmentId, topicName);
-        String nextEnvId = nextStageId(environmentId).orElse(null);
-        if (existingVersions.isEmpty()) {
+        SchemaMetadata latestSchemaOnCurrentStage = getLatestTopicSchemaVersion(environmentId, topicName).orElse(null);
+        if (latestSchemaOnCurrentStage == null) {
             return CompletableFuture.failedFuture(
                     new IllegalStateException(messagesService.getMessage("NO_SCHEMA_CURRENT_STAGE_TOPIC", topicName)));
         }
-        SchemaMetadata latestSchemaOnCurrentStage = existingVersions.get(existingVersions.size() - 1);
 
-        SchemaMetadata schemaOnNextStage = getTopicSchemaVersions(nextEnvId, topicName).stream()
-                .filter(v -> latestSchemaOnCurrentStage.getSchemaVersion() == v.getSchemaVersion()).findFirst()
+        SchemaMetadata schemaOnNextStage = nextStageId(environmentId).flatMap(kafkaClusters::getEnvironment)
+                .flatMap(cluster -> getSchemaVersions(getSchemaRepository(cluster)).getObject(topicName,
+                        latestSchemaOnCurrentStage.getSchemaVersion()))
                 .orElse(null);
 
         KafkaCluster kafkaCluster = kafkaClusters.getEnvironment(environmentId).orElse(null);
         if (kafkaCluster == null) {
             return FutureUtil.noSuchEnvironment(environmentId);
         }
+        if (kafkaCluster.isLoadingRepositories()) {
+            return FutureUtil.environmentLoading(environmentId);
+        }
 
         if (schemaOnNextStage != null) {
             return CompletableFuture
@@ -389,6 +417,9 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
         if (kafkaCluster == null) {
             return FutureUtil.noSuchEnvironment(environmentId);
         }
+        if (kafkaCluster.isLoadingRepositories()) {
+            return FutureUtil.environmentLoading(environmentId);
+        }
 
         String topicName = schemaMetadata.getTopicName();
 
@@ -402,20 +433,21 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
                     new IllegalStateException(messagesService.getMessage("CANNOT_ADD_JSON_SCHEMAS_INTERNAL_TOPICS")));
         }
 
-        List<SchemaMetadata> existingVersions = getTopicSchemaVersions(environmentId, topicName);
+        SortedRepositoryIndex<String, Integer, SchemaMetadata> schemaVersions = getSchemaVersions(
+                getSchemaRepository(kafkaCluster));
+        SchemaMetadata previousVersion = schemaVersions.getLast(topicName).orElse(null);
 
-        Schema newSchema;
+        CompiledSchemaCache.CompiledSchema compiledSchema;
         try {
-            newSchema = compileSchema(schemaMetadata.getJsonSchema());
-
+            compiledSchema = schemaCache.getSchema(schemaMetadata);
         }
         catch (JSONException | SchemaException e) {
             return CompletableFuture.failedFuture(
                     new IllegalArgumentException(messagesService.getMessage("CANNOT_PARSE_JSON_SCHEMA"), e));
         }
 
-        JSONObject json = new JSONObject(schemaMetadata.getJsonSchema());
-        if (!json.has("$schema")) {
+        Schema newSchema = compiledSchema.getSchema();
+        if (!compiledSchema.declaresMetaSchema()) {
             return CompletableFuture.failedFuture(
                     new IllegalArgumentException(messagesService.getMessage("JSON_SCHEMA_MUST_DECLARE_SCHEMA_VALUE")));
         }
@@ -426,22 +458,18 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
                     messagesService.getMessage("JSON_SCHEMA_MUST_NOT_DECLARE_DATA_OBJECT")));
         }
 
-        if (existingVersions.isEmpty() && schemaMetadata.getSchemaVersion() != 1) {
+        if (previousVersion == null && schemaMetadata.getSchemaVersion() != 1) {
             return CompletableFuture.failedFuture(new IllegalArgumentException(messagesService
                     .getMessage("ILLEGAL_NEXT_VERSION_NUMBER_TOPIC", schemaMetadata.getSchemaVersion(), topicName)));
         }
-        if (!existingVersions.isEmpty() && existingVersions.get(existingVersions.size() - 1)
-                .getSchemaVersion() != schemaMetadata.getSchemaVersion() - 1) {
+        if (previousVersion != null && previousVersion.getSchemaVersion() != schemaMetadata.getSchemaVersion() - 1) {
             return CompletableFuture.failedFuture(new IllegalArgumentException(messagesService
                     .getMessage("ILLEGAL_NEXT_VERSION_NUMBER_TOPIC", schemaMetadata.getSchemaVersion(), topicName)));
         }
 
-        SchemaMetadata previousVersion = existingVersions.isEmpty() ? null
-                : existingVersions.get(existingVersions.size() - 1);
-
         if (previousVersion != null && skipCompatCheck == SchemaCompatCheckMode.CHECK_SCHEMA) {
             try {
-                Schema previousSchema = compileSchema(previousVersion.getJsonSchema());
+                Schema previousSchema = schemaCache.getSchema(previousVersion).getSchema();
 
                 // additional test: if both are equal, do not accept (save a tree!)
                 if (SchemaUtil.areEqual(newSchema, previousSchema)) {
@@ -449,19 +477,8 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
                             messagesService.getMessage("NEW_SCHEMA_IS_IDENTICAL_TO_THE_LATEST")));
                 }
 
-                SchemaCompatibilityValidator validator;
-                if (metadata.getType() == TopicType.COMMANDS) {
-                    validator = new SchemaCompatibilityValidator(newSchema, previousSchema,
-                            new ProducerCompatibilityErrorHandler(
-                                    topicSettings.getSchemas().isAllowAddedPropertiesOnCommandTopics()));
-                }
-                else {
-                    validator = new SchemaCompatibilityValidator(previousSchema, newSchema,
-                            new ConsumerCompatibilityErrorHandler(
-                                    topicSettings.getSchemas().isAllowRemovedOptionalProperties()));
-                }
-
-                validator.validate();
+                compatibilityChecker.verifyCompatibility(environmentId, metadata, newSchema,
+                        getVersionsToCheck(schemaVersions, previousVersion));
             }
             catch (JSONException e) {
                 // how, on earth, did it get into the repo then???
@@ -475,12 +492,12 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
             }
         }
 
-        if (existingVersions.isEmpty() && schemaMetadata.getChangeDescription() != null) {
+        if (previousVersion == null && schemaMetadata.getChangeDescription() != null) {
             return CompletableFuture.failedFuture(
                     new IllegalArgumentException(messagesService.getMessage("CANNOT_CHANGE_DESCRIPTION_FOR_SCHEMA")));
         }
 
-        if (!existingVersions.isEmpty() && schemaMetadata.getChangeDescription() == null) {
+        if (previousVersion != null && schemaMetadata.getChangeDescription() == null) {
             return CompletableFuture.failedFuture(new IllegalArgumentException(
                     messagesService.getMessage("CHANGE_DESCRIPTION_REQUIRED_FOR_VERSION_GREATER_THAN_1")));
         }
@@ -501,21 +518,48 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
                 .orElse(FutureUtil.noSuchEnvironment(environmentId));
     }
 
+    @Override
+    public CompletableFuture<Map<String, TopicCreateParams>> buildTopicCreateParams(String environmentId,
+            Collection<String> topicNames) {
+        return kafkaClusters.getEnvironment(environmentId).map(cluster -> cluster.buildTopicCreateParams(topicNames))
+                .orElse(FutureUtil.noSuchEnvironment(environmentId));
+    }
+
     @Override
     public CompletableFuture<List<ConsumerRecord<String, String>>> peekTopicData(String environmentId, String topicName,
             int limit) {
-        // only allow peek of API topics
+        Exception error = checkTopicDataReadable(environmentId, topicName);
+        if (error != null) {
+            return CompletableFuture.failedFuture(error);
+        }
+        return kafkaClusters.getEnvironment(environmentId).map(cluster -> cluster.peekTopicData(topicName, limit))
+                .orElse(FutureUtil.noSuchEnvironment(environmentId));
+    }
+
+    @Override
+    public CompletableFuture<Void> browseTopicData(String environmentId, String topicName, TopicBrowseParams params,
+            Function<ConsumerRecord<String, String>, Boolean> callback) {
+        Exception error = checkTopicDataReadable(environmentId, topicName);
+        if (error != null) {
+            return CompletableFuture.failedFuture(error);
+        }
+        return kafkaClusters.getEnvironment(environmentId)
+                .map(cluster -> cluster.browseTopicData(topicName, params, callback))
+                .orElse(FutureUtil.noSuchEnvironment(environmentId));
+    }
+
+    private Exception checkTopicDataReadable(String environmentId, String topicName) {
+        // only allow reading data of API topics
         TopicMetadata metadata = getTopic(environmentId, topicName).orElse(null);
         if (metadata == null) {
-            return noSuchTopic(environmentId, topicName);
+            return new NoSuchElementException(
+                    messagesService.getMessage("NO_TOPIC_WITH_NAME_WAS_FOUND", topicName, environmentId));
         }
         if (metadata.getType() == TopicType.INTERNAL) {
-            return CompletableFuture.failedFuture(new IllegalStateException(
-                    messagesService.getMessage("CANNOT_RETRIEVE_DATA_INTERNAL_TOPICS_VIA_GALAPAGOS")));
+            return new IllegalStateException(
+                    messagesService.getMessage("CANNOT_RETRIEVE_DATA_INTERNAL_TOPICS_VIA_GALAPAGOS"));
         }
-
-        return kafkaClusters.getEnvironment(environmentId).map(cluster -> cluster.peekTopicData(topicName, limit))
-                .orElse(FutureUtil.noSuchEnvironment(environmentId));
+        return null;
     }
 
     private Optional<String> nextStageId(String environmentId) {
@@ -538,12 +582,58 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
         return kafkaCluster.getRepository(SCHEMA_TOPIC_NAME, SchemaMetadata.class);
     }
 
+    private static Set<String> getProducerAccessApplications(TopicMetadata topic) {
+        Set<String> result = new HashSet<>();
+        if (topic.getOwnerApplicationId() != null) {
+            result.add(topic.getOwnerApplicationId());
+        }
+        if (topic.getProducers() != null) {
+            result.addAll(topic.getProducers());
+        }
+        return result;
+    }
+
+    private static SortedRepositoryIndex<String, Integer, SchemaMetadata> getSchemaVersions(
+            TopicBasedRepository<SchemaMetadata> schemaRepository) {
+        return schemaRepository.getSortedIndex(SCHEMA_VERSIONS_INDEX, SchemaMetadata::getTopicName,
+                SchemaMetadata::getSchemaVersion);
+    }
+
+    /**
+     * Determines the previous schema versions a new schema version has to be compatible with, according to
+     * <code>galapagos.topics.schemas.compatibilityMode</code>. Only these versions are read from the repository.
+     */
+    private List<SchemaMetadata> getVersionsToCheck(
+            SortedRepositoryIndex<String, Integer, SchemaMetadata> schemaVersions, SchemaMetadata latestVersion) {
+        TopicSchemaConfig config = topicSettings.getSchemas();
+        if (config.getCompatibilityMode() != TopicSchemaConfig.CompatibilityMode.TRANSITIVE) {
+            return List.of(latestVersion);
+        }
+
+        String topicName = latestVersion.getTopicName();
+        int maxVersions = config.getTransitiveCompatibilityMaxVersions();
+        if (maxVersions <= 0) {
+            return List.copyOf(schemaVersions.getObjects(topicName));
+        }
+        int latestVersionNo = latestVersion.getSchemaVersion();
+        return List
+                .copyOf(schemaVersions.getObjects(topicName, latestVersionNo - maxVersions + 1, latestVersionNo + 1));
+    }
+
+    private Optional<SchemaMetadata> getLatestTopicSchemaVersion(String environmentId, String topicName) {
+        return kafkaClusters.getEnvironment(environmentId)
+                .flatMap(cluster -> getSchemaVersions(getSchemaRepository(cluster)).getLast(topicName));
+    }
+
     private CompletableFuture<Void> doWithClusterAndTopic(String environmentId, String topicName,
             TopicServiceAction action) {
         KafkaCluster kafkaCluster = kafkaClusters.getEnvironment(environmentId).orElse(null);
         if (kafkaCluster == null) {
             return FutureUtil.noSuchEnvironment(environmentId);
         }
+        if (kafkaCluster.isLoadingRepositories()) {
+            return FutureUtil.environmentLoading(environmentId);
+        }
 
         TopicMetadata metadata = getTopic(environmentId, topicName).orElse(null);
         if (metadata == null) {
@@ -558,6 +648,14 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
     private CompletableFuture<Void> doOnAllStages(String topicName, TopicServiceAction action) {
         List<String> environmentIds = kafkaClusters.getEnvironmentIds();
 
+        // a stage which is still loading may not know the topic yet, and would be skipped silently
+        String loadingEnvironmentId = environmentIds.stream()
+                .filter(env -> kafkaClusters.getEnvironment(env).map(KafkaCluster::isLoadingRepositories).orElse(false))
+                .findFirst().orElse(null);
+        if (loadingEnvironmentId != null) {
+            return FutureUtil.environmentLoading(loadingEnvironmentId);
+        }
+
         // only operate on environments where this topic exists
         environmentIds = environmentIds.stream()
                 .filter(env -> kafkaClusters.getEnvironment(env)
@@ -588,19 +686,8 @@ public class TopicServiceImpl implements TopicService, InitPerCluster {
     }
 
     private CompletableFuture<Void> deleteTopicSchemas(KafkaCluster cluster, String topicName) {
-        CompletableFuture<Void> result = FutureUtil.noop();
         TopicBasedRepository<SchemaMetadata> schemaRepository = getSchemaRepository(cluster);
-        for (SchemaMetadata schema : schemaRepository.getObjects()) {
-            if (topicName.equals(schema.getTopicName())) {
-                result = result.thenCompose(o -> schemaRepository.delete(schema));
-            }
-        }
-        return result;
-    }
-
-    private static Schema compileSchema(String source) {
-        JSONObject obj = new JSONObject(source);
-        return SchemaLoader.builder().draftV7Support().schemaJson(obj).build().load().build();
+        return schemaRepository.deleteAll(List.copyOf(getSchemaVersions(schemaRepository).getObjects(topicName)));
     }
 
     private <T> CompletableFuture<T> noSuchTopic(String environmentId, String topicName) {
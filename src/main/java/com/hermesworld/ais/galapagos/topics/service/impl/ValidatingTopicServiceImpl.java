@@ -2,8 +2,10 @@ package com.hermesworld.ais.galapagos.topics.service.impl;
 
 import com.hermesworld.ais.galapagos.applications.ApplicationsService;
 import com.hermesworld.ais.galapagos.kafka.KafkaClusters;
+import com.hermesworld.ais.galapagos.kafka.TopicBrowseParams;
 import com.hermesworld.ais.galapagos.kafka.TopicCreateParams;
 import com.hermesworld.ais.galapagos.kafka.config.KafkaEnvironmentConfig;
+import com.hermesworld.ais.galapagos.kafka.util.RepositoryChange;
 import com.hermesworld.ais.galapagos.messages.MessagesService;
 import com.hermesworld.ais.galapagos.messages.MessagesServiceFactory;
 import com.hermesworld.ais.galapagos.subscriptions.SubscriptionMetadata;
@@ -17,6 +19,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 
 import java.time.LocalDate;
 import java.time.Period;
@@ -178,6 +181,14 @@ public class ValidatingTopicServiceImpl implements ValidatingTopicService {
         return topicService.addTopicSchemaVersion(environmentId, metadata, skipCompatCheck);
     }
 
+    private boolean currentUserMayReadData(String environmentId, String topicName) {
+        TopicMetadata metadata = getTopic(environmentId, topicName).orElse(null);
+
+        // if metadata is null, topicService implementation will deal with it.
+        return metadata == null || !metadata.isSubscriptionApprovalRequired()
+                || currentUserMayRead(environmentId, metadata);
+    }
+
     private Optional<CompletableFuture<Void>> checkOnNonStaging(String environmentId, String action) {
         return checkOnNonStaging(environmentId, action, Void.class);
     }
@@ -209,11 +220,22 @@ public class ValidatingTopicServiceImpl implements ValidatingTopicService {
         return topicService.listTopics(environmentId);
     }
 
+    @Override
+    public List<TopicMetadata> listTopicsWithProducerAccess(String environmentId, String applicationId) {
+        return topicService.listTopicsWithProducerAccess(environmentId, applicationId);
+    }
+
     @Override
     public Optional<TopicMetadata> getTopic(String environmentId, String topicName) {
         return topicService.getTopic(environmentId, topicName);
     }
 
+    @Override
+    public Optional<Flux<RepositoryChange<TopicMetadata>>> getTopicChanges(String environmentId,
+            boolean replayCurrentState) {
+        return topicService.getTopicChanges(environmentId, replayCurrentState);
+    }
+
     @Override
     public List<SchemaMetadata> getTopicSchemaVersions(String environmentId, String topicName) {
         return topicService.getTopicSchemaVersions(environmentId, topicName);
@@ -229,14 +251,16 @@ public class ValidatingTopicServiceImpl implements ValidatingTopicService {
         return topicService.buildTopicCreateParams(environmentId, topicName);
     }
 
+    @Override
+    public CompletableFuture<Map<String, TopicCreateParams>> buildTopicCreateParams(String environmentId,
+            Collection<String> topicNames) {
+        return topicService.buildTopicCreateParams(environmentId, topicNames);
+    }
+
     @Override
     public CompletableFuture<List<ConsumerRecord<String, String>>> peekTopicData(String environmentId, String topicName,
             int limit) {
-        TopicMetadata metadata = getTopic(environmentId, topicName).orElse(null);
-
-        // if metadata is null, topicService implementation will deal with it.
-        if (metadata != null && metadata.isSubscriptionApprovalRequired()
-                && !currentUserMayRead(environmentId, metadata)) {
+        if (!currentUserMayReadData(environmentId, topicName)) {
             return CompletableFuture.failedFuture(
                     new IllegalStateException(messagesService.getMessage("NOT_PERMITTED_TO_READ_FROM_THIS_TOPIC")));
         }
@@ -244,6 +268,17 @@ public class ValidatingTopicServiceImpl implements ValidatingTopicService {
         return topicService.peekTopicData(environmentId, topicName, limit);
     }
 
+    @Override
+    public CompletableFuture<Void> browseTopicData(String environmentId, String topicName, TopicBrowseParams params,
+            Function<ConsumerRecord<String, String>, Boolean> callback) {
+        if (!currentUserMayReadData(environmentId, topicName)) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException(messagesService.getMessage("NOT_PERMITTED_TO_READ_FROM_THIS_TOPIC")));
+        }
+
+        return topicService.browseTopicData(environmentId, topicName, params, callback);
+    }
+
     @Override
     public CompletableFuture<Void> addTopicProducer(String environmentId, String topicName, String producerId) {
         return checkOnNonStaging(environmentId, "add producer", Void.class)
@@ -20,6 +20,11 @@ public final class FutureUtil {
                 .failedFuture(new NoSuchElementException("No environment with ID " + environmentId + " found."));
     }
 
+    public static <T> CompletableFuture<T> environmentLoading(String environmentId) {
+        return CompletableFuture.failedFuture(new IllegalStateException("The metadata of environment " + environmentId
+                + " is still being loaded. Please try again in a few moments."));
+    }
+
     public static CompletableFuture<Void> noop() {
         return noop;
     }
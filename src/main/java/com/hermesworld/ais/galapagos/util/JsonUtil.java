@@ -11,6 +11,13 @@ import com.hermesworld.ais.galapagos.changes.impl.ChangeDeserizalizer;
 
 public final class JsonUtil {
 
+    /**
+     * Deserialization attribute (see {@link com.fasterxml.jackson.databind.ObjectReader#withAttribute(Object, Object)})
+     * indicating that the deserialized objects are written or received rather than just read, so large texts in them
+     * shall be interned. Interning is expensive, so it is not done when objects are only materialized for reading.
+     */
+    public static final String INTERN_TEXTS = "galapagos.internTexts";
+
     private JsonUtil() {
     }
 
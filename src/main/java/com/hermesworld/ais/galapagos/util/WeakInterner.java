@@ -0,0 +1,104 @@
+package com.hermesworld.ais.galapagos.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds canonical instances of objects with equal content, identified by the SHA-256 digest of their content. Only the
+ * digests are held strongly; the canonical instances are held weakly, so an instance is dropped as soon as it is not
+ * referenced anymore. <br>
+ * Lookups only compare digests, never the (potentially large) contents, and do not block each other unless they refer
+ * to the same digest.
+ *
+ * @param <T> Type of the interned objects.
+ */
+public final class WeakInterner<T> {
+
+    private final Map<Digest, ValueReference<T>> values = new ConcurrentHashMap<>();
+
+    private final ReferenceQueue<T> staleValues = new ReferenceQueue<>();
+
+    /**
+     * Returns the canonical instance for the given content. If there is no canonical instance yet, the given candidate
+     * becomes the canonical instance.
+     *
+     * @param content   Content of the candidate, used to compute the digest. Must not be modified during this call.
+     * @param candidate Object representing the given content.
+     * @return The canonical instance for the given content, which may be the given candidate.
+     */
+    public T intern(byte[] content, T candidate) {
+        expungeStaleValues();
+
+        Digest digest = Digest.of(content);
+        Object[] result = new Object[1];
+        values.compute(digest, (d, ref) -> {
+            T existing = ref == null ? null : ref.get();
+            if (existing != null) {
+                result[0] = existing;
+                return ref;
+            }
+            result[0] = candidate;
+            return new ValueReference<>(d, candidate, staleValues);
+        });
+
+        @SuppressWarnings("unchecked")
+        T canonical = (T) result[0];
+        return canonical;
+    }
+
+    private void expungeStaleValues() {
+        Object ref;
+        while ((ref = staleValues.poll()) != null) {
+            ValueReference<?> valueRef = (ValueReference<?>) ref;
+            values.remove(valueRef.digest, valueRef);
+        }
+    }
+
+    private static final class ValueReference<T> extends WeakReference<T> {
+
+        private final Digest digest;
+
+        private ValueReference(Digest digest, T value, ReferenceQueue<T> queue) {
+            super(value, queue);
+            this.digest = digest;
+        }
+    }
+
+    private static final class Digest {
+
+        private final byte[] bytes;
+
+        private final int hash;
+
+        private Digest(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        static Digest of(byte[] content) {
+            try {
+                return new Digest(MessageDigest.getInstance("SHA-256").digest(content));
+            }
+            catch (NoSuchAlgorithmException e) {
+                // every Java platform must support SHA-256
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Digest other && hash == other.hash && Arrays.equals(bytes, other.bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
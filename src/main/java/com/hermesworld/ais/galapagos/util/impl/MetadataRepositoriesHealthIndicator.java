@@ -0,0 +1,53 @@
+package com.hermesworld.ais.galapagos.util.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import com.hermesworld.ais.galapagos.kafka.KafkaCluster;
+import com.hermesworld.ais.galapagos.kafka.KafkaClusters;
+import com.hermesworld.ais.galapagos.kafka.util.TopicBasedRepository;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Health indicator which reports <code>DOWN</code> as long as any of the Galapagos metadata repositories of the
+ * production environment has not yet consumed all records of its Kafka topic which existed when the topic was assigned
+ * to the consumer. It is part of the <code>readiness</code> health group, so load balancers only route traffic to
+ * instances which have loaded the production environment. Repositories of other environments which are still loading
+ * are reported in the details, but do not affect the status.
+ */
+@Component
+public class MetadataRepositoriesHealthIndicator implements HealthIndicator {
+
+    private final KafkaClusters kafkaClusters;
+
+    public MetadataRepositoriesHealthIndicator(KafkaClusters kafkaClusters) {
+        this.kafkaClusters = kafkaClusters;
+    }
+
+    @Override
+    public Health health() {
+        Map<String, List<String>> loadingRepositories = new TreeMap<>();
+        String productionEnvironmentId = kafkaClusters.getProductionEnvironmentId();
+
+        for (KafkaCluster cluster : kafkaClusters.getEnvironments()) {
+            List<String> loading = cluster.getRepositories().stream().filter(repo -> !repo.isFullyLoaded())
+                    .map(TopicBasedRepository::getTopicName).sorted().collect(Collectors.toList());
+            if (!loading.isEmpty()) {
+                loadingRepositories.put(cluster.getId(), loading);
+            }
+        }
+
+        if (loadingRepositories.isEmpty()) {
+            return Health.up().build();
+        }
+        boolean productionLoading = productionEnvironmentId == null
+                || loadingRepositories.containsKey(productionEnvironmentId);
+        return (productionLoading ? Health.down() : Health.up()).withDetail("loadingRepositories", loadingRepositories)
+                .build();
+    }
+
+}
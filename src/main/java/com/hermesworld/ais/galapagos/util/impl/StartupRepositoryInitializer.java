@@ -1,14 +1,17 @@
 package com.hermesworld.ais.galapagos.util.impl;
 
 import java.time.Duration;
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.hermesworld.ais.galapagos.kafka.KafkaCluster;
 import com.hermesworld.ais.galapagos.kafka.KafkaClusters;
 import com.hermesworld.ais.galapagos.kafka.util.InitPerCluster;
+import com.hermesworld.ais.galapagos.kafka.util.TopicBasedRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.ContextRefreshedEvent;
@@ -19,7 +22,14 @@ import org.springframework.stereotype.Component;
  * Due to the lazy and asynchronous nature of the topic-based repositories in the service implementations, the
  * implementations can implement {@link InitPerCluster}. If they do, they will be called by this service once the
  * ApplicationContext has started. Their <code>init()</code> method will be called for each known Kafka Cluster, so they
- * can e.g. initialize their repositories.
+ * can e.g. initialize their repositories. <br>
+ * Afterwards, this service waits for all repositories to be loaded, either by waiting until the consumer has reached
+ * the end offsets of all repository topics (default), or by using the legacy idle time heuristics (see
+ * {@link RepositoryLoadMode}). <br>
+ * All environments are initialized concurrently. Startup only blocks until the repositories of the production
+ * environment have been loaded; the repositories of the other environments continue loading in the background. Until
+ * they have been loaded, the services reject write operations on these environments (see
+ * {@link KafkaCluster#isLoadingRepositories()}), while read operations may return incomplete data.
  *
  * @author AlbrechtFlo
  *
@@ -34,55 +44,113 @@ public class StartupRepositoryInitializer {
 
     private final Duration repositoryLoadIdleTime;
 
+    private final RepositoryLoadMode repositoryLoadMode;
+
+    private final Duration repositoryLoadTimeout;
+
+    /**
+     * Strategies to determine when a topic based repository has finished loading its initial data.
+     */
+    public enum RepositoryLoadMode {
+        /**
+         * Wait until the consumer position has reached the end offsets of the repository topic, captured when the topic
+         * has been assigned to the consumer.
+         */
+        END_OFFSETS,
+        /**
+         * Wait for <code>initialRepositoryLoadWaitTime</code>, and then until no new messages arrive for
+         * <code>repositoryLoadIdleTime</code>.
+         */
+        IDLE_TIME
+    }
+
     public StartupRepositoryInitializer(KafkaClusters kafkaClusters,
             @Value("${galapagos.initialRepositoryLoadWaitTime:5s}") Duration initialRepositoryLoadWaitTime,
-            @Value("${galapagos.repositoryLoadIdleTime:2s}") Duration repositoryLoadIdleTime) {
+            @Value("${galapagos.repositoryLoadIdleTime:2s}") Duration repositoryLoadIdleTime,
+            @Value("${galapagos.repositoryLoadMode:END_OFFSETS}") RepositoryLoadMode repositoryLoadMode,
+            @Value("${galapagos.repositoryLoadTimeout:2m}") Duration repositoryLoadTimeout) {
         this.kafkaClusters = kafkaClusters;
         this.initialRepositoryLoadWaitTime = initialRepositoryLoadWaitTime;
         this.repositoryLoadIdleTime = repositoryLoadIdleTime;
+        this.repositoryLoadMode = repositoryLoadMode;
+        this.repositoryLoadTimeout = repositoryLoadTimeout;
     }
 
     @EventListener
     public void initializePerCluster(ContextRefreshedEvent event) {
         Collection<InitPerCluster> beans = event.getApplicationContext().getBeansOfType(InitPerCluster.class).values();
 
+        List<String> environmentIds = kafkaClusters.getEnvironmentIds();
         ScheduledExecutorService executorService = new ScheduledThreadPoolExecutor(1);
-
-        List<CompletableFuture<?>> futures = new ArrayList<>();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService initExecutor = Executors.newFixedThreadPool(Math.max(1, environmentIds.size()), r -> {
+            Thread t = new Thread(r, "galapagos-init-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
 
         log.info("Waiting for Galapagos Metadata repositories to be initialized...");
 
-        try {
-            for (String id : kafkaClusters.getEnvironmentIds()) {
-                KafkaCluster cluster = kafkaClusters.getEnvironment(id).orElse(null);
-                if (cluster != null) {
-                    beans.forEach(bean -> bean.init(cluster));
-                    cluster.getRepositories().stream().map(r -> r.waitForInitialization(initialRepositoryLoadWaitTime,
-                            repositoryLoadIdleTime, executorService)).forEach(futures::add);
-                }
-            }
-
-            for (CompletableFuture<?> future : futures) {
-                try {
-                    future.get();
-                }
-                catch (InterruptedException e) {
-                    return;
-                }
-                catch (ExecutionException e) {
-                    log.error("Exception when waiting for Kafka repository initialization", e);
-                }
-            }
+        // initialize all environments concurrently, so a slow environment does not delay the others
+        Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+        for (String id : environmentIds) {
+            kafkaClusters.getEnvironment(id).ifPresent(
+                    cluster -> futures.put(id, initializeCluster(cluster, beans, initExecutor, executorService)));
         }
-        finally {
+
+        CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).whenComplete((o, t) -> {
+            log.info("Galapagos Metadata repositories of all environments have been initialized");
+            initExecutor.shutdown();
             executorService.shutdown();
-            try {
-                executorService.awaitTermination(1, TimeUnit.MINUTES);
-            }
-            catch (InterruptedException e) {
-                log.warn("Thread has been interrupted while waiting for executor shutdown", e);
-            }
+        });
+
+        // only the production environment (which also holds the global repositories) has to be loaded before
+        // Galapagos starts serving; the other environments continue loading in the background
+        CompletableFuture<Void> startupFuture = futures.get(kafkaClusters.getProductionEnvironmentId());
+        if (startupFuture == null) {
+            startupFuture = CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]));
+        }
+
+        try {
+            startupFuture.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e) {
+            // failures have already been logged per environment
+        }
+    }
+
+    private CompletableFuture<Void> initializeCluster(KafkaCluster cluster, Collection<InitPerCluster> beans,
+            Executor initExecutor, ScheduledExecutorService executorService) {
+        return CompletableFuture.runAsync(() -> beans.forEach(bean -> bean.init(cluster)), initExecutor)
+                .thenCompose(o -> CompletableFuture.allOf(cluster.getRepositories().stream()
+                        .map(r -> waitForRepository(r, executorService)).toArray(CompletableFuture[]::new)))
+                .whenComplete((o, t) -> {
+                    Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                    if (cause instanceof TimeoutException) {
+                        log.warn(cause.getMessage() + ". Continuing startup; repositories of environment "
+                                + cluster.getId() + " will be reported as loading until they are fully loaded.");
+                    }
+                    else if (cause != null) {
+                        log.error("Exception when waiting for Kafka repository initialization of environment "
+                                + cluster.getId(), cause);
+                    }
+                    else {
+                        log.debug("Galapagos Metadata repositories of environment " + cluster.getId()
+                                + " have been initialized");
+                    }
+                });
+    }
+
+    private CompletableFuture<Void> waitForRepository(TopicBasedRepository<?> repository,
+            ScheduledExecutorService executorService) {
+        if (repositoryLoadMode == RepositoryLoadMode.IDLE_TIME) {
+            return repository.waitForInitialization(initialRepositoryLoadWaitTime, repositoryLoadIdleTime,
+                    executorService);
         }
+        return repository.waitForEndOffsets(repositoryLoadTimeout, executorService);
     }
 
 }
@@ -21,6 +21,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.OutputStream;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -104,8 +105,8 @@ class ApplicationsControllerTest {
 
         when(topicService.listTopics("dev")).thenReturn(List.of(topic1, topic2));
         when(topicService.getTopicSchemaVersions("dev", "app1.internal.topic-2")).thenReturn(List.of(schema1));
-        when(topicService.buildTopicCreateParams("dev", "app1.internal.topic-2"))
-                .thenReturn(CompletableFuture.completedFuture(new TopicCreateParams(2, 1)));
+        when(topicService.buildTopicCreateParams("dev", List.of("app1.internal.topic-2"))).thenReturn(
+                CompletableFuture.completedFuture(Map.of("app1.internal.topic-2", new TopicCreateParams(2, 1))));
         when(topicService.createTopic(any(), any(), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
         when(topicService.addTopicSchemaVersion(any(), any(), any()))
                 .thenReturn(CompletableFuture.completedFuture(null));
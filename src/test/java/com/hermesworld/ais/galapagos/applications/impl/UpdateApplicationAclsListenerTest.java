@@ -10,6 +10,7 @@ import com.hermesworld.ais.galapagos.kafka.TopicCreateParams;
 import com.hermesworld.ais.galapagos.kafka.auth.KafkaAuthenticationModule;
 import com.hermesworld.ais.galapagos.kafka.config.KafkaEnvironmentConfig;
 import com.hermesworld.ais.galapagos.kafka.util.AclSupport;
+import com.hermesworld.ais.galapagos.kafka.util.AclUpdateScheduler;
 import com.hermesworld.ais.galapagos.subscriptions.SubscriptionMetadata;
 import com.hermesworld.ais.galapagos.subscriptions.service.SubscriptionService;
 import com.hermesworld.ais.galapagos.topics.TopicMetadata;
@@ -31,8 +32,10 @@ import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
 import java.util.function.BiFunction;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -101,7 +104,8 @@ class UpdateApplicationAclsListenerTest {
         ApplicationEvent event = new ApplicationEvent(context, metadata);
 
         UpdateApplicationAclsListener listener = new UpdateApplicationAclsListener(kafkaClusters, subscriptionService,
-                applicationsService, aclSupport);
+                applicationsService, aclSupport,
+                new AclUpdateScheduler(Executors::newSingleThreadExecutor, Duration.ZERO));
 
         listener.handleApplicationRegistered(event).get();
 
@@ -137,7 +141,8 @@ class UpdateApplicationAclsListenerTest {
                 .thenReturn("User:CN=producer1");
 
         UpdateApplicationAclsListener listener = new UpdateApplicationAclsListener(kafkaClusters, subscriptionService,
-                applicationsService, aclSupport);
+                applicationsService, aclSupport,
+                new AclUpdateScheduler(Executors::newSingleThreadExecutor, Duration.ZERO));
 
         TopicCreatedEvent event = new TopicCreatedEvent(context, topic, new TopicCreateParams(1, 3));
         listener.handleTopicCreated(event).get();
@@ -167,7 +172,8 @@ class UpdateApplicationAclsListenerTest {
 
         TopicAddProducerEvent event = new TopicAddProducerEvent(context, "producer1", new TopicMetadata());
         UpdateApplicationAclsListener listener = new UpdateApplicationAclsListener(kafkaClusters, subscriptionService,
-                applicationsService, aclSupport);
+                applicationsService, aclSupport,
+                new AclUpdateScheduler(Executors::newSingleThreadExecutor, Duration.ZERO));
 
         listener.handleAddTopicProducer(event).get();
 
@@ -201,7 +207,8 @@ class UpdateApplicationAclsListenerTest {
 
         TopicRemoveProducerEvent event = new TopicRemoveProducerEvent(context, "producer1", new TopicMetadata());
         UpdateApplicationAclsListener listener = new UpdateApplicationAclsListener(kafkaClusters, subscriptionService,
-                applicationsService, aclSupport);
+                applicationsService, aclSupport,
+                new AclUpdateScheduler(Executors::newSingleThreadExecutor, Duration.ZERO));
 
         listener.handleRemoveTopicProducer(event).get();
 
@@ -234,7 +241,8 @@ class UpdateApplicationAclsListenerTest {
         SubscriptionEvent event = new SubscriptionEvent(context, metadata);
 
         UpdateApplicationAclsListener listener = new UpdateApplicationAclsListener(kafkaClusters, subscriptionService,
-                applicationsService, aclSupport);
+                applicationsService, aclSupport,
+                new AclUpdateScheduler(Executors::newSingleThreadExecutor, Duration.ZERO));
 
         listener.handleSubscriptionCreated(event).get();
 
@@ -268,7 +276,8 @@ class UpdateApplicationAclsListenerTest {
         lenient().when(cluster.removeUserAcls(any())).thenReturn(FutureUtil.noop());
 
         UpdateApplicationAclsListener listener = new UpdateApplicationAclsListener(kafkaClusters, subscriptionService,
-                applicationsService, aclSupport);
+                applicationsService, aclSupport,
+                new AclUpdateScheduler(Executors::newSingleThreadExecutor, Duration.ZERO));
         listener.handleApplicationAuthenticationChanged(event).get();
 
         verify(cluster).updateUserAcls(any());
@@ -297,7 +306,8 @@ class UpdateApplicationAclsListenerTest {
         lenient().when(cluster.removeUserAcls(any())).thenReturn(FutureUtil.noop());
 
         UpdateApplicationAclsListener listener = new UpdateApplicationAclsListener(kafkaClusters, subscriptionService,
-                applicationsService, aclSupport);
+                applicationsService, aclSupport,
+                new AclUpdateScheduler(Executors::newSingleThreadExecutor, Duration.ZERO));
         listener.handleApplicationAuthenticationChanged(event).get();
 
         verify(cluster).updateUserAcls(any());
@@ -334,7 +344,8 @@ class UpdateApplicationAclsListenerTest {
         when(subscriptionService.getSubscriptionsForTopic("_test", "topic1", true)).thenReturn(List.of(subscription));
 
         UpdateApplicationAclsListener listener = new UpdateApplicationAclsListener(kafkaClusters, subscriptionService,
-                applicationsService, aclSupport);
+                applicationsService, aclSupport,
+                new AclUpdateScheduler(Executors::newSingleThreadExecutor, Duration.ZERO));
 
         // WHEN any permission-related event happens
 
@@ -15,6 +15,7 @@ import com.hermesworld.ais.galapagos.kafka.KafkaUser;
 import com.hermesworld.ais.galapagos.kafka.config.KafkaEnvironmentConfig;
 import com.hermesworld.ais.galapagos.kafka.impl.TopicBasedRepositoryMock;
 import com.hermesworld.ais.galapagos.kafka.util.AclSupport;
+import com.hermesworld.ais.galapagos.kafka.util.AclUpdateScheduler;
 import com.hermesworld.ais.galapagos.subscriptions.service.SubscriptionService;
 import com.hermesworld.ais.galapagos.util.FutureUtil;
 import com.hermesworld.ais.galapagos.util.TimeService;
@@ -24,6 +25,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -31,6 +33,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
@@ -69,13 +72,15 @@ class DevUserAclListenerTest {
         clusters = mock(KafkaClusters.class);
         when(clusters.getAuthenticationModule(any())).thenReturn(Optional
                 .of(new CertificatesAuthenticationModule("test", mock(CertificatesAuthenticationConfig.class))));
-        listener = new DevUserAclListener(applicationsService, subscriptionService, timeService, aclSupport, clusters);
+        listener = new DevUserAclListener(applicationsService, subscriptionService, timeService, aclSupport, clusters,
+                new AclUpdateScheduler(Executors::newSingleThreadExecutor, Duration.ZERO));
 
         repository = new TopicBasedRepositoryMock<>();
         when(cluster.getRepository("devauth", DevAuthenticationMetadata.class)).thenReturn(repository);
 
         context = mock(GalapagosEventContext.class);
         when(context.getKafkaCluster()).thenReturn(cluster);
+        when(cluster.getId()).thenReturn("test");
         when(cluster.updateUserAcls(any())).thenReturn(FutureUtil.noop());
     }
 
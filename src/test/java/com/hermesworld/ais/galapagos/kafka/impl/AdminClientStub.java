@@ -13,6 +13,7 @@ import org.apache.kafka.common.internals.KafkaFutureImpl;
 import org.springframework.kafka.KafkaException;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ThreadFactory;
 
 public class AdminClientStub implements KafkaClusterAdminClient {
@@ -101,6 +102,36 @@ public class AdminClientStub implements KafkaClusterAdminClient {
         return completedFuture(null);
     }
 
+    @Override
+    public CompletableFuture<Map<String, TopicDescription>> describeTopics(Collection<String> topicNames) {
+        Map<String, TopicDescription> result = new HashMap<>();
+        topics.stream().filter(t -> topicNames.contains(t.name()))
+                .forEach(t -> result.put(t.name(), new TopicDescription(t.name(), false, List.of())));
+        return CompletableFuture.completedFuture(result);
+    }
+
+    @Override
+    public CompletableFuture<Map<ConfigResource, Config>> describeConfigs(Collection<ConfigResource> resources) {
+        return CompletableFuture.completedFuture(Map.of());
+    }
+
+    @Override
+    public KafkaFuture<Void> createTopics(Collection<NewTopic> topics) {
+        this.topics.addAll(topics);
+        return completedFuture(null);
+    }
+
+    @Override
+    public KafkaFuture<Void> deleteTopics(Collection<String> topicNames) {
+        topics.removeIf(t -> topicNames.contains(t.name()));
+        return completedFuture(null);
+    }
+
+    @Override
+    public KafkaFuture<Void> incrementalAlterConfigs(Map<ConfigResource, Map<String, String>> configValues) {
+        return completedFuture(null);
+    }
+
     private <T> KafkaFuture<T> completedFuture(T value) {
         if (kafkaThreadFactory != null) {
             KafkaFutureImpl<T> result = new KafkaFutureImpl<>();
@@ -0,0 +1,92 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import com.hermesworld.ais.galapagos.kafka.BrokerHealth;
+import com.hermesworld.ais.galapagos.kafka.KafkaClusterAdminClient;
+import com.hermesworld.ais.galapagos.kafka.config.BrokerProbeConfig;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BrokerHealthProberTest {
+
+    private static final Node NODE_1 = new Node(1, "broker1", 9092);
+
+    private static final Node NODE_2 = new Node(2, "broker2", 9092);
+
+    private KafkaClusterAdminClient adminClient;
+
+    private BrokerHealthProber prober;
+
+    @BeforeEach
+    void init() {
+        adminClient = mock(KafkaClusterAdminClient.class);
+        BrokerProbeConfig config = new BrokerProbeConfig();
+        config.setTimeout(Duration.ofMillis(200));
+        prober = new BrokerHealthProber("test", adminClient,
+                new KafkaFutureDecoupler(() -> Executors.newSingleThreadExecutor()), config);
+    }
+
+    @Test
+    void testProbe_slowBrokerReportedOffline() throws Exception {
+        when(adminClient.describeCluster()).thenReturn(KafkaFuture.completedFuture(List.of(NODE_2, NODE_1)));
+        when(adminClient.describeConfigs(new ConfigResource(ConfigResource.Type.BROKER, "1")))
+                .thenReturn(KafkaFuture.completedFuture(new Config(List.of())));
+        // never completes
+        when(adminClient.describeConfigs(new ConfigResource(ConfigResource.Type.BROKER, "2")))
+                .thenReturn(new KafkaFutureImpl<>());
+
+        assertTrue(prober.getBrokerHealth().isEmpty());
+        prober.probe().get(5, TimeUnit.SECONDS);
+
+        List<BrokerHealth> health = prober.getBrokerHealth();
+        assertEquals(2, health.size());
+
+        BrokerHealth broker1 = health.get(0);
+        assertEquals(1, broker1.getNodeId());
+        assertEquals("broker1:9092", broker1.getServer());
+        assertTrue(broker1.isOnline());
+        assertNotNull(broker1.getLatencyP50Millis());
+        assertNotNull(broker1.getLatencyP99Millis());
+
+        BrokerHealth broker2 = health.get(1);
+        assertEquals(2, broker2.getNodeId());
+        assertFalse(broker2.isOnline());
+        assertNull(broker2.getLatencyP50Millis());
+    }
+
+    @Test
+    void testProbe_clusterUnavailable() throws Exception {
+        when(adminClient.describeCluster()).thenReturn(KafkaFuture.completedFuture(List.of(NODE_1)));
+        when(adminClient.describeConfigs(new ConfigResource(ConfigResource.Type.BROKER, "1")))
+                .thenReturn(KafkaFuture.completedFuture(new Config(List.of())));
+        prober.probe().get(5, TimeUnit.SECONDS);
+        assertTrue(prober.getBrokerHealth().get(0).isOnline());
+
+        KafkaFutureImpl<Collection<Node>> failure = new KafkaFutureImpl<>();
+        failure.completeExceptionally(new TimeoutException("Timed out waiting for a node assignment"));
+        when(adminClient.describeCluster()).thenReturn(failure);
+        prober.probe().get(5, TimeUnit.SECONDS);
+
+        List<BrokerHealth> health = prober.getBrokerHealth();
+        assertEquals(1, health.size());
+        assertFalse(health.get(0).isOnline());
+        // latencies of previous probes are still reported
+        assertNotNull(health.get(0).getLatencyP50Millis());
+    }
+
+}
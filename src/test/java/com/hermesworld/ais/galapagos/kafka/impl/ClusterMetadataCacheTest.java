@@ -0,0 +1,94 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import com.hermesworld.ais.galapagos.kafka.config.ClusterMetadataCacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterMetadataCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ClusterMetadataCache cache;
+
+    @BeforeEach
+    void init() {
+        ClusterMetadataCacheConfig config = new ClusterMetadataCacheConfig();
+        config.setTtl(Duration.ofSeconds(10));
+        config.setRefreshAfter(Duration.ofSeconds(5));
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ClusterMetadataCache("test", config, meterRegistry, clock::get);
+    }
+
+    @Test
+    void testCachedUntilTtl() throws Exception {
+        assertEquals(1, cache.get("nodes", countingLoader()).get());
+        clock.set(Duration.ofSeconds(4).toNanos());
+        assertEquals(1, cache.get("nodes", countingLoader()).get());
+        clock.set(Duration.ofSeconds(11).toNanos());
+        assertEquals(2, cache.get("nodes", countingLoader()).get());
+
+        assertEquals(1, requestCount("hit"));
+        assertEquals(2, requestCount("miss"));
+    }
+
+    @Test
+    void testBackgroundRefresh() throws Exception {
+        cache.get("nodes", countingLoader()).get();
+        clock.set(Duration.ofSeconds(6).toNanos());
+
+        // returns cached value, but triggers reload
+        assertEquals(1, cache.get("nodes", countingLoader()).get());
+        assertEquals(2, loads.get());
+        assertEquals(2, cache.get("nodes", countingLoader()).get());
+
+        // refreshed value is valid for full TTL
+        clock.set(Duration.ofSeconds(15).toNanos());
+        assertEquals(2, cache.get("nodes", countingLoader()).get());
+    }
+
+    @Test
+    void testErrorInvalidatesCache() throws Exception {
+        cache.get("nodes", countingLoader()).get();
+        CompletableFuture<Integer> failed = cache.get("brokerConfig",
+                () -> CompletableFuture.failedFuture(new KafkaException("Broker not available")));
+        assertTrue(failed.isCompletedExceptionally());
+
+        // failure is not cached, and other entries are invalidated as well
+        assertEquals(2, cache.get("nodes", countingLoader()).get());
+        assertEquals(3, cache.get("brokerConfig", countingLoader()).get());
+    }
+
+    @Test
+    void testCancelDoesNotAffectCache() throws Exception {
+        CompletableFuture<Integer> pending = new CompletableFuture<>();
+        cache.get("nodes", () -> pending).cancel(false);
+        pending.complete(42);
+
+        assertEquals(42, cache.get("nodes", countingLoader()).get());
+        assertEquals(0, loads.get());
+    }
+
+    private Supplier<CompletableFuture<Integer>> countingLoader() {
+        return () -> CompletableFuture.completedFuture(loads.incrementAndGet());
+    }
+
+    private double requestCount(String result) {
+        return meterRegistry.get("galapagos.kafka.metadata.cache.requests").tag("metadata", "nodes")
+                .tag("result", result).counter().count();
+    }
+
+}
@@ -1,22 +1,35 @@
 package com.hermesworld.ais.galapagos.kafka.impl;
 
+import com.hermesworld.ais.galapagos.kafka.KafkaClusterAdminClient;
 import com.hermesworld.ais.galapagos.kafka.KafkaExecutorFactory;
 import com.hermesworld.ais.galapagos.kafka.KafkaUser;
+import com.hermesworld.ais.galapagos.kafka.TopicCreateParams;
+import com.hermesworld.ais.galapagos.kafka.config.ClusterMetadataCacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.TopicDescription;
 import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
 import org.apache.kafka.common.acl.*;
+import org.apache.kafka.common.config.ConfigResource;
 import org.apache.kafka.common.resource.PatternType;
 import org.apache.kafka.common.resource.ResourcePattern;
 import org.apache.kafka.common.resource.ResourceType;
 import org.junit.jupiter.api.Test;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.mock;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
 
 class ConnectedKafkaClusterTest {
 
@@ -52,9 +65,9 @@ class ConnectedKafkaClusterTest {
         KafkaExecutorFactory executorFactory = () -> Executors.newSingleThreadExecutor();
         KafkaFutureDecoupler futureDecoupler = new KafkaFutureDecoupler(executorFactory);
 
-        @SuppressWarnings("unchecked")
         ConnectedKafkaCluster cluster = new ConnectedKafkaCluster("_test", mock(KafkaRepositoryContainer.class),
-                adminClient, mock(KafkaConsumerFactory.class), futureDecoupler);
+                adminClient, mock(TopicDataPeeker.class), futureDecoupler, buildMetadataCache(),
+                buildTopicConfigCache());
 
         cluster.updateUserAcls(new KafkaUser() {
 
@@ -76,4 +89,186 @@ class ConnectedKafkaClusterTest {
         assertTrue(createdAcls.contains(toCreate));
     }
 
+    @Test
+    void testReconcileUserAcls() throws Exception {
+        AtomicInteger describeCalls = new AtomicInteger();
+        List<Collection<AclBindingFilter>> deleteCalls = new ArrayList<>();
+        List<Collection<AclBinding>> createCalls = new ArrayList<>();
+
+        AdminClientStub adminClient = new AdminClientStub() {
+            @Override
+            public KafkaFuture<Collection<AclBinding>> describeAcls(AclBindingFilter filter) {
+                describeCalls.incrementAndGet();
+                return super.describeAcls(filter);
+            }
+
+            @Override
+            public KafkaFuture<Void> createAcls(Collection<AclBinding> acls) {
+                createCalls.add(List.copyOf(acls));
+                return super.createAcls(acls);
+            }
+
+            @Override
+            public KafkaFuture<Collection<AclBinding>> deleteAcls(Collection<AclBindingFilter> filters) {
+                deleteCalls.add(List.copyOf(filters));
+                return super.deleteAcls(filters);
+            }
+        };
+
+        AclBinding user1Keep = topicAcl("User:CN=user1", "topic1");
+        AclBinding user1Remove = topicAcl("User:CN=user1", "topic2");
+        AclBinding user2Create = topicAcl("User:CN=user2", "topic3");
+        AclBinding otherUser = topicAcl("User:CN=other", "topic2");
+        adminClient.getAclBindings().addAll(List.of(user1Keep, user1Remove, otherUser));
+
+        ConnectedKafkaCluster cluster = buildCluster(adminClient);
+        cluster.reconcileUserAcls(List.of(kafkaUser("User:CN=user1", user1Keep),
+                kafkaUser("User:CN=user2", user2Create), kafkaUser(null, topicAcl("User:CN=none", "topic1")))).get();
+
+        assertEquals(Set.of(user1Keep, user2Create, otherUser), Set.copyOf(adminClient.getAclBindings()));
+        assertEquals(1, describeCalls.get());
+        assertEquals(List.of(List.of(user1Remove.toFilter())), deleteCalls);
+        assertEquals(List.of(List.of(user2Create)), createCalls);
+    }
+
+    @Test
+    void testReconcileUserAcls_batches() throws Exception {
+        List<Collection<AclBinding>> createCalls = Collections.synchronizedList(new ArrayList<>());
+        AdminClientStub adminClient = new AdminClientStub() {
+            @Override
+            public KafkaFuture<Void> createAcls(Collection<AclBinding> acls) {
+                createCalls.add(List.copyOf(acls));
+                return super.createAcls(acls);
+            }
+        };
+
+        List<AclBinding> required = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            required.add(topicAcl("User:CN=user1", "topic" + i));
+        }
+
+        buildCluster(adminClient).reconcileUserAcls(List.of(kafkaUser("User:CN=user1", required))).get();
+
+        assertEquals(3, createCalls.size());
+        assertEquals(1200, adminClient.getAclBindings().size());
+    }
+
+    @Test
+    void testCreateAndDeleteTopics_singleRequests() throws Exception {
+        AtomicInteger deleteAclCalls = new AtomicInteger();
+        AdminClientStub adminClient = new AdminClientStub() {
+            @Override
+            public KafkaFuture<Collection<AclBinding>> deleteAcls(Collection<AclBindingFilter> filters) {
+                deleteAclCalls.incrementAndGet();
+                return super.deleteAcls(filters);
+            }
+        };
+        adminClient.getAclBindings()
+                .add(new AclBinding(new ResourcePattern(ResourceType.TOPIC, "topic1", PatternType.LITERAL),
+                        new AccessControlEntry("User:CN=testuser", "*", AclOperation.READ, AclPermissionType.ALLOW)));
+        adminClient.getAclBindings()
+                .add(new AclBinding(new ResourcePattern(ResourceType.TOPIC, "topic2", PatternType.LITERAL),
+                        new AccessControlEntry("User:CN=testuser", "*", AclOperation.READ, AclPermissionType.ALLOW)));
+
+        ConnectedKafkaCluster cluster = buildCluster(adminClient);
+
+        cluster.createTopics(Map.of("topic1", new TopicCreateParams(2, 1), "topic2", new TopicCreateParams(4, 1)))
+                .get();
+        assertEquals(Set.of("topic1", "topic2"),
+                adminClient.getTopics().stream().map(NewTopic::name).collect(Collectors.toSet()));
+
+        cluster.deleteTopics(List.of("topic1", "topic2")).get();
+        assertTrue(adminClient.getTopics().isEmpty());
+        assertTrue(adminClient.getAclBindings().isEmpty());
+        assertEquals(1, deleteAclCalls.get());
+    }
+
+    @Test
+    void testBuildTopicCreateParams_bulk() throws Exception {
+        KafkaClusterAdminClient adminClient = mock(KafkaClusterAdminClient.class);
+        Node node = new Node(1, "localhost", 9092);
+        TopicPartitionInfo partition = new TopicPartitionInfo(0, node, List.of(node, node), List.of(node));
+        when(adminClient.describeTopics(List.of("topic1", "topic2", "missing"))).thenReturn(CompletableFuture
+                .completedFuture(Map.of("topic1", new TopicDescription("topic1", false, List.of(partition, partition)),
+                        "topic2", new TopicDescription("topic2", false, List.of(partition)))));
+        when(adminClient.describeConfigs(anyCollection())).thenAnswer(inv -> {
+            Collection<ConfigResource> resources = inv.getArgument(0);
+            Map<ConfigResource, Config> result = new HashMap<>();
+            resources.forEach(res -> result.put(res,
+                    new Config(List.of(new ConfigEntry("cleanup.policy", "compact"), new ConfigEntry("retention.ms",
+                            "1000", ConfigEntry.ConfigSource.DEFAULT_CONFIG, false, false, List.of(), null, null)))));
+            return CompletableFuture.completedFuture(result);
+        });
+
+        ConnectedKafkaCluster cluster = buildCluster(adminClient);
+
+        Map<String, TopicCreateParams> params = cluster.buildTopicCreateParams(List.of("topic1", "topic2", "missing"))
+                .get();
+
+        assertEquals(Set.of("topic1", "topic2"), params.keySet());
+        assertEquals(2, params.get("topic1").getNumberOfPartitions());
+        assertEquals(2, params.get("topic1").getReplicationFactor());
+        assertEquals(1, params.get("topic2").getNumberOfPartitions());
+        assertEquals(Map.of("cleanup.policy", "compact"), params.get("topic2").getTopicConfigs());
+        verify(adminClient, times(1)).describeConfigs(anyCollection());
+        verify(adminClient, never()).describeConfigs(any(ConfigResource.class));
+    }
+
+    @Test
+    void testBrokerMetadataCached() throws Exception {
+        KafkaClusterAdminClient adminClient = mock(KafkaClusterAdminClient.class);
+        when(adminClient.describeCluster())
+                .thenReturn(KafkaFuture.completedFuture(List.of(new Node(1, "localhost", 9092))));
+        when(adminClient.describeConfigs(new ConfigResource(ConfigResource.Type.BROKER, "1"))).thenReturn(KafkaFuture
+                .completedFuture(new Config(List.of(new ConfigEntry("inter.broker.protocol.version", "3.8-IV0"),
+                        new ConfigEntry("log.retention.ms", "1000")))));
+
+        ConnectedKafkaCluster cluster = buildCluster(adminClient);
+
+        assertEquals(1, cluster.getActiveBrokerCount().get());
+        assertEquals("3.8", cluster.getKafkaServerVersion().get());
+        assertEquals("1000", cluster.getDefaultTopicConfig().get().get("retention.ms"));
+        assertEquals(1, cluster.getActiveBrokerCount().get());
+
+        verify(adminClient, times(1)).describeCluster();
+        verify(adminClient, times(1)).describeConfigs(any(ConfigResource.class));
+    }
+
+    private ConnectedKafkaCluster buildCluster(KafkaClusterAdminClient adminClient) {
+        KafkaFutureDecoupler futureDecoupler = new KafkaFutureDecoupler(() -> Executors.newSingleThreadExecutor());
+        return new ConnectedKafkaCluster("_test", mock(KafkaRepositoryContainer.class), adminClient,
+                mock(TopicDataPeeker.class), futureDecoupler, buildMetadataCache(), buildTopicConfigCache());
+    }
+
+    private static ClusterMetadataCache buildMetadataCache() {
+        return new ClusterMetadataCache("_test", new ClusterMetadataCacheConfig(), new SimpleMeterRegistry());
+    }
+
+    private static TopicConfigCache buildTopicConfigCache() {
+        return new TopicConfigCache("_test", new ClusterMetadataCacheConfig(), new SimpleMeterRegistry());
+    }
+
+    private static AclBinding topicAcl(String principal, String topicName) {
+        return new AclBinding(new ResourcePattern(ResourceType.TOPIC, topicName, PatternType.LITERAL),
+                new AccessControlEntry(principal, "*", AclOperation.READ, AclPermissionType.ALLOW));
+    }
+
+    private static KafkaUser kafkaUser(String userName, AclBinding... requiredAcls) {
+        return kafkaUser(userName, List.of(requiredAcls));
+    }
+
+    private static KafkaUser kafkaUser(String userName, Collection<AclBinding> requiredAcls) {
+        return new KafkaUser() {
+            @Override
+            public String getKafkaUserName() {
+                return userName;
+            }
+
+            @Override
+            public Collection<AclBinding> getRequiredAclBindings() {
+                return requiredAcls;
+            }
+        };
+    }
+
 }
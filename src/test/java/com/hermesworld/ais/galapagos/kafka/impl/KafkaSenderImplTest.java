@@ -1,13 +1,17 @@
 package com.hermesworld.ais.galapagos.kafka.impl;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.Producer;
@@ -18,6 +22,10 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 
 import com.hermesworld.ais.galapagos.kafka.KafkaExecutorFactory;
+import com.hermesworld.ais.galapagos.security.impl.KafkaExecutorFactoryImpl;
+import com.hermesworld.ais.galapagos.security.impl.KafkaExecutorFactoryImpl.DecouplingMode;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 class KafkaSenderImplTest {
 
@@ -56,4 +64,48 @@ class KafkaSenderImplTest {
         assertTrue(threadName.toString().startsWith("decoupled-"));
     }
 
+    @Test
+    void testTransactionFromSaturatedDecouplingPool() throws Exception {
+        // only one decoupling Thread, which is occupied by the continuation saving the data
+        KafkaExecutorFactoryImpl executorFactory = new KafkaExecutorFactoryImpl(new SimpleMeterRegistry(),
+                DecouplingMode.SHARED_POOL, 1);
+        KafkaFutureDecoupler decoupler = new KafkaFutureDecoupler(executorFactory);
+
+        CountDownLatch commitLatch = new CountDownLatch(1);
+        @SuppressWarnings("unchecked")
+        KafkaTemplate<String, String> template = mock(KafkaTemplate.class);
+        when(template.isTransactional()).thenReturn(true);
+        when(template.executeInTransaction(any())).then(inv -> {
+            commitLatch.await();
+            return null;
+        });
+
+        KafkaSenderImpl sender = new KafkaSenderImpl(template, decoupler);
+        try {
+            CompletableFuture<Void> kafkaFuture = new CompletableFuture<>();
+            CompletableFuture<CompletableFuture<Void>> saving = decoupler.toCompletableFuture(kafkaFuture)
+                    .thenApply(o -> sender.sendAll("a", Map.of("b", "c", "d", "e")));
+            kafkaFuture.complete(null);
+
+            // must not wait for the commit
+            CompletableFuture<Void> transaction = saving.get(5, TimeUnit.SECONDS);
+
+            // the decoupling Thread must be available for other tasks while the transaction is pending
+            CompletableFuture<Void> otherFuture = new CompletableFuture<>();
+            CompletableFuture<String> otherTask = decoupler.toCompletableFuture(otherFuture)
+                    .thenApply(o -> Thread.currentThread().getName());
+            otherFuture.complete(null);
+            assertTrue(otherTask.get(5, TimeUnit.SECONDS).startsWith("galapagos-kafka-decoupler-"));
+            assertFalse(transaction.isDone());
+
+            commitLatch.countDown();
+            transaction.get(5, TimeUnit.SECONDS);
+        }
+        finally {
+            commitLatch.countDown();
+            sender.close();
+            executorFactory.destroy();
+        }
+    }
+
 }
@@ -0,0 +1,58 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RepositorySnapshotStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWriteAndLoad() throws Exception {
+        RepositorySnapshotStore store = new RepositorySnapshotStore(tempDir.resolve("prod"));
+
+        Map<String, byte[]> entries = new LinkedHashMap<>();
+        entries.put("key-1", "{\"id\":\"key-1\"}".getBytes(StandardCharsets.UTF_8));
+        entries.put("key-ä", "{\"id\":\"key-ä\"}".getBytes(StandardCharsets.UTF_8));
+
+        store.write("galapagos.internal.topics",
+                new RepositorySnapshotStore.RepositorySnapshot("abc", Map.of(0, 17L, 1, 4L), entries, Set.of("key-2")));
+
+        RepositorySnapshotStore.RepositorySnapshot snapshot = store.load("galapagos.internal.topics").orElseThrow();
+        assertEquals("abc", snapshot.getTopicId());
+        assertEquals(Map.of(0, 17L, 1, 4L), snapshot.getOffsets());
+        assertEquals(2, snapshot.getEntries().size());
+        assertEquals("{\"id\":\"key-ä\"}", new String(snapshot.getEntries().get("key-ä"), StandardCharsets.UTF_8));
+        assertEquals(Set.of("key-2"), snapshot.getLegacyDeletedKeys());
+
+        assertTrue(store.load("galapagos.internal.schemas").isEmpty());
+
+        store.delete("galapagos.internal.topics");
+        assertTrue(store.load("galapagos.internal.topics").isEmpty());
+    }
+
+    @Test
+    void testLoad_corruptFile() throws Exception {
+        RepositorySnapshotStore store = new RepositorySnapshotStore(tempDir);
+
+        store.write("galapagos.internal.topics", new RepositorySnapshotStore.RepositorySnapshot("abc", Map.of(0, 17L),
+                Map.of("key-1", "{}".getBytes(StandardCharsets.UTF_8)), Set.of()));
+        Path file = tempDir.resolve("galapagos.internal.topics.snapshot");
+        byte[] data = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(data, data.length - 3));
+
+        assertTrue(store.load("galapagos.internal.topics").isEmpty());
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoredValueTest {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @Test
+    void testSmallValueNotShared() {
+        byte[] json = "{\"id\":\"1\",\"name\":\"test\"}".getBytes(StandardCharsets.UTF_8);
+        StoredValue value = StoredValue.of(json, jsonFactory);
+
+        assertFalse(value.isShared());
+        assertSame(json, value.toBytes());
+    }
+
+    @Test
+    void testLargeStringShared_restoredExactly() throws Exception {
+        String json = "{\"id\":\"1\",\"jsonSchema\":\"" + largeText() + "\",\"version\":3}";
+        StoredValue value = StoredValue.of(json.getBytes(StandardCharsets.UTF_8), jsonFactory);
+
+        assertTrue(value.isShared());
+        assertEquals(json, new String(value.toBytes(), StandardCharsets.UTF_8));
+        assertEquals(json, new String(value.openStream().readAllBytes(), StandardCharsets.UTF_8));
+        assertEquals(json.getBytes(StandardCharsets.UTF_8).length, value.length());
+    }
+
+    @Test
+    void testEqualValuesShareString() {
+        String json = "{\"id\":\"1\",\"jsonSchema\":\"" + largeText() + "\"}";
+        StoredValue value1 = StoredValue.of(json.getBytes(StandardCharsets.UTF_8), jsonFactory);
+        StoredValue value2 = StoredValue.of(json.getBytes(StandardCharsets.UTF_8), jsonFactory);
+
+        // shared strings are compared by identity only
+        assertTrue(value1.contentEquals(value2));
+
+        StoredValue value3 = StoredValue.of(json.replace("\"1\"", "\"2\"").getBytes(StandardCharsets.UTF_8),
+                jsonFactory);
+        assertFalse(value1.contentEquals(value3));
+    }
+
+    private static String largeText() {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < StoredValue.MIN_SHARED_LENGTH) {
+            sb.append("{\\\"type\\\": \\\"string\\\", \\\"description\\\": \\\"äöü \\\\n\\\"}, ");
+        }
+        return sb.toString();
+    }
+
+}
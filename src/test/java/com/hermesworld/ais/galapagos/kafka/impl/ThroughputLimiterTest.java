@@ -0,0 +1,24 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThroughputLimiterTest {
+
+    @Test
+    void testReserve() {
+        ThroughputLimiter limiter = new ThroughputLimiter(1000);
+
+        // one second of burst is allowed
+        assertEquals(0, limiter.reserve(600));
+        assertEquals(0, limiter.reserve(400));
+
+        long waitNanos = limiter.reserve(500);
+        assertTrue(waitNanos > TimeUnit.MILLISECONDS.toNanos(400), "Wait time too short: " + waitNanos);
+        assertTrue(waitNanos <= TimeUnit.MILLISECONDS.toNanos(500), "Wait time too long: " + waitNanos);
+    }
+
+}
@@ -2,23 +2,43 @@ package com.hermesworld.ais.galapagos.kafka.impl;
 
 import com.hermesworld.ais.galapagos.applications.ApplicationMetadata;
 import com.hermesworld.ais.galapagos.kafka.KafkaSender;
+import com.hermesworld.ais.galapagos.kafka.util.RepositoryChange;
+import com.hermesworld.ais.galapagos.kafka.util.RepositoryIndex;
+import com.hermesworld.ais.galapagos.kafka.util.SortedRepositoryIndex;
+import com.hermesworld.ais.galapagos.subscriptions.SubscriptionMetadata;
+import com.hermesworld.ais.galapagos.topics.SchemaMetadata;
 import com.hermesworld.ais.galapagos.util.FutureUtil;
 import com.hermesworld.ais.galapagos.util.JsonUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.json.JSONObject;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.Disposable;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class TopicBasedRepositoryImplTest {
@@ -69,6 +89,179 @@ class TopicBasedRepositoryImplTest {
         assertFalse(repository.containsObject("app-1"));
     }
 
+    @Test
+    void testMessageReceived_streamingParse() {
+        TopicBasedRepositoryImpl<ApplicationMetadata> repository = new TopicBasedRepositoryImpl<>("galapagos.testtopic",
+                "testtopic", ApplicationMetadata.class, sender);
+
+        // unknown fields before and after the object must be skipped
+        repository.messageReceived("galapagos.testtopic", "app-1",
+                "{\"meta\":{\"a\":[1,2,{\"b\":null}]},\"obj\":{\"applicationId\":\"app-1\"},\"deleted\":false}"
+                        .getBytes(StandardCharsets.UTF_8));
+        assertEquals("app-1", repository.getObject("app-1").orElseThrow().getApplicationId());
+
+        // invalid messages must neither throw nor modify the repository
+        repository.messageReceived("galapagos.testtopic", "app-1", "[1,2]");
+        repository.messageReceived("galapagos.testtopic", "app-1", "{\"other\":1}");
+        repository.messageReceived("galapagos.testtopic", "app-1", "{\"obj\":");
+        assertTrue(repository.containsObject("app-1"));
+
+        // deletion flag is also accepted as String, and wins over a contained object
+        repository.messageReceived("galapagos.testtopic", "app-1",
+                "{\"obj\":{\"applicationId\":\"app-1\"},\"deleted\":\"true\"}");
+        assertFalse(repository.containsObject("app-1"));
+    }
+
+    @Test
+    void testCopyOnRead() throws Exception {
+        TopicBasedRepositoryImpl<SubscriptionMetadata> repository = new TopicBasedRepositoryImpl<>(
+                "galapagos.testtopic", "testtopic", SubscriptionMetadata.class, sender);
+        when(sender.send(any(), any(), any())).thenReturn(FutureUtil.noop());
+
+        repository.messageReceived("galapagos.testtopic", "sub-1",
+                "{\"obj\":{\"id\":\"sub-1\",\"topicName\":\"topic-1\"},\"other\":{\"topicName\":\"x\"}}");
+        SubscriptionMetadata sub1 = repository.getObject("sub-1").orElseThrow();
+        assertNotSame(sub1, repository.getObject("sub-1").orElseThrow());
+
+        // modifying returned objects must not modify the repository contents
+        sub1.setTopicName("topic-2");
+        repository.getObjects().iterator().next().setTopicName("topic-3");
+        assertEquals("topic-1", repository.getObject("sub-1").orElseThrow().getTopicName());
+        assertEquals(1, repository.getObjects().size());
+
+        // ... unless they are saved
+        repository.save(sub1).get();
+        assertEquals("topic-2", repository.getObjects().iterator().next().getTopicName());
+    }
+
+    @Test
+    void testTombstones() throws Exception {
+        TopicBasedRepositoryImpl<ApplicationMetadata> repository = new TopicBasedRepositoryImpl<>("galapagos.testtopic",
+                "testtopic", ApplicationMetadata.class, sender);
+
+        Map<String, String> messages = new HashMap<>();
+        when(sender.send(any(), any(), any())).then(inv -> {
+            messages.put(inv.getArgument(1), inv.getArgument(2));
+            return FutureUtil.noop();
+        });
+
+        repository.messageReceived("galapagos.testtopic", "app-1", "{\"obj\":{\"applicationId\":\"app-1\"}}");
+        repository.messageReceived("galapagos.testtopic", "app-2", "{\"obj\":{\"applicationId\":\"app-2\"}}");
+        repository.messageReceived("galapagos.testtopic", "app-3", "{\"obj\":{\"applicationId\":\"app-3\"}}");
+
+        repository.messageReceived("galapagos.testtopic", "app-1", (String) null);
+        repository.messageReceived("galapagos.testtopic", "app-2", "{\"deleted\":true}");
+        repository.messageReceived("galapagos.testtopic", "app-3", "{\"deleted\":true}");
+        repository.messageReceived("galapagos.testtopic", "app-3", "{\"obj\":{\"applicationId\":\"app-3\"}}");
+        assertEquals(Set.of("app-3"), repository.getObjects().stream().map(ApplicationMetadata::getApplicationId)
+                .collect(Collectors.toSet()));
+
+        // only app-2 is still deleted via legacy marker
+        assertEquals(1, repository.writeTombstonesForLegacyDeletions().get());
+        assertEquals(Set.of("app-2"), messages.keySet());
+        assertNull(messages.get("app-2"));
+
+        repository.messageReceived("galapagos.testtopic", "app-2", (String) null);
+        assertEquals(0, repository.writeTombstonesForLegacyDeletions().get());
+    }
+
+    @Test
+    void testNoTombstoneForRecreatedObject() throws Exception {
+        TopicBasedRepositoryImpl<ApplicationMetadata> repository = new TopicBasedRepositoryImpl<>("galapagos.testtopic",
+                "testtopic", ApplicationMetadata.class, sender);
+
+        Map<String, String> messages = new HashMap<>();
+        when(sender.send(any(), any(), any())).then(inv -> {
+            messages.put(inv.getArgument(1), inv.getArgument(2));
+            return FutureUtil.noop();
+        });
+
+        repository.messageReceived("galapagos.testtopic", "app-1", "{\"deleted\":true}");
+
+        // saved locally again, but the record has not been received from the topic yet
+        ApplicationMetadata app = new ApplicationMetadata();
+        app.setApplicationId("app-1");
+        repository.save(app).get();
+        messages.clear();
+
+        assertEquals(0, repository.writeTombstonesForLegacyDeletions().get());
+        assertTrue(messages.isEmpty());
+        assertTrue(repository.getObject("app-1").isPresent());
+    }
+
+    @Test
+    void testChanges() throws Exception {
+        TopicBasedRepositoryImpl<ApplicationMetadata> repository = new TopicBasedRepositoryImpl<>("galapagos.testtopic",
+                "testtopic", ApplicationMetadata.class, sender);
+        when(sender.send(any(), any(), any())).thenReturn(FutureUtil.noop());
+
+        repository.messageReceived("galapagos.testtopic", "app-1", "{\"obj\":{\"applicationId\":\"app-1\"}}");
+
+        List<RepositoryChange<ApplicationMetadata>> changes = new ArrayList<>();
+        List<RepositoryChange<ApplicationMetadata>> replayedChanges = new ArrayList<>();
+        Disposable subscription = repository.getChanges(false).subscribe(changes::add);
+        repository.getChanges(true).subscribe(replayedChanges::add);
+
+        ApplicationMetadata app2 = new ApplicationMetadata();
+        app2.setApplicationId("app-2");
+        repository.save(app2).get();
+        // receiving the saved object again from Kafka is no change
+        ArgumentCaptor<String> sentMessage = ArgumentCaptor.forClass(String.class);
+        verify(sender).send(eq("galapagos.testtopic"), eq("app-2"), sentMessage.capture());
+        repository.messageReceived("galapagos.testtopic", "app-2", sentMessage.getValue());
+        repository.messageReceived("galapagos.testtopic", "app-1",
+                "{\"obj\":{\"applicationId\":\"app-1\",\"authenticationJson\":\"{}\"}}");
+        repository.messageReceived("galapagos.testtopic", "app-1", (String) null);
+        repository.messageReceived("galapagos.testtopic", "app-3", (String) null);
+
+        assertEquals(List.of("CREATED:app-2", "UPDATED:app-1", "DELETED:app-1"),
+                changes.stream().map(c -> c.getChangeType() + ":" + c.getKey()).collect(Collectors.toList()));
+        assertEquals("{}", changes.get(1).getValue().getAuthenticationJson());
+        assertNull(changes.get(2).getValue());
+        assertEquals(List.of("CREATED:app-1", "CREATED:app-2", "UPDATED:app-1", "DELETED:app-1"),
+                replayedChanges.stream().map(c -> c.getChangeType() + ":" + c.getKey()).collect(Collectors.toList()));
+
+        // no more changes after cancelling the subscription
+        subscription.dispose();
+        repository.save(app2).get();
+        assertEquals(3, changes.size());
+    }
+
+    @Test
+    void testMetrics() throws Exception {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        TopicBasedRepositoryImpl<ApplicationMetadata> repository = new TopicBasedRepositoryImpl<>("galapagos.testtopic",
+                "testtopic", ApplicationMetadata.class, sender, meterRegistry, "test");
+        when(sender.send(any(), any(), any())).thenReturn(FutureUtil.noop());
+
+        // write timers are registered up front, not on each write
+        assertEquals(4, meterRegistry.get("galapagos.repository.writes").timers().size());
+        assertEquals(0, meterRegistry.get("galapagos.repository.writes").tag("operation", "saveAll").timer().count());
+
+        repository.messageReceived("galapagos.testtopic", "app-1", "{\"obj\":{\"applicationId\":\"app-1\"}}");
+        repository.messageReceived("galapagos.testtopic", "app-2", "{\"obj\":{\"applicationId\":");
+        ApplicationMetadata app3 = new ApplicationMetadata();
+        app3.setApplicationId("app-3");
+        repository.save(app3).get();
+
+        assertEquals(2, meterRegistry.get("galapagos.repository.objects").tag("environment", "test")
+                .tag("topic", "galapagos.testtopic").gauge().value());
+        double heapSize = meterRegistry.get("galapagos.repository.heap.size").gauge().value();
+        assertTrue(heapSize > 0);
+        assertEquals(2, meterRegistry.get("galapagos.repository.deserialization").timer().count());
+        assertEquals(1, meterRegistry.get("galapagos.repository.deserialization.failures").counter().count());
+        assertEquals(1, meterRegistry.get("galapagos.repository.writes").tag("operation", "save").timer().count());
+
+        repository.delete(app3).get();
+        repository.delete(app3).get();
+        assertEquals(2, meterRegistry.get("galapagos.repository.writes").tag("operation", "delete").timer().count());
+        assertEquals(1, meterRegistry.get("galapagos.repository.objects").gauge().value());
+        assertTrue(meterRegistry.get("galapagos.repository.heap.size").gauge().value() < heapSize);
+
+        repository.clear();
+        assertEquals(0, meterRegistry.get("galapagos.repository.heap.size").gauge().value());
+    }
+
     @Test
     void testWaitForInitialization_emptyRepository() throws Exception {
         TopicBasedRepositoryImpl<ApplicationMetadata> repository = new TopicBasedRepositoryImpl<>("galapagos.testtopic",
@@ -144,6 +337,34 @@ class TopicBasedRepositoryImplTest {
         assertFalse(System.currentTimeMillis() >= startTime + 399, "Repository waited too long");
     }
 
+    @Test
+    void testWaitForEndOffsets() throws Exception {
+        TopicBasedRepositoryImpl<ApplicationMetadata> repository = new TopicBasedRepositoryImpl<>("galapagos.testtopic",
+                "testtopic", ApplicationMetadata.class, sender);
+
+        long startTime = System.currentTimeMillis();
+        executorService.schedule(repository::markEndOffsetsReached, 100, TimeUnit.MILLISECONDS);
+
+        CompletableFuture<Void> future = repository.waitForEndOffsets(Duration.ofSeconds(5), executorService);
+        assertFalse(repository.isFullyLoaded());
+        future.get();
+
+        assertTrue(repository.isFullyLoaded());
+        assertFalse(System.currentTimeMillis() >= startTime + 1000, "Repository waited too long");
+    }
+
+    @Test
+    void testWaitForEndOffsets_timeout() {
+        TopicBasedRepositoryImpl<ApplicationMetadata> repository = new TopicBasedRepositoryImpl<>("galapagos.testtopic",
+                "testtopic", ApplicationMetadata.class, sender);
+
+        CompletableFuture<Void> future = repository.waitForEndOffsets(Duration.ofMillis(100), executorService);
+
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertFalse(repository.isFullyLoaded());
+    }
+
     @Test
     void testGetTopicName() {
         TopicBasedRepositoryImpl<ApplicationMetadata> repository = new TopicBasedRepositoryImpl<>("galapagos.testtopic",
@@ -205,9 +426,134 @@ class TopicBasedRepositoryImplTest {
         assertEquals("galapagos.testtopic", topicName.get());
         assertEquals("app-1", key.get());
 
-        JSONObject msg = new JSONObject(message.get());
+        // deletion must be a tombstone
+        assertNull(message.get());
+    }
+
+    @Test
+    void testSaveAllAndDeleteAll() throws Exception {
+        TopicBasedRepositoryImpl<ApplicationMetadata> repository = new TopicBasedRepositoryImpl<>("galapagos.testtopic",
+                "testtopic", ApplicationMetadata.class, sender);
+
+        AtomicReference<Map<String, String>> messages = new AtomicReference<>();
+        when(sender.sendAll(any(), any())).then(inv -> {
+            assertEquals("galapagos.testtopic", inv.getArgument(0));
+            messages.set(inv.getArgument(1));
+            return FutureUtil.noop();
+        });
+
+        ApplicationMetadata app1 = new ApplicationMetadata();
+        app1.setApplicationId("app-1");
+        ApplicationMetadata app2 = new ApplicationMetadata();
+        app2.setApplicationId("app-2");
+
+        repository.saveAll(List.of(app1, app2)).get();
+
+        assertEquals(List.of("app-1", "app-2"), List.copyOf(messages.get().keySet()));
+        assertEquals("app-2",
+                JsonUtil.newObjectMapper()
+                        .readValue(new JSONObject(messages.get().get("app-2")).getJSONObject("obj").toString(),
+                                ApplicationMetadata.class)
+                        .getApplicationId());
+        assertEquals(2, repository.getObjects().size());
+
+        repository.deleteAll(List.of(app1, app2)).get();
+
+        assertEquals(Set.of("app-1", "app-2"), messages.get().keySet());
+        assertTrue(messages.get().values().stream().allMatch(Objects::isNull));
+        assertTrue(repository.getObjects().isEmpty());
+    }
+
+    @Test
+    void testIndex() throws Exception {
+        TopicBasedRepositoryImpl<SubscriptionMetadata> repository = new TopicBasedRepositoryImpl<>(
+                "galapagos.testtopic", "testtopic", SubscriptionMetadata.class, sender);
+        when(sender.send(any(), any(), any())).thenReturn(FutureUtil.noop());
+
+        SubscriptionMetadata sub1 = new SubscriptionMetadata();
+        sub1.setId("sub-1");
+        sub1.setTopicName("topic-1");
+        repository.save(sub1).get();
+
+        // index is built from existing data on registration
+        RepositoryIndex<String, SubscriptionMetadata> index = repository.getIndex("topicName",
+                SubscriptionMetadata::getTopicName);
+        assertEquals(1, index.getObjects("topic-1").size());
+        assertSame(index, repository.getIndex("topicName", SubscriptionMetadata::getTopicName));
+
+        SubscriptionMetadata sub2 = new SubscriptionMetadata();
+        sub2.setId("sub-2");
+        sub2.setTopicName("topic-1");
+        JSONObject obj = new JSONObject();
+        obj.put("obj", new JSONObject(JsonUtil.newObjectMapper().writeValueAsString(sub2)));
+        repository.messageReceived("galapagos.testtopic", "sub-2", obj.toString());
+        assertEquals(2, index.getObjects("topic-1").size());
+
+        // moving an object to another index key, even if it has been modified in place
+        sub1.setTopicName("topic-2");
+        repository.save(sub1).get();
+        assertEquals(Set.of("sub-2"),
+                index.getObjects("topic-1").stream().map(SubscriptionMetadata::getId).collect(Collectors.toSet()));
+        assertEquals(1, index.getObjects("topic-2").size());
+
+        repository.delete(sub1).get();
+        repository.messageReceived("galapagos.testtopic", "sub-2", "{\"deleted\": true}");
+        assertTrue(index.getObjects("topic-1").isEmpty());
+        assertTrue(index.getObjects("topic-2").isEmpty());
+        assertTrue(index.getObjects(null).isEmpty());
+    }
+
+    @Test
+    void testSortedIndex() throws Exception {
+        TopicBasedRepositoryImpl<SchemaMetadata> repository = new TopicBasedRepositoryImpl<>("galapagos.testtopic",
+                "testtopic", SchemaMetadata.class, sender);
+        when(sender.send(any(), any(), any())).thenReturn(FutureUtil.noop());
+
+        repository.save(schema("schema-2", "topic-1", 2)).get();
+        repository.save(schema("schema-1", "topic-1", 1)).get();
+
+        SortedRepositoryIndex<String, Integer, SchemaMetadata> index = repository.getSortedIndex("versions",
+                SchemaMetadata::getTopicName, SchemaMetadata::getSchemaVersion);
+        assertSame(index,
+                repository.getSortedIndex("versions", SchemaMetadata::getTopicName, SchemaMetadata::getSchemaVersion));
+
+        repository.save(schema("schema-4", "topic-1", 4)).get();
+        repository.save(schema("schema-3", "topic-1", 3)).get();
+        repository.save(schema("schema-x", "topic-2", 1)).get();
+
+        assertEquals(List.of("schema-1", "schema-2", "schema-3", "schema-4"), ids(index.getObjects("topic-1")));
+        assertEquals(List.of("schema-2", "schema-3"), ids(index.getObjects("topic-1", 2, 4)));
+        assertEquals("schema-4", index.getLast("topic-1").map(SchemaMetadata::getId).orElseThrow());
+        assertEquals("schema-3", index.getObject("topic-1", 3).map(SchemaMetadata::getId).orElseThrow());
+        assertTrue(index.getObject("topic-1", 5).isEmpty());
+
+        // deleting the latest version makes the previous one the latest
+        repository.delete(schema("schema-4", "topic-1", 4)).get();
+        assertEquals("schema-3", index.getLast("topic-1").map(SchemaMetadata::getId).orElseThrow());
+
+        // moving an object to another index key
+        repository.save(schema("schema-3", "topic-2", 2)).get();
+        assertEquals("schema-2", index.getLast("topic-1").map(SchemaMetadata::getId).orElseThrow());
+        assertEquals(List.of("schema-x", "schema-3"), ids(index.getObjects("topic-2")));
+
+        repository.messageReceived("galapagos.testtopic", "schema-x", (String) null);
+        repository.messageReceived("galapagos.testtopic", "schema-3", (String) null);
+        assertTrue(index.getObjects("topic-2").isEmpty());
+        assertTrue(index.getLast("topic-2").isEmpty());
+        assertTrue(index.getLast(null).isEmpty());
+    }
+
+    private static SchemaMetadata schema(String id, String topicName, int version) {
+        SchemaMetadata schema = new SchemaMetadata();
+        schema.setId(id);
+        schema.setTopicName(topicName);
+        schema.setSchemaVersion(version);
+        schema.setJsonSchema("{}");
+        return schema;
+    }
 
-        assertTrue(msg.getBoolean("deleted"));
+    private static List<String> ids(Collection<SchemaMetadata> schemas) {
+        return schemas.stream().map(SchemaMetadata::getId).collect(Collectors.toList());
     }
 
 }
@@ -9,8 +9,11 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import javax.annotation.CheckReturnValue;
 
+import com.hermesworld.ais.galapagos.kafka.util.RepositoryChange;
 import com.hermesworld.ais.galapagos.kafka.util.TopicBasedRepository;
 import com.hermesworld.ais.galapagos.util.HasKey;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
 
 public class TopicBasedRepositoryMock<T extends HasKey> implements TopicBasedRepository<T> {
 
@@ -20,6 +23,8 @@ public class TopicBasedRepositoryMock<T extends HasKey> implements TopicBasedRep
 
     private final Map<String, T> data = new HashMap<>();
 
+    private final Sinks.Many<RepositoryChange<T>> changes = Sinks.many().multicast().directBestEffort();
+
     public TopicBasedRepositoryMock() {
         this("unknown-topic", null);
     }
@@ -54,17 +59,31 @@ public class TopicBasedRepositoryMock<T extends HasKey> implements TopicBasedRep
         return data.values();
     }
 
+    @Override
+    public Flux<RepositoryChange<T>> getChanges(boolean replayCurrentState) {
+        Flux<RepositoryChange<T>> replay = replayCurrentState
+                ? Flux.fromIterable(Map.copyOf(data).entrySet())
+                        .map(e -> new RepositoryChange<>(RepositoryChange.ChangeType.CREATED, e.getKey(), e.getValue()))
+                : Flux.empty();
+        return replay.concatWith(changes.asFlux());
+    }
+
     @Override
     @CheckReturnValue
     public CompletableFuture<Void> save(T value) {
-        data.put(value.key(), value);
+        T oldValue = data.put(value.key(), value);
+        changes.tryEmitNext(new RepositoryChange<>(
+                oldValue == null ? RepositoryChange.ChangeType.CREATED : RepositoryChange.ChangeType.UPDATED,
+                value.key(), value));
         return CompletableFuture.completedFuture(null);
     }
 
     @Override
     @CheckReturnValue
     public CompletableFuture<Void> delete(T value) {
-        data.remove(value.key());
+        if (data.remove(value.key()) != null) {
+            changes.tryEmitNext(new RepositoryChange<>(RepositoryChange.ChangeType.DELETED, value.key(), null));
+        }
         return CompletableFuture.completedFuture(null);
     }
 
@@ -74,4 +93,15 @@ public class TopicBasedRepositoryMock<T extends HasKey> implements TopicBasedRep
             ScheduledExecutorService executorService) {
         return CompletableFuture.completedFuture(null);
     }
+
+    @Override
+    @CheckReturnValue
+    public CompletableFuture<Void> waitForEndOffsets(Duration timeout, ScheduledExecutorService executorService) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public boolean isFullyLoaded() {
+        return true;
+    }
 }
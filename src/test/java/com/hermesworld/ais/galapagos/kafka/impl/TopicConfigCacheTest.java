@@ -0,0 +1,135 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import com.hermesworld.ais.galapagos.kafka.TopicConfigEntry;
+import com.hermesworld.ais.galapagos.kafka.config.ClusterMetadataCacheConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopicConfigCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final List<Collection<String>> loadCalls = new ArrayList<>();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TopicConfigCache cache;
+
+    @BeforeEach
+    void init() {
+        ClusterMetadataCacheConfig config = new ClusterMetadataCacheConfig();
+        config.setTopicConfigMaxStaleness(Duration.ofSeconds(10));
+        config.setTopicConfigBatchSize(2);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new TopicConfigCache("test", config, meterRegistry, clock::get);
+    }
+
+    @Test
+    void testServedFromMemoryUntilStale() throws Exception {
+        assertEquals(Set.of("topic1", "topic2"), cache.get(List.of("topic1", "topic2"), loader()).get().keySet());
+        clock.set(Duration.ofSeconds(5).toNanos());
+        assertEquals(3, cache.get(List.of("topic1", "topic2", "topic3"), loader()).get().size());
+        clock.set(Duration.ofSeconds(11).toNanos());
+        cache.get(List.of("topic3"), loader()).get();
+        cache.get(List.of("topic1"), loader()).get();
+
+        assertEquals(List.of(List.of("topic1", "topic2"), List.of("topic3"), List.of("topic1")), loadCalls);
+        assertEquals(3, requestCount("hit"));
+        assertEquals(4, requestCount("miss"));
+    }
+
+    @Test
+    void testInvalidate() throws Exception {
+        cache.get(List.of("topic1", "topic2"), loader()).get();
+        cache.invalidate(List.of("topic1"));
+        cache.get(List.of("topic1", "topic2"), loader()).get();
+
+        assertEquals(List.of(List.of("topic1", "topic2"), List.of("topic1")), loadCalls);
+    }
+
+    @Test
+    void testLoadOverlappingInvalidationNotCached() throws Exception {
+        CompletableFuture<Map<String, Set<TopicConfigEntry>>> pendingLoad = new CompletableFuture<>();
+        CompletableFuture<Map<String, Set<TopicConfigEntry>>> result = cache.get(List.of("topic1"),
+                names -> pendingLoad);
+        cache.invalidate(List.of("topic1"));
+        pendingLoad.complete(Map.of("topic1", Set.of()));
+        assertTrue(result.get().containsKey("topic1"));
+
+        cache.get(List.of("topic1"), loader()).get();
+        assertEquals(1, loadCalls.size());
+    }
+
+    @Test
+    void testRefreshInBatches() throws Exception {
+        cache.refresh(List.of("topic1", "topic2", "topic3", "topic4", "topic5"), loader()).get();
+        assertEquals(List.of(List.of("topic1", "topic2"), List.of("topic3", "topic4"), List.of("topic5")), loadCalls);
+
+        // all served from memory now
+        cache.get(List.of("topic1", "topic5"), loader()).get();
+        assertEquals(3, loadCalls.size());
+    }
+
+    @Test
+    void testRefreshSkipsFailedBatch() throws Exception {
+        Function<Collection<String>, CompletableFuture<Map<String, Set<TopicConfigEntry>>>> failingFirst = names -> {
+            if (names.contains("topic1")) {
+                return CompletableFuture.failedFuture(new KafkaException("Topic deleted"));
+            }
+            return loader().apply(names);
+        };
+
+        cache.refresh(List.of("topic1", "topic2", "topic3"), failingFirst).get();
+
+        cache.get(List.of("topic3"), loader()).get();
+        assertEquals(List.of(List.of("topic3")), loadCalls);
+    }
+
+    @Test
+    void testRefreshWithMissingTopic() throws Exception {
+        cache.get(List.of("topic1", "topic2"), loader()).get();
+
+        // topic1 has been deleted in the meantime; the loader does not return it
+        Function<Collection<String>, CompletableFuture<Map<String, Set<TopicConfigEntry>>>> withoutTopic1 = names -> {
+            List<String> existing = names.stream().filter(name -> !name.equals("topic1")).toList();
+            return loader().apply(existing);
+        };
+        clock.set(Duration.ofSeconds(5).toNanos());
+        cache.refresh(List.of("topic1", "topic2"), withoutTopic1).get();
+        assertEquals(List.of(List.of("topic1", "topic2"), List.of("topic2")), loadCalls);
+
+        // topic2 is refreshed, topic1 is not served from the cache anymore, although it would not be stale yet
+        clock.set(Duration.ofSeconds(8).toNanos());
+        assertEquals(Set.of("topic2"), cache.get(List.of("topic2"), loader()).get().keySet());
+        assertEquals(2, loadCalls.size());
+        cache.get(List.of("topic1"), loader()).get();
+        assertEquals(List.of("topic1"), loadCalls.get(2));
+    }
+
+    private Function<Collection<String>, CompletableFuture<Map<String, Set<TopicConfigEntry>>>> loader() {
+        return names -> {
+            loadCalls.add(List.copyOf(names));
+            Map<String, Set<TopicConfigEntry>> result = new HashMap<>();
+            names.forEach(name -> result.put(name,
+                    Set.of(new TopicConfigEntryImpl(new ConfigEntry("cleanup.policy", "delete")))));
+            return CompletableFuture.completedFuture(result);
+        };
+    }
+
+    private double requestCount(String result) {
+        return meterRegistry.get("galapagos.kafka.metadata.cache.requests").tag("metadata", "topicConfig")
+                .tag("result", result).counter().count();
+    }
+
+}
@@ -0,0 +1,260 @@
+package com.hermesworld.ais.galapagos.kafka.impl;
+
+import com.hermesworld.ais.galapagos.kafka.PeekLimitExceededException;
+import com.hermesworld.ais.galapagos.kafka.TopicBrowseParams;
+import com.hermesworld.ais.galapagos.kafka.config.TopicPeekConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+class TopicDataPeekerTest {
+
+    private static final String TOPIC = "topic1";
+
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    private final AtomicInteger consumersCreated = new AtomicInteger();
+
+    private MockConsumer<String, String> consumer;
+
+    private TopicPeekConfig config;
+
+    private TopicDataPeeker peeker;
+
+    @BeforeEach
+    void init() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions(TOPIC, List.of(new PartitionInfo(TOPIC, 0, null, null, null)));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        config = new TopicPeekConfig();
+    }
+
+    @AfterEach
+    void cleanup() {
+        if (peeker != null) {
+            peeker.dispose();
+        }
+    }
+
+    @Test
+    void testPeek_latestRecordsUpToEndOffsets() throws Exception {
+        consumer.updateEndOffsets(Map.of(PARTITION, 5L));
+        // includes a record written after the end offsets have been determined
+        addRecords(6, 10);
+        peeker = buildPeeker();
+
+        List<ConsumerRecord<String, String>> records = peeker.peek("test", TOPIC, 3).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(2L, 3L, 4L), records.stream().map(ConsumerRecord::offset).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testPeek_byteBudget() throws Exception {
+        consumer.updateEndOffsets(Map.of(PARTITION, 5L));
+        addRecords(5, 10);
+        config.setMaxBytes(DataSize.ofBytes(35));
+        peeker = buildPeeker();
+
+        List<ConsumerRecord<String, String>> records = peeker.peek("test", TOPIC, 5).get(5, TimeUnit.SECONDS);
+
+        assertEquals(3, records.size());
+    }
+
+    @Test
+    void testPeek_reusesConsumer() throws Exception {
+        consumer.updateEndOffsets(Map.of(PARTITION, 0L));
+        peeker = buildPeeker();
+
+        assertTrue(peeker.peek("test", TOPIC, 5).get(5, TimeUnit.SECONDS).isEmpty());
+        assertTrue(peeker.peek("test", TOPIC, 5).get(5, TimeUnit.SECONDS).isEmpty());
+
+        assertEquals(1, consumersCreated.get());
+        assertFalse(consumer.closed());
+    }
+
+    @Test
+    void testPeek_concurrencyLimitAndCancel() throws Exception {
+        // end offset is never reached, so first peek runs until cancelled
+        consumer.updateEndOffsets(Map.of(PARTITION, 5L));
+        config.setMaxConcurrentPeeks(1);
+        config.setTimeout(Duration.ofMinutes(1));
+        peeker = buildPeeker();
+
+        CompletableFuture<List<ConsumerRecord<String, String>>> first = peeker.peek("test", TOPIC, 5);
+        CompletableFuture<List<ConsumerRecord<String, String>>> second = peeker.peek("test", TOPIC, 5);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(PeekLimitExceededException.class, e.getCause());
+
+        first.cancel(false);
+        // the peek Thread must become available again
+        long deadline = System.currentTimeMillis() + 5000;
+        CompletableFuture<List<ConsumerRecord<String, String>>> third;
+        do {
+            Thread.sleep(50);
+            third = peeker.peek("test", TOPIC, 5);
+        } while (third.isCompletedExceptionally() && System.currentTimeMillis() < deadline);
+        assertFalse(third.isCompletedExceptionally());
+        third.cancel(false);
+    }
+
+    @Test
+    void testBrowse_fromOffsetWithFilter() throws Exception {
+        consumer.updateEndOffsets(Map.of(PARTITION, 5L));
+        addRecords(6, 10);
+        peeker = buildPeeker();
+
+        TopicBrowseParams params = new TopicBrowseParams();
+        params.setStartOffsets(Map.of(0, 1L));
+        params.setFilter(record -> record.offset() != 3);
+        List<Long> offsets = new ArrayList<>();
+        peeker.browse("test", TOPIC, params, record -> offsets.add(record.offset())).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(1L, 2L, 4L), offsets);
+    }
+
+    @Test
+    void testBrowse_fromTimestamp() throws Exception {
+        consumer.updateEndOffsets(Map.of(PARTITION, 5L));
+        addRecords(5, 10);
+        peeker = buildPeeker();
+
+        // MockConsumer does not support offsetsForTimes(), so provide the offset for the timestamp via a spy
+        consumer = spy(consumer);
+        doReturn(Map.of(PARTITION, new OffsetAndTimestamp(3, 1000L))).when(consumer)
+                .offsetsForTimes(eq(Map.of(PARTITION, 1000L)), any(Duration.class));
+
+        TopicBrowseParams params = new TopicBrowseParams();
+        params.setStartTimestamp(1000L);
+        List<Long> offsets = new ArrayList<>();
+        peeker.browse("test", TOPIC, params, record -> offsets.add(record.offset())).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(3L, 4L), offsets);
+    }
+
+    @Test
+    void testBrowse_stopsWhenCallbackReturnsFalse() throws Exception {
+        consumer.updateEndOffsets(Map.of(PARTITION, 5L));
+        addRecords(5, 10);
+        peeker = buildPeeker();
+
+        List<Long> offsets = new ArrayList<>();
+        peeker.browse("test", TOPIC, new TopicBrowseParams(), record -> {
+            offsets.add(record.offset());
+            return offsets.size() < 2;
+        }).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(0L, 1L), offsets);
+    }
+
+    @Test
+    void testBrowse_releasesThroughputLimiter() throws Exception {
+        consumer.updateEndOffsets(Map.of(PARTITION, 5L));
+        addRecords(5, 10);
+        peeker = buildPeeker();
+
+        TopicBrowseParams params = new TopicBrowseParams();
+        params.setUserName("user1");
+        AtomicInteger browsingUsers = new AtomicInteger();
+        peeker.browse("test", TOPIC, params, record -> {
+            browsingUsers.set(peeker.getBrowsingUserCount());
+            return true;
+        }).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, browsingUsers.get());
+        assertEquals(0, peeker.getBrowsingUserCount());
+    }
+
+    @Test
+    void testBrowse_sessionLimitsDoNotBlockPeeks() throws Exception {
+        config.setMaxConcurrentPeeks(1);
+        config.setMaxConcurrentBrowseSessions(2);
+        config.setMaxBrowseSessionsPerUser(1);
+        config.setBrowseTimeout(Duration.ofMinutes(1));
+        // each operation gets its own consumer; end offset of browsed topic is never reached, so browsing runs until
+        // cancelled, while peeking an empty topic completes immediately
+        peeker = new TopicDataPeeker(environmentId -> () -> {
+            MockConsumer<String, String> c = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+            c.updatePartitions(TOPIC, List.of(new PartitionInfo(TOPIC, 0, null, null, null)));
+            c.updatePartitions("empty", List.of(new PartitionInfo("empty", 0, null, null, null)));
+            TopicPartition emptyPartition = new TopicPartition("empty", 0);
+            c.updateBeginningOffsets(Map.of(PARTITION, 0L, emptyPartition, 0L));
+            c.updateEndOffsets(Map.of(PARTITION, 5L, emptyPartition, 0L));
+            return c;
+        }, config);
+
+        TopicBrowseParams user1 = new TopicBrowseParams();
+        user1.setUserName("user1");
+        TopicBrowseParams user2 = new TopicBrowseParams();
+        user2.setUserName("user2");
+        TopicBrowseParams user3 = new TopicBrowseParams();
+        user3.setUserName("user3");
+
+        CompletableFuture<Void> browse1 = peeker.browse("test", TOPIC, user1, record -> true);
+        CompletableFuture<Void> browse2 = peeker.browse("test", TOPIC, user1, record -> true);
+        CompletableFuture<Void> browse3 = peeker.browse("test", TOPIC, user2, record -> true);
+        CompletableFuture<Void> browse4 = peeker.browse("test", TOPIC, user3, record -> true);
+
+        // second session of user1 exceeds the per-user limit, session of user3 the total limit
+        ExecutionException e = assertThrows(ExecutionException.class, () -> browse2.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(PeekLimitExceededException.class, e.getCause());
+        e = assertThrows(ExecutionException.class, () -> browse4.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(PeekLimitExceededException.class, e.getCause());
+        assertFalse(browse1.isDone());
+        assertFalse(browse3.isDone());
+
+        // peeks are still served while the browse sessions are open
+        assertEquals(List.of(), peeker.peek("test", "empty", 5).get(5, TimeUnit.SECONDS));
+
+        browse1.cancel(false);
+        browse3.cancel(false);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (peeker.getBrowsingUserCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(0, peeker.getBrowsingUserCount());
+    }
+
+    private TopicDataPeeker buildPeeker() {
+        return new TopicDataPeeker(environmentId -> "test".equals(environmentId) ? () -> {
+            consumersCreated.incrementAndGet();
+            return consumer;
+        } : null, config);
+    }
+
+    private void addRecords(int count, int valueSize) {
+        consumer.schedulePollTask(() -> {
+            for (int i = 0; i < count; i++) {
+                consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, i, 0L, TimestampType.CREATE_TIME, 0, valueSize, null,
+                        "x".repeat(valueSize), new RecordHeaders(), Optional.empty()));
+            }
+        });
+    }
+
+}
@@ -3,6 +3,7 @@ package com.hermesworld.ais.galapagos.kafka.util;
 import com.hermesworld.ais.galapagos.applications.ApplicationMetadata;
 import com.hermesworld.ais.galapagos.kafka.config.DefaultAclConfig;
 import com.hermesworld.ais.galapagos.kafka.config.KafkaEnvironmentsConfig;
+import com.hermesworld.ais.galapagos.kafka.impl.TopicBasedRepositoryMock;
 import com.hermesworld.ais.galapagos.subscriptions.SubscriptionMetadata;
 import com.hermesworld.ais.galapagos.subscriptions.service.SubscriptionService;
 import com.hermesworld.ais.galapagos.topics.TopicMetadata;
@@ -26,7 +27,7 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class AclSupportTest {
@@ -79,7 +80,7 @@ class AclSupportTest {
         sub.setClientApplicationId("app01");
         sub.setTopicName("topic2");
 
-        when(topicService.listTopics("_test")).thenReturn(List.of(topic1, topic2));
+        when(topicService.listTopicsWithProducerAccess("_test", "app01")).thenReturn(List.of(topic1));
         when(topicService.getTopic("_test", "topic2")).thenReturn(Optional.of(topic2));
         when(subscriptionService.getSubscriptionsOfApplication("_test", "app01", false)).thenReturn(List.of(sub));
 
@@ -147,7 +148,7 @@ class AclSupportTest {
         topic.setType(TopicType.INTERNAL);
         topic.setOwnerApplicationId("app-1");
 
-        when(topicService.listTopics("_test")).thenReturn(List.of(topic));
+        when(topicService.listTopicsWithProducerAccess("_test", "app-1")).thenReturn(List.of(topic));
 
         AclSupport aclSupport = new AclSupport(kafkaConfig, topicService, subscriptionService);
         Collection<AclBinding> bindings = aclSupport.getRequiredAclBindings("_test", app1, "User:CN=testapp", false);
@@ -170,7 +171,7 @@ class AclSupportTest {
         topic.setOwnerApplicationId("app-1");
         topic.setProducers(List.of("producer1"));
 
-        when(topicService.listTopics("_test")).thenReturn(List.of(topic));
+        when(topicService.listTopicsWithProducerAccess("_test", "producer1")).thenReturn(List.of(topic));
 
         AclSupport aclSupport = new AclSupport(kafkaConfig, topicService, subscriptionService);
         Collection<AclBinding> bindings = aclSupport.getRequiredAclBindings("_test", producer1, "User:CN=producer1",
@@ -239,7 +240,7 @@ class AclSupportTest {
         sub.setClientApplicationId("app01");
         sub.setTopicName("topic2");
 
-        when(topicService.listTopics("_test")).thenReturn(List.of(topic1, topic2));
+        when(topicService.listTopicsWithProducerAccess("_test", "app01")).thenReturn(List.of(topic1));
         when(topicService.getTopic("_test", "topic2")).thenReturn(Optional.of(topic2));
         when(subscriptionService.getSubscriptionsOfApplication("_test", "app01", false)).thenReturn(List.of(sub));
 
@@ -285,6 +286,58 @@ class AclSupportTest {
         }
     }
 
+    @Test
+    void testTopicAclsCachedAndInvalidatedByRepositoryChanges() {
+        ApplicationMetadata app1 = new ApplicationMetadata();
+        app1.setApplicationId("app01");
+
+        TopicBasedRepositoryMock<TopicMetadata> topicRepository = new TopicBasedRepositoryMock<>();
+        TopicBasedRepositoryMock<SubscriptionMetadata> subscriptionRepository = new TopicBasedRepositoryMock<>();
+        when(topicService.getTopicChanges("_test", false)).thenReturn(Optional.of(topicRepository.getChanges(false)));
+        when(subscriptionService.getSubscriptionChanges("_test", true))
+                .thenReturn(Optional.of(subscriptionRepository.getChanges(true)));
+
+        TopicMetadata topic1 = new TopicMetadata();
+        topic1.setName("topic1");
+        topic1.setType(TopicType.EVENTS);
+        topic1.setOwnerApplicationId("app01");
+        TopicMetadata topic2 = new TopicMetadata();
+        topic2.setName("topic2");
+        topic2.setType(TopicType.EVENTS);
+        topic2.setOwnerApplicationId("app02");
+
+        SubscriptionMetadata sub = new SubscriptionMetadata();
+        sub.setId("1");
+        sub.setClientApplicationId("app01");
+        sub.setTopicName("topic2");
+
+        when(topicService.listTopicsWithProducerAccess("_test", "app01")).thenReturn(List.of(topic1));
+        when(topicService.getTopic("_test", "topic2")).thenReturn(Optional.of(topic2));
+        when(subscriptionService.getSubscriptionsOfApplication("_test", "app01", false)).thenReturn(List.of())
+                .thenReturn(List.of(sub));
+
+        AclSupport aclSupport = new AclSupport(kafkaConfig, topicService, subscriptionService);
+
+        assertEquals(2, aclSupport.getRequiredAclBindings("_test", app1, "User:CN=testapp", false).size());
+        assertEquals(2, aclSupport.getRequiredAclBindings("_test", app1, "User:CN=otherapp", false).size());
+        verify(topicService, times(1)).listTopicsWithProducerAccess("_test", "app01");
+
+        // a change of an unrelated topic must not invalidate the cached ACLs
+        topicRepository.save(topic2).join();
+        aclSupport.getRequiredAclBindings("_test", app1, "User:CN=testapp", false);
+        verify(topicService, times(1)).listTopicsWithProducerAccess("_test", "app01");
+
+        // a new subscription of the application must invalidate them
+        subscriptionRepository.save(sub).join();
+        assertEquals(4, aclSupport.getRequiredAclBindings("_test", app1, "User:CN=testapp", false).size());
+        verify(topicService, times(2)).listTopicsWithProducerAccess("_test", "app01");
+
+        // as must a change of the subscribed topic
+        topicRepository.save(topic2).join();
+        aclSupport.getRequiredAclBindings("_test", app1, "User:CN=testapp", false);
+        verify(topicService, times(3)).listTopicsWithProducerAccess("_test", "app01");
+    }
+
     @Test
     void testSimplify() {
         AclSupport support = new AclSupport(kafkaConfig, topicService, subscriptionService);
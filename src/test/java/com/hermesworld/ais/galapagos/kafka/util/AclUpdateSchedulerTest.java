@@ -0,0 +1,170 @@
+package com.hermesworld.ais.galapagos.kafka.util;
+
+import com.hermesworld.ais.galapagos.kafka.KafkaCluster;
+import com.hermesworld.ais.galapagos.kafka.KafkaUser;
+import com.hermesworld.ais.galapagos.security.impl.KafkaExecutorFactoryImpl;
+import com.hermesworld.ais.galapagos.security.impl.KafkaExecutorFactoryImpl.DecouplingMode;
+import com.hermesworld.ais.galapagos.util.FutureUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.acl.AclBinding;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AclUpdateSchedulerTest {
+
+    @Mock
+    private KafkaCluster cluster;
+
+    @BeforeEach
+    void initMocks() {
+        when(cluster.getId()).thenReturn("test");
+    }
+
+    @Test
+    void testUpdatesWithinWindowAreCoalesced() throws Exception {
+        when(cluster.updateUserAcls(any())).thenReturn(FutureUtil.noop());
+        AclUpdateScheduler scheduler = new AclUpdateScheduler(Executors::newSingleThreadExecutor,
+                Duration.ofMillis(200));
+
+        KafkaUser latestUser1 = user("User:CN=app1");
+        KafkaUser user2 = user("User:CN=app2");
+        CompletableFuture<Void> f1 = scheduler.scheduleUpdate(cluster, user("User:CN=app1"));
+        CompletableFuture<Void> f2 = scheduler.scheduleUpdate(cluster, user2);
+        CompletableFuture<Void> f3 = scheduler.scheduleUpdate(cluster, latestUser1);
+
+        CompletableFuture.allOf(f1, f2, f3).get(5, TimeUnit.SECONDS);
+
+        // few users are updated with filtered requests, instead of reading all ACLs of the cluster
+        verify(cluster, times(2)).updateUserAcls(any());
+        verify(cluster).updateUserAcls(latestUser1);
+        verify(cluster).updateUserAcls(user2);
+        verify(cluster, times(0)).reconcileUserAcls(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testManyUsersAreReconciled() throws Exception {
+        when(cluster.reconcileUserAcls(any())).thenReturn(FutureUtil.noop());
+        AclUpdateScheduler scheduler = new AclUpdateScheduler(Executors::newSingleThreadExecutor,
+                Duration.ofMillis(200));
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < AclUpdateScheduler.FULL_RECONCILIATION_MIN_USERS; i++) {
+            futures.add(scheduler.scheduleUpdate(cluster, user("User:CN=app" + i)));
+        }
+
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+        ArgumentCaptor<Collection<KafkaUser>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(cluster, times(1)).reconcileUserAcls(captor.capture());
+        verify(cluster, times(0)).updateUserAcls(any());
+        assertEquals(AclUpdateScheduler.FULL_RECONCILIATION_MIN_USERS,
+                captor.getValue().stream().map(KafkaUser::getKafkaUserName).collect(Collectors.toSet()).size());
+    }
+
+    @Test
+    void testSingleUserUpdatedDirectly() throws Exception {
+        when(cluster.updateUserAcls(any())).thenReturn(FutureUtil.noop());
+        AclUpdateScheduler scheduler = new AclUpdateScheduler(Executors::newSingleThreadExecutor, Duration.ZERO);
+
+        KafkaUser user = user("User:CN=app1");
+        scheduler.scheduleUpdate(cluster, user).get(5, TimeUnit.SECONDS);
+
+        verify(cluster, times(1)).updateUserAcls(user);
+        verify(cluster, times(0)).reconcileUserAcls(any());
+    }
+
+    @Test
+    void testUpdatesDuringRunningUpdateAreCollected() throws Exception {
+        CompletableFuture<Void> firstUpdate = new CompletableFuture<>();
+        when(cluster.updateUserAcls(any())).thenReturn(firstUpdate, FutureUtil.noop());
+        AclUpdateScheduler scheduler = new AclUpdateScheduler(Executors::newSingleThreadExecutor, Duration.ZERO);
+
+        CompletableFuture<Void> f1 = scheduler.scheduleUpdate(cluster, user("User:CN=app1"));
+        verify(cluster, timeout(5000)).updateUserAcls(any());
+
+        CompletableFuture<Void> f2 = scheduler.scheduleUpdate(cluster, user("User:CN=app1"));
+        CompletableFuture<Void> f3 = scheduler.scheduleUpdate(cluster, user("User:CN=app2"));
+        Thread.sleep(100);
+        verify(cluster, times(1)).updateUserAcls(any());
+        assertFalse(f2.isDone());
+
+        firstUpdate.complete(null);
+        CompletableFuture.allOf(f1, f2, f3).get(5, TimeUnit.SECONDS);
+        verify(cluster, times(3)).updateUserAcls(any());
+    }
+
+    @Test
+    void testFailurePropagated() {
+        when(cluster.updateUserAcls(any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("ACL update failed")));
+        AclUpdateScheduler scheduler = new AclUpdateScheduler(Executors::newSingleThreadExecutor,
+                Duration.ofMillis(100));
+
+        CompletableFuture<Void> f1 = scheduler.scheduleUpdate(cluster, user("User:CN=app1"));
+        CompletableFuture<Void> f2 = scheduler.scheduleUpdate(cluster, user("User:CN=app2"));
+
+        for (CompletableFuture<Void> future : List.of(f1, f2)) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void testSecurityContextPropagated() throws Exception {
+        when(cluster.updateUserAcls(any())).thenReturn(FutureUtil.noop());
+        KafkaExecutorFactoryImpl executorFactory = new KafkaExecutorFactoryImpl(new SimpleMeterRegistry(),
+                DecouplingMode.SHARED_POOL, 1);
+        AclUpdateScheduler scheduler = new AclUpdateScheduler(executorFactory, Duration.ofMillis(100));
+
+        Authentication authentication = new TestingAuthenticationToken("user1", null);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        try {
+            // e.g. event listeners of a staging rely on the current user after the ACL update
+            CompletableFuture<Authentication> continuation = scheduler.scheduleUpdate(cluster, user("User:CN=app1"))
+                    .thenApply(o -> SecurityContextHolder.getContext().getAuthentication());
+            assertSame(authentication, continuation.get(5, TimeUnit.SECONDS));
+        }
+        finally {
+            SecurityContextHolder.clearContext();
+            executorFactory.destroy();
+        }
+    }
+
+    private static KafkaUser user(String userName) {
+        return new KafkaUser() {
+            @Override
+            public String getKafkaUserName() {
+                return userName;
+            }
+
+            @Override
+            public Collection<AclBinding> getRequiredAclBindings() {
+                return List.of();
+            }
+        };
+    }
+
+}
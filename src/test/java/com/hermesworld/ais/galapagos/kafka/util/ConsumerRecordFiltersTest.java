@@ -0,0 +1,68 @@
+package com.hermesworld.ais.galapagos.kafka.util;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsumerRecordFiltersTest {
+
+    @Test
+    void testKeyContains() {
+        Predicate<ConsumerRecord<String, String>> filter = ConsumerRecordFilters.keyContains("123");
+
+        assertTrue(filter.test(record("order-1234", "{}")));
+        assertFalse(filter.test(record("order-999", "{}")));
+        assertFalse(filter.test(record(null, "{}")));
+    }
+
+    @Test
+    void testHasHeader() {
+        ConsumerRecord<String, String> record = record("k", "{}");
+        record.headers().add("source", "shop".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(ConsumerRecordFilters.hasHeader("source", null).test(record));
+        assertTrue(ConsumerRecordFilters.hasHeader("source", "shop").test(record));
+        assertFalse(ConsumerRecordFilters.hasHeader("source", "erp").test(record));
+        assertFalse(ConsumerRecordFilters.hasHeader("target", null).test(record));
+    }
+
+    @Test
+    void testJsonPointerEquals() {
+        Predicate<ConsumerRecord<String, String>> filter = ConsumerRecordFilters.jsonPointerEquals("/customer/id",
+                "42");
+
+        assertTrue(filter.test(record("k", "{\"customer\":{\"id\":42}}")));
+        assertTrue(filter.test(record("k", "{\"customer\":{\"id\":\"42\"}}")));
+        assertFalse(filter.test(record("k", "{\"customer\":{\"id\":43}}")));
+        assertFalse(filter.test(record("k", "{\"customer\":{\"id\":{\"value\":42}}}")));
+        assertFalse(filter.test(record("k", "no JSON")));
+        assertFalse(filter.test(record("k", null)));
+    }
+
+    @Test
+    void testJsonPointerEquals_noValue() {
+        Predicate<ConsumerRecord<String, String>> filter = ConsumerRecordFilters.jsonPointerEquals("/customer/id",
+                null);
+
+        assertTrue(filter.test(record("k", "{\"customer\":{\"id\":42}}")));
+        assertTrue(filter.test(record("k", "{\"customer\":{\"id\":{\"value\":42}}}")));
+        assertTrue(filter.test(record("k", "{\"customer\":{\"id\":null}}")));
+        assertFalse(filter.test(record("k", "{\"customer\":{\"name\":\"Smith\"}}")));
+        assertFalse(filter.test(record("k", "no JSON")));
+        assertFalse(filter.test(record("k", null)));
+    }
+
+    @Test
+    void testJsonPointerEquals_invalidPointer() {
+        assertThrows(IllegalArgumentException.class, () -> ConsumerRecordFilters.jsonPointerEquals("customer", "42"));
+    }
+
+    private static ConsumerRecord<String, String> record(String key, String value) {
+        return new ConsumerRecord<>("topic1", 0, 0, key, value);
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.hermesworld.ais.galapagos.security.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KafkaExecutorFactoryImplTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private KafkaExecutorFactoryImpl factory;
+
+    @AfterEach
+    void cleanup() {
+        SecurityContextHolder.clearContext();
+        if (factory != null) {
+            factory.destroy();
+        }
+    }
+
+    @Test
+    void testSharedPool_propagatesSecurityContext() throws Exception {
+        factory = new KafkaExecutorFactoryImpl(meterRegistry, KafkaExecutorFactoryImpl.DecouplingMode.SHARED_POOL, 2);
+
+        Authentication auth = new TestingAuthenticationToken("user1", "pw");
+        SecurityContextHolder.getContext().setAuthentication(auth);
+
+        CompletableFuture<Authentication> seenAuth = new CompletableFuture<>();
+        factory.getDecouplingExecutor()
+                .execute(() -> seenAuth.complete(SecurityContextHolder.getContext().getAuthentication()));
+
+        assertSame(auth, seenAuth.get(5, TimeUnit.SECONDS));
+        assertEquals(1, meterRegistry.get("galapagos.kafka.decoupler.handoff").timer().count());
+        assertNotNull(meterRegistry.find("executor.queued").tag("name", "galapagos.kafka.decoupler").gauge());
+    }
+
+    @Test
+    void testSharedPool_reusesThreads() throws Exception {
+        factory = new KafkaExecutorFactoryImpl(meterRegistry, KafkaExecutorFactoryImpl.DecouplingMode.SHARED_POOL, 2);
+
+        Set<String> threadNames = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            CompletableFuture<String> threadName = new CompletableFuture<>();
+            factory.getDecouplingExecutor().execute(() -> threadName.complete(Thread.currentThread().getName()));
+            threadNames.add(threadName.get(5, TimeUnit.SECONDS));
+        }
+
+        assertTrue(threadNames.size() <= 2, "Too many Threads used: " + threadNames);
+        assertTrue(threadNames.stream().allMatch(name -> name.startsWith("galapagos-kafka-decoupler-")));
+    }
+
+    @Test
+    void testPerTask_noPoolMetrics() throws Exception {
+        factory = new KafkaExecutorFactoryImpl(meterRegistry, KafkaExecutorFactoryImpl.DecouplingMode.PER_TASK, 2);
+
+        CompletableFuture<Void> executed = new CompletableFuture<>();
+        factory.getDecouplingExecutor().execute(() -> executed.complete(null));
+        executed.get(5, TimeUnit.SECONDS);
+
+        assertNull(meterRegistry.find("galapagos.kafka.decoupler.handoff").timer());
+    }
+
+}
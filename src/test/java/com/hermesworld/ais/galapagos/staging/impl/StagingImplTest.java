@@ -17,6 +17,7 @@ import org.junit.jupiter.api.Test;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -188,8 +189,8 @@ class StagingImplTest {
         topic1.setType(TopicType.EVENTS);
 
         when(topicService.listTopics("dev")).thenReturn(List.of(topic1));
-        when(topicService.buildTopicCreateParams("dev", "topic-1"))
-                .thenReturn(CompletableFuture.completedFuture(new TopicCreateParams(2, 2)));
+        when(topicService.buildTopicCreateParams("dev", List.of("topic-1")))
+                .thenReturn(CompletableFuture.completedFuture(Map.of("topic-1", new TopicCreateParams(2, 2))));
 
         SchemaMetadata schema1 = new SchemaMetadata();
         schema1.setId("999");
@@ -0,0 +1,53 @@
+package com.hermesworld.ais.galapagos.topics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.hermesworld.ais.galapagos.util.JsonUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMetadataTest {
+
+    @Test
+    void testEqualSchemaTextsShared() throws Exception {
+        ObjectMapper mapper = JsonUtil.newObjectMapper();
+        String json = "{\"id\": \"%s\", \"topicName\": \"topic-1\", \"schemaVersion\": 1, "
+                + "\"jsonSchema\": \"{\\\"type\\\": \\\"object\\\"}\"}";
+
+        ObjectReader receivedReader = mapper.readerFor(SchemaMetadata.class).withAttribute(JsonUtil.INTERN_TEXTS,
+                Boolean.TRUE);
+
+        // e.g. the same schema version on two stages, received from two metadata topics
+        SchemaMetadata schema1 = receivedReader.readValue(String.format(json, "1"));
+        SchemaMetadata schema2 = receivedReader.readValue(String.format(json, "2"));
+
+        assertEquals("{\"type\": \"object\"}", schema1.getJsonSchema());
+        assertSame(schema1.getJsonSchema(), schema2.getJsonSchema());
+        assertSame(schema1.getJsonSchema(), new SchemaMetadata(schema2).getJsonSchema());
+    }
+
+    @Test
+    void testSchemaTextsNotInternedOnRead() throws Exception {
+        ObjectMapper mapper = JsonUtil.newObjectMapper();
+        String json = "{\"id\": \"1\", \"topicName\": \"topic-1\", \"schemaVersion\": 1, "
+                + "\"jsonSchema\": \"{\\\"type\\\": \\\"string\\\"}\"}";
+
+        SchemaMetadata schema1 = mapper.readValue(json, SchemaMetadata.class);
+        SchemaMetadata schema2 = mapper.readValue(json, SchemaMetadata.class);
+
+        assertEquals(schema1.getJsonSchema(), schema2.getJsonSchema());
+        assertNotSame(schema1.getJsonSchema(), schema2.getJsonSchema());
+    }
+
+    @Test
+    void testDifferentSchemaTextsNotShared() {
+        String text1 = SchemaTextInterner.intern("{\"type\": \"object\"}");
+        String text2 = SchemaTextInterner.intern("{\"type\": \"number\"}");
+
+        assertNotEquals(text1, text2);
+        assertSame(text1, SchemaTextInterner.intern(new String("{\"type\": \"object\"}")));
+        assertNull(SchemaTextInterner.intern(null));
+    }
+
+}
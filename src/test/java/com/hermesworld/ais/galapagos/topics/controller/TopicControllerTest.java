@@ -13,20 +13,25 @@ import com.hermesworld.ais.galapagos.topics.TopicType;
 import com.hermesworld.ais.galapagos.topics.config.GalapagosTopicConfig;
 import com.hermesworld.ais.galapagos.topics.service.ValidatingTopicService;
 import com.hermesworld.ais.galapagos.util.FutureUtil;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.*;
@@ -284,4 +289,22 @@ class TopicControllerTest {
         }
     }
 
+    @Test
+    @DisplayName("it should complete peek requests with 503 if reading is cancelled on server side")
+    void testPeekTopicData_cancelledOnServerSide() {
+        ValidatingTopicService topicService = mock(ValidatingTopicService.class);
+        CompletableFuture<List<ConsumerRecord<String, String>>> records = new CompletableFuture<>();
+        when(topicService.peekTopicData(eq("test"), eq("topic-1"), anyInt())).thenReturn(records);
+
+        TopicController controller = new TopicController(topicService, kafkaClusters, applicationsService,
+                namingService, userService);
+
+        DeferredResult<List<ConsumerRecordDto>> result = controller.peekTopicData("test", "topic-1");
+        records.cancel(false);
+
+        assertTrue(result.hasResult());
+        ResponseStatusException ex = assertInstanceOf(ResponseStatusException.class, result.getResult());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, ex.getStatusCode());
+    }
+
 }
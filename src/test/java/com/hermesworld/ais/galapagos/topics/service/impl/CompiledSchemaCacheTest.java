@@ -0,0 +1,103 @@
+package com.hermesworld.ais.galapagos.topics.service.impl;
+
+import com.hermesworld.ais.galapagos.topics.SchemaMetadata;
+import com.hermesworld.ais.galapagos.topics.config.GalapagosTopicConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.everit.json.schema.ObjectSchema;
+import org.json.JSONException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledSchemaCacheTest {
+
+    private static final String SCHEMA_1 = "{\"$schema\": \"http://json-schema.org/draft-07/schema#\", "
+            + "\"type\": \"object\", \"properties\": {\"a\": {\"type\": \"string\"}}}";
+
+    private static final String SCHEMA_2 = "{\"type\": \"object\", \"properties\": {\"b\": {\"type\": \"integer\"}}}";
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CompiledSchemaCache cache;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new CompiledSchemaCache(new GalapagosTopicConfig(), meterRegistry);
+    }
+
+    @Test
+    void testSchemaCompiledOnlyOnce() {
+        CompiledSchemaCache.CompiledSchema compiled = cache.getSchema(schema("1", SCHEMA_1));
+        assertInstanceOf(ObjectSchema.class, compiled.getSchema());
+        assertTrue(compiled.declaresMetaSchema());
+        assertFalse(cache.getSchema(schema("2", SCHEMA_2)).declaresMetaSchema());
+
+        assertSame(compiled, cache.getSchema(schema("1", SCHEMA_1)));
+        // same schema on another environment, with a different ID
+        assertSame(compiled, cache.getSchema(schema("3", SCHEMA_1)));
+
+        assertEquals(2, requests("hit"));
+        assertEquals(2, requests("miss"));
+        assertEquals(SCHEMA_1.length() + SCHEMA_2.length(), cache.getSize());
+    }
+
+    @Test
+    void testChangedSourceForSameId() {
+        CompiledSchemaCache.CompiledSchema compiled = cache.getSchema(schema("1", SCHEMA_1));
+        assertNotSame(compiled, cache.getSchema(schema("1", SCHEMA_2)));
+        assertEquals(0, requests("hit"));
+    }
+
+    @Test
+    void testEvictOnDeletion() {
+        cache.getSchema(schema("1", SCHEMA_1));
+        cache.getSchema(schema("2", SCHEMA_1));
+
+        cache.evict("1");
+        // still referenced by schema 2
+        assertEquals(SCHEMA_1.length(), cache.getSize());
+
+        cache.evict("2");
+        assertEquals(0, cache.getSize());
+        cache.getSchema(schema("1", SCHEMA_1));
+        assertEquals(3, requests("miss") + requests("hit"));
+        assertEquals(2, requests("miss"));
+    }
+
+    @Test
+    void testLeastRecentlyUsedEvicted() {
+        GalapagosTopicConfig config = new GalapagosTopicConfig();
+        config.getSchemas().setCompiledSchemaCacheSize(DataSize.ofBytes(SCHEMA_1.length() + SCHEMA_2.length() - 1));
+        cache = new CompiledSchemaCache(config, meterRegistry);
+
+        cache.getSchema(schema("1", SCHEMA_1));
+        cache.getSchema(schema("2", SCHEMA_2));
+        assertEquals(SCHEMA_2.length(), cache.getSize());
+
+        cache.getSchema(schema("2", SCHEMA_2));
+        cache.getSchema(schema("1", SCHEMA_1));
+        assertEquals(1, requests("hit"));
+        assertEquals(3, requests("miss"));
+    }
+
+    @Test
+    void testInvalidSchemaNotCached() {
+        assertThrows(JSONException.class, () -> cache.getSchema(schema("1", "{ invalid")));
+        assertEquals(0, cache.getSize());
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("galapagos.schemas.compiled.cache.requests").tag("result", result).counter().count();
+    }
+
+    private static SchemaMetadata schema(String id, String jsonSchema) {
+        SchemaMetadata schema = new SchemaMetadata();
+        schema.setId(id);
+        schema.setJsonSchema(jsonSchema);
+        return schema;
+    }
+
+}
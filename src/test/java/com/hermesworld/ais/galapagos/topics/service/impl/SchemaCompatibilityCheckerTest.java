@@ -0,0 +1,99 @@
+package com.hermesworld.ais.galapagos.topics.service.impl;
+
+import com.hermesworld.ais.galapagos.messages.MessagesServiceFactory;
+import com.hermesworld.ais.galapagos.schemas.IncompatibleSchemaException;
+import com.hermesworld.ais.galapagos.topics.SchemaMetadata;
+import com.hermesworld.ais.galapagos.topics.TopicMetadata;
+import com.hermesworld.ais.galapagos.topics.TopicType;
+import com.hermesworld.ais.galapagos.topics.config.GalapagosTopicConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.everit.json.schema.Schema;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaCompatibilityCheckerTest {
+
+    private static final String SCHEMA_STRING_PROP = "{\"$schema\": \"someUrl\", "
+            + "\"properties\": {\"a\": {\"type\": \"string\"}}}";
+
+    private static final String SCHEMA_NO_PROPS = "{\"$schema\": \"someUrl\", \"properties\": {}}";
+
+    private static final String SCHEMA_INTEGER_PROP = "{\"$schema\": \"someUrl\", "
+            + "\"properties\": {\"a\": {\"type\": \"integer\"}}}";
+
+    private GalapagosTopicConfig topicConfig;
+
+    private CompiledSchemaCache schemaCache;
+
+    private SchemaCompatibilityChecker checker;
+
+    private TopicMetadata topic;
+
+    @BeforeEach
+    void init() {
+        topicConfig = new GalapagosTopicConfig();
+        schemaCache = new CompiledSchemaCache(topicConfig, new SimpleMeterRegistry());
+        checker = new SchemaCompatibilityChecker(topicConfig, schemaCache, new MessagesServiceFactory());
+
+        topic = new TopicMetadata();
+        topic.setName("topic-1");
+        topic.setType(TopicType.EVENTS);
+    }
+
+    @AfterEach
+    void shutdown() {
+        checker.destroy();
+    }
+
+    @Test
+    void testSingleVersion() throws Exception {
+        // version 2 has removed property "a", so the new version may re-add it with a different type
+        checker.verifyCompatibility("test", topic, compile(SCHEMA_INTEGER_PROP), versions(SCHEMA_NO_PROPS));
+    }
+
+    @Test
+    void testOlderVersionIncompatible() {
+        IncompatibleSchemaException e = assertThrows(IncompatibleSchemaException.class,
+                () -> checker.verifyCompatibility("test", topic, compile(SCHEMA_INTEGER_PROP),
+                        versions(SCHEMA_STRING_PROP, SCHEMA_NO_PROPS, SCHEMA_NO_PROPS)));
+        assertTrue(e.getMessage().contains("1"), e.getMessage());
+        assertInstanceOf(IncompatibleSchemaException.class, e.getCause());
+    }
+
+    @Test
+    void testManyCompatibleVersions() throws Exception {
+        String[] sources = new String[60];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = "{\"$schema\": \"someUrl\", \"properties\": {\"a\": {\"type\": \"string\", \"description\": \"v"
+                    + i + "\"}}}";
+        }
+
+        checker.verifyCompatibility("test", topic, compile(SCHEMA_STRING_PROP), versions(sources));
+    }
+
+    private Schema compile(String source) {
+        SchemaMetadata schema = new SchemaMetadata();
+        schema.setJsonSchema(source);
+        return schemaCache.getSchema(schema).getSchema();
+    }
+
+    private static List<SchemaMetadata> versions(String... sources) {
+        List<SchemaMetadata> result = new ArrayList<>();
+        for (int i = 0; i < sources.length; i++) {
+            SchemaMetadata schema = new SchemaMetadata();
+            schema.setId("schema-" + (i + 1));
+            schema.setTopicName("topic-1");
+            schema.setSchemaVersion(i + 1);
+            schema.setJsonSchema(sources[i]);
+            result.add(schema);
+        }
+        return result;
+    }
+
+}
@@ -16,6 +16,7 @@ import com.hermesworld.ais.galapagos.topics.TopicType;
 import com.hermesworld.ais.galapagos.topics.config.GalapagosTopicConfig;
 import com.hermesworld.ais.galapagos.util.FutureUtil;
 import com.hermesworld.ais.galapagos.util.HasKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -60,6 +61,12 @@ class TopicServiceImplIntegrationTest {
 
     private final MessagesServiceFactory messagesServiceFactory = new MessagesServiceFactory();
 
+    private final CompiledSchemaCache schemaCache = new CompiledSchemaCache(new GalapagosTopicConfig(),
+            new SimpleMeterRegistry());
+
+    private final SchemaCompatibilityChecker compatibilityChecker = new SchemaCompatibilityChecker(
+            new GalapagosTopicConfig(), schemaCache, messagesServiceFactory);
+
     @Autowired
     private TestEventListener eventListener;
 
@@ -129,7 +136,8 @@ class TopicServiceImplIntegrationTest {
         topicRepository2.save(topic).get();
 
         TopicServiceImpl service = new TopicServiceImpl(clusters, applicationsService, namingService,
-                currentUserService, topicSettings, eventManager, messagesServiceFactory);
+                currentUserService, topicSettings, eventManager, messagesServiceFactory, schemaCache,
+                compatibilityChecker);
 
         SecurityContext securityContext = mock(SecurityContext.class);
         Authentication auth = mock(Authentication.class);
@@ -166,7 +174,8 @@ class TopicServiceImplIntegrationTest {
         topicRepository2.save(topic).get();
 
         TopicServiceImpl service = new TopicServiceImpl(clusters, applicationsService, namingService,
-                currentUserService, topicSettings, eventManager, messagesServiceFactory);
+                currentUserService, topicSettings, eventManager, messagesServiceFactory, schemaCache,
+                compatibilityChecker);
 
         SecurityContext securityContext = mock(SecurityContext.class);
         Authentication auth = mock(Authentication.class);
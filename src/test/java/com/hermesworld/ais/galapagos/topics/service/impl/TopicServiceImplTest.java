@@ -21,6 +21,7 @@ import com.hermesworld.ais.galapagos.topics.*;
 import com.hermesworld.ais.galapagos.topics.config.GalapagosTopicConfig;
 import com.hermesworld.ais.galapagos.topics.config.TopicSchemaConfig;
 import com.hermesworld.ais.galapagos.util.FutureUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -35,6 +36,7 @@ import java.time.LocalDate;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -57,6 +59,11 @@ class TopicServiceImplTest {
 
     private final MessagesServiceFactory messagesServiceFactory = new MessagesServiceFactory();
 
+    private final CompiledSchemaCache schemaCache = new CompiledSchemaCache(new GalapagosTopicConfig(),
+            new SimpleMeterRegistry());
+
+    private SchemaCompatibilityChecker compatibilityChecker;
+
     private KafkaCluster kafkaTestCluster;
 
     private TopicBasedRepositoryMock<TopicMetadata> topicRepository;
@@ -97,6 +104,7 @@ class TopicServiceImplTest {
         when(topicConfig.getStandardReplicationFactor()).thenReturn(2);
         when(topicConfig.getCriticalReplicationFactor()).thenReturn(4);
         when(topicConfig.getSchemas()).thenReturn(new TopicSchemaConfig());
+        compatibilityChecker = new SchemaCompatibilityChecker(topicConfig, schemaCache, messagesServiceFactory);
     }
 
     @Test
@@ -109,7 +117,7 @@ class TopicServiceImplTest {
         });
 
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -149,7 +157,7 @@ class TopicServiceImplTest {
         });
 
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -177,7 +185,7 @@ class TopicServiceImplTest {
         });
 
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -209,7 +217,7 @@ class TopicServiceImplTest {
         });
 
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -238,7 +246,7 @@ class TopicServiceImplTest {
         });
 
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -268,7 +276,7 @@ class TopicServiceImplTest {
         doThrow(new InvalidTopicNameException("Invalid!")).when(namingService).validateTopicName(any(), any(), any());
 
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -291,7 +299,7 @@ class TopicServiceImplTest {
     @DisplayName("should add producer to topic")
     void addTopicProducerTest_positive() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -308,11 +316,41 @@ class TopicServiceImplTest {
 
     }
 
+    @Test
+    @DisplayName("should list topics owned by or produced to by application")
+    void listTopicsWithProducerAccessTest() throws Exception {
+        TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
+
+        TopicMetadata topic1 = new TopicMetadata();
+        topic1.setName("topic-1");
+        topic1.setOwnerApplicationId("app-1");
+        topic1.setType(TopicType.EVENTS);
+        topicRepository.save(topic1).get();
+        TopicMetadata topic2 = new TopicMetadata();
+        topic2.setName("topic-2");
+        topic2.setOwnerApplicationId("app-2");
+        topic2.setType(TopicType.EVENTS);
+        topic2.setProducers(List.of("app-1"));
+        topicRepository.save(topic2).get();
+        TopicMetadata topic3 = new TopicMetadata();
+        topic3.setName("topic-3");
+        topic3.setOwnerApplicationId("app-2");
+        topic3.setType(TopicType.EVENTS);
+        topicRepository.save(topic3).get();
+
+        assertEquals(Set.of("topic-1", "topic-2"), service.listTopicsWithProducerAccess("test", "app-1").stream()
+                .map(TopicMetadata::getName).collect(Collectors.toSet()));
+        assertEquals(Set.of("topic-2", "topic-3"), service.listTopicsWithProducerAccess("test", "app-2").stream()
+                .map(TopicMetadata::getName).collect(Collectors.toSet()));
+        assertTrue(service.listTopicsWithProducerAccess("test", "app-3").isEmpty());
+    }
+
     @Test
     @DisplayName("should fail adding a producer to commands topic")
     void addTopicProducerTest_negative() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -334,7 +372,7 @@ class TopicServiceImplTest {
     @DisplayName("should delete producer from topic")
     void deleteTopicProducersTest_positive() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -356,7 +394,7 @@ class TopicServiceImplTest {
     @DisplayName("should not be able to delete producer from commands topic")
     void deleteTopicProducersTest_negative() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -382,7 +420,7 @@ class TopicServiceImplTest {
     @DisplayName("should promote a producer to new Topic owner")
     void changeOwnerOfTopicTest_positive() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -405,7 +443,7 @@ class TopicServiceImplTest {
     @DisplayName("should not promote a producer to new Topic owner for internal topics")
     void changeOwnerOfTopicTest_negative() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -428,7 +466,7 @@ class TopicServiceImplTest {
     @Test
     void testDeleteLatestSchemaVersion() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -461,7 +499,7 @@ class TopicServiceImplTest {
     @Test
     void testDeleteLatestSchemaVersionStaged_negative() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
         KafkaCluster prodCluster = mock(KafkaCluster.class);
         when(kafkaClusters.getEnvironment("prod")).thenReturn(Optional.of(prodCluster));
         when(kafkaClusters.getEnvironmentIds()).thenReturn(List.of("test", "prod"));
@@ -503,7 +541,7 @@ class TopicServiceImplTest {
     @Test
     void testDeleteLatestSchemaVersionWithSubscriber_negative() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -546,7 +584,7 @@ class TopicServiceImplTest {
     @Test
     void testAddSchemaVersion_sameSchema() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -578,7 +616,7 @@ class TopicServiceImplTest {
     @Test
     void testAddSchemaVersion_incompatibleSchema() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -607,11 +645,54 @@ class TopicServiceImplTest {
         }
     }
 
+    @Test
+    void testAddSchemaVersion_checksVersionsOfCompatibilityMode() throws Exception {
+        SchemaCompatibilityChecker checker = spy(compatibilityChecker);
+        List<List<Integer>> checkedVersions = new ArrayList<>();
+        doAnswer(inv -> {
+            List<SchemaMetadata> versions = inv.getArgument(3);
+            checkedVersions.add(versions.stream().map(SchemaMetadata::getSchemaVersion).collect(Collectors.toList()));
+            return null;
+        }).when(checker).verifyCompatibility(any(), any(), any(), any());
+
+        TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, checker);
+
+        TopicMetadata topic1 = new TopicMetadata();
+        topic1.setName("topic-1");
+        topic1.setOwnerApplicationId("app-1");
+        topic1.setType(TopicType.EVENTS);
+        topicRepository.save(topic1).get();
+
+        for (int i = 1; i <= 4; i++) {
+            SchemaMetadata schema = new SchemaMetadata();
+            schema.setId("schema-" + i);
+            schema.setTopicName("topic-1");
+            schema.setJsonSchema(buildJsonSchema(List.of("prop" + i), List.of("string")));
+            schema.setSchemaVersion(i);
+            schemaRepository.save(schema).get();
+        }
+
+        service.addTopicSchemaVersion("test", "topic-1", buildJsonSchema(List.of("prop5"), List.of("string")),
+                "change 5", SchemaCompatCheckMode.CHECK_SCHEMA).get();
+
+        topicConfig.getSchemas().setCompatibilityMode(TopicSchemaConfig.CompatibilityMode.TRANSITIVE);
+        topicConfig.getSchemas().setTransitiveCompatibilityMaxVersions(2);
+        service.addTopicSchemaVersion("test", "topic-1", buildJsonSchema(List.of("prop6"), List.of("string")),
+                "change 6", SchemaCompatCheckMode.CHECK_SCHEMA).get();
+
+        topicConfig.getSchemas().setTransitiveCompatibilityMaxVersions(0);
+        service.addTopicSchemaVersion("test", "topic-1", buildJsonSchema(List.of("prop7"), List.of("string")),
+                "change 7", SchemaCompatCheckMode.CHECK_SCHEMA).get();
+
+        assertEquals(List.of(List.of(4), List.of(4, 5), List.of(1, 2, 3, 4, 5, 6)), checkedVersions);
+    }
+
     @Test
     @DisplayName("should not to check for compatibility if skipCompatCheck is set to true")
     void testAddSchemaVersion_skipCompatibleSchemaCheckForAdmins() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -633,7 +714,7 @@ class TopicServiceImplTest {
     @Test
     void testAddSchemaVersion_withMetadata() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -670,7 +751,7 @@ class TopicServiceImplTest {
     @Test
     void testAddSchemaVersion_withMetadata_illegalVersionNo_empty() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -698,7 +779,7 @@ class TopicServiceImplTest {
     @Test
     void testAddSchemaVersion_withMetadata_illegalVersionNo_notMatching() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -735,7 +816,7 @@ class TopicServiceImplTest {
     @Test
     void testAddSchemaVersion_invalidSchema() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -757,7 +838,7 @@ class TopicServiceImplTest {
     @Test
     void testAddSchemaVersion_invalidJson() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -778,7 +859,7 @@ class TopicServiceImplTest {
     @Test
     void testAddSchemaVersion_DataObjectSimpleAtJSONSchema() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -804,7 +885,7 @@ class TopicServiceImplTest {
     @Test
     void testAddSchemaVersion_DataObjectNestedAtJSONSchema() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -824,7 +905,7 @@ class TopicServiceImplTest {
     @Test
     void testAddSchemaVersion_NoSchemaProp() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -850,7 +931,7 @@ class TopicServiceImplTest {
     @Test
     void testSetSubscriptionApprovalRequired_positive() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -881,7 +962,7 @@ class TopicServiceImplTest {
     @Test
     void testSetSubscriptionApprovalRequired_internalTopic() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -904,7 +985,7 @@ class TopicServiceImplTest {
     @Test
     void testSetSubscriptionApprovalRequired_noop() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -922,7 +1003,7 @@ class TopicServiceImplTest {
     @DisplayName("should stage new owner on all stages immediately")
     void testChangeOwnerStaging() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
         KafkaCluster testCluster2 = mock(KafkaCluster.class);
         when(testCluster2.getId()).thenReturn("test2");
 
@@ -979,7 +1060,7 @@ class TopicServiceImplTest {
         topicRepository2.save(topic).get();
 
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         service.markTopicDeprecated("topic-1", "Because test", LocalDate.of(2020, 10, 1)).get();
 
@@ -1016,7 +1097,7 @@ class TopicServiceImplTest {
         topicRepository2.save(topic).get();
 
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         try {
             service.markTopicDeprecated("topic-2", "Because test", LocalDate.of(2020, 10, 1)).get();
@@ -1051,7 +1132,7 @@ class TopicServiceImplTest {
         topicRepository.save(topic).get();
 
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         service.unmarkTopicDeprecated("topic-1").get();
 
@@ -1069,7 +1150,7 @@ class TopicServiceImplTest {
         topicRepository.save(topic).get();
 
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         service.updateTopicDescription("test", "topic-1", "this topic is now a nice one :)").get();
         TopicMetadata savedTopic = topicRepository.getObject("topic-1").get();
@@ -1078,10 +1159,48 @@ class TopicServiceImplTest {
 
     }
 
+    @Test
+    void testNoWritesWhileEnvironmentLoading() throws Exception {
+        TopicMetadata topic = new TopicMetadata();
+        topic.setName("topic-1");
+        topic.setDescription("Desc");
+        topic.setOwnerApplicationId("app-1");
+        topic.setType(TopicType.EVENTS);
+        topicRepository.save(topic).get();
+
+        when(kafkaTestCluster.isLoadingRepositories()).thenReturn(true);
+        when(kafkaClusters.getEnvironmentIds()).thenReturn(List.of("test"));
+
+        TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
+
+        TopicMetadata topic2 = new TopicMetadata(topic);
+        topic2.setName("topic-2");
+
+        List<CompletableFuture<?>> writes = List.of(service.createTopic("test", topic2, 1, Map.of()),
+                service.updateTopicDescription("test", "topic-1", "New desc"),
+                service.markTopicDeprecated("topic-1", "Deprecated", LocalDate.of(2099, 1, 1)));
+
+        for (CompletableFuture<?> write : writes) {
+            try {
+                write.get();
+                fail("Expected exception when writing to an environment which is still loading");
+            }
+            catch (ExecutionException e) {
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+            }
+        }
+
+        verify(kafkaTestCluster, times(0)).createTopic(any(), any());
+        assertEquals("Desc", topicRepository.getObject("topic-1").get().getDescription());
+        assertFalse(topicRepository.getObject("topic-1").get().isDeprecated());
+        assertTrue(eventManager.getSinkInvocations().isEmpty());
+    }
+
     @Test
     void testAddSchemaVersion_DataObjectNestedAtJSONSchemaAndDataTopic() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -1101,7 +1220,7 @@ class TopicServiceImplTest {
     @Test
     void testAddSchemaVersion_WithChangeDesc() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -1137,7 +1256,7 @@ class TopicServiceImplTest {
     @Test
     void testAddSchemaVersion_WithChangeDesc_negative() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -1166,7 +1285,7 @@ class TopicServiceImplTest {
     @Test
     void testDeleteSchemaWithSub_positive() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -1202,7 +1321,7 @@ class TopicServiceImplTest {
     @Test
     void testDeleteSchemaWithSub_negative() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
 
         TopicMetadata topic1 = new TopicMetadata();
         topic1.setName("topic-1");
@@ -1244,7 +1363,7 @@ class TopicServiceImplTest {
     @Test
     void testDeleteLatestSchemaVersionStagedSchemaDeleteSub_negative() throws Exception {
         TopicServiceImpl service = new TopicServiceImpl(kafkaClusters, applicationsService, namingService, userService,
-                topicConfig, eventManager, messagesServiceFactory);
+                topicConfig, eventManager, messagesServiceFactory, schemaCache, compatibilityChecker);
         SubscriptionService subscriptionService = mock(SubscriptionService.class);
 
         ValidatingTopicServiceImpl validatingService = new ValidatingTopicServiceImpl(service, subscriptionService,
@@ -0,0 +1,31 @@
+package com.hermesworld.ais.galapagos.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeakInternerTest {
+
+    @Test
+    void testEqualContentsInterned() {
+        WeakInterner<String> interner = new WeakInterner<>();
+        String text1 = new String("some text");
+        String text2 = new String("some text");
+
+        assertSame(text1, interner.intern(text1.getBytes(StandardCharsets.UTF_8), text1));
+        assertSame(text1, interner.intern(text2.getBytes(StandardCharsets.UTF_8), text2));
+    }
+
+    @Test
+    void testDifferentContentsNotInterned() {
+        WeakInterner<String> interner = new WeakInterner<>();
+        String text1 = "some text";
+        String text2 = "other text";
+
+        assertSame(text1, interner.intern(text1.getBytes(StandardCharsets.UTF_8), text1));
+        assertSame(text2, interner.intern(text2.getBytes(StandardCharsets.UTF_8), text2));
+    }
+
+}
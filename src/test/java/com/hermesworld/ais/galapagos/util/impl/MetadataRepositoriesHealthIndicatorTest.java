@@ -0,0 +1,84 @@
+package com.hermesworld.ais.galapagos.util.impl;
+
+import com.hermesworld.ais.galapagos.kafka.KafkaCluster;
+import com.hermesworld.ais.galapagos.kafka.KafkaClusters;
+import com.hermesworld.ais.galapagos.kafka.util.TopicBasedRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MetadataRepositoriesHealthIndicatorTest {
+
+    private KafkaClusters kafkaClusters;
+
+    private TopicBasedRepository<?> prodRepository;
+
+    private TopicBasedRepository<?> devRepository;
+
+    @BeforeEach
+    void init() {
+        kafkaClusters = mock(KafkaClusters.class);
+        prodRepository = mockRepository("galapagos.internal.topics");
+        devRepository = mockRepository("galapagos.internal.topics");
+
+        KafkaCluster prod = mockCluster("prod", prodRepository);
+        KafkaCluster dev = mockCluster("dev", devRepository);
+
+        when(kafkaClusters.getEnvironments()).thenReturn(List.of(dev, prod));
+        when(kafkaClusters.getProductionEnvironmentId()).thenReturn("prod");
+    }
+
+    @Test
+    void testUpWhenAllLoaded() {
+        when(prodRepository.isFullyLoaded()).thenReturn(true);
+        when(devRepository.isFullyLoaded()).thenReturn(true);
+
+        Health health = new MetadataRepositoriesHealthIndicator(kafkaClusters).health();
+        assertEquals(Status.UP, health.getStatus());
+        assertTrue(health.getDetails().isEmpty());
+    }
+
+    @Test
+    void testUpWhileNonProductionEnvironmentLoading() {
+        when(prodRepository.isFullyLoaded()).thenReturn(true);
+        when(devRepository.isFullyLoaded()).thenReturn(false);
+
+        Health health = new MetadataRepositoriesHealthIndicator(kafkaClusters).health();
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(Map.of("dev", List.of("galapagos.internal.topics")),
+                health.getDetails().get("loadingRepositories"));
+    }
+
+    @Test
+    void testDownWhileProductionEnvironmentLoading() {
+        when(prodRepository.isFullyLoaded()).thenReturn(false);
+        when(devRepository.isFullyLoaded()).thenReturn(true);
+
+        Health health = new MetadataRepositoriesHealthIndicator(kafkaClusters).health();
+        assertEquals(Status.DOWN, health.getStatus());
+        assertEquals(Map.of("prod", List.of("galapagos.internal.topics")),
+                health.getDetails().get("loadingRepositories"));
+    }
+
+    private static TopicBasedRepository<?> mockRepository(String topicName) {
+        TopicBasedRepository<?> repository = mock(TopicBasedRepository.class);
+        when(repository.getTopicName()).thenReturn(topicName);
+        return repository;
+    }
+
+    private static KafkaCluster mockCluster(String id, TopicBasedRepository<?> repository) {
+        KafkaCluster cluster = mock(KafkaCluster.class);
+        when(cluster.getId()).thenReturn(id);
+        when(cluster.getRepositories()).thenReturn(List.of(repository));
+        return cluster;
+    }
+
+}